@@ -0,0 +1,179 @@
+package controller;
+
+import dao.PostgresDao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro dei blocchi temporanei dei posti creati da questa istanza dell'applicativo.
+ * <p>
+ * Il blocco vero e proprio è registrato nel database con la sua scadenza, così che sia rispettato
+ * dalle altre istanze e dalla funzione di prenotazione e che scada anche se l'applicativo termina.
+ * Il registro mantiene in una mappa concorrente i blocchi attivi, per rifiutare senza accedere al
+ * database i posti già bloccati da un altro utente della stessa istanza, e li rimuove alla scadenza
+ * tramite una {@link RuotaTemporale}, notificando chi ha creato il blocco.
+ */
+class BlocchiPosti {
+    /**
+     * Durata di un tick della ruota temporale in millisecondi: è la precisione delle scadenze locali.
+     */
+    private static final long TICK_MS = 250;
+
+    /**
+     * Numero di slot della ruota temporale.
+     */
+    private static final int SLOT = 512;
+
+    /**
+     * DAO su cui registrare i blocchi.
+     */
+    private final PostgresDao dao;
+
+    /**
+     * Durata di un blocco in secondi.
+     */
+    private final int durata;
+
+    /**
+     * Blocchi attivi, indicizzati per volo e posto.
+     */
+    private final ConcurrentMap<String, Blocco> blocchi = new ConcurrentHashMap<>();
+
+    /**
+     * Ruota temporale che rimuove i blocchi scaduti.
+     */
+    private final RuotaTemporale ruota = new RuotaTemporale("scadenza-blocchi-posti", TICK_MS, TimeUnit.MILLISECONDS, SLOT);
+
+    /**
+     * Costruttore del registro dei blocchi.
+     *
+     * @param dao    Il DAO su cui registrare i blocchi
+     * @param durata La durata di un blocco in secondi
+     */
+    BlocchiPosti(PostgresDao dao, int durata) {
+        this.dao = dao;
+        this.durata = durata;
+    }
+
+    /**
+     * Restituisce la durata di un blocco.
+     *
+     * @return La durata in secondi
+     */
+    int getDurata() {
+        return durata;
+    }
+
+    /**
+     * Blocca un posto per conto di un titolare, o ne rinnova il blocco se già suo.
+     * La scadenza locale precede di un tick quella registrata nel database, così che il titolare
+     * non consideri attivo un blocco già scaduto per gli altri.
+     *
+     * @param codiceVolo Il codice del volo
+     * @param posto      Il posto da bloccare
+     * @param titolare   Lo username del titolare
+     * @param suScadenza Azione eseguita sul thread della ruota se il blocco scade senza essere
+     *                   rilasciato o utilizzato; può essere null
+     * @return true se il posto è bloccato dal titolare, false se non disponibile
+     */
+    boolean blocca(String codiceVolo, String posto, String titolare, Runnable suScadenza) {
+        String chiave = chiave(codiceVolo, posto);
+        Blocco esistente = blocchi.get(chiave);
+        if (esistente != null && !esistente.titolare.equals(titolare)) {
+            return false;
+        }
+        if (!dao.bloccaPosto(codiceVolo, posto, titolare, durata)) {
+            return false;
+        }
+
+        Blocco blocco = new Blocco(titolare);
+        Blocco precedente = blocchi.put(chiave, blocco);
+        if (precedente != null) {
+            precedente.annulla();
+        }
+        blocco.scadenza = ruota.pianifica(TimeUnit.SECONDS.toMillis(durata) - TICK_MS, TimeUnit.MILLISECONDS, () -> {
+            if (blocchi.remove(chiave, blocco) && suScadenza != null) {
+                suScadenza.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Rilascia il blocco di un posto, se appartiene al titolare indicato.
+     *
+     * @param codiceVolo Il codice del volo
+     * @param posto      Il posto da rilasciare
+     * @param titolare   Lo username del titolare
+     * @return true se il blocco è stato rilasciato nel database, false altrimenti
+     */
+    boolean rilascia(String codiceVolo, String posto, String titolare) {
+        String chiave = chiave(codiceVolo, posto);
+        Blocco blocco = blocchi.get(chiave);
+        if (blocco != null && blocco.titolare.equals(titolare) && blocchi.remove(chiave, blocco)) {
+            blocco.annulla();
+        }
+        return dao.rilasciaPosto(codiceVolo, posto, titolare);
+    }
+
+    /**
+     * Rimuove il blocco di un posto appena prenotato: la funzione di prenotazione
+     * ha già eliminato il blocco dal database.
+     *
+     * @param codiceVolo Il codice del volo
+     * @param posto      Il posto prenotato
+     */
+    void utilizzato(String codiceVolo, String posto) {
+        Blocco blocco = blocchi.remove(chiave(codiceVolo, posto));
+        if (blocco != null) {
+            blocco.annulla();
+        }
+    }
+
+    /**
+     * Costruisce la chiave della mappa dei blocchi.
+     *
+     * @param codiceVolo Il codice del volo
+     * @param posto      Il posto
+     * @return La chiave
+     */
+    private static String chiave(String codiceVolo, String posto) {
+        return codiceVolo + '/' + posto;
+    }
+
+    /**
+     * Blocco attivo di un posto.
+     */
+    private static final class Blocco {
+        /**
+         * Username del titolare del blocco.
+         */
+        private final String titolare;
+
+        /**
+         * Scadenza pianificata sulla ruota temporale.
+         */
+        private volatile RuotaTemporale.Scadenza scadenza;
+
+        /**
+         * Costruttore del blocco.
+         *
+         * @param titolare Lo username del titolare
+         */
+        private Blocco(String titolare) {
+            this.titolare = titolare;
+        }
+
+        /**
+         * Annulla la scadenza del blocco, se già pianificata.
+         */
+        private void annulla() {
+            RuotaTemporale.Scadenza s = scadenza;
+            if (s != null) {
+                s.annulla();
+            }
+        }
+    }
+}
@@ -1,18 +1,101 @@
 package controller;
 
 import dao.PostgresDao;
+import database.AscoltatoreModifiche;
+import database.ConnessioneDatabase;
+import database.EventoModifica;
+import database.StatisticheCache;
 import implementazionePostgresDao.ImplementazionePostgresDao;
+import implementazionePostgresDao.PostgresDaoConCache;
 import model.*;
 
+import java.io.Reader;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Classe Controller che gestisce la logica dell'applicazione aeroportuale.
  * Funge da intermediario tra l'interfaccia utente e il livello di accesso ai dati.
  * Gestisce tutte le operazioni relative a voli, prenotazioni, bagagli, gate e utenti.
+ * <p>
+ * I metodi del controller sono sincroni: l'interfaccia grafica li invoca tramite
+ * {@link #esegui(Supplier)}, che li esegue su un pool di thread limitato e condiviso,
+ * così che le attese verso il database non blocchino il thread degli eventi di Swing.
  */
 public class Controller {
+    /**
+     * Numero di thread dedicati alle operazioni in background, configurabile con la proprietà
+     * di sistema {@code aeroporto.async.thread}.
+     */
+    private static final int THREAD_BACKGROUND = Integer.getInteger("aeroporto.async.thread", 4);
+
+    /**
+     * Numero massimo di operazioni in attesa di un thread libero.
+     */
+    private static final int CODA_BACKGROUND = Integer.getInteger("aeroporto.async.coda", 64);
+
+    /**
+     * Contatore utilizzato per numerare i thread in background.
+     */
+    private static final AtomicInteger NUMERO_THREAD = new AtomicInteger();
+
+    /**
+     * Pool di thread limitato, condiviso da tutti i controller, su cui vengono eseguite le operazioni in background.
+     * Quando la coda è piena le nuove operazioni vengono rifiutate invece di accumularsi.
+     */
+    private static final ThreadPoolExecutor ESECUTORE = new ThreadPoolExecutor(
+            THREAD_BACKGROUND, THREAD_BACKGROUND, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(CODA_BACKGROUND),
+            r -> {
+                Thread t = new Thread(r, "controller-background-" + NUMERO_THREAD.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    static {
+        ESECUTORE.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Generatore dei numeri di biglietto, condiviso da tutti i controller perché i blocchi
+     * di numeri riservati appartengono all'intera istanza dell'applicativo.
+     */
+    private static final GeneratoreNumeriBiglietto GENERATORE_BIGLIETTI =
+            new GeneratoreNumeriBiglietto(new ImplementazionePostgresDao());
+
+    /**
+     * DAO con cache in lettura, condiviso da tutti i controller così che le scritture di ciascuno
+     * invalidino le voci lette dagli altri.
+     */
+    private static final PostgresDaoConCache DAO_CONDIVISO = new PostgresDaoConCache(new ImplementazionePostgresDao());
+
+    /**
+     * Registro dei blocchi temporanei dei posti, condiviso da tutti i controller. La durata dei blocchi
+     * in secondi è configurabile con la proprietà di sistema {@code aeroporto.blocchiPosti.durata}.
+     */
+    private static final BlocchiPosti BLOCCHI_POSTI =
+            new BlocchiPosti(DAO_CONDIVISO, Integer.getInteger("aeroporto.blocchiPosti.durata", 120));
+
+    /**
+     * Avvio dell'ascolto delle modifiche, eseguito in background alla creazione del primo controller
+     * così che l'inizializzazione del database non blocchi il thread degli eventi di Swing.
+     * Le registrazioni degli ascoltatori vengono accodate al future, nell'ordine in cui sono richieste.
+     */
+    private static CompletableFuture<AscoltatoreModifiche> ascolto;
+
     /**
      * Riferimento all'oggetto DAO che gestisce l'accesso al database.
      */
@@ -20,10 +103,91 @@ public class Controller {
 
     /**
      * Costruttore della classe Controller.
-     * Inizializza il DAO per l'accesso al database.
+     * Utilizza il DAO con cache condiviso per l'accesso al database.
      */
     public Controller() {
-        this.dao = new ImplementazionePostgresDao();
+        this.dao = DAO_CONDIVISO;
+        avviaAscoltoModifiche();
+    }
+
+    /**
+     * Restituisce l'ascoltatore delle modifiche notificate dal database.
+     *
+     * @return L'ascoltatore, o null se le notifiche sono disattivate o il database non è raggiungibile
+     */
+    private static AscoltatoreModifiche ascoltatoreModifiche() {
+        try {
+            return ConnessioneDatabase.getInstance().getAscoltatoreModifiche();
+        } catch (SQLException e) {
+            System.err.println("Impossibile avviare l'ascolto delle modifiche: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Avvia, alla prima chiamata, l'ascolto delle modifiche su un thread dedicato e registra per primo
+     * il DAO con cache, così che le cache siano già aggiornate quando gli altri ascoltatori ricevono un evento.
+     *
+     * @return Il future che si completa con l'ascoltatore, o con null se le notifiche sono disattivate
+     *         o il database non è raggiungibile
+     */
+    private static synchronized CompletableFuture<AscoltatoreModifiche> avviaAscoltoModifiche() {
+        if (ascolto == null) {
+            ascolto = CompletableFuture.supplyAsync(() -> {
+                AscoltatoreModifiche ascoltatore = ascoltatoreModifiche();
+                if (ascoltatore != null) {
+                    ascoltatore.aggiungiAscoltatore(DAO_CONDIVISO::applica);
+                }
+                return ascoltatore;
+            }, avvio -> {
+                Thread thread = new Thread(avvio, "avvio-ascolto-modifiche");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return ascolto;
+    }
+
+    /**
+     * Esegue un'azione sull'ascoltatore delle modifiche in background, dopo le azioni richieste in precedenza.
+     *
+     * @param azione L'azione da eseguire, non eseguita se le notifiche sono disattivate o il database non è raggiungibile
+     */
+    private static synchronized void conAscoltatoreModifiche(Consumer<AscoltatoreModifiche> azione) {
+        ascolto = avviaAscoltoModifiche().thenApply(ascoltatore -> {
+            if (ascoltatore != null) {
+                azione.accept(ascoltatore);
+            }
+            return ascoltatore;
+        });
+    }
+
+    /**
+     * Registra un ascoltatore delle modifiche fatte da altre istanze dell'applicativo (e da questa).
+     * Le cache del controller sono già aggiornate quando l'ascoltatore riceve l'evento.
+     *
+     * @param ascoltatore Riceve gli eventi su un thread diverso da quello degli eventi di Swing
+     */
+    public void aggiungiAscoltatoreModifiche(Consumer<EventoModifica> ascoltatore) {
+        conAscoltatoreModifiche(ascoltatoreModifiche -> ascoltatoreModifiche.aggiungiAscoltatore(ascoltatore));
+    }
+
+    /**
+     * Rimuove un ascoltatore delle modifiche registrato in precedenza.
+     *
+     * @param ascoltatore L'ascoltatore da rimuovere
+     */
+    public void rimuoviAscoltatoreModifiche(Consumer<EventoModifica> ascoltatore) {
+        conAscoltatoreModifiche(ascoltatoreModifiche -> ascoltatoreModifiche.rimuoviAscoltatore(ascoltatore));
+    }
+
+    /**
+     * Restituisce le statistiche delle cache in lettura del DAO.
+     *
+     * @return Le statistiche di hit, miss ed eviction, indicizzate per nome della cache
+     */
+    public Map<String, StatisticheCache> getStatisticheCache() {
+        return DAO_CONDIVISO.getStatistiche();
     }
 
     /**
@@ -60,6 +224,38 @@ public class Controller {
         return dao.getAllVoli();
     }
 
+    /**
+     * Recupera i voli con i codici indicati.
+     *
+     * @param codici I codici dei voli
+     * @return I voli trovati, o null in caso di errore
+     */
+    public List<Volo> getVoliByCodici(Collection<String> codici) {
+        return dao.getVoliByCodici(codici);
+    }
+
+    /**
+     * Cerca i voli che soddisfano i criteri indicati, una pagina alla volta.
+     *
+     * @param criteri I criteri di ricerca
+     * @param pagina  Il cursore della pagina da leggere
+     * @return La pagina di voli trovati
+     */
+    public PaginaVoli cercaVoli(CriteriRicercaVoli criteri, CursoreVoli pagina) {
+        return dao.searchVoli(criteri, pagina);
+    }
+
+    /**
+     * Recupera le modifiche ai voli che soddisfano i criteri indicati avvenute dalla versione indicata.
+     *
+     * @param criteri  I criteri di ricerca
+     * @param versione La versione dei dati già letti
+     * @return Le modifiche con la nuova versione, o null in caso di errore
+     */
+    public Variazioni<Volo> cercaVoliModificati(CriteriRicercaVoli criteri, long versione) {
+        return dao.searchVoliModificati(criteri, versione);
+    }
+
     /**
      * Inserisce un nuovo volo nel sistema.
      *
@@ -70,6 +266,16 @@ public class Controller {
         return dao.insertVolo(volo);
     }
 
+    /**
+     * Importa un calendario di voli da un file CSV.
+     *
+     * @param csv Il contenuto del file CSV da importare
+     * @return L'esito dell'importazione, con il numero di voli creati e gli errori per record
+     */
+    public EsitoImportazione importaVoli(Reader csv) {
+        return dao.importVoli(csv);
+    }
+
     /**
      * Modifica i dati di un volo esistente.
      *
@@ -111,6 +317,17 @@ public class Controller {
         return dao.getPrenotazioniByVolo(volo);
     }
 
+    /**
+     * Recupera in una sola interrogazione il dettaglio di un volo: il volo, il gate assegnato,
+     * le prenotazioni con i relativi passeggeri e bagagli e la mappa dei posti.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @return Il dettaglio del volo, o null se il volo non esiste o in caso di errore
+     */
+    public DettaglioVolo getDettaglioVolo(String codiceVolo) {
+        return dao.getDettaglioVolo(codiceVolo);
+    }
+
     /**
      * Crea una nuova prenotazione nel sistema.
      *
@@ -123,6 +340,80 @@ public class Controller {
         return dao.insertPrenotazione(prenotazione, codiceVolo, utente);
     }
 
+    /**
+     * Registra una nuova prenotazione e restituisce gli identificativi generati dal database.
+     *
+     * @param prenotazione L'oggetto Prenotazione da inserire
+     * @param codiceVolo   Codice identificativo del volo associato alla prenotazione
+     * @param utente       L'utente che effettua la prenotazione
+     * @return L'esito della registrazione, con il motivo dell'eventuale fallimento
+     */
+    public EsitoPrenotazione prenota(Prenotazione prenotazione, String codiceVolo, Utente utente) {
+        EsitoPrenotazione esito = dao.prenota(prenotazione, codiceVolo, utente);
+        if (esito.isRiuscita()) {
+            BLOCCHI_POSTI.utilizzato(codiceVolo, esito.getPosto());
+        }
+        return esito;
+    }
+
+    /**
+     * Blocca temporaneamente un posto libero per l'utente durante la scelta del posto.
+     * Finché il blocco è attivo il posto non può essere bloccato né prenotato da altri utenti;
+     * selezionando di nuovo lo stesso posto il blocco viene rinnovato.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @param posto      Il posto da bloccare
+     * @param utente     L'utente che sta scegliendo il posto
+     * @param suScadenza Azione eseguita se il blocco scade prima della prenotazione, su un thread
+     *                   diverso da quello degli eventi di Swing; può essere null
+     * @return true se il posto è stato bloccato, false se è occupato o bloccato da un altro utente
+     */
+    public boolean bloccaPosto(String codiceVolo, String posto, Utente utente, Runnable suScadenza) {
+        return BLOCCHI_POSTI.blocca(codiceVolo, posto, utente.getLogin(), suScadenza);
+    }
+
+    /**
+     * Rilascia il blocco temporaneo di un posto dell'utente.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @param posto      Il posto da rilasciare
+     * @param utente     L'utente titolare del blocco
+     * @return true se il blocco è stato rilasciato, false se non esisteva o in caso di errore
+     */
+    public boolean rilasciaPosto(String codiceVolo, String posto, Utente utente) {
+        return BLOCCHI_POSTI.rilascia(codiceVolo, posto, utente.getLogin());
+    }
+
+    /**
+     * Restituisce la durata dei blocchi temporanei dei posti.
+     *
+     * @return La durata in secondi
+     */
+    public int getDurataBloccoPosto() {
+        return BLOCCHI_POSTI.getDurata();
+    }
+
+    /**
+     * Genera un nuovo numero di biglietto, unico anche tra più istanze dell'applicativo.
+     * Accede al database solo quando il blocco di numeri riservato è esaurito.
+     *
+     * @return Il numero di biglietto, o null se non è stato possibile generarlo
+     */
+    public String nuovoNumeroBiglietto() {
+        return GENERATORE_BIGLIETTI.nuovoNumeroBiglietto();
+    }
+
+    /**
+     * Restituisce il codice dell'n-esimo bagaglio di una prenotazione, derivato dal numero di biglietto.
+     *
+     * @param numeroBiglietto Il numero di biglietto della prenotazione
+     * @param progressivo     Il progressivo del bagaglio, a partire da 1
+     * @return Il codice del bagaglio
+     */
+    public String codiceBagaglio(String numeroBiglietto, int progressivo) {
+        return GeneratoreNumeriBiglietto.codiceBagaglio(numeroBiglietto, progressivo);
+    }
+
     /**
      * Aggiorna lo stato di una prenotazione esistente.
      *
@@ -143,6 +434,16 @@ public class Controller {
         return dao.getAllBagagli();
     }
 
+    /**
+     * Recupera le prenotazioni che hanno almeno un bagaglio smarrito, ciascuna con il passeggero
+     * e i soli bagagli smarriti.
+     *
+     * @return Lista delle prenotazioni con bagagli smarriti, o null in caso di errore
+     */
+    public List<Prenotazione> getPrenotazioniBagagliSmarriti() {
+        return dao.getPrenotazioniBagagliSmarriti();
+    }
+
     /**
      * Recupera tutti i bagagli associati a una prenotazione specifica.
      *
@@ -187,12 +488,34 @@ public class Controller {
     }
 
     /**
-     * Recupera tutti i posti disponibili per un volo specifico.
+     * Recupera le prenotazioni di un utente modificate dalla versione indicata.
+     *
+     * @param utente   L'utente di cui si vogliono recuperare le prenotazioni
+     * @param versione La versione dei dati già letti, o 0 per leggerle tutte
+     * @return Le modifiche con la nuova versione, o null in caso di errore
+     */
+    public Variazioni<Prenotazione> getPrenotazioniModificate(Utente utente, long versione) {
+        return dao.getPrenotazioniModificate(utente, versione);
+    }
+
+    /**
+     * Recupera in una sola interrogazione le prenotazioni di un utente con passeggeri e bagagli,
+     * insieme alla versione dei dati letti e ai bagagli indicizzati per codice.
+     *
+     * @param utente L'utente di cui si vogliono recuperare i dati
+     * @return I dati dell'utente, o null in caso di errore
+     */
+    public InstantaneaUtente getInstantaneaUtente(Utente utente) {
+        return dao.getInstantaneaUtente(utente);
+    }
+
+    /**
+     * Recupera la mappa dei posti di un volo specifico.
      *
      * @param coidceVolo Codice identificativo del volo
-     * @return Lista dei posti disponibili per il volo
+     * @return La mappa dei posti del volo
      */
-    public List<Posto> getPostiByVolo(String coidceVolo) {
+    public MappaPosti getPostiByVolo(String coidceVolo) {
         return dao.getPostiByVolo(coidceVolo);
     }
 
@@ -228,4 +551,40 @@ public class Controller {
     public boolean updatePassengerInfo(String numeroBiglietto, String nome, String cognome, String nDocumento) {
         return dao.updatePasseggeroInPrenotazione(numeroBiglietto, nome, cognome, nDocumento);
     }
+
+    /**
+     * Esegue un'operazione del controller in background sul pool di thread condiviso.
+     * <p>
+     * Il risultato viene consegnato tramite il CompletableFuture restituito, nel thread in background:
+     * l'interfaccia grafica deve riportarlo sul thread degli eventi prima di aggiornare i componenti.
+     * L'annullamento del future ({@code cancel}) interrompe il thread che esegue l'operazione,
+     * liberando subito le operazioni ancora in coda o in attesa di una connessione dal pool;
+     * una query già inviata al database viene completata ma il suo risultato viene scartato.
+     *
+     * @param operazione L'operazione da eseguire, tipicamente una chiamata a un metodo del controller
+     * @param <T>        Il tipo del risultato
+     * @return Il future che si completa con il risultato, con l'eccezione sollevata,
+     *         o con una RejectedExecutionException se troppe operazioni sono già in coda
+     */
+    public <T> CompletableFuture<T> esegui(Supplier<T> operazione) {
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+        try {
+            Future<?> esecuzione = ESECUTORE.submit(() -> {
+                try {
+                    risultato.complete(operazione.get());
+                } catch (Throwable e) {
+                    // Anche gli Error: altrimenti il future non si completerebbe mai
+                    risultato.completeExceptionally(e);
+                }
+            });
+            risultato.whenComplete((valore, errore) -> {
+                if (risultato.isCancelled()) {
+                    esecuzione.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            risultato.completeExceptionally(e);
+        }
+        return risultato;
+    }
 }
@@ -0,0 +1,83 @@
+package controller;
+
+import dao.PostgresDao;
+
+/**
+ * Generatore dei numeri di biglietto e dei codici bagaglio.
+ * <p>
+ * I numeri vengono allocati a blocchi dalla sequenza {@code numero_biglietto_seq} del database:
+ * ogni blocco di {@link #DIMENSIONE_BLOCCO} numeri è riservato in esclusiva a questa istanza
+ * dell'applicativo, quindi i numeri sono unici anche tra più istanze e più thread, e il database
+ * viene interrogato una sola volta ogni {@link #DIMENSIONE_BLOCCO} biglietti. I numeri di un blocco
+ * non utilizzati alla chiusura dell'applicativo vanno persi, senza conseguenze sull'unicità.
+ */
+class GeneratoreNumeriBiglietto {
+    /**
+     * Numero di biglietti riservati con ogni accesso alla sequenza.
+     * Deve coincidere con l'incremento di {@code numero_biglietto_seq} (migrazione V3).
+     */
+    static final int DIMENSIONE_BLOCCO = 1000;
+
+    /**
+     * Prefisso dei numeri di biglietto.
+     */
+    private static final String PREFISSO_BIGLIETTO = "TKT";
+
+    /**
+     * Prefisso dei codici bagaglio, seguito dal numero di biglietto.
+     */
+    private static final String PREFISSO_BAGAGLIO = "BAG";
+
+    /**
+     * DAO da cui riservare i blocchi di numeri.
+     */
+    private final PostgresDao dao;
+
+    /**
+     * Prossimo numero da assegnare nel blocco corrente.
+     */
+    private long prossimo;
+
+    /**
+     * Primo numero oltre la fine del blocco corrente.
+     */
+    private long limite;
+
+    /**
+     * Costruttore del generatore. Il primo blocco viene riservato alla prima richiesta.
+     *
+     * @param dao Il DAO da cui riservare i blocchi di numeri
+     */
+    GeneratoreNumeriBiglietto(PostgresDao dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Restituisce un nuovo numero di biglietto, mai assegnato in precedenza.
+     *
+     * @return Il numero di biglietto (es. TKT1000042), o null se non è stato possibile riservare un nuovo blocco
+     */
+    synchronized String nuovoNumeroBiglietto() {
+        if (prossimo >= limite) {
+            long inizio = dao.allocaBloccoNumeriBiglietto();
+            if (inizio < 0) {
+                return null;
+            }
+            prossimo = inizio;
+            limite = inizio + DIMENSIONE_BLOCCO;
+        }
+        return PREFISSO_BIGLIETTO + prossimo++;
+    }
+
+    /**
+     * Restituisce il codice dell'n-esimo bagaglio di un biglietto.
+     * Il codice è unico perché derivato dal numero di biglietto, a sua volta unico.
+     *
+     * @param numeroBiglietto Il numero di biglietto
+     * @param progressivo     Il progressivo del bagaglio nella prenotazione, a partire da 1
+     * @return Il codice del bagaglio (es. BAGTKT1000042-1)
+     */
+    static String codiceBagaglio(String numeroBiglietto, int progressivo) {
+        return PREFISSO_BAGAGLIO + numeroBiglietto + "-" + progressivo;
+    }
+}
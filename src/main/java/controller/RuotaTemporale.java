@@ -0,0 +1,180 @@
+package controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ruota temporale (hashed timer wheel) per eseguire azioni alla scadenza di un ritardo.
+ * <p>
+ * Il tempo è suddiviso in tick di durata fissa e le scadenze sono distribuite in un array circolare
+ * di slot; un unico thread avanza di uno slot a ogni tick ed esegue le scadenze raggiunte. Pianificare
+ * e annullare una scadenza costa O(1) indipendentemente dal numero di scadenze attive: le nuove
+ * scadenze vengono accodate in una coda lock-free e spostate nello slot dal thread della ruota,
+ * l'annullamento si limita a marcare la scadenza, che viene scartata quando lo slot viene visitato.
+ * La precisione è pari alla durata di un tick. Le azioni vengono eseguite sul thread della ruota
+ * e devono essere brevi.
+ */
+final class RuotaTemporale {
+    /**
+     * Durata di un tick in nanosecondi.
+     */
+    private final long durataTick;
+
+    /**
+     * Slot della ruota, visitati solo dal thread della ruota.
+     */
+    private final List<ArrayDeque<Scadenza>> slot;
+
+    /**
+     * Scadenze pianificate e non ancora assegnate a uno slot.
+     */
+    private final Queue<Scadenza> nuove = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Istante di avvio della ruota, riferimento per il calcolo dei tick.
+     */
+    private final long avvio = System.nanoTime();
+
+    /**
+     * Tick corrente, letto e scritto solo dal thread della ruota.
+     */
+    private long tick;
+
+    /**
+     * Costruttore della ruota temporale. Avvia il thread della ruota come thread daemon.
+     *
+     * @param nome       Il nome del thread della ruota
+     * @param durataTick La durata di un tick
+     * @param unita      L'unità di misura della durata del tick
+     * @param numeroSlot Il numero di slot della ruota
+     */
+    RuotaTemporale(String nome, long durataTick, TimeUnit unita, int numeroSlot) {
+        this.durataTick = unita.toNanos(durataTick);
+        this.slot = new ArrayList<>(numeroSlot);
+        for (int i = 0; i < numeroSlot; i++) {
+            slot.add(new ArrayDeque<>());
+        }
+        Thread thread = new Thread(this::gira, nome);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Pianifica l'esecuzione di un'azione dopo il ritardo indicato.
+     *
+     * @param ritardo Il ritardo
+     * @param unita   L'unità di misura del ritardo
+     * @param azione  L'azione da eseguire sul thread della ruota
+     * @return La scadenza, che può essere annullata
+     */
+    Scadenza pianifica(long ritardo, TimeUnit unita, Runnable azione) {
+        Scadenza scadenza = new Scadenza(System.nanoTime() + unita.toNanos(ritardo), azione);
+        nuove.add(scadenza);
+        return scadenza;
+    }
+
+    /**
+     * Ciclo del thread della ruota: attende l'inizio di ogni tick ed esegue le scadenze dello slot corrente.
+     */
+    private void gira() {
+        while (true) {
+            long attesa = avvio + (tick + 1) * durataTick - System.nanoTime();
+            while (attesa > 0) {
+                LockSupport.parkNanos(this, attesa);
+                attesa = avvio + (tick + 1) * durataTick - System.nanoTime();
+            }
+            assegnaNuove();
+            eseguiSlot(slot.get((int) (tick % slot.size())));
+            tick++;
+        }
+    }
+
+    /**
+     * Sposta le scadenze pianificate nello slot del tick in cui scadono.
+     * Le scadenze già passate vengono assegnate al tick corrente.
+     */
+    private void assegnaNuove() {
+        Scadenza scadenza;
+        while ((scadenza = nuove.poll()) != null) {
+            if (scadenza.annullata) {
+                continue;
+            }
+            long tickScadenza = Math.max((scadenza.istante - avvio) / durataTick, tick);
+            scadenza.giri = (tickScadenza - tick) / slot.size();
+            slot.get((int) (tickScadenza % slot.size())).add(scadenza);
+        }
+    }
+
+    /**
+     * Esegue le scadenze di uno slot che hanno completato i giri della ruota e scarta quelle annullate.
+     *
+     * @param scadenze Le scadenze dello slot corrente
+     */
+    private void eseguiSlot(ArrayDeque<Scadenza> scadenze) {
+        Iterator<Scadenza> it = scadenze.iterator();
+        while (it.hasNext()) {
+            Scadenza scadenza = it.next();
+            if (scadenza.annullata) {
+                it.remove();
+            } else if (scadenza.giri > 0) {
+                scadenza.giri--;
+            } else {
+                it.remove();
+                try {
+                    scadenza.azione.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Errore durante l'esecuzione di una scadenza: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Scadenza pianificata sulla ruota temporale.
+     */
+    static final class Scadenza {
+        /**
+         * Istante di scadenza, nella scala di {@link System#nanoTime()}.
+         */
+        private final long istante;
+
+        /**
+         * Azione da eseguire alla scadenza.
+         */
+        private final Runnable azione;
+
+        /**
+         * Giri completi della ruota che mancano alla scadenza, usato solo dal thread della ruota.
+         */
+        private long giri;
+
+        /**
+         * Flag che indica se la scadenza è stata annullata.
+         */
+        private volatile boolean annullata;
+
+        /**
+         * Costruttore della scadenza.
+         *
+         * @param istante L'istante di scadenza
+         * @param azione  L'azione da eseguire
+         */
+        private Scadenza(long istante, Runnable azione) {
+            this.istante = istante;
+            this.azione = azione;
+        }
+
+        /**
+         * Annulla la scadenza: l'azione non verrà eseguita se non è già in esecuzione.
+         */
+        void annulla() {
+            annullata = true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Componente che ricostruisce relazioni uno-a-molti a partire dalle righe di una JOIN.
+ * <p>
+ * In una query come {@code prenotazione JOIN passeggero LEFT JOIN bagaglio} ogni prenotazione
+ * compare su più righe, una per bagaglio. L'aggregatore indicizza i genitori per chiave in una
+ * tabella hash: alla prima riga di una chiave crea il genitore (con le relazioni uno-a-uno, come
+ * il passeggero), alle righe successive recupera in tempo costante il genitore già creato e vi
+ * aggiunge i figli. L'intero ResultSet viene quindi elaborato in un solo passaggio, in tempo
+ * lineare nel numero di righe, e i genitori vengono restituiti nell'ordine di prima apparizione.
+ *
+ * @param <K> Il tipo della chiave che identifica il genitore
+ * @param <P> Il tipo del genitore
+ */
+public class AggregatoreRighe<K, P> {
+    /**
+     * Estrae dalla riga la chiave del genitore.
+     */
+    private final MappaRiga<K> chiave;
+
+    /**
+     * Crea il genitore dalla prima riga in cui compare la sua chiave.
+     */
+    private final MappaRiga<P> creaGenitore;
+
+    /**
+     * Gestori che aggiungono al genitore i figli presenti nella riga.
+     */
+    private final List<GestoreFiglio<P>> figli = new ArrayList<>();
+
+    /**
+     * Genitori già creati, indicizzati per chiave e in ordine di prima apparizione.
+     */
+    private final Map<K, P> genitori = new LinkedHashMap<>();
+
+    /**
+     * Costruttore dell'aggregatore.
+     *
+     * @param chiave       Estrae dalla riga la chiave del genitore
+     * @param creaGenitore Crea il genitore dalla prima riga della sua chiave
+     */
+    public AggregatoreRighe(MappaRiga<K> chiave, MappaRiga<P> creaGenitore) {
+        this.chiave = chiave;
+        this.creaGenitore = creaGenitore;
+    }
+
+    /**
+     * Registra un gestore che, per ogni riga, aggiunge al genitore il figlio eventualmente presente.
+     * Il gestore riceve anche le righe in cui le colonne del figlio sono nulle (LEFT JOIN senza corrispondenza).
+     *
+     * @param figlio Il gestore del figlio
+     * @return Questo aggregatore, per concatenare le chiamate
+     */
+    public AggregatoreRighe<K, P> conFiglio(GestoreFiglio<P> figlio) {
+        figli.add(figlio);
+        return this;
+    }
+
+    /**
+     * Elabora la riga corrente del ResultSet.
+     *
+     * @param rs Il ResultSet posizionato sulla riga da elaborare
+     * @return Il genitore a cui appartiene la riga
+     * @throws SQLException Se la lettura di una colonna fallisce
+     */
+    public P elabora(ResultSet rs) throws SQLException {
+        K k = chiave.mappa(rs);
+        P genitore = genitori.get(k);
+        if (genitore == null) {
+            genitore = creaGenitore.mappa(rs);
+            genitori.put(k, genitore);
+        }
+        for (GestoreFiglio<P> figlio : figli) {
+            figlio.aggiungi(rs, genitore);
+        }
+        return genitore;
+    }
+
+    /**
+     * Elabora tutte le righe rimanenti del ResultSet.
+     *
+     * @param rs Il ResultSet da leggere fino alla fine
+     * @return Questo aggregatore, per concatenare le chiamate
+     * @throws SQLException Se la lettura del ResultSet fallisce
+     */
+    public AggregatoreRighe<K, P> elaboraTutte(ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            elabora(rs);
+        }
+        return this;
+    }
+
+    /**
+     * Restituisce il genitore con la chiave indicata.
+     *
+     * @param k La chiave del genitore
+     * @return Il genitore, o null se nessuna riga con quella chiave è stata elaborata
+     */
+    public P get(K k) {
+        return genitori.get(k);
+    }
+
+    /**
+     * Restituisce i genitori ricostruiti, nell'ordine di prima apparizione.
+     *
+     * @return Una nuova lista con i genitori
+     */
+    public List<P> getRisultato() {
+        return new ArrayList<>(genitori.values());
+    }
+
+    /**
+     * Gestore che aggiunge a un genitore il figlio presente nella riga corrente.
+     *
+     * @param <P> Il tipo del genitore
+     */
+    @FunctionalInterface
+    public interface GestoreFiglio<P> {
+        /**
+         * Aggiunge al genitore il figlio presente nella riga corrente, se esiste.
+         *
+         * @param rs       Il ResultSet posizionato sulla riga da elaborare
+         * @param genitore Il genitore a cui appartiene la riga
+         * @throws SQLException Se la lettura di una colonna fallisce
+         */
+        void aggiungi(ResultSet rs, P genitore) throws SQLException;
+    }
+}
@@ -0,0 +1,227 @@
+package dao;
+
+import database.StatisticheCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache read-through con scadenza e capacità massima, usata davanti al DAO.
+ * <p>
+ * Alla richiesta di una chiave assente o scaduta il valore viene caricato dal caricatore indicato,
+ * fuori dal lock della cache, e memorizzato; superata la capacità viene rimossa la voce usata meno
+ * di recente. Ogni invalidazione incrementa una versione: un valore caricato mentre era in corso
+ * un'invalidazione non viene memorizzato, perché potrebbe riflettere lo stato precedente alla modifica.
+ *
+ * @param <K> Il tipo della chiave
+ * @param <V> Il tipo del valore
+ */
+public class CacheLettura<K, V> {
+    /**
+     * Durata di validità di una voce in nanosecondi.
+     */
+    private final long durataNanos;
+
+    /**
+     * Numero massimo di voci mantenute.
+     */
+    private final int capacita;
+
+    /**
+     * Condizione che un valore caricato deve soddisfare per essere memorizzato.
+     */
+    private final Predicate<V> memorizzabile;
+
+    /**
+     * Contatori di hit, miss ed eviction della cache.
+     */
+    private final StatisticheCache statistiche = new StatisticheCache();
+
+    /**
+     * Voci in cache, ordinate dalla meno alla più recentemente usata.
+     */
+    private final LinkedHashMap<K, Voce<V>> voci;
+
+    /**
+     * Versione della cache, incrementata a ogni invalidazione.
+     */
+    private long versione;
+
+    /**
+     * Costruttore della cache.
+     *
+     * @param durataMs      Durata di validità di una voce in millisecondi
+     * @param capacita      Numero massimo di voci mantenute
+     * @param memorizzabile Condizione che un valore caricato deve soddisfare per essere memorizzato
+     *                      (ad esempio per non memorizzare i risultati vuoti restituiti in caso di errore)
+     */
+    public CacheLettura(long durataMs, int capacita, Predicate<V> memorizzabile) {
+        this.durataNanos = durataMs * 1_000_000L;
+        this.capacita = capacita;
+        this.memorizzabile = memorizzabile;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Voce<V>> eldest) {
+                if (size() <= CacheLettura.this.capacita) {
+                    return false;
+                }
+                statistiche.registraEviction();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Restituisce il valore associato alla chiave, caricandolo se assente o scaduto.
+     *
+     * @param chiave      La chiave
+     * @param caricatore  La funzione che legge il valore dal database
+     * @return Il valore in cache o appena caricato
+     */
+    public V get(K chiave, Function<K, V> caricatore) {
+        long versioneLettura;
+        synchronized (this) {
+            Voce<V> voce = voci.get(chiave);
+            if (voce != null && System.nanoTime() - voce.caricata < durataNanos) {
+                statistiche.registraHit();
+                return voce.valore;
+            }
+            if (voce != null) {
+                voci.remove(chiave);
+            }
+            statistiche.registraMiss();
+            versioneLettura = versione;
+        }
+
+        V valore = caricatore.apply(chiave);
+        if (valore != null && memorizzabile.test(valore)) {
+            synchronized (this) {
+                if (versione == versioneLettura) {
+                    voci.put(chiave, new Voce<>(valore, System.nanoTime()));
+                }
+            }
+        }
+        return valore;
+    }
+
+    /**
+     * Restituisce i valori associati alle chiavi indicate, caricando con un'unica chiamata
+     * quelli assenti o scaduti.
+     *
+     * @param chiavi     Le chiavi
+     * @param caricatore La funzione che legge dal database i valori delle chiavi mancanti;
+     *                   può restituire null in caso di errore
+     * @return I valori in cache o appena caricati; le chiavi non caricate sono assenti
+     */
+    public Map<K, V> getTutti(Iterable<K> chiavi, Function<List<K>, Map<K, V>> caricatore) {
+        Map<K, V> risultato = new HashMap<>();
+        List<K> mancanti = new ArrayList<>();
+        long versioneLettura;
+        synchronized (this) {
+            long adesso = System.nanoTime();
+            for (K chiave : chiavi) {
+                Voce<V> voce = voci.get(chiave);
+                if (voce != null && adesso - voce.caricata < durataNanos) {
+                    statistiche.registraHit();
+                    risultato.put(chiave, voce.valore);
+                } else {
+                    if (voce != null) {
+                        voci.remove(chiave);
+                    }
+                    statistiche.registraMiss();
+                    mancanti.add(chiave);
+                }
+            }
+            versioneLettura = versione;
+        }
+        if (mancanti.isEmpty()) {
+            return risultato;
+        }
+
+        Map<K, V> caricati = caricatore.apply(mancanti);
+        if (caricati == null) {
+            return risultato;
+        }
+        synchronized (this) {
+            boolean valida = versione == versioneLettura;
+            long adesso = System.nanoTime();
+            for (Map.Entry<K, V> caricato : caricati.entrySet()) {
+                V valore = caricato.getValue();
+                if (valida && valore != null && memorizzabile.test(valore)) {
+                    voci.put(caricato.getKey(), new Voce<>(valore, adesso));
+                }
+            }
+        }
+        risultato.putAll(caricati);
+        return risultato;
+    }
+
+    /**
+     * Rimuove la voce associata alla chiave.
+     *
+     * @param chiave La chiave da invalidare
+     */
+    public synchronized void invalida(K chiave) {
+        versione++;
+        voci.remove(chiave);
+    }
+
+    /**
+     * Rimuove tutte le voci.
+     */
+    public synchronized void invalidaTutto() {
+        versione++;
+        voci.clear();
+    }
+
+    /**
+     * Restituisce il numero di voci attualmente in cache, comprese quelle scadute non ancora rimosse.
+     *
+     * @return Il numero di voci
+     */
+    public synchronized int getDimensione() {
+        return voci.size();
+    }
+
+    /**
+     * Restituisce i contatori di hit, miss ed eviction della cache.
+     *
+     * @return Le statistiche della cache
+     */
+    public StatisticheCache getStatistiche() {
+        return statistiche;
+    }
+
+    /**
+     * Valore in cache con l'istante di caricamento.
+     *
+     * @param <V> Il tipo del valore
+     */
+    private static final class Voce<V> {
+        /**
+         * Il valore memorizzato.
+         */
+        private final V valore;
+
+        /**
+         * Istante di caricamento, nella scala di {@link System#nanoTime()}.
+         */
+        private final long caricata;
+
+        /**
+         * Costruttore della voce.
+         *
+         * @param valore   Il valore memorizzato
+         * @param caricata L'istante di caricamento
+         */
+        private Voce(V valore, long caricata) {
+            this.valore = valore;
+            this.caricata = caricata;
+        }
+    }
+}
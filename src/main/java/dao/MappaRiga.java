@@ -0,0 +1,22 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Interfaccia funzionale che converte la riga corrente di un ResultSet in un oggetto.
+ *
+ * @param <T> Il tipo dell'oggetto prodotto
+ */
+@FunctionalInterface
+public interface MappaRiga<T> {
+
+    /**
+     * Legge la riga su cui è posizionato il ResultSet e restituisce l'oggetto corrispondente.
+     *
+     * @param rs Il ResultSet posizionato sulla riga da leggere
+     * @return L'oggetto letto dalla riga
+     * @throws SQLException Se la lettura di una colonna fallisce
+     */
+    T mappa(ResultSet rs) throws SQLException;
+}
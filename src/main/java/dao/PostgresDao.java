@@ -2,7 +2,11 @@ package dao;
 
 import model.*;
 
+import java.io.Reader;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interfaccia che definisce i metodi di accesso ai dati per il sistema aeroportuale.
@@ -36,6 +40,54 @@ public interface PostgresDao {
      */
     List<Volo> getAllVoli();
 
+    /**
+     * Recupera i voli con i codici indicati, ad esempio per aggiornare solo le righe modificate di una tabella.
+     *
+     * @param codici I codici dei voli da leggere
+     * @return I voli trovati (quelli cancellati non compaiono), o null in caso di errore
+     */
+    List<Volo> getVoliByCodici(Collection<String> codici);
+
+    /**
+     * Recupera i posti disponibili dei voli indicati, ad esempio per aggiornare i conteggi di voli già letti
+     * senza rileggerne le righe.
+     *
+     * @param codici I codici dei voli
+     * @return I posti disponibili indicizzati per codice volo (i voli inesistenti non compaiono), o null in caso di errore
+     */
+    Map<String, Integer> getPostiDisponibili(Collection<String> codici);
+
+    /**
+     * Legge tutti i voli uno alla volta, senza caricarli tutti in memoria.
+     * Adatto a esportazioni e report sull'intero storico.
+     *
+     * @param consumer Riceve i voli, ordinati per data in ordine decrescente, man mano che vengono letti
+     * @return true se tutti i voli sono stati letti, false in caso di errore
+     */
+    boolean streamAllVoli(Consumer<Volo> consumer);
+
+    /**
+     * Cerca i voli che soddisfano i criteri indicati, restituendo una sola pagina di risultati.
+     * I voli sono ordinati per data e codice in ordine decrescente.
+     *
+     * @param criteri I criteri di ricerca; i criteri non impostati non filtrano
+     * @param pagina  Il cursore della pagina da leggere
+     * @return La pagina di voli, con il cursore della pagina successiva se esistono altri risultati;
+     *         in caso di errore una pagina vuota con versione -1
+     */
+    PaginaVoli searchVoli(CriteriRicercaVoli criteri, CursoreVoli pagina);
+
+    /**
+     * Recupera le modifiche ai voli avvenute dalla versione indicata, per aggiornare una pagina
+     * di risultati senza rileggerla. I voli modificati che non corrispondono più ai criteri,
+     * e quelli cancellati, sono restituiti tra le chiavi da rimuovere.
+     *
+     * @param criteri  I criteri di ricerca della pagina da aggiornare
+     * @param versione La versione dei dati già letti ({@link PaginaVoli#getVersione()} o una variazione precedente)
+     * @return Le modifiche con la nuova versione, o null in caso di errore
+     */
+    Variazioni<Volo> searchVoliModificati(CriteriRicercaVoli criteri, long versione);
+
     /**
      * Inserisce un nuovo volo nel sistema.
      *
@@ -44,6 +96,18 @@ public interface PostgresDao {
      */
     boolean insertVolo(Volo volo);
 
+    /**
+     * Importa un calendario di voli da un file CSV, creando i voli e i relativi posti.
+     * Il file deve avere una riga di intestazione e le colonne, nell'ordine:
+     * codice, compagnia, origine, destinazione, data (YYYY-MM-DD), orario (HH:MM),
+     * stato (vuoto per "programmato"), posti_totali, ritardo (vuoto per 0).
+     * Le righe non valide vengono scartate senza interrompere l'importazione delle altre.
+     *
+     * @param csv Il contenuto del file CSV da importare
+     * @return L'esito dell'importazione, con il numero di voli creati e gli errori per record
+     */
+    EsitoImportazione importVoli(Reader csv);
+
     /**
      * Aggiorna i dati di un volo esistente.
      *
@@ -87,6 +151,15 @@ public interface PostgresDao {
      */
     List<Prenotazione> getPrenotazioniByVolo(Volo volo);
 
+    /**
+     * Recupera in una sola interrogazione il dettaglio di un volo: il volo, il gate assegnato,
+     * le prenotazioni con i relativi passeggeri e bagagli e la mappa dei posti.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @return Il dettaglio del volo, o null se il volo non esiste o in caso di errore
+     */
+    DettaglioVolo getDettaglioVolo(String codiceVolo);
+
     /**
      * Inserisce una nuova prenotazione nel sistema.
      *
@@ -97,6 +170,25 @@ public interface PostgresDao {
      */
     boolean insertPrenotazione(Prenotazione prenotazione, String codiceVolo, Utente utente);
 
+    /**
+     * Registra una nuova prenotazione in modo atomico e restituisce gli identificativi generati.
+     *
+     * @param prenotazione L'oggetto Prenotazione da inserire, con passeggero e bagagli
+     * @param codiceVolo   Codice identificativo del volo associato alla prenotazione
+     * @param utente       L'utente che effettua la prenotazione
+     * @return L'esito con gli identificativi di prenotazione e passeggero, o con il motivo del fallimento
+     */
+    EsitoPrenotazione prenota(Prenotazione prenotazione, String codiceVolo, Utente utente);
+
+    /**
+     * Riserva un blocco di numeri di biglietto dalla sequenza del database.
+     * Il blocco, di dimensione pari all'incremento della sequenza, è riservato in modo esclusivo
+     * a chi lo ha richiesto, anche in presenza di più istanze dell'applicativo.
+     *
+     * @return Il primo numero del blocco riservato, o -1 in caso di errore
+     */
+    long allocaBloccoNumeriBiglietto();
+
     /**
      * Aggiorna lo stato di una prenotazione esistente.
      *
@@ -113,6 +205,22 @@ public interface PostgresDao {
      */
     List<Bagaglio> getAllBagagli();
 
+    /**
+     * Recupera le prenotazioni che hanno almeno un bagaglio smarrito, ciascuna con il passeggero
+     * e i soli bagagli smarriti.
+     *
+     * @return Lista delle prenotazioni con bagagli smarriti, o null in caso di errore
+     */
+    List<Prenotazione> getPrenotazioniBagagliSmarriti();
+
+    /**
+     * Legge i bagagli restituiti da {@link #getAllBagagli()} uno alla volta, senza caricarli tutti in memoria.
+     *
+     * @param consumer Riceve i bagagli man mano che vengono letti
+     * @return true se tutti i bagagli sono stati letti, false in caso di errore
+     */
+    boolean streamAllBagagli(Consumer<Bagaglio> consumer);
+
     /**
      * Recupera tutti i bagagli associati a una prenotazione specifica.
      *
@@ -156,12 +264,66 @@ public interface PostgresDao {
     List<Prenotazione> getPrenotazioneByUtente(Utente utente);
 
     /**
-     * Recupera tutti i posti disponibili per un volo specifico.
+     * Recupera le prenotazioni di un utente modificate dalla versione indicata, con passeggero e bagagli.
+     * Con versione 0 vengono restituite tutte le prenotazioni dell'utente.
+     * Le chiavi da rimuovere sono i numeri di biglietto delle prenotazioni cancellate.
+     *
+     * @param utente   L'utente di cui si vogliono recuperare le prenotazioni
+     * @param versione La versione dei dati già letti, o 0
+     * @return Le modifiche con la nuova versione, o null in caso di errore
+     */
+    Variazioni<Prenotazione> getPrenotazioniModificate(Utente utente, long versione);
+
+    /**
+     * Recupera in una sola interrogazione le prenotazioni di un utente con passeggeri e bagagli,
+     * insieme alla versione dei dati letti e ai bagagli indicizzati per codice.
+     *
+     * @param utente L'utente di cui si vogliono recuperare i dati
+     * @return I dati dell'utente, o null in caso di errore
+     */
+    InstantaneaUtente getInstantaneaUtente(Utente utente);
+
+    /**
+     * Legge le prenotazioni di un utente una alla volta, senza caricarle tutte in memoria.
+     * Ogni prenotazione viene consegnata completa del passeggero e dei bagagli.
+     *
+     * @param utente   L'utente di cui si vogliono leggere le prenotazioni
+     * @param consumer Riceve le prenotazioni man mano che vengono lette
+     * @return true se tutte le prenotazioni sono state lette, false in caso di errore
+     */
+    boolean streamPrenotazioneByUtente(Utente utente, Consumer<Prenotazione> consumer);
+
+    /**
+     * Recupera la mappa dei posti di un volo specifico, con lo stato di occupazione
+     * e i blocchi temporanei attivi.
      *
      * @param coidceVolo Codice identificativo del volo
-     * @return Lista dei posti disponibili per il volo
+     * @return La mappa dei posti del volo
+     */
+    MappaPosti getPostiByVolo(String coidceVolo);
+
+    /**
+     * Blocca temporaneamente un posto libero per conto di un titolare, fino alla scadenza indicata.
+     * Il blocco riesce se il posto è libero e non è bloccato da un altro titolare, oppure se il
+     * blocco precedente è scaduto; se il posto è già bloccato dallo stesso titolare la scadenza viene rinnovata.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @param posto      Il posto da bloccare
+     * @param titolare   Il titolare del blocco (username dell'utente)
+     * @param durata     Durata del blocco in secondi
+     * @return true se il posto è bloccato dal titolare, false se non disponibile o in caso di errore
+     */
+    boolean bloccaPosto(String codiceVolo, String posto, String titolare, int durata);
+
+    /**
+     * Rilascia il blocco temporaneo di un posto, se appartiene al titolare indicato.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @param posto      Il posto da rilasciare
+     * @param titolare   Il titolare del blocco
+     * @return true se il blocco è stato rilasciato, false se non esisteva o in caso di errore
      */
-    List<Posto> getPostiByVolo(String coidceVolo);
+    boolean rilasciaPosto(String codiceVolo, String posto, String titolare);
 
     /**
      * Recupera la prenotazione associata a un bagaglio specifico.
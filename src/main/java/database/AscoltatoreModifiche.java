@@ -0,0 +1,163 @@
+package database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Thread che riceve dal database le notifiche delle modifiche ai dati e le inoltra come {@link EventoModifica}.
+ * <p>
+ * Il thread tiene aperta una connessione dedicata, esterna al pool, in ascolto sul canale
+ * {@value #CANALE} alimentato dai trigger della migrazione V8, e consegna gli eventi agli ascoltatori
+ * registrati sul proprio thread: gli ascoltatori devono essere rapidi e trasferire su altri thread
+ * il lavoro più lungo. Se la connessione cade il thread si riconnette e, poiché le notifiche inviate
+ * nel frattempo sono perse, consegna un evento {@link EventoModifica.Tabella#TUTTE}.
+ */
+public class AscoltatoreModifiche implements AutoCloseable {
+    /**
+     * Canale su cui i trigger inviano le notifiche.
+     */
+    public static final String CANALE = "aeroporto_modifiche";
+
+    /**
+     * Millisecondi di attesa massima di ogni lettura delle notifiche, dopo i quali
+     * il thread verifica se deve terminare.
+     */
+    private static final int ATTESA_MS = 1_000;
+
+    /**
+     * Millisecondi di attesa prima di un nuovo tentativo di connessione.
+     */
+    private static final long RITARDO_RICONNESSIONE_MS = 5_000;
+
+    /**
+     * Connessione al database da cui aprire la connessione dedicata.
+     */
+    private final ConnessioneDatabase connessione;
+
+    /**
+     * Ascoltatori a cui consegnare gli eventi.
+     */
+    private final List<Consumer<EventoModifica>> ascoltatori = new CopyOnWriteArrayList<>();
+
+    /**
+     * Thread di ascolto.
+     */
+    private final Thread thread;
+
+    /**
+     * Flag che indica se l'ascoltatore è stato chiuso.
+     */
+    private volatile boolean chiuso;
+
+    /**
+     * Costruttore dell'ascoltatore. Il thread viene avviato con {@link #avvia()}.
+     *
+     * @param connessione La connessione al database da cui aprire la connessione dedicata
+     */
+    AscoltatoreModifiche(ConnessioneDatabase connessione) {
+        this.connessione = connessione;
+        this.thread = new Thread(this::ascolta, "ascoltatore-modifiche");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Avvia il thread di ascolto.
+     */
+    void avvia() {
+        thread.start();
+    }
+
+    /**
+     * Registra un ascoltatore degli eventi di modifica.
+     *
+     * @param ascoltatore Riceve gli eventi sul thread di ascolto
+     */
+    public void aggiungiAscoltatore(Consumer<EventoModifica> ascoltatore) {
+        ascoltatori.add(ascoltatore);
+    }
+
+    /**
+     * Rimuove un ascoltatore registrato in precedenza.
+     *
+     * @param ascoltatore L'ascoltatore da rimuovere
+     */
+    public void rimuoviAscoltatore(Consumer<EventoModifica> ascoltatore) {
+        ascoltatori.remove(ascoltatore);
+    }
+
+    /**
+     * Ciclo del thread di ascolto: apre la connessione, si mette in ascolto sul canale
+     * e consegna le notifiche ricevute, riconnettendosi in caso di errore.
+     */
+    private void ascolta() {
+        boolean riconnessione = false;
+        while (!chiuso) {
+            try (Connection conn = connessione.apriConnessioneDedicata();
+                 Statement st = conn.createStatement()) {
+                st.execute("LISTEN " + CANALE);
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                if (riconnessione) {
+                    consegna(EventoModifica.tutte());
+                }
+                while (!chiuso) {
+                    PGNotification[] notifiche = pg.getNotifications(ATTESA_MS);
+                    if (notifiche == null) {
+                        continue;
+                    }
+                    for (PGNotification notifica : notifiche) {
+                        EventoModifica evento = EventoModifica.da(notifica.getParameter());
+                        if (evento != null) {
+                            consegna(evento);
+                        } else {
+                            System.err.println("Notifica non riconosciuta: " + notifica.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (chiuso) {
+                    return;
+                }
+                System.err.println("Ascolto delle modifiche interrotto, nuovo tentativo tra "
+                        + RITARDO_RICONNESSIONE_MS / 1000 + " secondi: " + e.getMessage());
+                riconnessione = true;
+                try {
+                    Thread.sleep(RITARDO_RICONNESSIONE_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Consegna un evento a tutti gli ascoltatori; l'errore di un ascoltatore non interrompe la consegna agli altri.
+     *
+     * @param evento L'evento da consegnare
+     */
+    private void consegna(EventoModifica evento) {
+        for (Consumer<EventoModifica> ascoltatore : ascoltatori) {
+            try {
+                ascoltatore.accept(evento);
+            } catch (RuntimeException e) {
+                System.err.println("Errore nella gestione dell'evento " + evento + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ferma il thread di ascolto e chiude la connessione dedicata entro {@link #ATTESA_MS} millisecondi.
+     */
+    @Override
+    public void close() {
+        chiuso = true;
+        thread.interrupt();
+    }
+}
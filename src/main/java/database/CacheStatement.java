@@ -0,0 +1,281 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache LRU dei PreparedStatement associata a una singola connessione fisica del pool.
+ * <p>
+ * Gli statement sono indicizzati per testo SQL (e per la richiesta delle chiavi generate):
+ * quando il DAO prepara di nuovo la stessa query riceve lo statement già esistente, che il
+ * driver PostgreSQL mantiene preparato lato server dopo le prime esecuzioni. La chiusura
+ * dello statement da parte del chiamante ne azzera i parametri e lo rende di nuovo
+ * disponibile, senza chiuderlo realmente. Quando la capacità viene superata lo statement
+ * usato meno di recente viene chiuso.
+ * <p>
+ * Alla restituzione della connessione al pool gli statement che il chiamante non ha chiuso
+ * vengono resi comunque disponibili, con parametri e impostazioni riportati ai valori predefiniti.
+ * <p>
+ * La cache non è thread-safe: una connessione fisica viene prestata a un solo thread alla volta.
+ */
+class CacheStatement {
+    /**
+     * Numero massimo di statement mantenuti aperti.
+     */
+    private final int capacita;
+
+    /**
+     * Contatori condivisi di hit, miss ed eviction.
+     */
+    private final StatisticheCache statistiche;
+
+    /**
+     * Statement in cache, ordinati dal meno al più recentemente usato.
+     */
+    private final LinkedHashMap<String, Voce> voci;
+
+    /**
+     * Statement rimossi dalla cache mentre erano ancora in uso, da chiudere alla restituzione della connessione.
+     */
+    private final List<Voce> rimossiInUso = new ArrayList<>();
+
+    /**
+     * Costruttore della cache.
+     *
+     * @param capacita    Numero massimo di statement mantenuti aperti
+     * @param statistiche Contatori condivisi in cui registrare hit, miss ed eviction
+     */
+    CacheStatement(int capacita, StatisticheCache statistiche) {
+        this.capacita = capacita;
+        this.statistiche = statistiche;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce> eldest) {
+                if (size() <= CacheStatement.this.capacita) {
+                    return false;
+                }
+                statistiche.registraEviction();
+                Voce rimossa = eldest.getValue();
+                rimossa.rimuovi();
+                if (rimossa.inUso) {
+                    rimossiInUso.add(rimossa);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Restituisce uno statement preparato per la query indicata, riutilizzando quello in cache
+     * se disponibile.
+     *
+     * @param fisica            La connessione fisica su cui preparare lo statement
+     * @param logica            La connessione logica da restituire tramite {@code getConnection()}
+     * @param sql               Il testo SQL della query
+     * @param chiaviGenerate    {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}
+     * @return Lo statement da utilizzare
+     * @throws SQLException Se la preparazione dello statement fallisce
+     */
+    PreparedStatement prepara(Connection fisica, Connection logica, String sql, int chiaviGenerate) throws SQLException {
+        String chiave = chiaviGenerate == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : "N:" + sql;
+        Voce voce = voci.get(chiave);
+        if (voce != null && !voce.inUso && !voce.statement.isClosed()) {
+            statistiche.registraHit();
+            voce.inUso = true;
+            voce.logica = logica;
+            return voce.proxy;
+        }
+
+        statistiche.registraMiss();
+        PreparedStatement ps = fisica.prepareStatement(sql, chiaviGenerate);
+        if (voce != null && voce.inUso) {
+            // Lo stesso testo SQL è già aperto su questa connessione: statement temporaneo, non condiviso
+            return ps;
+        }
+        if (voce != null) {
+            voci.remove(chiave);
+        }
+        Voce nuova = new Voce(ps, logica);
+        nuova.inUso = true;
+        voci.put(chiave, nuova);
+        return nuova.proxy;
+    }
+
+    /**
+     * Restituisce il numero di statement attualmente in cache.
+     *
+     * @return Il numero di statement in cache
+     */
+    int dimensione() {
+        return voci.size();
+    }
+
+    /**
+     * Rende di nuovo disponibili gli statement che il chiamante non ha chiuso prima di restituire
+     * la connessione, riportandone parametri e impostazioni ai valori predefiniti, e chiude quelli
+     * rimossi dalla cache mentre erano ancora in uso.
+     */
+    void libera() {
+        for (Voce voce : voci.values()) {
+            if (voce.inUso) {
+                voce.rilascia();
+            }
+        }
+        for (Voce voce : rimossiInUso) {
+            if (voce.inUso) {
+                voce.rilascia();
+            }
+        }
+        rimossiInUso.clear();
+    }
+
+    /**
+     * Chiude tutti gli statement in cache.
+     */
+    void svuota() {
+        for (Voce voce : voci.values()) {
+            voce.rimuovi();
+        }
+        voci.clear();
+        for (Voce voce : rimossiInUso) {
+            voce.chiudi();
+        }
+        rimossiInUso.clear();
+    }
+
+    /**
+     * Statement in cache con il relativo stato di utilizzo.
+     */
+    private static final class Voce implements InvocationHandler {
+        /**
+         * Statement reale preparato sulla connessione fisica.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * Connessione logica del prestito in corso, restituita da {@code getConnection()}.
+         */
+        private Connection logica;
+
+        /**
+         * Statement consegnato ai chiamanti, che intercetta la chiusura.
+         */
+        private final PreparedStatement proxy;
+
+        /**
+         * Flag che indica se lo statement è attualmente in uso da un chiamante.
+         */
+        private boolean inUso = false;
+
+        /**
+         * Flag che indica se lo statement è stato rimosso dalla cache mentre era in uso.
+         */
+        private boolean rimosso = false;
+
+        /**
+         * Costruttore della voce di cache.
+         *
+         * @param statement Lo statement reale
+         * @param logica    La connessione logica di appartenenza
+         */
+        Voce(PreparedStatement statement, Connection logica) {
+            this.statement = statement;
+            this.logica = logica;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        /**
+         * Rimuove lo statement dalla cache: viene chiuso subito se libero,
+         * altrimenti alla prossima chiusura da parte del chiamante.
+         */
+        void rimuovi() {
+            rimosso = true;
+            if (!inUso) {
+                chiudi();
+            }
+        }
+
+        /**
+         * Rende lo statement di nuovo disponibile: se è stato rimosso dalla cache lo chiude,
+         * altrimenti chiude l'eventuale risultato aperto e ne riporta parametri e impostazioni
+         * ai valori predefiniti, così che il prossimo chiamante non erediti fetch size,
+         * limite di righe o timeout impostati da quello precedente.
+         */
+        void rilascia() {
+            inUso = false;
+            if (rimosso) {
+                chiudi();
+                return;
+            }
+            try {
+                ResultSet risultato = statement.getResultSet();
+                if (risultato != null) {
+                    risultato.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                statement.setFetchSize(0);
+                statement.setMaxRows(0);
+                statement.setMaxFieldSize(0);
+                statement.setQueryTimeout(0);
+                statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+            } catch (SQLException e) {
+                System.err.println("Errore durante il ripristino di uno statement in cache: " + e.getMessage());
+                rimosso = true;
+                chiudi();
+            }
+        }
+
+        /**
+         * Chiude realmente lo statement.
+         */
+        private void chiudi() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Errore durante la chiusura di uno statement in cache: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUso) {
+                        rilascia();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUso || statement.isClosed();
+                case "getConnection":
+                    return logica;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -7,6 +7,22 @@ import java.sql.SQLException;
 /**
  * Classe che gestisce la connessione al database PostgreSQL.
  * Fornisce metodi per gestire la connessione al database.
+ * <p>
+ * Le connessioni sono ottenute da un {@link PoolConnessioni} condiviso: ogni chiamata a
+ * {@link #getConnection()} presta una connessione già aperta, che torna nel pool alla chiusura.
+ * I parametri del pool possono essere modificati tramite le proprietà di sistema
+ * {@code aeroporto.pool.min}, {@code aeroporto.pool.max}, {@code aeroporto.pool.idleMs},
+ * {@code aeroporto.pool.timeoutMs}, {@code aeroporto.pool.validazioneSec} e
+ * {@code aeroporto.pool.statementCache} (statement preparati in cache per connessione).
+ * <p>
+ * Le migrazioni dello schema ({@link MigrazioniDatabase}) vengono applicate da {@link #applicaMigrazioni()},
+ * invocato all'avvio dell'applicativo prima di mostrare l'interfaccia grafica, e sono disattivabili
+ * con {@code aeroporto.migrazioni=false}. Con {@code aeroporto.verificaPiani=true}
+ * le query eseguite vengono registrate e, alla chiusura dell'applicativo, analizzate con
+ * {@link VerificaPianiQuery} per segnalare le scansioni sequenziali.
+ * <p>
+ * Le modifiche fatte da altre istanze dell'applicativo sono ricevute tramite {@link AscoltatoreModifiche},
+ * avviato al primo utilizzo e disattivabile con {@code aeroporto.notifiche=false}.
  */
 public class ConnessioneDatabase {
     /**
@@ -15,9 +31,9 @@ public class ConnessioneDatabase {
     private static ConnessioneDatabase instance;
 
     /**
-     * Connessione attiva al database.
+     * Pool di connessioni attive al database.
      */
-    public Connection connection = null;
+    private final PoolConnessioni pool;
 
     /**
      * URL di connessione al database.
@@ -41,35 +57,162 @@ public class ConnessioneDatabase {
     private String driver = "org.postgresql.Driver";
 
     /**
-     * Costruttore privato che inizializza la connessione al database.
-     *
-     * @throws SQLException Se si verifica un errore durante la connessione al database
+     * Numero minimo di connessioni mantenute aperte dal pool.
+     */
+    private int poolMin = Integer.getInteger("aeroporto.pool.min", 2);
+
+    /**
+     * Numero massimo di connessioni aperte contemporaneamente dal pool.
+     */
+    private int poolMax = Integer.getInteger("aeroporto.pool.max", 10);
+
+    /**
+     * Millisecondi di inattività dopo i quali una connessione libera viene chiusa.
+     */
+    private long poolIdleMs = Long.getLong("aeroporto.pool.idleMs", 300_000L);
+
+    /**
+     * Millisecondi massimi di attesa per ottenere una connessione dal pool.
+     */
+    private long poolTimeoutMs = Long.getLong("aeroporto.pool.timeoutMs", 5_000L);
+
+    /**
+     * Secondi massimi concessi alla validazione di una connessione al momento del prestito.
+     */
+    private int poolValidazioneSec = Integer.getInteger("aeroporto.pool.validazioneSec", 2);
+
+    /**
+     * Numero massimo di PreparedStatement mantenuti in cache per ogni connessione del pool.
+     */
+    private int poolStatementCache = Integer.getInteger("aeroporto.pool.statementCache", 64);
+
+    /**
+     * Flag che indica se applicare le migrazioni dello schema all'avvio.
+     */
+    private boolean migrazioniAbilitate = !"false".equalsIgnoreCase(System.getProperty("aeroporto.migrazioni"));
+
+    /**
+     * Flag che indica se la mappa dei posti viene letta in formato bitmap ({@code aeroporto.posti.formato=bitmap}),
+     * nel qual caso i trigger che la mantengono vengono installati all'avvio.
+     */
+    private boolean mappaPostiBitmap = "bitmap".equalsIgnoreCase(System.getProperty("aeroporto.posti.formato", "righe"));
+
+    /**
+     * Flag che indica se registrare le query eseguite e verificarne i piani alla chiusura.
+     */
+    private boolean verificaPiani = Boolean.getBoolean("aeroporto.verificaPiani");
+
+    /**
+     * Flag che indica se ricevere le notifiche delle modifiche fatte da altre istanze.
+     */
+    private boolean notificheAbilitate = !"false".equalsIgnoreCase(System.getProperty("aeroporto.notifiche"));
+
+    /**
+     * Ascoltatore delle notifiche di modifica, creato al primo utilizzo.
      */
-    private ConnessioneDatabase() throws SQLException {
+    private volatile AscoltatoreModifiche ascoltatoreModifiche;
+
+    /**
+     * Costruttore privato che inizializza il pool di connessioni al database.
+     * Le connessioni vengono aperte in background dal pool, quindi il costruttore non attende il database.
+     */
+    private ConnessioneDatabase() {
         try {
             Class.forName(driver);
-            connection = DriverManager.getConnection(url, user, password);
         } catch (ClassNotFoundException e) {
             System.out.println("Database Connection Creation Failed : " + e.getMessage());
 
             e.printStackTrace();
         }
+        pool = new PoolConnessioni(url, user, password,
+                poolMin, poolMax, poolIdleMs, poolTimeoutMs, poolValidazioneSec, poolStatementCache);
+        if (verificaPiani) {
+            pool.abilitaRegistroQuery();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            AscoltatoreModifiche ascoltatore = ascoltatoreModifiche;
+            if (ascoltatore != null) {
+                ascoltatore.close();
+            }
+            if (verificaPiani) {
+                new VerificaPianiQuery(pool).verifica(pool.getQueryRegistrate());
+            }
+            pool.close();
+        }, "pool-connessioni-chiusura"));
+    }
+
+    /**
+     * Applica le migrazioni dello schema non ancora eseguite, se abilitate.
+     * Attende il database e la creazione degli indici: va invocato all'avvio, fuori dal thread degli eventi di Swing.
+     *
+     * @return true se lo schema è aggiornato all'ultima migrazione o le migrazioni sono disattivate, false altrimenti
+     */
+    public boolean applicaMigrazioni() {
+        if (migrazioniAbilitate && !new MigrazioniDatabase(pool, mappaPostiBitmap).applica()) {
+            System.err.println("Lo schema del database non è aggiornato all'ultima migrazione");
+            return false;
+        }
+        return true;
     }
 
     /**
      * Restituisce l'istanza della connessione al database.
-     * Se l'istanza non esiste o la connessione è chiusa, ne crea una nuova.
+     * Se l'istanza non esiste, la crea inizializzando il pool di connessioni.
      *
      * @return L'istanza di ConnessioneDatabase
      * @throws SQLException Se si verifica un errore durante la connessione al database
      */
-    public static ConnessioneDatabase getInstance()
+    public static synchronized ConnessioneDatabase getInstance()
             throws SQLException {
-        if (instance == null || instance.connection == null || instance.connection.isClosed()) {
+        if (instance == null) {
             instance = new ConnessioneDatabase();
         }
         return instance;
     }
 
+    /**
+     * Presta una connessione dal pool.
+     * La connessione deve essere chiusa al termine dell'utilizzo per restituirla al pool.
+     *
+     * @return Una connessione al database
+     * @throws SQLException Se non è possibile ottenere una connessione entro il timeout
+     */
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    /**
+     * Restituisce il pool di connessioni sottostante.
+     *
+     * @return Il pool di connessioni
+     */
+    public PoolConnessioni getPool() {
+        return pool;
+    }
+
+    /**
+     * Apre una nuova connessione fisica, esterna al pool, per usi di lunga durata come l'ascolto
+     * delle notifiche. La connessione deve essere chiusa dal chiamante.
+     *
+     * @return Una nuova connessione al database
+     * @throws SQLException Se la connessione non può essere aperta
+     */
+    Connection apriConnessioneDedicata() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Restituisce l'ascoltatore delle modifiche notificate dal database, avviandolo alla prima richiesta.
+     *
+     * @return L'ascoltatore delle modifiche, o null se le notifiche sono disattivate
+     */
+    public synchronized AscoltatoreModifiche getAscoltatoreModifiche() {
+        if (notificheAbilitate && ascoltatoreModifiche == null) {
+            ascoltatoreModifiche = new AscoltatoreModifiche(this);
+            ascoltatoreModifiche.avvia();
+        }
+        return ascoltatoreModifiche;
+    }
+
 
 }
@@ -0,0 +1,184 @@
+package database;
+
+/**
+ * Classe che rappresenta una modifica ai dati notificata dal database tramite LISTEN/NOTIFY.
+ * Riporta la tabella e l'operazione e, quando pertinenti, il codice del volo, il numero di
+ * biglietto e il codice del bagaglio interessati.
+ */
+public class EventoModifica {
+    /**
+     * Tabelle di cui vengono notificate le modifiche.
+     */
+    public enum Tabella {
+        /** Tabella volo. */
+        VOLO,
+        /** Tabella prenotazione. */
+        PRENOTAZIONE,
+        /** Tabella posto. */
+        POSTO,
+        /** Tabella bagaglio. */
+        BAGAGLIO,
+        /**
+         * Modifiche non note: inviato dopo una riconnessione, quando alcune notifiche
+         * potrebbero essere andate perse e i dati locali vanno considerati tutti non aggiornati.
+         */
+        TUTTE
+    }
+
+    /**
+     * Operazioni notificate.
+     */
+    public enum Operazione {
+        /** Inserimento di una riga. */
+        INSERIMENTO,
+        /** Aggiornamento di una riga. */
+        AGGIORNAMENTO,
+        /** Cancellazione di una riga. */
+        CANCELLAZIONE
+    }
+
+    /**
+     * Tabella modificata.
+     */
+    private final Tabella tabella;
+
+    /**
+     * Operazione eseguita.
+     */
+    private final Operazione operazione;
+
+    /**
+     * Codice del volo interessato, o null se non pertinente.
+     */
+    private final String codiceVolo;
+
+    /**
+     * Numero di biglietto della prenotazione interessata, o null se non pertinente.
+     */
+    private final String numeroBiglietto;
+
+    /**
+     * Codice del bagaglio interessato, o null se non pertinente.
+     */
+    private final String codiceBagaglio;
+
+    /**
+     * Costruttore della classe EventoModifica.
+     *
+     * @param tabella         Tabella modificata
+     * @param operazione      Operazione eseguita
+     * @param codiceVolo      Codice del volo interessato, o null
+     * @param numeroBiglietto Numero di biglietto interessato, o null
+     * @param codiceBagaglio  Codice del bagaglio interessato, o null
+     */
+    public EventoModifica(Tabella tabella, Operazione operazione, String codiceVolo,
+                          String numeroBiglietto, String codiceBagaglio) {
+        this.tabella = tabella;
+        this.operazione = operazione;
+        this.codiceVolo = codiceVolo;
+        this.numeroBiglietto = numeroBiglietto;
+        this.codiceBagaglio = codiceBagaglio;
+    }
+
+    /**
+     * Crea l'evento che segnala la possibile perdita di notifiche.
+     *
+     * @return L'evento relativo a tutte le tabelle
+     */
+    static EventoModifica tutte() {
+        return new EventoModifica(Tabella.TUTTE, Operazione.AGGIORNAMENTO, null, null, null);
+    }
+
+    /**
+     * Interpreta il messaggio di una notifica, nel formato
+     * {@code tabella|operazione|codice_volo|numero_biglietto|codice_bagaglio} (migrazione V8).
+     *
+     * @param messaggio Il messaggio della notifica
+     * @return L'evento, o null se il messaggio non è nel formato atteso
+     */
+    static EventoModifica da(String messaggio) {
+        String[] campi = messaggio.split("\\|", -1);
+        if (campi.length != 5) {
+            return null;
+        }
+        Tabella tabella = switch (campi[0]) {
+            case "volo" -> Tabella.VOLO;
+            case "prenotazione" -> Tabella.PRENOTAZIONE;
+            case "posto" -> Tabella.POSTO;
+            case "bagaglio" -> Tabella.BAGAGLIO;
+            default -> null;
+        };
+        Operazione operazione = switch (campi[1]) {
+            case "INSERT" -> Operazione.INSERIMENTO;
+            case "UPDATE" -> Operazione.AGGIORNAMENTO;
+            case "DELETE" -> Operazione.CANCELLAZIONE;
+            default -> null;
+        };
+        if (tabella == null || operazione == null) {
+            return null;
+        }
+        return new EventoModifica(tabella, operazione, vuotoComeNull(campi[2]),
+                vuotoComeNull(campi[3]), vuotoComeNull(campi[4]));
+    }
+
+    /**
+     * Converte un campo vuoto del messaggio in null.
+     *
+     * @param campo Il campo del messaggio
+     * @return Il campo, o null se vuoto
+     */
+    private static String vuotoComeNull(String campo) {
+        return campo.isEmpty() ? null : campo;
+    }
+
+    /**
+     * Restituisce la tabella modificata.
+     *
+     * @return La tabella
+     */
+    public Tabella getTabella() {
+        return tabella;
+    }
+
+    /**
+     * Restituisce l'operazione eseguita.
+     *
+     * @return L'operazione
+     */
+    public Operazione getOperazione() {
+        return operazione;
+    }
+
+    /**
+     * Restituisce il codice del volo interessato.
+     *
+     * @return Il codice del volo, o null se non pertinente
+     */
+    public String getCodiceVolo() {
+        return codiceVolo;
+    }
+
+    /**
+     * Restituisce il numero di biglietto della prenotazione interessata.
+     *
+     * @return Il numero di biglietto, o null se non pertinente
+     */
+    public String getNumeroBiglietto() {
+        return numeroBiglietto;
+    }
+
+    /**
+     * Restituisce il codice del bagaglio interessato.
+     *
+     * @return Il codice del bagaglio, o null se non pertinente
+     */
+    public String getCodiceBagaglio() {
+        return codiceBagaglio;
+    }
+
+    @Override
+    public String toString() {
+        return tabella + " " + operazione + " volo=" + codiceVolo
+                + " biglietto=" + numeroBiglietto + " bagaglio=" + codiceBagaglio;
+    }
+}
@@ -0,0 +1,221 @@
+package database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Classe che applica in ordine le migrazioni SQL versionate dello schema del database.
+ * <p>
+ * Le migrazioni sono file {@code V<versione>__<descrizione>.sql} nella cartella {@code migrazioni}
+ * del classpath, elencati in {@link #MIGRAZIONI}. Ogni migrazione applicata viene registrata nella
+ * tabella {@code schema_migrazioni} con il checksum SHA-256 del suo contenuto: all'avvio successivo
+ * viene saltata, e se il file è stato modificato dopo l'applicazione l'esecuzione si interrompe
+ * segnalando l'incongruenza. Ogni migrazione viene eseguita in una propria transazione e un lock
+ * advisory impedisce a due istanze dell'applicativo di applicare le migrazioni contemporaneamente.
+ * <p>
+ * Dopo le migrazioni, sotto lo stesso lock, vengono installati o rimossi i trigger che mantengono
+ * la mappa dei posti in formato bitmap (migrazione V12), secondo il formato di lettura configurato.
+ */
+public class MigrazioniDatabase {
+    /**
+     * File delle migrazioni, nell'ordine di applicazione.
+     * Una migrazione già rilasciata non deve essere modificata: le correzioni vanno in una nuova versione.
+     */
+    private static final String[] MIGRAZIONI = {
+            "V1__indici_colonne_filtrate.sql",
+            "V2__indici_trigram_ricerca_voli.sql",
+            "V3__sequenza_numeri_biglietto.sql",
+            "V4__funzione_prenota.sql",
+            "V5__allocazione_posti_senza_contesa.sql",
+            "V6__blocchi_temporanei_posti.sql",
+            "V7__mappa_posti_bitmap.sql",
+            "V8__notifiche_modifiche.sql",
+            "V9__versioni_righe.sql",
+            "V10__ricerca_voli_tutti_i_campi.sql",
+            "V11__rimozione_posti_disponibili.sql",
+            "V12__mappa_posti_facoltativa.sql",
+            "V13__notifiche_posti_per_istruzione.sql",
+            "V14__validazione_testo_importazione.sql"
+    };
+
+    /**
+     * Cartella del classpath che contiene i file delle migrazioni.
+     */
+    private static final String CARTELLA = "/migrazioni/";
+
+    /**
+     * Chiave del lock advisory che serializza l'applicazione delle migrazioni.
+     */
+    private static final long CHIAVE_LOCK = 7_240_517_001L;
+
+    /**
+     * Pool da cui ottenere la connessione.
+     */
+    private final PoolConnessioni pool;
+
+    /**
+     * Flag che indica se la mappa dei posti viene letta in formato bitmap e va quindi mantenuta dai trigger.
+     */
+    private final boolean mappaPostiBitmap;
+
+    /**
+     * Costruttore della classe MigrazioniDatabase.
+     *
+     * @param pool             Il pool da cui ottenere la connessione
+     * @param mappaPostiBitmap true se la mappa dei posti viene letta in formato bitmap
+     */
+    public MigrazioniDatabase(PoolConnessioni pool, boolean mappaPostiBitmap) {
+        this.pool = pool;
+        this.mappaPostiBitmap = mappaPostiBitmap;
+    }
+
+    /**
+     * Applica le migrazioni non ancora registrate e verifica il checksum di quelle già applicate.
+     *
+     * @return true se lo schema è aggiornato all'ultima versione, false in caso di errore
+     */
+    public boolean applica() {
+        try (Connection conn = pool.getConnection();
+             Statement st = conn.createStatement()) {
+
+            st.execute("CREATE TABLE IF NOT EXISTS public.schema_migrazioni (" +
+                    "versione integer PRIMARY KEY, " +
+                    "descrizione text NOT NULL, " +
+                    "checksum character(64) NOT NULL, " +
+                    "applicata_il timestamp with time zone NOT NULL DEFAULT now())");
+
+            st.execute("SELECT pg_advisory_lock(" + CHIAVE_LOCK + ")");
+            try {
+                Map<Integer, String> applicate = leggiApplicate(st);
+                for (String file : MIGRAZIONI) {
+                    if (!applicaMigrazione(conn, st, file, applicate)) {
+                        return false;
+                    }
+                }
+                st.execute(mappaPostiBitmap
+                        ? "SELECT public.attiva_mappa_posti()"
+                        : "SELECT public.disattiva_mappa_posti()");
+                return true;
+            } finally {
+                st.execute("SELECT pg_advisory_unlock(" + CHIAVE_LOCK + ")");
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore durante l'applicazione delle migrazioni: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Legge le versioni già applicate con il relativo checksum.
+     *
+     * @param st Lo statement con cui eseguire la query
+     * @return Mappa versione-checksum delle migrazioni applicate
+     * @throws SQLException Se la lettura fallisce
+     */
+    private Map<Integer, String> leggiApplicate(Statement st) throws SQLException {
+        Map<Integer, String> applicate = new HashMap<>();
+        try (ResultSet rs = st.executeQuery("SELECT versione, checksum FROM public.schema_migrazioni")) {
+            while (rs.next()) {
+                applicate.put(rs.getInt("versione"), rs.getString("checksum"));
+            }
+        }
+        return applicate;
+    }
+
+    /**
+     * Applica una singola migrazione, se non ancora applicata, nella propria transazione.
+     *
+     * @param conn      La connessione su cui eseguire la migrazione
+     * @param st        Lo statement con cui eseguire lo script
+     * @param file      Il nome del file della migrazione
+     * @param applicate Mappa versione-checksum delle migrazioni già applicate
+     * @return true se la migrazione è stata applicata o era già presente con lo stesso checksum, false altrimenti
+     * @throws SQLException Se la comunicazione con il database fallisce
+     */
+    private boolean applicaMigrazione(Connection conn, Statement st, String file,
+                                      Map<Integer, String> applicate) throws SQLException {
+        int separatore = file.indexOf("__");
+        int versione = Integer.parseInt(file.substring(1, separatore));
+        String descrizione = file.substring(separatore + 2, file.length() - ".sql".length()).replace('_', ' ');
+
+        String script = leggiScript(file);
+        if (script == null) {
+            return false;
+        }
+        String checksum = calcolaChecksum(script);
+
+        String registrato = applicate.get(versione);
+        if (registrato != null) {
+            if (!registrato.equals(checksum)) {
+                System.err.println("La migrazione " + file + " è stata modificata dopo l'applicazione "
+                        + "(checksum registrato " + registrato + ", attuale " + checksum + ")");
+                return false;
+            }
+            return true;
+        }
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO public.schema_migrazioni (versione, descrizione, checksum) VALUES (?, ?, ?)")) {
+            st.execute(script);
+            ps.setInt(1, versione);
+            ps.setString(2, descrizione);
+            ps.setString(3, checksum);
+            ps.executeUpdate();
+            conn.commit();
+            System.out.println("Migrazione applicata: " + file);
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            System.err.println("Errore durante la migrazione " + file + ": " + e.getMessage());
+            return false;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Legge dal classpath il contenuto di una migrazione, normalizzando i fine riga.
+     *
+     * @param file Il nome del file della migrazione
+     * @return Il testo dello script, o null se il file non è leggibile
+     */
+    private String leggiScript(String file) {
+        try (InputStream in = MigrazioniDatabase.class.getResourceAsStream(CARTELLA + file)) {
+            if (in == null) {
+                System.err.println("Migrazione non trovata nel classpath: " + file);
+                return null;
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            System.err.println("Errore durante la lettura della migrazione " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Calcola il checksum SHA-256 di uno script.
+     *
+     * @param script Il testo dello script
+     * @return Il checksum in esadecimale (64 caratteri)
+     */
+    private static String calcolaChecksum(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+}
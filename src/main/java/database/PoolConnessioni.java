@@ -0,0 +1,702 @@
+package database;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Pool di connessioni JDBC verso il database PostgreSQL.
+ * <p>
+ * Mantiene un insieme di connessioni fisiche già autenticate e le presta ai chiamanti
+ * sotto forma di connessioni logiche: la chiamata a {@link Connection#close()} restituisce
+ * la connessione al pool invece di chiuderla, evitando di ripetere l'handshake TCP e
+ * l'autenticazione ad ogni operazione del DAO.
+ * <p>
+ * Il pool supporta una dimensione minima e massima configurabili, la rimozione delle
+ * connessioni inattive oltre una certa soglia, la validazione della connessione al momento
+ * del prestito e un tempo massimo di attesa quando tutte le connessioni sono in uso.
+ * <p>
+ * Ogni connessione fisica dispone inoltre di una {@link CacheStatement}: i PreparedStatement
+ * creati con lo stesso testo SQL vengono riutilizzati tra un prestito e l'altro, così che
+ * il server non debba analizzare e pianificare di nuovo le query più frequenti.
+ */
+public class PoolConnessioni implements DataSource {
+    /**
+     * URL di connessione al database.
+     */
+    private final String url;
+
+    /**
+     * Nome utente per l'accesso al database.
+     */
+    private final String user;
+
+    /**
+     * Password per l'accesso al database.
+     */
+    private final String password;
+
+    /**
+     * Numero minimo di connessioni fisiche mantenute aperte dal pool.
+     */
+    private final int dimensioneMinima;
+
+    /**
+     * Numero massimo di connessioni fisiche che il pool può aprire contemporaneamente.
+     */
+    private final int dimensioneMassima;
+
+    /**
+     * Tempo in millisecondi dopo il quale una connessione inattiva può essere chiusa.
+     */
+    private final long timeoutInattivitaMs;
+
+    /**
+     * Tempo massimo in millisecondi di attesa per ottenere una connessione dal pool.
+     */
+    private final long timeoutPrestitoMs;
+
+    /**
+     * Tempo massimo in secondi concesso alla validazione di una connessione.
+     */
+    private final int timeoutValidazioneSec;
+
+    /**
+     * Numero massimo di PreparedStatement mantenuti in cache per ogni connessione (0 per disabilitare).
+     */
+    private final int dimensioneCacheStatement;
+
+    /**
+     * Statistiche aggregate delle cache degli statement di tutte le connessioni.
+     */
+    private final StatisticheCache statisticheStatement = new StatisticheCache();
+
+    /**
+     * Connessioni fisiche attualmente libere, in ordine LIFO (la più recente in testa).
+     */
+    private final LinkedBlockingDeque<ConnessioneFisica> libere = new LinkedBlockingDeque<>();
+
+    /**
+     * Permessi di prestito: limita il numero di connessioni in uso alla dimensione massima.
+     */
+    private final Semaphore permessi;
+
+    /**
+     * Numero totale di connessioni fisiche aperte (libere e in uso).
+     */
+    private final AtomicInteger totali = new AtomicInteger();
+
+    /**
+     * Thread di manutenzione che rimuove le connessioni inattive e ripristina la dimensione minima.
+     */
+    private final ScheduledExecutorService manutenzione;
+
+    /**
+     * Flag che indica se il pool è stato chiuso.
+     */
+    private volatile boolean chiuso = false;
+
+    /**
+     * Testi SQL distinti preparati o eseguiti sulle connessioni del pool, o null se la registrazione non è attiva.
+     */
+    private volatile Set<String> queryRegistrate;
+
+    /**
+     * Writer di log richiesto dall'interfaccia DataSource.
+     */
+    private PrintWriter logWriter;
+
+    /**
+     * Costruttore del pool di connessioni.
+     *
+     * @param url                   URL JDBC del database
+     * @param user                  Nome utente per l'accesso al database
+     * @param password              Password per l'accesso al database
+     * @param dimensioneMinima      Numero minimo di connessioni da mantenere aperte
+     * @param dimensioneMassima     Numero massimo di connessioni aperte contemporaneamente
+     * @param timeoutInattivitaMs   Millisecondi di inattività dopo i quali una connessione può essere chiusa
+     * @param timeoutPrestitoMs     Millisecondi massimi di attesa per ottenere una connessione
+     * @param timeoutValidazioneSec Secondi massimi concessi alla validazione di una connessione
+     * @param dimensioneCacheStatement Numero massimo di statement in cache per connessione (0 per disabilitare)
+     * @throws IllegalArgumentException Se le dimensioni o i timeout non sono coerenti
+     */
+    public PoolConnessioni(String url, String user, String password,
+                           int dimensioneMinima, int dimensioneMassima,
+                           long timeoutInattivitaMs, long timeoutPrestitoMs, int timeoutValidazioneSec,
+                           int dimensioneCacheStatement) {
+        if (dimensioneMinima < 0 || dimensioneMassima < 1 || dimensioneMinima > dimensioneMassima) {
+            throw new IllegalArgumentException("Dimensioni del pool non valide: min=" + dimensioneMinima + ", max=" + dimensioneMassima);
+        }
+        if (timeoutInattivitaMs <= 0 || timeoutPrestitoMs < 0 || timeoutValidazioneSec < 0) {
+            throw new IllegalArgumentException("I timeout del pool non possono essere negativi");
+        }
+        if (dimensioneCacheStatement < 0) {
+            throw new IllegalArgumentException("La dimensione della cache degli statement non può essere negativa");
+        }
+
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.dimensioneMinima = dimensioneMinima;
+        this.dimensioneMassima = dimensioneMassima;
+        this.timeoutInattivitaMs = timeoutInattivitaMs;
+        this.timeoutPrestitoMs = timeoutPrestitoMs;
+        this.timeoutValidazioneSec = timeoutValidazioneSec;
+        this.dimensioneCacheStatement = dimensioneCacheStatement;
+        this.permessi = new Semaphore(dimensioneMassima, true);
+
+        this.manutenzione = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-connessioni-manutenzione");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000L, timeoutInattivitaMs / 2);
+        manutenzione.scheduleWithFixedDelay(this::eseguiManutenzione, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una connessione dal pool.
+     * Attende al massimo il timeout di prestito configurato; le connessioni libere vengono
+     * validate prima di essere restituite e, se non più valide, sostituite con connessioni nuove.
+     *
+     * @return Una connessione logica che al close() torna nel pool
+     * @throws SQLException Se il pool è chiuso, il timeout scade o non è possibile aprire una connessione
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (chiuso) {
+            throw new SQLException("Il pool di connessioni è chiuso");
+        }
+
+        try {
+            if (!permessi.tryAcquire(timeoutPrestitoMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout di " + timeoutPrestitoMs
+                        + " ms scaduto in attesa di una connessione libera (max " + dimensioneMassima + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa di una connessione interrotta", e);
+        }
+
+        try {
+            ConnessioneFisica fisica;
+            while ((fisica = libere.pollFirst()) != null) {
+                if (valida(fisica)) {
+                    return fisica.presta(this);
+                }
+                scarta(fisica);
+            }
+            return apri().presta(this);
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Non supportato: il pool utilizza sempre le credenziali configurate.
+     *
+     * @param username Nome utente
+     * @param password Password
+     * @return Mai
+     * @throws SQLException Sempre
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Il pool utilizza credenziali fisse");
+    }
+
+    /**
+     * Chiude il pool e tutte le connessioni libere.
+     * Le connessioni ancora in prestito vengono chiuse al momento della restituzione.
+     */
+    public void close() {
+        chiuso = true;
+        manutenzione.shutdownNow();
+        ConnessioneFisica fisica;
+        while ((fisica = libere.pollFirst()) != null) {
+            scarta(fisica);
+        }
+    }
+
+    /**
+     * Restituisce il numero totale di connessioni fisiche aperte.
+     *
+     * @return Il numero di connessioni aperte
+     */
+    public int getConnessioniTotali() {
+        return totali.get();
+    }
+
+    /**
+     * Restituisce il numero di connessioni fisiche attualmente libere.
+     *
+     * @return Il numero di connessioni libere
+     */
+    public int getConnessioniLibere() {
+        return libere.size();
+    }
+
+    /**
+     * Restituisce il numero massimo di connessioni gestite dal pool.
+     *
+     * @return La dimensione massima del pool
+     */
+    public int getDimensioneMassima() {
+        return dimensioneMassima;
+    }
+
+    /**
+     * Restituisce le statistiche aggregate delle cache degli statement.
+     *
+     * @return Le statistiche di hit, miss ed eviction degli statement
+     */
+    public StatisticheCache getStatisticheStatement() {
+        return statisticheStatement;
+    }
+
+    /**
+     * Attiva la registrazione dei testi SQL preparati o eseguiti tramite le connessioni del pool,
+     * utilizzata dalla verifica dei piani di esecuzione.
+     */
+    public void abilitaRegistroQuery() {
+        if (queryRegistrate == null) {
+            queryRegistrate = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Restituisce i testi SQL distinti preparati o eseguiti da quando è stata attivata la registrazione.
+     *
+     * @return Insieme non modificabile delle query registrate, vuoto se la registrazione non è attiva
+     */
+    public Set<String> getQueryRegistrate() {
+        Set<String> registrate = queryRegistrate;
+        return registrate == null ? Collections.emptySet() : Collections.unmodifiableSet(registrate);
+    }
+
+    /**
+     * Verifica se la registrazione dei testi SQL è attiva.
+     *
+     * @return true se la registrazione è attiva, false altrimenti
+     */
+    boolean isRegistroQueryAttivo() {
+        return queryRegistrate != null;
+    }
+
+    /**
+     * Registra il testo SQL di uno statement preparato o eseguito, se la registrazione è attiva.
+     *
+     * @param sql Il testo SQL
+     */
+    void registraQuery(String sql) {
+        Set<String> registrate = queryRegistrate;
+        if (registrate != null) {
+            registrate.add(sql);
+        }
+    }
+
+    /**
+     * Riporta nel pool una connessione fisica al termine del prestito.
+     * Annulla l'eventuale transazione lasciata aperta, ripristina l'autocommit e libera
+     * gli statement in cache non chiusi dal chiamante, così che il prossimo chiamante
+     * riceva sempre una connessione in stato pulito.
+     *
+     * @param fisica La connessione fisica da restituire
+     */
+    void restituisci(ConnessioneFisica fisica) {
+        try {
+            Connection conn = fisica.getConnessione();
+            if (chiuso || conn.isClosed()) {
+                scarta(fisica);
+                return;
+            }
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            conn.clearWarnings();
+            if (fisica.getCache() != null) {
+                fisica.getCache().libera();
+            }
+            fisica.setUltimoUtilizzo(System.currentTimeMillis());
+            libere.offerFirst(fisica);
+        } catch (SQLException e) {
+            System.err.println("Connessione scartata alla restituzione: " + e.getMessage());
+            scarta(fisica);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    /**
+     * Apre una nuova connessione fisica verso il database.
+     *
+     * @return La nuova connessione fisica
+     * @throws SQLException Se la connessione non può essere aperta
+     */
+    private ConnessioneFisica apri() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        totali.incrementAndGet();
+        CacheStatement cache = dimensioneCacheStatement > 0
+                ? new CacheStatement(dimensioneCacheStatement, statisticheStatement)
+                : null;
+        return new ConnessioneFisica(conn, cache);
+    }
+
+    /**
+     * Verifica che una connessione libera sia ancora utilizzabile.
+     *
+     * @param fisica La connessione da validare
+     * @return true se la connessione è valida, false altrimenti
+     */
+    private boolean valida(ConnessioneFisica fisica) {
+        try {
+            return fisica.getConnessione().isValid(timeoutValidazioneSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Chiude definitivamente una connessione fisica e la rimuove dal conteggio.
+     *
+     * @param fisica La connessione da chiudere
+     */
+    private void scarta(ConnessioneFisica fisica) {
+        totali.decrementAndGet();
+        try {
+            if (fisica.getCache() != null) {
+                fisica.getCache().svuota();
+            }
+            fisica.getConnessione().close();
+        } catch (SQLException e) {
+            System.err.println("Errore durante la chiusura di una connessione: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rimuove le connessioni rimaste inattive oltre il timeout, senza scendere sotto la
+     * dimensione minima, e apre nuove connessioni se il pool è sotto la dimensione minima.
+     */
+    private void eseguiManutenzione() {
+        long soglia = System.currentTimeMillis() - timeoutInattivitaMs;
+        Iterator<ConnessioneFisica> it = libere.descendingIterator();
+        while (it.hasNext() && totali.get() > dimensioneMinima) {
+            ConnessioneFisica fisica = it.next();
+            if (fisica.getUltimoUtilizzo() < soglia && libere.removeLastOccurrence(fisica)) {
+                scarta(fisica);
+            }
+        }
+
+        while (!chiuso && totali.get() < dimensioneMinima) {
+            try {
+                ConnessioneFisica fisica = apri();
+                fisica.setUltimoUtilizzo(System.currentTimeMillis());
+                libere.offerLast(fisica);
+            } catch (SQLException e) {
+                System.err.println("Impossibile ripristinare la dimensione minima del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Il pool non implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Connessione fisica gestita dal pool, con le informazioni necessarie alla manutenzione.
+     */
+    static final class ConnessioneFisica {
+        /**
+         * Connessione JDBC reale verso il database.
+         */
+        private final Connection connessione;
+
+        /**
+         * Cache dei PreparedStatement della connessione, o null se disabilitata.
+         */
+        private final CacheStatement cache;
+
+        /**
+         * Istante in millisecondi dell'ultima restituzione al pool.
+         */
+        private volatile long ultimoUtilizzo;
+
+        /**
+         * Costruttore della connessione fisica.
+         *
+         * @param connessione La connessione JDBC reale
+         * @param cache       La cache degli statement, o null se disabilitata
+         */
+        ConnessioneFisica(Connection connessione, CacheStatement cache) {
+            this.connessione = connessione;
+            this.cache = cache;
+            this.ultimoUtilizzo = System.currentTimeMillis();
+        }
+
+        /**
+         * Restituisce la connessione JDBC reale.
+         *
+         * @return La connessione reale
+         */
+        Connection getConnessione() {
+            return connessione;
+        }
+
+        /**
+         * Restituisce la cache degli statement della connessione.
+         *
+         * @return La cache degli statement, o null se disabilitata
+         */
+        CacheStatement getCache() {
+            return cache;
+        }
+
+        /**
+         * Restituisce l'istante dell'ultimo utilizzo.
+         *
+         * @return L'istante in millisecondi
+         */
+        long getUltimoUtilizzo() {
+            return ultimoUtilizzo;
+        }
+
+        /**
+         * Imposta l'istante dell'ultimo utilizzo.
+         *
+         * @param ultimoUtilizzo L'istante in millisecondi
+         */
+        void setUltimoUtilizzo(long ultimoUtilizzo) {
+            this.ultimoUtilizzo = ultimoUtilizzo;
+        }
+
+        /**
+         * Crea la connessione logica consegnata al chiamante per un singolo prestito.
+         *
+         * @param pool Il pool a cui restituire la connessione alla chiusura
+         * @return La connessione logica
+         */
+        Connection presta(PoolConnessioni pool) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Prestito(pool, this));
+        }
+    }
+
+    /**
+     * Gestore della connessione logica: inoltra le chiamate alla connessione fisica,
+     * intercetta {@code close()} e {@code isClosed()} per restituirla al pool e
+     * risolve {@code prepareStatement} tramite la cache degli statement. Con la registrazione
+     * delle query attiva, anche gli statement creati con {@code createStatement} registrano
+     * il testo SQL che eseguono.
+     */
+    private static final class Prestito implements InvocationHandler {
+        /**
+         * Pool a cui restituire la connessione.
+         */
+        private final PoolConnessioni pool;
+
+        /**
+         * Connessione fisica prestata.
+         */
+        private final ConnessioneFisica fisica;
+
+        /**
+         * Flag che indica se la connessione logica è già stata restituita.
+         */
+        private boolean restituita = false;
+
+        /**
+         * Costruttore del gestore del prestito.
+         *
+         * @param pool   Il pool di provenienza
+         * @param fisica La connessione fisica prestata
+         */
+        Prestito(PoolConnessioni pool, ConnessioneFisica fisica) {
+            this.pool = pool;
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!restituita) {
+                        restituita = true;
+                        pool.restituisci(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return restituita || fisica.getConnessione().isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Connessione del pool [" + fisica.getConnessione() + "]";
+                default:
+                    break;
+            }
+            if (restituita) {
+                throw new SQLException("La connessione è già stata restituita al pool");
+            }
+            if ("prepareStatement".equals(method.getName())) {
+                pool.registraQuery((String) args[0]);
+            }
+            if ("createStatement".equals(method.getName()) && pool.isRegistroQueryAttivo()) {
+                Statement statement = (Statement) invocaFisica(method, args);
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[]{Statement.class},
+                        new StatementRegistrato(pool, statement, (Connection) proxy));
+            }
+            if (fisica.getCache() != null && "prepareStatement".equals(method.getName())) {
+                Class<?>[] tipi = method.getParameterTypes();
+                if (tipi.length == 1) {
+                    return fisica.getCache().prepara(fisica.getConnessione(), (Connection) proxy,
+                            (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (tipi.length == 2 && tipi[1] == int.class) {
+                    return fisica.getCache().prepara(fisica.getConnessione(), (Connection) proxy,
+                            (String) args[0], (Integer) args[1]);
+                }
+            }
+            return invocaFisica(method, args);
+        }
+
+        /**
+         * Inoltra una chiamata alla connessione fisica, propagando l'eccezione originale.
+         *
+         * @param method Il metodo da invocare
+         * @param args   Gli argomenti della chiamata
+         * @return Il risultato della chiamata
+         * @throws Throwable L'eccezione lanciata dalla connessione fisica
+         */
+        private Object invocaFisica(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(fisica.getConnessione(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Gestore di uno statement semplice creato con la registrazione delle query attiva:
+     * registra nel pool il testo SQL passato ai metodi {@code execute*} e {@code addBatch},
+     * così che la verifica dei piani copra anche le query non preparate.
+     */
+    private static final class StatementRegistrato implements InvocationHandler {
+        /**
+         * Pool in cui registrare le query.
+         */
+        private final PoolConnessioni pool;
+
+        /**
+         * Statement reale creato sulla connessione fisica.
+         */
+        private final Statement statement;
+
+        /**
+         * Connessione logica restituita da {@code getConnection()}.
+         */
+        private final Connection logica;
+
+        /**
+         * Costruttore del gestore dello statement.
+         *
+         * @param pool      Il pool in cui registrare le query
+         * @param statement Lo statement reale
+         * @param logica    La connessione logica di appartenenza
+         */
+        StatementRegistrato(PoolConnessioni pool, Statement statement, Connection logica) {
+            this.pool = pool;
+            this.statement = statement;
+            this.logica = logica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "addBatch":
+                    if (args != null && args.length > 0 && args[0] instanceof String) {
+                        pool.registraQuery((String) args[0]);
+                    }
+                    break;
+                case "getConnection":
+                    return logica;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contatori condivisi che descrivono l'efficacia di una cache.
+ * Registra i successi (hit), i fallimenti (miss) e le rimozioni per superamento
+ * della capacità (eviction). I contatori sono thread-safe e possono essere
+ * aggiornati da più cache contemporaneamente.
+ */
+public class StatisticheCache {
+    /**
+     * Numero di richieste soddisfatte dalla cache.
+     */
+    private final LongAdder hit = new LongAdder();
+
+    /**
+     * Numero di richieste non soddisfatte dalla cache.
+     */
+    private final LongAdder miss = new LongAdder();
+
+    /**
+     * Numero di elementi rimossi dalla cache per fare spazio a nuovi elementi.
+     */
+    private final LongAdder eviction = new LongAdder();
+
+    /**
+     * Registra una richiesta soddisfatta dalla cache.
+     */
+    public void registraHit() {
+        hit.increment();
+    }
+
+    /**
+     * Registra una richiesta non soddisfatta dalla cache.
+     */
+    public void registraMiss() {
+        miss.increment();
+    }
+
+    /**
+     * Registra la rimozione di un elemento per superamento della capacità.
+     */
+    public void registraEviction() {
+        eviction.increment();
+    }
+
+    /**
+     * Restituisce il numero di richieste soddisfatte dalla cache.
+     *
+     * @return Il numero di hit
+     */
+    public long getHit() {
+        return hit.sum();
+    }
+
+    /**
+     * Restituisce il numero di richieste non soddisfatte dalla cache.
+     *
+     * @return Il numero di miss
+     */
+    public long getMiss() {
+        return miss.sum();
+    }
+
+    /**
+     * Restituisce il numero di elementi rimossi per superamento della capacità.
+     *
+     * @return Il numero di eviction
+     */
+    public long getEviction() {
+        return eviction.sum();
+    }
+
+    /**
+     * Restituisce la percentuale di richieste soddisfatte dalla cache.
+     *
+     * @return Il rapporto tra hit e richieste totali, compreso tra 0 e 1
+     */
+    public double getHitRatio() {
+        long h = getHit();
+        long totale = h + getMiss();
+        return totale == 0 ? 0.0 : (double) h / totale;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hit=%d, miss=%d, eviction=%d, hitRatio=%.2f",
+                getHit(), getMiss(), getEviction(), getHitRatio());
+    }
+}
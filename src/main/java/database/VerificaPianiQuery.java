@@ -0,0 +1,119 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Classe che verifica i piani di esecuzione delle query del DAO alla ricerca di scansioni sequenziali.
+ * <p>
+ * Le query vengono raccolte dal pool durante l'esecuzione (vedi {@link PoolConnessioni#abilitaRegistroQuery()})
+ * e analizzate con {@code EXPLAIN (GENERIC_PLAN)}, che produce il piano generico di una query
+ * parametrica senza bisogno di valori per i parametri (PostgreSQL 16 o successivo). I segnaposto
+ * JDBC {@code ?} vengono convertiti nei parametri posizionali {@code $n} di PostgreSQL.
+ * Su tabelle molto piccole il planner può preferire una scansione sequenziale anche in presenza
+ * di un indice adatto: il report va letto tenendo conto della dimensione dei dati.
+ */
+public class VerificaPianiQuery {
+    /**
+     * Pool da cui ottenere la connessione.
+     */
+    private final PoolConnessioni pool;
+
+    /**
+     * Costruttore della classe VerificaPianiQuery.
+     *
+     * @param pool Il pool da cui ottenere la connessione
+     */
+    public VerificaPianiQuery(PoolConnessioni pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Analizza le query indicate e stampa un report delle scansioni sequenziali trovate.
+     * Le query non analizzabili (ad esempio quelle su tabelle temporanee non più esistenti)
+     * vengono segnalate e saltate.
+     *
+     * @param queries Le query SQL da analizzare, con segnaposto JDBC
+     * @return Le segnalazioni di scansione sequenziale, una per nodo del piano
+     */
+    public List<String> verifica(Collection<String> queries) {
+        List<String> segnalazioni = new ArrayList<>();
+        try (Connection conn = pool.getConnection();
+             Statement st = conn.createStatement()) {
+
+            for (String sql : new TreeSet<>(queries)) {
+                if (!isAnalizzabile(sql)) {
+                    continue;
+                }
+                try (ResultSet rs = st.executeQuery("EXPLAIN (GENERIC_PLAN) " + convertiSegnaposto(sql))) {
+                    while (rs.next()) {
+                        String riga = rs.getString(1).trim();
+                        if (riga.contains("Seq Scan on ")) {
+                            segnalazioni.add(riga.replaceFirst("^->\\s*", "") + "  <-  " + sql);
+                        }
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Query non analizzabile (" + e.getMessage() + "): " + sql);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore durante la verifica dei piani di esecuzione: " + e.getMessage());
+        }
+
+        System.out.println("Verifica piani: " + queries.size() + " query analizzate, "
+                + segnalazioni.size() + " scansioni sequenziali");
+        for (String segnalazione : segnalazioni) {
+            System.out.println("  " + segnalazione);
+        }
+        return segnalazioni;
+    }
+
+    /**
+     * Verifica se una query è un'istruzione DML di cui ha senso chiedere il piano.
+     *
+     * @param sql La query SQL
+     * @return true per SELECT, INSERT, UPDATE, DELETE e WITH, false altrimenti
+     */
+    private static boolean isAnalizzabile(String sql) {
+        String inizio = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return inizio.startsWith("select") || inizio.startsWith("insert") || inizio.startsWith("update")
+                || inizio.startsWith("delete") || inizio.startsWith("with");
+    }
+
+    /**
+     * Converte i segnaposto JDBC {@code ?} in parametri posizionali {@code $1, $2, ...},
+     * ignorando i punti interrogativi all'interno di stringhe e identificatori quotati.
+     *
+     * @param sql La query con segnaposto JDBC
+     * @return La query con parametri posizionali
+     */
+    static String convertiSegnaposto(String sql) {
+        StringBuilder risultato = new StringBuilder(sql.length() + 8);
+        int parametro = 0;
+        char delimitatore = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (delimitatore != 0) {
+                if (c == delimitatore) {
+                    delimitatore = 0;
+                }
+                risultato.append(c);
+            } else if (c == '\'' || c == '"') {
+                delimitatore = c;
+                risultato.append(c);
+            } else if (c == '?') {
+                risultato.append('$').append(++parametro);
+            } else {
+                risultato.append(c);
+            }
+        }
+        return risultato.toString();
+    }
+}
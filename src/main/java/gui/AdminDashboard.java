@@ -1,5 +1,6 @@
 package gui;
 
+import database.EventoModifica;
 import model.*;
 
 import javax.swing.*;
@@ -8,10 +9,22 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Classe che implementa l'interfaccia grafica per la dashboard dell'amministratore.
@@ -65,19 +78,121 @@ public class AdminDashboard extends JFrame {
     private static final String MODIFICA = "Modifica";
 
     /**
-     * Lista di tutti i voli presenti nel sistema.
+     * Numero di voli mostrati per ogni pagina della tabella dei voli.
      */
-    private List<Volo> flights;
+    private static final int FLIGHTS_PAGE_SIZE = 50;
+
+    /**
+     * Voli della pagina attualmente visualizzata nella tabella dei voli.
+     */
+    private List<Volo> flights = new ArrayList<>();
+
+    /**
+     * Modello della tabella dei voli, basato sulla lista {@link #flights}.
+     */
+    private final ModelloTabella<Volo> flightsModel = new ModelloTabella<Volo>()
+            .conColonna("Codice Volo", String.class, Volo::getCodiceVolo)
+            .conColonna("Compagnia", String.class, Volo::getCompagnia)
+            .conColonna("Origine", String.class, Volo::getOrigine)
+            .conColonna("Destinazione", String.class, Volo::getDestinazione)
+            .conColonna("Gate", Object.class, Volo::getGate)
+            .conColonna("Orario", String.class, Volo::getOrarioPrevisto)
+            .conColonna("Stato", StatoVolo.class, Volo::getStato)
+            .conColonna("Data", LocalDate.class, Volo::getData)
+            .conColonna("Ritardo (min)", Object.class, Volo::getTempoRitardo)
+            .conColonna("Posti Totali", Object.class, Volo::getPostiTotali)
+            .conColonna("Posti Disponibili", Object.class, Volo::getPostiDisponibili);
+
+    /**
+     * Criteri di ricerca attualmente applicati alla tabella dei voli.
+     */
+    private CriteriRicercaVoli flightsCriteria = new CriteriRicercaVoli();
+
+    /**
+     * Criteri di ricerca della pagina di voli visualizzata; diversi da {@link #flightsCriteria}
+     * mentre è in corso la lettura dei risultati di una nuova ricerca, null finché non è stata
+     * visualizzata nessuna pagina.
+     */
+    private CriteriRicercaVoli shownFlightsCriteria;
+
+    /**
+     * Cursore della pagina di voli attualmente visualizzata.
+     */
+    private CursoreVoli flightsPage = new CursoreVoli(FLIGHTS_PAGE_SIZE);
+
+    /**
+     * Cursore della pagina di voli successiva, o null se la pagina corrente è l'ultima.
+     */
+    private CursoreVoli nextFlightsPage;
+
+    /**
+     * Cursori delle pagine già visitate, per tornare alla pagina precedente.
+     */
+    private final Deque<CursoreVoli> previousFlightsPages = new ArrayDeque<>();
+
+    /**
+     * Pulsante per visualizzare la pagina di voli precedente.
+     */
+    private JButton previousFlightsButton;
+
+    /**
+     * Pulsante per visualizzare la pagina di voli successiva.
+     */
+    private JButton nextFlightsButton;
+
+    /**
+     * Versione dei dati della pagina di voli visualizzata, da cui richiedere le modifiche;
+     * -1 se non nota, nel qual caso l'aggiornamento rilegge l'intera pagina.
+     */
+    private long flightsVersion = -1;
+
+    /**
+     * Caricamento in background della pagina di voli, annullato se ne viene richiesto uno nuovo.
+     */
+    private CompletableFuture<PaginaVoli> flightsLoading;
+
+    /**
+     * Campo di testo per l'inserimento dei termini di ricerca, cercati in tutti i campi dei voli.
+     */
+    private JTextField searchField;
+
+    /**
+     * Ricerca dei voli avviata mentre l'amministratore scrive nel campo di ricerca.
+     */
+    private RicercaMentreScrivi flightsSearch;
+
+    /**
+     * Raccoglie le modifiche notificate dal database per aggiornare la tabella dei voli.
+     */
+    private ModificheRemote remoteChanges;
 
     /**
      * Lista di tutti i gate dell'aeroporto.
      */
-    private List<Gate> gates;
+    private List<Gate> gates = new ArrayList<>();
 
     /**
      * Lista di tutti i bagagli registrati nel sistema.
      */
-    private List<Bagaglio> baggages;
+    private List<Bagaglio> baggages = new ArrayList<>();
+
+    /**
+     * Prenotazioni a cui appartengono i bagagli smarriti, indicizzate per codice del bagaglio.
+     */
+    private final Map<String, Prenotazione> lostBaggageBookings = new HashMap<>();
+
+    /**
+     * Tempi di avvio della dashboard, stampati al primo disegno e al termine del caricamento iniziale.
+     */
+    private final TempiAvvio startupTimes = new TempiAvvio("Dashboard amministratore");
+
+    /**
+     * Modello della tabella dei bagagli smarriti.
+     */
+    private final ModelloTabella<Bagaglio> lostBaggageModel = new ModelloTabella<Bagaglio>()
+            .conColonna("Codice Bagaglio", String.class, Bagaglio::getCodice)
+            .conColonna("Stato", StatoBagaglio.class, Bagaglio::getStato)
+            .conColonna("Azioni", String.class, bagaglio -> MODIFICA);
 
     /**
      * Utente amministratore attualmente loggato.
@@ -104,7 +219,11 @@ public class AdminDashboard extends JFrame {
 
         this.controller = new controller.Controller();
 
-        initializeTestData();
+        CompletableFuture<Void> flightsLoaded = loadFirstFlightsPage();
+        CompletableFuture<Void> gatesLoaded = loadGates();
+        CompletableFuture<Void> baggagesLoaded = loadBaggages();
+        CompletableFuture.allOf(flightsLoaded, gatesLoaded, baggagesLoaded)
+                .whenComplete((v, e) -> SwingUtilities.invokeLater(startupTimes::datiCaricati));
 
         setTitle("Dashboard Amministratore - Aeroporto di Napoli");
         setSize(1000, 700);
@@ -119,9 +238,19 @@ public class AdminDashboard extends JFrame {
         tabbedPane = new JTabbedPane();
         UIManager.styleTabbedPane(tabbedPane);
 
-        createFlightsPanel();
-        createAddFlightPanel();
-        createLostBaggagePanel();
+        SchedeDifferite tabs = new SchedeDifferite(tabbedPane);
+        tabs.aggiungi("Voli", CompletableFuture.completedFuture(null), () -> {
+            createFlightsPanel();
+            return flightsPanel;
+        });
+        tabs.aggiungi("Inserisci Volo", CompletableFuture.completedFuture(null), () -> {
+            createAddFlightPanel();
+            return addFlightPanel;
+        });
+        tabs.aggiungi("Bagagli Smarriti", baggagesLoaded, () -> {
+            createLostBaggagePanel();
+            return lostBaggagePanel;
+        });
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
 
@@ -155,6 +284,33 @@ public class AdminDashboard extends JFrame {
         mainPanel.add(topPanel, BorderLayout.NORTH);
 
         setContentPane(mainPanel);
+
+        remoteChanges = new ModificheRemote(controller, this::applyRemoteChanges);
+    }
+
+    /**
+     * Disegna la finestra, registrando il primo disegno tra i tempi di avvio.
+     *
+     * @param g Il contesto grafico
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        startupTimes.primoDisegno();
+    }
+
+    /**
+     * Chiude la dashboard smettendo di ricevere le modifiche notificate dal database.
+     */
+    @Override
+    public void dispose() {
+        if (remoteChanges != null) {
+            remoteChanges.chiudi();
+        }
+        if (flightsSearch != null) {
+            flightsSearch.chiudi();
+        }
+        super.dispose();
     }
 
     /**
@@ -172,24 +328,62 @@ public class AdminDashboard extends JFrame {
     }
 
     /**
-     * Inizializza i dati di test per la dashboard.
-     * Carica tutti i voli, i gate e i bagagli dal controller.
-     * Se i dati non sono disponibili, inizializza liste vuote.
+     * Carica in background la prima pagina di voli e al termine la visualizza nella tabella dei voli,
+     * se nel frattempo l'amministratore non ha avviato una ricerca.
+     *
+     * @return Il future completato dopo l'applicazione della pagina
      */
-    private void initializeTestData() {
-        flights = controller.getAllVoli();
-        if (flights == null) {
-            flights = new ArrayList<>();
-        }
+    private CompletableFuture<Void> loadFirstFlightsPage() {
+        CursoreVoli pagina = flightsPage;
+        CriteriRicercaVoli criteria = flightsCriteria;
+        flightsLoading = controller.esegui(() -> controller.cercaVoli(criteria, pagina));
+        return SchedeDifferite.applica(flightsLoading, risultato -> {
+            if (risultato != null && criteria == flightsCriteria && pagina == flightsPage) {
+                showFlightsPage(pagina, criteria, risultato);
+            }
+        });
+    }
 
-        gates = controller.getAllGates();
-        if (gates == null) {
-            gates = new ArrayList<>();
-        }
+    /**
+     * Carica in background tutti i gate dell'aeroporto.
+     *
+     * @return Il future completato dopo l'applicazione dei gate
+     */
+    private CompletableFuture<Void> loadGates() {
+        return SchedeDifferite.applica(controller.esegui(controller::getAllGates), gate -> {
+            if (gate != null) {
+                gates = gate;
+            }
+        });
+    }
+
+    /**
+     * Carica in background i bagagli smarriti con le relative prenotazioni, mostrati dalla scheda dei bagagli smarriti.
+     *
+     * @return Il future completato dopo l'applicazione dei bagagli
+     */
+    private CompletableFuture<Void> loadBaggages() {
+        return SchedeDifferite.applica(controller.esegui(controller::getPrenotazioniBagagliSmarriti), prenotazioni -> {
+            if (prenotazioni != null) {
+                setLostBaggage(prenotazioni);
+            }
+        });
+    }
 
-        baggages = controller.getAllBagagli();
-        if (baggages == null) {
-            baggages = new ArrayList<>();
+    /**
+     * Sostituisce i bagagli smarriti con quelli delle prenotazioni indicate, indicizzando le prenotazioni
+     * per codice del bagaglio così che il dialogo di modifica di un bagaglio non richieda altre letture.
+     *
+     * @param prenotazioni Le prenotazioni con i soli bagagli smarriti
+     */
+    private void setLostBaggage(List<Prenotazione> prenotazioni) {
+        baggages = new ArrayList<>();
+        lostBaggageBookings.clear();
+        for (Prenotazione prenotazione : prenotazioni) {
+            for (Bagaglio bagaglio : prenotazione.getBagagli()) {
+                baggages.add(bagaglio);
+                lostBaggageBookings.put(bagaglio.getCodice(), prenotazione);
+            }
         }
     }
 
@@ -216,74 +410,27 @@ public class AdminDashboard extends JFrame {
                 BorderFactory.createEmptyBorder(10, 10, 10, 10)
         ));
 
-        JComboBox<String> searchTypeComboBox = new JComboBox<>(new String[]{
-                "Codice Volo", "Compagnia", "Destinazione", "Origine", "Orario", "Stato", "Data"
-        });
-        UIManager.styleComboBox(searchTypeComboBox);
-
-        JTextField searchField = new JTextField(20);
+        searchField = new JTextField(20);
         UIManager.styleTextField(searchField);
+        searchField.setToolTipText("Codice, compagnia, aeroporti, orario, stato o data; più parole restringono la ricerca");
+        flightsSearch = new RicercaMentreScrivi(searchField, this::searchFlights);
 
         JButton searchButton = new JButton("Cerca");
         UIManager.styleButton(searchButton);
+        searchButton.addActionListener(e -> flightsSearch.avvia());
 
-        searchButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                filterFlights(searchField.getText(), (String) searchTypeComboBox.getSelectedItem());
-            }
-        });
-
-        JLabel searchLabel = new JLabel("Cerca per:");
+        JLabel searchLabel = new JLabel("Cerca:");
         searchLabel.setFont(UIManager.NORMAL_FONT);
         searchLabel.setForeground(UIManager.TEXT_COLOR);
 
         searchPanel.add(searchLabel);
-        searchPanel.add(searchTypeComboBox);
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
 
         flightsPanel.add(searchPanel, BorderLayout.NORTH);
 
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        model.addColumn("Codice Volo");
-        model.addColumn("Compagnia");
-        model.addColumn("Origine");
-        model.addColumn("Destinazione");
-        model.addColumn("Gate");
-
-        model.addColumn("Orario");
-        model.addColumn("Stato");
-        model.addColumn("Data");
-        model.addColumn("Ritardo (min)");
-        model.addColumn("Posti Totali");
-        model.addColumn("Posti Disponibili");
-
-        for (Volo volo : flights) {
-            model.addRow(new Object[]{
-                    volo.getCodiceVolo(),
-                    volo.getCompagnia(),
-                    volo.getOrigine(),
-                    volo.getDestinazione(),
-                    volo.getGate(),
-
-                    volo.getOrarioPrevisto(),
-                    volo.getStato(),
-                    volo.getData(),
-                    volo.getTempoRitardo(),
-                    volo.getPostiTotali(),
-
-                    volo.getPostiDisponibili(),
-
-            });
-        }
-
-        flightsTable = new JTable(model);
+        flightsModel.setElementi(flights);
+        flightsTable = new JTable(flightsModel);
 
         UIManager.styleTable(flightsTable);
 
@@ -342,91 +489,258 @@ public class AdminDashboard extends JFrame {
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         buttonPanel.setBackground(UIManager.BACKGROUND_COLOR);
-        flightsPanel.add(buttonPanel, BorderLayout.SOUTH);
 
-        tabbedPane.addTab("Voli", flightsPanel);
+        previousFlightsButton = new JButton("< Precedenti");
+        UIManager.styleButton(previousFlightsButton);
+        previousFlightsButton.addActionListener(e -> {
+            if (!previousFlightsPages.isEmpty()) {
+                loadFlightsPage(previousFlightsPages.pop());
+            }
+        });
+
+        nextFlightsButton = new JButton("Successivi >");
+        UIManager.styleButton(nextFlightsButton);
+        nextFlightsButton.addActionListener(e -> {
+            if (nextFlightsPage != null) {
+                previousFlightsPages.push(flightsPage);
+                loadFlightsPage(nextFlightsPage);
+            }
+        });
+
+        previousFlightsButton.setEnabled(false);
+        nextFlightsButton.setEnabled(nextFlightsPage != null);
+        buttonPanel.add(previousFlightsButton);
+        buttonPanel.add(nextFlightsButton);
+        flightsPanel.add(buttonPanel, BorderLayout.SOUTH);
     }
 
     /**
      * Aggiorna la tabella dei voli con i dati più recenti.
-     * Recupera tutti i voli dal controller e aggiorna la tabella dell'interfaccia.
+     * Legge in background dal controller solo i voli modificati dall'ultima lettura e li applica
+     * riga per riga alla pagina visualizzata; se la versione dei dati non è nota rilegge l'intera pagina.
      */
     private void refreshFlightsTable() {
-        flights = controller.getAllVoli();
-        if (flights == null) {
-            flights = new ArrayList<>();
+        if (flightsVersion < 0) {
+            loadFlightsPage(flightsPage);
+            return;
         }
+        CursoreVoli pagina = flightsPage;
+        CriteriRicercaVoli criteria = flightsCriteria;
+        long versione = flightsVersion;
+        controller.esegui(() -> controller.cercaVoliModificati(criteria, versione))
+                .thenAccept(variazioni -> SwingUtilities.invokeLater(() -> {
+                    // Scarta il risultato se nel frattempo la pagina è cambiata o è già stata aggiornata più di recente
+                    if (variazioni != null && pagina == flightsPage && criteria == flightsCriteria
+                            && variazioni.getVersione() >= flightsVersion) {
+                        applyFlightChanges(variazioni);
+                    }
+                }));
+    }
 
-        DefaultTableModel model = (DefaultTableModel) flightsTable.getModel();
-        model.setRowCount(0);
+    /**
+     * Applica alla pagina di voli visualizzata le modifiche lette dal controller.
+     * I voli rimossi vengono tolti dalla tabella; quelli modificati vengono aggiornati sul posto,
+     * spostati se è cambiata la loro posizione nell'ordinamento, oppure inseriti se ricadono
+     * nell'intervallo della pagina. La pagina può così contenere qualche volo in più o in meno
+     * della sua dimensione fino alla lettura successiva.
+     *
+     * @param variazioni Le modifiche ai voli
+     */
+    private void applyFlightChanges(Variazioni<Volo> variazioni) {
+        flightsVersion = variazioni.getVersione();
+        if (variazioni.isVuota()) {
+            return;
+        }
+        Set<String> removed = new HashSet<>(variazioni.getRimossi());
+        for (int i = flights.size() - 1; i >= 0; i--) {
+            if (removed.contains(flights.get(i).getCodiceVolo())) {
+                flightsModel.rimuovi(i);
+            }
+        }
 
-        for (Volo volo : flights) {
-            model.addRow(new Object[]{
-                    volo.getCodiceVolo(),
-                    volo.getCompagnia(),
-                    volo.getOrigine(),
-                    volo.getDestinazione(),
-                    volo.getGate(),
-
-                    volo.getOrarioPrevisto(),
-                    volo.getStato(),
-                    volo.getData(),
-                    volo.getTempoRitardo(),
-                    volo.getPostiTotali(),
-                    volo.getPostiDisponibili()
-            });
+        for (Volo volo : variazioni.getModificati()) {
+            int index = flightsModel.indiceDi(v -> v.getCodiceVolo().equals(volo.getCodiceVolo()));
+            boolean inPage = isInFlightsPage(volo);
+            if (index >= 0 && inPage
+                    && (index == 0 || compareFlights(flights.get(index - 1), volo) <= 0)
+                    && (index == flights.size() - 1 || compareFlights(volo, flights.get(index + 1)) <= 0)) {
+                flightsModel.aggiorna(index, volo);
+                continue;
+            }
+            if (index >= 0) {
+                flightsModel.rimuovi(index);
+            }
+            if (inPage) {
+                int position = 0;
+                while (position < flights.size() && compareFlights(flights.get(position), volo) < 0) {
+                    position++;
+                }
+                flightsModel.inserisci(position, volo);
+            }
         }
     }
 
     /**
-     * Filtra i voli nella tabella in base ai criteri di ricerca specificati.
-     * 
-     * @param searchText Il testo da cercare
-     * @param searchType Il tipo di ricerca (Codice Volo, Compagnia, Destinazione, ecc.)
+     * Verifica se un volo ricade nell'intervallo della pagina visualizzata: dopo l'ultimo volo
+     * della pagina precedente e non oltre il primo volo della pagina successiva.
+     *
+     * @param volo Il volo da verificare
+     * @return true se il volo appartiene alla pagina visualizzata, false altrimenti
      */
-    private void filterFlights(String searchText, String searchType) {
-        searchText = searchText.toLowerCase();
+    private boolean isInFlightsPage(Volo volo) {
+        if (!flightsPage.isPrimaPagina()
+                && compareKeys(volo.getData(), volo.getCodiceVolo(),
+                flightsPage.getDopoData(), flightsPage.getDopoCodice()) <= 0) {
+            return false;
+        }
+        return nextFlightsPage == null
+                || compareKeys(volo.getData(), volo.getCodiceVolo(),
+                nextFlightsPage.getDopoData(), nextFlightsPage.getDopoCodice()) <= 0;
+    }
 
-        DefaultTableModel model = (DefaultTableModel) flightsTable.getModel();
-        model.setRowCount(0);
+    /**
+     * Confronta due voli secondo l'ordinamento della tabella: data e codice in ordine decrescente.
+     *
+     * @param a Il primo volo
+     * @param b Il secondo volo
+     * @return Un valore negativo se a precede b, positivo se lo segue, zero se hanno la stessa posizione
+     */
+    private static int compareFlights(Volo a, Volo b) {
+        return compareKeys(a.getData(), a.getCodiceVolo(), b.getData(), b.getCodiceVolo());
+    }
 
-        for (Volo volo : flights) {
-            boolean match = false;
-
-            if (searchText.isEmpty()) {
-                match = true;
-            } else if (searchType.equals("Codice Volo") && volo.getCodiceVolo().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Compagnia") && volo.getCompagnia().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Destinazione") && volo.getDestinazione().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Origine") && volo.getOrigine().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Orario") && volo.getOrarioPrevisto().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Stato") && volo.getStato().toString().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Data") && volo.getData().toString().toLowerCase().contains(searchText)) {
-                match = true;
+    /**
+     * Confronta due chiavi (data, codice) secondo l'ordinamento della tabella dei voli, decrescente.
+     *
+     * @param dataA   La data della prima chiave
+     * @param codiceA Il codice della prima chiave
+     * @param dataB   La data della seconda chiave
+     * @param codiceB Il codice della seconda chiave
+     * @return Un valore negativo se la prima chiave precede la seconda, positivo se la segue, zero se uguali
+     */
+    private static int compareKeys(LocalDate dataA, String codiceA, LocalDate dataB, String codiceB) {
+        int confronto = dataB.compareTo(dataA);
+        return confronto != 0 ? confronto : codiceB.compareTo(codiceA);
+    }
+
+    /**
+     * Carica in background una pagina di voli secondo i criteri di ricerca correnti
+     * e la visualizza nella tabella al termine; un caricamento ancora in corso viene annullato.
+     *
+     * @param pagina Il cursore della pagina da caricare
+     */
+    private void loadFlightsPage(CursoreVoli pagina) {
+        if (flightsLoading != null) {
+            flightsLoading.cancel(true);
+        }
+        CriteriRicercaVoli criteria = flightsCriteria;
+        flightsLoading = OperazioneInCorso.segui(this, "Caricamento voli...",
+                controller.esegui(() -> controller.cercaVoli(criteria, pagina)),
+                risultato -> showFlightsPage(pagina, criteria, risultato));
+    }
+
+    /**
+     * Visualizza nella tabella una pagina di voli letta dal controller
+     * e aggiorna lo stato dei pulsanti di navigazione.
+     *
+     * @param pagina    Il cursore della pagina caricata
+     * @param criteria  I criteri di ricerca della pagina
+     * @param risultato La pagina di voli letta
+     */
+    private void showFlightsPage(CursoreVoli pagina, CriteriRicercaVoli criteria, PaginaVoli risultato) {
+        flightsPage = pagina;
+        shownFlightsCriteria = criteria;
+        flights = risultato.getVoli();
+        nextFlightsPage = risultato.getSuccessiva();
+        flightsVersion = risultato.getVersione();
+        previousFlightsButton.setEnabled(!previousFlightsPages.isEmpty());
+        nextFlightsButton.setEnabled(nextFlightsPage != null);
+
+        flightsModel.setElementi(flights);
+    }
+
+    /**
+     * Applica alla tabella dei voli le modifiche notificate dal database: le modifiche a voli,
+     * posti e prenotazioni vengono lette in modo incrementale, mentre la possibile perdita
+     * di notifiche fa rileggere l'intera pagina.
+     *
+     * @param events Le modifiche raccolte
+     */
+    private void applyRemoteChanges(List<EventoModifica> events) {
+        boolean flightsChanged = false;
+        for (EventoModifica event : events) {
+            switch (event.getTabella()) {
+                case TUTTE -> {
+                    reloadFlightsPage();
+                    return;
+                }
+                case VOLO, POSTO, PRENOTAZIONE -> flightsChanged = true;
+                case BAGAGLIO -> {
+                    // I bagagli non compaiono nella tabella dei voli
+                }
             }
+        }
+        if (flightsChanged) {
+            refreshFlightsTable();
+        }
+    }
 
-            if (match) {
-                model.addRow(new Object[]{
-                        volo.getCodiceVolo(),
-                        volo.getCompagnia(),
-                        volo.getOrigine(),
-                        volo.getDestinazione(),
-                        volo.getGate(),
-                        volo.getOrarioPrevisto(),
-                        volo.getStato(),
-                        volo.getData(),
-                        volo.getTempoRitardo(),
-                        volo.getPostiTotali(),
-                        volo.getPostiDisponibili()
-                });
+    /**
+     * Rilegge in background la pagina di voli visualizzata, senza mostrare l'indicatore di avanzamento.
+     * Il risultato viene scartato se nel frattempo l'utente ha cambiato pagina o criteri di ricerca.
+     */
+    private void reloadFlightsPage() {
+        CursoreVoli pagina = flightsPage;
+        CriteriRicercaVoli criteria = flightsCriteria;
+        controller.esegui(() -> controller.cercaVoli(criteria, pagina))
+                .thenAccept(risultato -> SwingUtilities.invokeLater(() -> {
+                    if (risultato != null && pagina == flightsPage && criteria == flightsCriteria) {
+                        showFlightsPage(pagina, criteria, risultato);
+                    }
+                }));
+    }
+
+    /**
+     * Cerca i voli che contengono tutte le parole del campo di ricerca, in qualsiasi campo.
+     * La ricerca parte mentre l'amministratore scrive (vedi {@link RicercaMentreScrivi}) e viene eseguita
+     * in background dal database senza indicatore di avanzamento; una ricerca precedente ancora in corso
+     * viene annullata. Se la pagina visualizzata contiene tutti i risultati della ricerca precedente
+     * e il nuovo testo la restringe, i risultati vengono filtrati in memoria senza interrogare il database.
+     */
+    private void searchFlights() {
+        CriteriRicercaVoli criteria = new CriteriRicercaVoli();
+        criteria.setTesto(searchField.getText());
+        // Criteri equivalenti a quelli correnti, ad esempio dopo l'aggiunta di uno spazio
+        if (criteria.restringe(flightsCriteria) && flightsCriteria.restringe(criteria)) {
+            return;
+        }
+        if (flightsLoading != null) {
+            flightsLoading.cancel(true);
+        }
+        flightsCriteria = criteria;
+        CursoreVoli pagina = new CursoreVoli(FLIGHTS_PAGE_SIZE);
+
+        if (shownFlightsCriteria != null && flightsPage.isPrimaPagina() && nextFlightsPage == null
+                && criteria.restringe(shownFlightsCriteria)) {
+            List<Volo> found = new ArrayList<>();
+            for (Volo volo : flights) {
+                if (criteria.contieneTermini(volo)) {
+                    found.add(volo);
+                }
             }
+            previousFlightsPages.clear();
+            // I voli filtrati hanno la stessa versione dei dati della pagina da cui provengono
+            showFlightsPage(pagina, criteria, new PaginaVoli(found, null, flightsVersion));
+            return;
         }
+
+        flightsLoading = controller.esegui(() -> controller.cercaVoli(criteria, pagina));
+        flightsLoading.thenAccept(risultato -> SwingUtilities.invokeLater(() -> {
+            if (risultato != null && criteria == flightsCriteria) {
+                previousFlightsPages.clear();
+                showFlightsPage(pagina, criteria, risultato);
+            }
+        }));
     }
 
     /**
@@ -557,12 +871,10 @@ public class AdminDashboard extends JFrame {
                     }
 
                     String code = generateFlightCode(airline);
-                    boolean success = false;
+                    Volo volo;
 
                     try {
-                        Volo volo = new Volo(code, airline, origin, destination, time, status, date, delay, totalSeats, totalSeats, 0);
-
-                        success = controller.inserisciVolo(volo);
+                        volo = new Volo(code, airline, origin, destination, time, status, date, delay, totalSeats, totalSeats, 0);
                     } catch (IllegalArgumentException ex) {
                         JOptionPane.showMessageDialog(AdminDashboard.this,
                                 ex.getMessage(),
@@ -570,17 +882,21 @@ public class AdminDashboard extends JFrame {
                         return;
                     }
 
-                    if (success) {
-                        refreshFlightsTable();
-
-                        JOptionPane.showMessageDialog(AdminDashboard.this,
-                                "Volo aggiunto con successo\nCodice Volo: " + code,
-                                SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        JOptionPane.showMessageDialog(AdminDashboard.this,
-                                "Errore durante l'inserimento del volo nel database",
-                                ERRORE, JOptionPane.ERROR_MESSAGE);
-                    }
+                    OperazioneInCorso.seguiScrittura(AdminDashboard.this, "Inserimento del volo...",
+                            controller.esegui(() -> controller.inserisciVolo(volo)),
+                            success -> {
+                                if (success) {
+                                    refreshFlightsTable();
+
+                                    JOptionPane.showMessageDialog(AdminDashboard.this,
+                                            "Volo aggiunto con successo\nCodice Volo: " + code,
+                                            SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                                } else {
+                                    JOptionPane.showMessageDialog(AdminDashboard.this,
+                                            "Errore durante l'inserimento del volo nel database",
+                                            ERRORE, JOptionPane.ERROR_MESSAGE);
+                                }
+                            });
 
                     airlineField.setText("");
                     flightTypeComboBox.setSelectedIndex(0);
@@ -613,13 +929,79 @@ public class AdminDashboard extends JFrame {
             }
         });
 
+        JButton importButton = new JButton("Importa da CSV");
+        importButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                importFlightsFromCsv();
+            }
+        });
+
         buttonPanel.add(addButton);
         buttonPanel.add(clearButton);
+        buttonPanel.add(importButton);
         addFlightPanel.add(buttonPanel, BorderLayout.SOUTH);
+    }
 
-        tabbedPane.addTab("Inserisci Volo", addFlightPanel);
+
+    /**
+     * Importa un calendario di voli da un file CSV scelto dall'utente.
+     * Al termine mostra il numero di voli e posti creati e l'elenco delle righe scartate.
+     */
+    private void importFlightsFromCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Seleziona il calendario voli (CSV)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        Path file = chooser.getSelectedFile().toPath();
+        OperazioneInCorso.seguiScrittura(this, "Importazione del calendario voli...",
+                controller.esegui(() -> {
+                    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        return controller.importaVoli(reader);
+                    } catch (IOException ex) {
+                        EsitoImportazione esito = new EsitoImportazione();
+                        esito.setErroreGenerale("Impossibile leggere il file: " + ex.getMessage());
+                        return esito;
+                    }
+                }),
+                this::showImportResult);
     }
 
+    /**
+     * Mostra il risultato di un'importazione: il numero di voli e posti creati
+     * e l'elenco delle righe scartate.
+     *
+     * @param esito Il risultato dell'importazione
+     */
+    private void showImportResult(EsitoImportazione esito) {
+        if (!esito.isEseguita()) {
+            JOptionPane.showMessageDialog(this,
+                    "Importazione non eseguita: " + esito.getErroreGenerale(),
+                    ERRORE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        refreshFlightsTable();
+
+        StringBuilder message = new StringBuilder();
+        message.append("Record letti: ").append(esito.getRigheLette())
+                .append("\nVoli inseriti: ").append(esito.getVoliInseriti())
+                .append("\nPosti creati: ").append(esito.getPostiCreati());
+        if (!esito.getErrori().isEmpty()) {
+            message.append("\n\nRecord scartati: ").append(esito.getErrori().size()).append("\n");
+            for (EsitoImportazione.ErroreRiga errore : esito.getErrori()) {
+                message.append(errore).append("\n");
+            }
+        }
+
+        JTextArea textArea = new JTextArea(message.toString(), 15, 50);
+        textArea.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(textArea),
+                esito.getErrori().isEmpty() ? SUCCESSO : "Importazione completata con errori",
+                esito.getErrori().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
 
     /**
      * Generates a unique flight code based on the airline name
@@ -653,19 +1035,7 @@ public class AdminDashboard extends JFrame {
     private void createLostBaggagePanel() {
         lostBaggagePanel = new JPanel(new BorderLayout());
 
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-
-        };
-        model.addColumn("Codice Bagaglio");
-        model.addColumn("Stato");
-        model.addColumn("Azioni");
-
-        JTable lostBaggageTable = new JTable(model);
+        JTable lostBaggageTable = new JTable(lostBaggageModel);
 
         lostBaggageTable.getColumnModel().getColumn(0).setPreferredWidth(100);
         lostBaggageTable.getColumnModel().getColumn(1).setPreferredWidth(100);
@@ -702,10 +1072,7 @@ public class AdminDashboard extends JFrame {
                 return c;
             }
         });
-        for (Bagaglio bagaglio : baggages) {
-            model.addRow(new Object[]{bagaglio.getCodice(), bagaglio.getStato(), MODIFICA});
-
-        }
+        lostBaggageModel.setElementi(new ArrayList<>(baggages));
 
 
         lostBaggageTable.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -736,34 +1103,36 @@ public class AdminDashboard extends JFrame {
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(refreshButton);
         lostBaggagePanel.add(buttonPanel, BorderLayout.SOUTH);
-
-        tabbedPane.addTab("Bagagli Smarriti", lostBaggagePanel);
     }
 
     /**
-     * Updates the lost baggage table with the latest data
+     * Updates the lost baggage table with the latest data, read in background
      *
      * @param lostBaggageTable The table to update
      */
     private void updateLostBaggageTable(JTable lostBaggageTable) {
-        DefaultTableModel model = (DefaultTableModel) lostBaggageTable.getModel();
-        model.setRowCount(0);
+        OperazioneInCorso.segui(this, "Caricamento bagagli smarriti...",
+                controller.esegui(controller::getPrenotazioniBagagliSmarriti),
+                prenotazioni -> showLostBaggage(lostBaggageTable, prenotazioni));
+    }
 
-        baggages = controller.getAllBagagli();
-        if (baggages == null) {
-            baggages = new ArrayList<>();
-        }
+    /**
+     * Visualizza nella tabella dei bagagli smarriti i bagagli delle prenotazioni lette dal controller.
+     *
+     * @param lostBaggageTable La tabella da aggiornare
+     * @param prenotazioni     Le prenotazioni con bagagli smarriti, o null se non disponibili
+     */
+    private void showLostBaggage(JTable lostBaggageTable, List<Prenotazione> prenotazioni) {
+        setLostBaggage(prenotazioni != null ? prenotazioni : new ArrayList<>());
+        List<Bagaglio> lost = new ArrayList<>();
         for (Bagaglio bagaglio : baggages) {
             if (bagaglio.getStato() == StatoBagaglio.smarrito) {
-                model.addRow(new Object[]{
-                        bagaglio.getCodice(),
-                        bagaglio.getStato(),
-                        MODIFICA
-                });
+                lost.add(bagaglio);
             }
         }
+        lostBaggageModel.setElementi(lost);
 
-        if (model.getRowCount() == 0) {
+        if (lost.isEmpty()) {
             JOptionPane.showMessageDialog(AdminDashboard.this,
                     "Nessun bagaglio smarrito trovato",
                     "Informazione", JOptionPane.INFORMATION_MESSAGE);
@@ -790,7 +1159,13 @@ public class AdminDashboard extends JFrame {
                 break;
             }
         }
-        Prenotazione p = controller.getPrenotazioneByBagaglio(baggageCode);
+        Prenotazione p = lostBaggageBookings.get(baggageCode);
+        if (p == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Prenotazione del bagaglio non trovata",
+                    ERRORE, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         panel.add(new JLabel("Codice Bagaglio:"));
         panel.add(new JLabel(baggageCode));
         panel.add(new JLabel("Codice Volo:"));
@@ -812,23 +1187,24 @@ public class AdminDashboard extends JFrame {
                 if (bagaglio.getCodice().equals(baggageCode)) {
                     bagaglio.setStato(newStatus);
 
-                    lostBaggageTable.setValueAt(newStatus, row, 1);
-
-                    boolean success = controller.aggiornaBagaglio(bagaglio);
-
-                    if (success) {
-                        JOptionPane.showMessageDialog(this,
-                                "Stato del bagaglio aggiornato con successo",
-                                SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
-                    } else {
-                        JOptionPane.showMessageDialog(this,
-                                "Errore durante l'aggiornamento dello stato del bagaglio",
-                                ERRORE, JOptionPane.ERROR_MESSAGE);
-                    }
+                    lostBaggageModel.aggiorna(row, bagaglio);
+
+                    OperazioneInCorso.seguiScrittura(this, "Aggiornamento del bagaglio...",
+                            controller.esegui(() -> controller.aggiornaBagaglio(bagaglio)),
+                            success -> {
+                                if (success) {
+                                    JOptionPane.showMessageDialog(this,
+                                            "Stato del bagaglio aggiornato con successo",
+                                            SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                                } else {
+                                    JOptionPane.showMessageDialog(this,
+                                            "Errore durante l'aggiornamento dello stato del bagaglio",
+                                            ERRORE, JOptionPane.ERROR_MESSAGE);
+                                }
+                            });
 
                     if (newStatus != StatoBagaglio.smarrito) {
-                        DefaultTableModel model = (DefaultTableModel) lostBaggageTable.getModel();
-                        model.removeRow(row);
+                        lostBaggageModel.rimuovi(row);
                     }
 
                     break;
@@ -838,11 +1214,34 @@ public class AdminDashboard extends JFrame {
     }
 
     /**
-     * Shows a dialog with details about a flight, including bookings and seat occupancy
+     * Shows a dialog with details about a flight, including bookings and seat occupancy.
+     * The flight detail (gate, bookings with passengers and baggage, seats) is loaded in background
+     * with a single query before the dialog is opened
      *
      * @param flight The flight to show details for
      */
     private void showFlightDetailsDialog(Volo flight) {
+        OperazioneInCorso.segui(this, "Caricamento del dettaglio del volo...",
+                controller.esegui(() -> controller.getDettaglioVolo(flight.getCodiceVolo())),
+                dettaglio -> {
+                    if (dettaglio == null) {
+                        JOptionPane.showMessageDialog(this,
+                                "Errore durante il caricamento del dettaglio del volo",
+                                ERRORE, JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    showFlightDetailsDialog(flight, dettaglio);
+                });
+    }
+
+    /**
+     * Shows the flight details dialog once the flight detail has been loaded.
+     * The booking dialogs opened from it read the booking and its baggage from the detail
+     *
+     * @param flight    The flight to show details for
+     * @param dettaglio The detail of the flight
+     */
+    private void showFlightDetailsDialog(Volo flight, DettaglioVolo dettaglio) {
         JDialog dialog = new JDialog(this, "Dettagli Volo: " + flight.getCodiceVolo(), true);
         dialog.setSize(900, 700);
         dialog.setLocationRelativeTo(this);
@@ -875,8 +1274,8 @@ public class AdminDashboard extends JFrame {
         detailsPanel.add(new JLabel("Ritardo:"));
         detailsPanel.add(new JLabel(flight.getTempoRitardo() + " min"));
 
-        int totalSeats = flight.getPostiTotali();
-        int availableSeats = flight.getPostiDisponibili();
+        int totalSeats = dettaglio.getPosti().getNumeroPosti();
+        int availableSeats = dettaglio.getPosti().getPostiLiberi();
         int occupiedSeats = totalSeats - availableSeats;
 
         detailsPanel.add(new JLabel("Posti Totali:"));
@@ -887,7 +1286,7 @@ public class AdminDashboard extends JFrame {
         detailsPanel.add(new JLabel(occupiedSeats + " / " + totalSeats));
 
         detailsPanel.add(new JLabel("Gate:"));
-        detailsPanel.add(new JLabel(flight.getGate() > 0 ? String.valueOf(flight.getGate()) : "Non assegnato"));
+        detailsPanel.add(new JLabel(dettaglio.getGate() != null ? String.valueOf(dettaglio.getGate().getCodice()) : "Non assegnato"));
 
         infoPanel.add(detailsPanel, BorderLayout.CENTER);
 
@@ -940,27 +1339,29 @@ public class AdminDashboard extends JFrame {
                             int selectedGate = (Integer) gateComboBox.getSelectedItem();
 
                             flight.setGate(selectedGate);
-                            controller.assegnaGate(selectedGate, flight.getCodiceVolo());
-
-                            for (int i = 0; i < detailsPanel.getComponentCount(); i++) {
-                                Component comp = detailsPanel.getComponent(i);
-                                if (comp instanceof JLabel && ((JLabel) comp).getText().equals("Gate:")) {
-                                    JLabel gateValueLabel = (JLabel) detailsPanel.getComponent(i + 1);
-                                    gateValueLabel.setText(String.valueOf(selectedGate));
-                                    break;
-                                }
-                            }
-
-                            detailsPanel.revalidate();
-                            detailsPanel.repaint();
-
-                            JOptionPane.showMessageDialog(gateDialog,
-                                    "Gate " + selectedGate + " assegnato al volo " + flight.getCodiceVolo(),
-                                    "Gate Assegnato", JOptionPane.INFORMATION_MESSAGE);
-
-                            refreshFlightsTable();
-
-                            gateDialog.dispose();
+                            OperazioneInCorso.seguiScrittura(gateDialog, "Assegnazione del gate...",
+                                    controller.esegui(() -> controller.assegnaGate(selectedGate, flight.getCodiceVolo())),
+                                    success -> {
+                                        for (int i = 0; i < detailsPanel.getComponentCount(); i++) {
+                                            Component comp = detailsPanel.getComponent(i);
+                                            if (comp instanceof JLabel && ((JLabel) comp).getText().equals("Gate:")) {
+                                                JLabel gateValueLabel = (JLabel) detailsPanel.getComponent(i + 1);
+                                                gateValueLabel.setText(String.valueOf(selectedGate));
+                                                break;
+                                            }
+                                        }
+
+                                        detailsPanel.revalidate();
+                                        detailsPanel.repaint();
+
+                                        JOptionPane.showMessageDialog(gateDialog,
+                                                "Gate " + selectedGate + " assegnato al volo " + flight.getCodiceVolo(),
+                                                "Gate Assegnato", JOptionPane.INFORMATION_MESSAGE);
+
+                                        refreshFlightsTable();
+
+                                        gateDialog.dispose();
+                                    });
                         }
                     });
 
@@ -1005,8 +1406,7 @@ public class AdminDashboard extends JFrame {
         model.addColumn("Bagagli");
         model.addColumn("Azioni");
 
-        List<Prenotazione> prenotazioni = controller.getPrenotazioniByVolo(flight);
-        for (Prenotazione p : prenotazioni) {
+        for (Prenotazione p : dettaglio.getPrenotazioni()) {
             model.addRow(new Object[]{p.getNumeroBiglietto(), p.getPasseggero().getNome() + " " + p.getPasseggero().getCognome(), p.getPasseggero().getnDocumento(), p.getPosto(), p.getStato(), p.getBagagli().size(), MODIFICA});
 
         }
@@ -1054,7 +1454,8 @@ public class AdminDashboard extends JFrame {
 
                 if (row >= 0 && col == 6) {
                     String ticketNumber = (String) bookingsTable.getValueAt(row, 0);
-                    showBookingDetailsDialog(ticketNumber, row, bookingsTable);
+                    showBookingDetailsDialog(ticketNumber, row, bookingsTable,
+                            dettaglio.getPrenotazione(ticketNumber).getBagagli());
                 }
             }
         });
@@ -1068,7 +1469,7 @@ public class AdminDashboard extends JFrame {
         manageBaggageButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                showCollectiveBaggageManagementDialog(flight, bookingsTable);
+                showCollectiveBaggageManagementDialog(flight, bookingsTable, dettaglio);
             }
         });
         baggageButtonPanel.add(manageBaggageButton);
@@ -1122,6 +1523,8 @@ public class AdminDashboard extends JFrame {
         delayField.setEnabled(flight.getStato() == StatoVolo.inRitardo);
         JTextField totalSeatsField = new JTextField(String.valueOf(flight.getPostiTotali()));
         JTextField availableSeatsField = new JTextField(String.valueOf(flight.getPostiDisponibili()));
+        // I posti disponibili sono ricavati dai posti liberi del volo e non sono modificabili
+        availableSeatsField.setEditable(false);
 
         formPanel.add(new JLabel("Compagnia:"));
         formPanel.add(airlineField);
@@ -1236,11 +1639,6 @@ public class AdminDashboard extends JFrame {
                         flight.setPostiTotali(totalSeats);
                         flight.setPostiDisponibili(availableSeats);
 
-                        controller.modificaVolo(flight);
-
-                        JOptionPane.showMessageDialog(dialog,
-                                "Volo aggiornato con successo",
-                                SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
                     } catch (IllegalArgumentException ex) {
                         JOptionPane.showMessageDialog(dialog,
                                 ex.getMessage(),
@@ -1248,12 +1646,20 @@ public class AdminDashboard extends JFrame {
                         return;
                     }
 
-                    refreshFlightsTable();
+                    OperazioneInCorso.seguiScrittura(dialog, "Aggiornamento del volo...",
+                            controller.esegui(() -> controller.modificaVolo(flight)),
+                            success -> {
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Volo aggiornato con successo",
+                                        SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
 
-                    dialog.dispose();
+                                refreshFlightsTable();
 
-                    parentDialog.dispose();
-                    showFlightDetailsDialog(flight);
+                                dialog.dispose();
+
+                                parentDialog.dispose();
+                                showFlightDetailsDialog(flight);
+                            });
 
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(dialog,
@@ -1288,8 +1694,9 @@ public class AdminDashboard extends JFrame {
      *
      * @param flight        The flight
      * @param bookingsTable The bookings table
+     * @param dettaglio     The detail of the flight, whose baggage is updated with the new status
      */
-    private void showCollectiveBaggageManagementDialog(Volo flight, JTable bookingsTable) {
+    private void showCollectiveBaggageManagementDialog(Volo flight, JTable bookingsTable, DettaglioVolo dettaglio) {
         JDialog dialog = new JDialog(this, "Gestione Collettiva Bagagli: " + flight.getCodiceVolo(), true);
         dialog.setSize(400, 350);
         dialog.setLocationRelativeTo(this);
@@ -1333,21 +1740,26 @@ public class AdminDashboard extends JFrame {
             public void actionPerformed(ActionEvent e) {
                 StatoBagaglio selectedStatus = (StatoBagaglio) statusComboBox.getSelectedItem();
 
-                boolean success = controller.aggiornaAllBagagli(flight.getCodiceVolo(), selectedStatus);
-
-
-                if (success) {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Stato '" + selectedStatus + "' applicato a tutti i bagagli del volo " + flight.getCodiceVolo(),
-                            SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Errore durante l'aggiornamento dello stato dei bagagli",
-                            ERRORE, JOptionPane.ERROR_MESSAGE);
-                }
-
+                OperazioneInCorso.seguiScrittura(dialog, "Aggiornamento dei bagagli del volo...",
+                        controller.esegui(() -> controller.aggiornaAllBagagli(flight.getCodiceVolo(), selectedStatus)),
+                        success -> {
+                            if (success) {
+                                for (Prenotazione p : dettaglio.getPrenotazioni()) {
+                                    for (Bagaglio b : p.getBagagli()) {
+                                        b.setStato(selectedStatus);
+                                    }
+                                }
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Stato '" + selectedStatus + "' applicato a tutti i bagagli del volo " + flight.getCodiceVolo(),
+                                        SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Errore durante l'aggiornamento dello stato dei bagagli",
+                                        ERRORE, JOptionPane.ERROR_MESSAGE);
+                            }
 
-                dialog.dispose();
+                            dialog.dispose();
+                        });
             }
         });
 
@@ -1369,13 +1781,14 @@ public class AdminDashboard extends JFrame {
 
 
     /**
-     * Shows a dialog to modify a booking
+     * Shows a dialog to modify a booking, with the baggage already read with the flight detail
      *
      * @param ticketNumber  The ticket number of the booking to modify
      * @param row           The row in the table
      * @param bookingsTable The table containing the booking
+     * @param bagagli       The baggage of the booking
      */
-    private void showBookingDetailsDialog(String ticketNumber, int row, JTable bookingsTable) {
+    private void showBookingDetailsDialog(String ticketNumber, int row, JTable bookingsTable, List<Bagaglio> bagagli) {
         JDialog dialog = new JDialog(this, "Modifica Prenotazione: " + ticketNumber, true);
         dialog.setSize(700, 500);
         dialog.setLocationRelativeTo(this);
@@ -1431,12 +1844,15 @@ public class AdminDashboard extends JFrame {
 
                 bookingsTable.setValueAt(selectedStatus, row, 4);
 
-                controller.aggiornaPrenotazione(selectedStatus, ticketNumber);
-                refreshFlightsTable();
+                OperazioneInCorso.seguiScrittura(dialog, "Aggiornamento della prenotazione...",
+                        controller.esegui(() -> controller.aggiornaPrenotazione(selectedStatus, ticketNumber)),
+                        success -> {
+                            refreshFlightsTable();
 
-                JOptionPane.showMessageDialog(dialog,
-                        "Prenotazione aggiornata con successo",
-                        SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                            JOptionPane.showMessageDialog(dialog,
+                                    "Prenotazione aggiornata con successo",
+                                    SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                        });
             }
         });
         bookingSavePanel.add(saveBookingButton);
@@ -1456,8 +1872,6 @@ public class AdminDashboard extends JFrame {
         baggageModel.addColumn("Stato");
         baggageModel.addColumn("Azioni");
 
-        List<Bagaglio> bagagli = controller.getBagagliByPrenotazione(ticketNumber);
-
         for (Bagaglio b : bagagli) {
             baggageModel.addRow(new Object[]{b.getCodice(), b.getStato(), MODIFICA});
         }
@@ -1513,10 +1927,8 @@ public class AdminDashboard extends JFrame {
                 int col = baggageTable.columnAtPoint(evt.getPoint());
 
                 if (row >= 0 && col == 2) {
-                    String baggageCode = (String) baggageTable.getValueAt(row, 0);
-                    StatoBagaglio currentStatus = (StatoBagaglio) baggageTable.getValueAt(row, 1);
-                    Bagaglio bagaglio = new Bagaglio(baggageCode, currentStatus);
-                    showBaggageStatusDialog(bagaglio, row, baggageTable);
+                    // Il bagaglio della prenotazione, così che il nuovo stato resti nel dettaglio del volo
+                    showBaggageStatusDialog(bagagli.get(row), row, baggageTable);
                 }
             }
         });
@@ -1590,19 +2002,21 @@ public class AdminDashboard extends JFrame {
 
                 bagaglio.setStato(selectedStatus);
 
-                boolean success = controller.aggiornaBagaglio(bagaglio);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Stato del bagaglio aggiornato con successo",
-                            SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Errore durante l'aggiornamento dello stato del bagaglio",
-                            ERRORE, JOptionPane.ERROR_MESSAGE);
-                }
+                OperazioneInCorso.seguiScrittura(dialog, "Aggiornamento del bagaglio...",
+                        controller.esegui(() -> controller.aggiornaBagaglio(bagaglio)),
+                        success -> {
+                            if (success) {
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Stato del bagaglio aggiornato con successo",
+                                        SUCCESSO, JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Errore durante l'aggiornamento dello stato del bagaglio",
+                                        ERRORE, JOptionPane.ERROR_MESSAGE);
+                            }
 
-                dialog.dispose();
+                            dialog.dispose();
+                        });
             }
         });
 
@@ -0,0 +1,221 @@
+package gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Modello di tabella in sola lettura basato direttamente su una lista di oggetti del modello.
+ * <p>
+ * I valori delle celle vengono letti dagli oggetti solo quando la tabella li disegna, senza copiarli
+ * in righe di {@code Object[]}; le modifiche alla lista passano dai metodi del modello, che notificano
+ * alla tabella solo le righe interessate. Le colonne si definiscono con {@link #conColonna}.
+ *
+ * @param <T> Il tipo degli oggetti visualizzati, uno per riga
+ */
+final class ModelloTabella<T> extends AbstractTableModel {
+    /**
+     * Colonne della tabella.
+     */
+    private final List<Colonna<T>> colonne = new ArrayList<>();
+
+    /**
+     * Oggetti visualizzati, uno per riga.
+     */
+    private List<T> elementi = new ArrayList<>();
+
+    /**
+     * Aggiunge una colonna il cui valore è ordinato secondo il valore stesso.
+     *
+     * @param nome   Il nome della colonna
+     * @param tipo   La classe dei valori della colonna
+     * @param valore La funzione che legge il valore della colonna da un oggetto
+     * @return Questo modello, per concatenare le chiamate
+     */
+    ModelloTabella<T> conColonna(String nome, Class<?> tipo, Function<T, ?> valore) {
+        return conColonna(nome, tipo, valore, valore);
+    }
+
+    /**
+     * Aggiunge una colonna con una chiave di ordinamento diversa dal valore visualizzato.
+     *
+     * @param nome   Il nome della colonna
+     * @param tipo   La classe dei valori della colonna
+     * @param valore La funzione che legge il valore della colonna da un oggetto
+     * @param chiave La funzione che legge la chiave di ordinamento; se restituisce un valore non
+     *               {@link Comparable} viene usata la sua rappresentazione testuale
+     * @return Questo modello, per concatenare le chiamate
+     */
+    ModelloTabella<T> conColonna(String nome, Class<?> tipo, Function<T, ?> valore, Function<T, ?> chiave) {
+        colonne.add(new Colonna<>(nome, tipo, valore, chiave));
+        return this;
+    }
+
+    /**
+     * Sostituisce gli oggetti visualizzati. La lista non viene copiata: le modifiche successive
+     * vanno fatte tramite i metodi del modello.
+     *
+     * @param elementi Gli oggetti da visualizzare
+     */
+    void setElementi(List<T> elementi) {
+        this.elementi = elementi;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Restituisce gli oggetti visualizzati.
+     *
+     * @return La lista degli oggetti, nell'ordine delle righe del modello
+     */
+    List<T> getElementi() {
+        return elementi;
+    }
+
+    /**
+     * Restituisce l'oggetto visualizzato in una riga.
+     *
+     * @param riga L'indice della riga nel modello
+     * @return L'oggetto della riga
+     */
+    T getElemento(int riga) {
+        return elementi.get(riga);
+    }
+
+    /**
+     * Cerca la prima riga il cui oggetto soddisfa la condizione indicata.
+     *
+     * @param condizione La condizione da verificare
+     * @return L'indice della riga, o -1 se nessuna riga la soddisfa
+     */
+    int indiceDi(Predicate<T> condizione) {
+        for (int i = 0; i < elementi.size(); i++) {
+            if (condizione.test(elementi.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Aggiunge un oggetto in fondo alla tabella.
+     *
+     * @param elemento L'oggetto da aggiungere
+     */
+    void aggiungi(T elemento) {
+        inserisci(elementi.size(), elemento);
+    }
+
+    /**
+     * Inserisce un oggetto nella riga indicata.
+     *
+     * @param riga     L'indice della nuova riga
+     * @param elemento L'oggetto da inserire
+     */
+    void inserisci(int riga, T elemento) {
+        elementi.add(riga, elemento);
+        fireTableRowsInserted(riga, riga);
+    }
+
+    /**
+     * Sostituisce l'oggetto di una riga.
+     *
+     * @param riga     L'indice della riga
+     * @param elemento Il nuovo oggetto della riga
+     */
+    void aggiorna(int riga, T elemento) {
+        elementi.set(riga, elemento);
+        fireTableRowsUpdated(riga, riga);
+    }
+
+    /**
+     * Rimuove una riga.
+     *
+     * @param riga L'indice della riga da rimuovere
+     * @return L'oggetto rimosso
+     */
+    T rimuovi(int riga) {
+        T elemento = elementi.remove(riga);
+        fireTableRowsDeleted(riga, riga);
+        return elemento;
+    }
+
+    /**
+     * Restituisce la chiave di ordinamento di una cella.
+     *
+     * @param riga    L'indice della riga nel modello
+     * @param colonna L'indice della colonna
+     * @return La chiave di ordinamento, o null se la cella è vuota
+     */
+    Object getChiave(int riga, int colonna) {
+        return colonne.get(colonna).chiave.apply(elementi.get(riga));
+    }
+
+    @Override
+    public int getRowCount() {
+        return elementi.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colonne.size();
+    }
+
+    @Override
+    public String getColumnName(int colonna) {
+        return colonne.get(colonna).nome;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int colonna) {
+        return colonne.get(colonna).tipo;
+    }
+
+    @Override
+    public Object getValueAt(int riga, int colonna) {
+        return colonne.get(colonna).valore.apply(elementi.get(riga));
+    }
+
+    /**
+     * Definizione di una colonna: nome, tipo, valore e chiave di ordinamento.
+     *
+     * @param <T> Il tipo degli oggetti visualizzati
+     */
+    private static final class Colonna<T> {
+        /**
+         * Nome della colonna.
+         */
+        private final String nome;
+
+        /**
+         * Classe dei valori della colonna.
+         */
+        private final Class<?> tipo;
+
+        /**
+         * Funzione che legge il valore della colonna da un oggetto.
+         */
+        private final Function<T, ?> valore;
+
+        /**
+         * Funzione che legge la chiave di ordinamento della colonna da un oggetto.
+         */
+        private final Function<T, ?> chiave;
+
+        /**
+         * Costruttore della colonna.
+         *
+         * @param nome   Il nome della colonna
+         * @param tipo   La classe dei valori
+         * @param valore La funzione che legge il valore
+         * @param chiave La funzione che legge la chiave di ordinamento
+         */
+        private Colonna(String nome, Class<?> tipo, Function<T, ?> valore, Function<T, ?> chiave) {
+            this.nome = nome;
+            this.tipo = tipo;
+            this.valore = valore;
+            this.chiave = chiave;
+        }
+    }
+}
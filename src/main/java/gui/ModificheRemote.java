@@ -0,0 +1,105 @@
+package gui;
+
+import controller.Controller;
+import database.EventoModifica;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Raccoglie le modifiche notificate dal database e le consegna a una dashboard sul thread degli eventi di Swing.
+ * <p>
+ * Gli eventi arrivati entro {@link #RITARDO_MS} millisecondi dal primo vengono consegnati insieme,
+ * così che una raffica di modifiche (ad esempio l'importazione di molti voli) produca un solo aggiornamento
+ * delle tabelle. Il timer non viene riavviato dagli eventi successivi: un flusso continuo di modifiche
+ * non ritarda all'infinito la consegna.
+ */
+final class ModificheRemote {
+    /**
+     * Millisecondi di raccolta degli eventi prima della consegna.
+     */
+    private static final int RITARDO_MS = 300;
+
+    /**
+     * Controller presso cui è registrato l'ascoltatore.
+     */
+    private final Controller controller;
+
+    /**
+     * Riceve gli eventi raccolti.
+     */
+    private final Consumer<List<EventoModifica>> destinatario;
+
+    /**
+     * Eventi ricevuti e non ancora consegnati; usata solo sul thread degli eventi di Swing.
+     */
+    private final List<EventoModifica> inAttesa = new ArrayList<>();
+
+    /**
+     * Timer che consegna gli eventi raccolti.
+     */
+    private final Timer timer;
+
+    /**
+     * Ascoltatore registrato presso il controller.
+     */
+    private final Consumer<EventoModifica> ascoltatore = evento -> SwingUtilities.invokeLater(() -> ricevi(evento));
+
+    /**
+     * Flag che indica se la raccolta è stata chiusa; usato solo sul thread degli eventi di Swing.
+     */
+    private boolean chiuso;
+
+    /**
+     * Costruttore della classe ModificheRemote. Registra subito l'ascoltatore presso il controller.
+     *
+     * @param controller   Il controller da cui ricevere gli eventi
+     * @param destinatario Riceve, sul thread degli eventi di Swing, gli eventi raccolti
+     */
+    ModificheRemote(Controller controller, Consumer<List<EventoModifica>> destinatario) {
+        this.controller = controller;
+        this.destinatario = destinatario;
+        this.timer = new Timer(RITARDO_MS, e -> consegna());
+        this.timer.setRepeats(false);
+        controller.aggiungiAscoltatoreModifiche(ascoltatore);
+    }
+
+    /**
+     * Accoda un evento e avvia il timer di consegna se non è già in corso.
+     *
+     * @param evento L'evento ricevuto
+     */
+    private void ricevi(EventoModifica evento) {
+        if (chiuso) {
+            return;
+        }
+        inAttesa.add(evento);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Consegna al destinatario gli eventi raccolti.
+     */
+    private void consegna() {
+        if (inAttesa.isEmpty()) {
+            return;
+        }
+        List<EventoModifica> eventi = new ArrayList<>(inAttesa);
+        inAttesa.clear();
+        destinatario.accept(eventi);
+    }
+
+    /**
+     * Rimuove l'ascoltatore e scarta gli eventi non ancora consegnati.
+     */
+    void chiudi() {
+        chiuso = true;
+        controller.rimuoviAscoltatoreModifiche(ascoltatore);
+        timer.stop();
+        inAttesa.clear();
+    }
+}
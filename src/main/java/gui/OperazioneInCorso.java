@@ -0,0 +1,166 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Classe di utilità che collega un'operazione in background all'interfaccia grafica.
+ * <p>
+ * Mentre l'operazione è in corso il cursore della finestra diventa di attesa; se l'operazione
+ * dura più di {@link #RITARDO_INDICATORE_MS} millisecondi viene mostrata una finestra con una
+ * barra di avanzamento e, per le sole letture, il pulsante "Annulla". Le scritture non sono
+ * annullabili: una volta inviata al database la modifica viene comunque eseguita, e annullarla
+ * lato interfaccia lascerebbe i dati mostrati diversi da quelli salvati. Al termine il risultato
+ * viene consegnato sul thread degli eventi di Swing; se l'operazione è stata annullata il risultato
+ * viene ignorato, se è fallita viene mostrato un messaggio di errore.
+ */
+final class OperazioneInCorso {
+    /**
+     * Millisecondi di attesa prima di mostrare la finestra di caricamento,
+     * così che le operazioni rapide non la facciano comparire e scomparire.
+     */
+    static final int RITARDO_INDICATORE_MS = 300;
+
+    /**
+     * Costruttore privato per evitare l'istanziazione della classe di utilità.
+     */
+    private OperazioneInCorso() {}
+
+    /**
+     * Segue un'operazione di lettura in background mostrando l'indicatore di caricamento
+     * con il pulsante "Annulla". Deve essere invocato dal thread degli eventi di Swing.
+     *
+     * @param parent     Il componente sopra cui mostrare l'indicatore
+     * @param messaggio  Il testo dell'indicatore (es. "Caricamento prenotazioni...")
+     * @param operazione Il future dell'operazione, ottenuto da {@code Controller.esegui}
+     * @param suSuccesso Riceve il risultato sul thread degli eventi se l'operazione termina correttamente
+     * @param <T>        Il tipo del risultato
+     * @return Lo stesso future, che il chiamante può annullare
+     */
+    static <T> CompletableFuture<T> segui(Component parent, String messaggio,
+                                          CompletableFuture<T> operazione, Consumer<T> suSuccesso) {
+        return segui(parent, messaggio, operazione, suSuccesso, true);
+    }
+
+    /**
+     * Segue un'operazione di scrittura in background mostrando l'indicatore di caricamento
+     * senza il pulsante "Annulla": il risultato viene sempre atteso, così che l'interfaccia
+     * possa aggiornarsi in base all'esito reale. Deve essere invocato dal thread degli eventi di Swing.
+     *
+     * @param parent     Il componente sopra cui mostrare l'indicatore
+     * @param messaggio  Il testo dell'indicatore (es. "Registrazione della prenotazione...")
+     * @param operazione Il future dell'operazione, ottenuto da {@code Controller.esegui}
+     * @param suSuccesso Riceve il risultato sul thread degli eventi se l'operazione termina correttamente
+     * @param <T>        Il tipo del risultato
+     * @return Lo stesso future
+     */
+    static <T> CompletableFuture<T> seguiScrittura(Component parent, String messaggio,
+                                                   CompletableFuture<T> operazione, Consumer<T> suSuccesso) {
+        return segui(parent, messaggio, operazione, suSuccesso, false);
+    }
+
+    /**
+     * Segue un'operazione in background mostrando l'indicatore di caricamento.
+     *
+     * @param parent      Il componente sopra cui mostrare l'indicatore
+     * @param messaggio   Il testo dell'indicatore
+     * @param operazione  Il future dell'operazione
+     * @param suSuccesso  Riceve il risultato sul thread degli eventi se l'operazione termina correttamente
+     * @param annullabile true per mostrare il pulsante "Annulla", false per le scritture
+     * @param <T>         Il tipo del risultato
+     * @return Lo stesso future
+     */
+    private static <T> CompletableFuture<T> segui(Component parent, String messaggio, CompletableFuture<T> operazione,
+                                                  Consumer<T> suSuccesso, boolean annullabile) {
+        Window finestra = parent instanceof Window w ? w : SwingUtilities.getWindowAncestor(parent);
+        Cursor cursorePrecedente = finestra != null ? finestra.getCursor() : null;
+        if (finestra != null) {
+            finestra.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+
+        JDialog indicatore = creaIndicatore(finestra, messaggio, annullabile ? operazione : null);
+        Timer ritardo = new Timer(RITARDO_INDICATORE_MS, e -> {
+            if (!operazione.isDone()) {
+                indicatore.setLocationRelativeTo(finestra);
+                indicatore.setVisible(true);
+            }
+        });
+        ritardo.setRepeats(false);
+        ritardo.start();
+
+        operazione.whenComplete((risultato, errore) -> SwingUtilities.invokeLater(() -> {
+            ritardo.stop();
+            indicatore.dispose();
+            if (finestra != null) {
+                finestra.setCursor(cursorePrecedente);
+            }
+            if (operazione.isCancelled() || errore instanceof CancellationException) {
+                return;
+            }
+            if (errore != null) {
+                mostraErrore(parent, errore);
+                return;
+            }
+            suSuccesso.accept(risultato);
+        }));
+        return operazione;
+    }
+
+    /**
+     * Crea la finestra modale con la barra di avanzamento indeterminata e, se richiesto, il pulsante di annullamento.
+     *
+     * @param finestra   La finestra proprietaria
+     * @param messaggio  Il testo da mostrare
+     * @param operazione L'operazione da annullare alla pressione del pulsante, o null se non annullabile
+     * @return La finestra di caricamento, non ancora visibile
+     */
+    private static JDialog creaIndicatore(Window finestra, String messaggio, CompletableFuture<?> operazione) {
+        JDialog dialog = new JDialog(finestra, "Attendere", Dialog.ModalityType.DOCUMENT_MODAL);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20));
+        panel.setBackground(UIManager.BACKGROUND_COLOR);
+
+        JLabel label = new JLabel(messaggio);
+        label.setFont(UIManager.NORMAL_FONT);
+        panel.add(label, BorderLayout.NORTH);
+
+        JProgressBar barra = new JProgressBar();
+        barra.setIndeterminate(true);
+        panel.add(barra, BorderLayout.CENTER);
+
+        if (operazione != null) {
+            JButton annulla = new JButton("Annulla");
+            UIManager.styleButton(annulla);
+            annulla.addActionListener(e -> operazione.cancel(true));
+            JPanel pulsanti = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+            pulsanti.setOpaque(false);
+            pulsanti.add(annulla);
+            panel.add(pulsanti, BorderLayout.SOUTH);
+        }
+
+        dialog.setContentPane(panel);
+        dialog.pack();
+        return dialog;
+    }
+
+    /**
+     * Mostra il messaggio di errore di un'operazione fallita.
+     *
+     * @param parent Il componente sopra cui mostrare il messaggio
+     * @param errore L'eccezione che ha causato il fallimento
+     */
+    private static void mostraErrore(Component parent, Throwable errore) {
+        Throwable causa = errore instanceof CompletionException && errore.getCause() != null ? errore.getCause() : errore;
+        String testo = causa instanceof RejectedExecutionException
+                ? "Troppe operazioni in corso, riprovare tra qualche istante."
+                : "Operazione non riuscita: " + causa.getMessage();
+        JOptionPane.showMessageDialog(parent, testo, "Errore", JOptionPane.ERROR_MESSAGE);
+    }
+}
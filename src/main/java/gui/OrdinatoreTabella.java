@@ -0,0 +1,312 @@
+package gui;
+
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ordinatore e filtro delle righe di un {@link ModelloTabella} basato su chiavi precalcolate.
+ * <p>
+ * Il {@link TableRowSorter} standard legge il valore di una cella a ogni confronto e confronta
+ * le stringhe con un {@link Collator}, ricalcolando ogni volta le chiavi di collazione. Questo ordinatore
+ * calcola una sola volta, alla prima richiesta, le chiavi di ordinamento di una colonna (per le stringhe
+ * una {@link java.text.CollationKey}) e il suo testo in minuscolo per i filtri, e le mantiene allineate
+ * alle righe inserite, aggiornate e rimosse: ordinare o filtrare di nuovo non rilegge il modello.
+ *
+ * @param <T> Il tipo degli oggetti visualizzati
+ */
+final class OrdinatoreTabella<T> extends TableRowSorter<ModelloTabella<T>> {
+    /**
+     * Modello di cui vengono ordinate e filtrate le righe.
+     */
+    private final ModelloTabella<T> modello;
+
+    /**
+     * Collator usato per le chiavi delle colonne di testo.
+     */
+    private final Collator collator = Collator.getInstance();
+
+    /**
+     * Chiavi di ordinamento precalcolate, per colonna; null per le colonne non ancora ordinate.
+     */
+    private final List<List<Object>> chiavi = new ArrayList<>();
+
+    /**
+     * Testi in minuscolo precalcolati per i filtri, per colonna; null per le colonne non ancora filtrate.
+     */
+    private final List<List<String>> testi = new ArrayList<>();
+
+    /**
+     * Costruttore dell'ordinatore.
+     *
+     * @param modello Il modello di cui ordinare e filtrare le righe
+     */
+    OrdinatoreTabella(ModelloTabella<T> modello) {
+        super(modello);
+        this.modello = modello;
+        setModelWrapper(new ChiaviPrecalcolate());
+    }
+
+    /**
+     * Filtra le righe che contengono il testo indicato, senza distinzione tra maiuscole e minuscole,
+     * in almeno una delle colonne indicate.
+     *
+     * @param testo   Il testo da cercare; se vuoto il filtro viene rimosso
+     * @param colonne Le colonne in cui cercare
+     */
+    void filtraTesto(String testo, int... colonne) {
+        setRowFilter(contiene(testo, colonne));
+    }
+
+    /**
+     * Crea un filtro che accetta le righe che contengono il testo indicato, senza distinzione tra
+     * maiuscole e minuscole, in almeno una delle colonne indicate. I filtri possono essere combinati
+     * con {@link RowFilter#andFilter}.
+     *
+     * @param testo   Il testo da cercare
+     * @param colonne Le colonne in cui cercare
+     * @return Il filtro, o null se il testo è vuoto
+     */
+    RowFilter<ModelloTabella<T>, Integer> contiene(String testo, int... colonne) {
+        if (testo == null || testo.isBlank()) {
+            return null;
+        }
+        String cercato = testo.trim().toLowerCase(Locale.ROOT);
+        return new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends ModelloTabella<T>, ? extends Integer> riga) {
+                for (int colonna : colonne) {
+                    if (riga.getStringValue(colonna).contains(cercato)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Comparator<?> getComparator(int colonna) {
+        return Comparator.naturalOrder();
+    }
+
+    @Override
+    protected boolean useToString(int colonna) {
+        return false;
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        svuota();
+        super.modelStructureChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        svuota();
+        super.allRowsChanged();
+    }
+
+    @Override
+    public void rowsInserted(int prima, int ultima) {
+        for (int colonna = 0; colonna < chiavi.size(); colonna++) {
+            List<Object> valori = chiavi.get(colonna);
+            if (valori != null) {
+                for (int riga = prima; riga <= ultima; riga++) {
+                    valori.add(riga, calcolaChiave(riga, colonna));
+                }
+            }
+            List<String> stringhe = testi.get(colonna);
+            if (stringhe != null) {
+                for (int riga = prima; riga <= ultima; riga++) {
+                    stringhe.add(riga, calcolaTesto(riga, colonna));
+                }
+            }
+        }
+        super.rowsInserted(prima, ultima);
+    }
+
+    @Override
+    public void rowsDeleted(int prima, int ultima) {
+        for (int colonna = 0; colonna < chiavi.size(); colonna++) {
+            if (chiavi.get(colonna) != null) {
+                chiavi.get(colonna).subList(prima, ultima + 1).clear();
+            }
+            if (testi.get(colonna) != null) {
+                testi.get(colonna).subList(prima, ultima + 1).clear();
+            }
+        }
+        super.rowsDeleted(prima, ultima);
+    }
+
+    @Override
+    public void rowsUpdated(int prima, int ultima) {
+        for (int colonna = 0; colonna < chiavi.size(); colonna++) {
+            ricalcola(prima, ultima, colonna);
+        }
+        super.rowsUpdated(prima, ultima);
+    }
+
+    @Override
+    public void rowsUpdated(int prima, int ultima, int colonna) {
+        if (colonna < chiavi.size()) {
+            ricalcola(prima, ultima, colonna);
+        }
+        super.rowsUpdated(prima, ultima, colonna);
+    }
+
+    /**
+     * Scarta tutte le chiavi precalcolate, che verranno ricalcolate alla richiesta successiva.
+     */
+    private void svuota() {
+        // Invocato anche dal costruttore della superclasse, prima dell'inizializzazione dei campi
+        if (chiavi == null) {
+            return;
+        }
+        chiavi.clear();
+        testi.clear();
+    }
+
+    /**
+     * Ricalcola le chiavi precalcolate di un intervallo di righe per una colonna.
+     *
+     * @param prima   La prima riga
+     * @param ultima  L'ultima riga
+     * @param colonna La colonna
+     */
+    private void ricalcola(int prima, int ultima, int colonna) {
+        List<Object> valori = chiavi.get(colonna);
+        List<String> stringhe = testi.get(colonna);
+        for (int riga = prima; riga <= ultima; riga++) {
+            if (valori != null) {
+                valori.set(riga, calcolaChiave(riga, colonna));
+            }
+            if (stringhe != null) {
+                stringhe.set(riga, calcolaTesto(riga, colonna));
+            }
+        }
+    }
+
+    /**
+     * Calcola la chiave di ordinamento di una cella.
+     *
+     * @param riga    L'indice della riga nel modello
+     * @param colonna L'indice della colonna
+     * @return La chiave, confrontabile con le altre chiavi della stessa colonna, o null se la cella è vuota
+     */
+    private Object calcolaChiave(int riga, int colonna) {
+        Object chiave = modello.getChiave(riga, colonna);
+        if (chiave == null) {
+            return null;
+        }
+        if (chiave instanceof String testo) {
+            return collator.getCollationKey(testo);
+        }
+        if (chiave instanceof Comparable<?>) {
+            return chiave;
+        }
+        return collator.getCollationKey(chiave.toString());
+    }
+
+    /**
+     * Calcola il testo in minuscolo di una cella, usato dai filtri.
+     *
+     * @param riga    L'indice della riga nel modello
+     * @param colonna L'indice della colonna
+     * @return Il testo della cella in minuscolo, vuoto se la cella è vuota
+     */
+    private String calcolaTesto(int riga, int colonna) {
+        Object valore = modello.getValueAt(riga, colonna);
+        return valore == null ? "" : valore.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Restituisce le chiavi precalcolate di una colonna, calcolandole se necessario.
+     *
+     * @param colonna L'indice della colonna
+     * @return Le chiavi della colonna, una per riga del modello
+     */
+    private List<Object> chiaviColonna(int colonna) {
+        allinea();
+        List<Object> valori = chiavi.get(colonna);
+        if (valori == null) {
+            int righe = modello.getRowCount();
+            valori = new ArrayList<>(righe);
+            for (int riga = 0; riga < righe; riga++) {
+                valori.add(calcolaChiave(riga, colonna));
+            }
+            chiavi.set(colonna, valori);
+        }
+        return valori;
+    }
+
+    /**
+     * Restituisce i testi precalcolati di una colonna, calcolandoli se necessario.
+     *
+     * @param colonna L'indice della colonna
+     * @return I testi in minuscolo della colonna, uno per riga del modello
+     */
+    private List<String> testiColonna(int colonna) {
+        allinea();
+        List<String> stringhe = testi.get(colonna);
+        if (stringhe == null) {
+            int righe = modello.getRowCount();
+            stringhe = new ArrayList<>(righe);
+            for (int riga = 0; riga < righe; riga++) {
+                stringhe.add(calcolaTesto(riga, colonna));
+            }
+            testi.set(colonna, stringhe);
+        }
+        return stringhe;
+    }
+
+    /**
+     * Prepara un elemento vuoto per ogni colonna del modello.
+     */
+    private void allinea() {
+        while (chiavi.size() < modello.getColumnCount()) {
+            chiavi.add(null);
+            testi.add(null);
+        }
+    }
+
+    /**
+     * Accesso al modello usato dall'ordinatore: restituisce le chiavi e i testi precalcolati
+     * invece dei valori delle celle.
+     */
+    private final class ChiaviPrecalcolate extends ModelWrapper<ModelloTabella<T>, Integer> {
+        @Override
+        public ModelloTabella<T> getModel() {
+            return modello;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return modello.getColumnCount();
+        }
+
+        @Override
+        public int getRowCount() {
+            return modello.getRowCount();
+        }
+
+        @Override
+        public Object getValueAt(int riga, int colonna) {
+            return chiaviColonna(colonna).get(riga);
+        }
+
+        @Override
+        public String getStringValueAt(int riga, int colonna) {
+            return testiColonna(colonna).get(riga);
+        }
+
+        @Override
+        public Integer getIdentifier(int riga) {
+            return riga;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Avvia una ricerca mentre l'utente scrive in un campo di testo.
+ * <p>
+ * Ogni modifica del testo riavvia un timer di {@link #RITARDO_MS} millisecondi: la ricerca parte
+ * solo quando l'utente smette di scrivere, così che una parola digitata di seguito produca
+ * una sola ricerca invece di una per carattere. Il tasto Invio avvia subito la ricerca.
+ */
+final class RicercaMentreScrivi {
+    /**
+     * Millisecondi di inattività dopo l'ultima modifica prima di avviare la ricerca.
+     */
+    static final int RITARDO_MS = 250;
+
+    /**
+     * Ricerca da avviare, eseguita sul thread degli eventi di Swing.
+     */
+    private final Runnable ricerca;
+
+    /**
+     * Timer che avvia la ricerca.
+     */
+    private final Timer timer;
+
+    /**
+     * Costruttore della classe RicercaMentreScrivi. Registra subito gli ascoltatori sul campo.
+     *
+     * @param campo   Il campo di testo da osservare
+     * @param ricerca La ricerca da avviare, sul thread degli eventi di Swing
+     */
+    RicercaMentreScrivi(JTextField campo, Runnable ricerca) {
+        this.ricerca = ricerca;
+        this.timer = new Timer(RITARDO_MS, e -> ricerca.run());
+        this.timer.setRepeats(false);
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Cambiano solo gli attributi del testo
+            }
+        });
+        campo.addActionListener(e -> avvia());
+    }
+
+    /**
+     * Avvia subito la ricerca, annullando quella in attesa del timer.
+     */
+    void avvia() {
+        timer.stop();
+        ricerca.run();
+    }
+
+    /**
+     * Annulla la ricerca in attesa del timer.
+     */
+    void chiudi() {
+        timer.stop();
+    }
+}
@@ -0,0 +1,168 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Schede di un {@link JTabbedPane} il cui contenuto viene costruito solo alla prima selezione.
+ * <p>
+ * Ogni scheda viene aggiunta subito con un pannello segnaposto; il suo contenuto viene costruito
+ * sul thread degli eventi di Swing la prima volta che la scheda viene selezionata e i dati di cui ha
+ * bisogno sono stati caricati. Se la scheda viene selezionata prima del termine del caricamento,
+ * il segnaposto mostra un messaggio di attesa e il contenuto viene costruito al termine.
+ */
+final class SchedeDifferite {
+    /**
+     * Pannello a schede gestito.
+     */
+    private final JTabbedPane schede;
+
+    /**
+     * Schede aggiunte, nell'ordine del pannello.
+     */
+    private final List<Scheda> elenco = new ArrayList<>();
+
+    /**
+     * Costruttore della classe SchedeDifferite.
+     *
+     * @param schede Il pannello a schede a cui aggiungere le schede
+     */
+    SchedeDifferite(JTabbedPane schede) {
+        this.schede = schede;
+        schede.addChangeListener(e -> costruisciSelezionata());
+    }
+
+    /**
+     * Aggiunge una scheda il cui contenuto verrà costruito alla prima selezione,
+     * dopo il caricamento dei dati indicati.
+     *
+     * @param titolo      Il titolo della scheda
+     * @param dati        Il caricamento dei dati necessari alla scheda; il contenuto viene costruito
+     *                    anche se il caricamento fallisce
+     * @param costruttore Costruisce il contenuto della scheda, sul thread degli eventi di Swing
+     */
+    void aggiungi(String titolo, CompletableFuture<?> dati, Supplier<? extends Component> costruttore) {
+        Scheda scheda = new Scheda(new JPanel(new BorderLayout()), dati, costruttore);
+        scheda.segnaposto.setBackground(UIManager.BACKGROUND_COLOR);
+        elenco.add(scheda);
+        schede.addTab(titolo, scheda.segnaposto);
+        dati.whenComplete((valore, errore) -> SwingUtilities.invokeLater(() -> {
+            if (scheda.richiesta) {
+                costruisci(scheda);
+            }
+        }));
+        if (schede.getTabCount() == 1) {
+            costruisciSelezionata();
+        }
+    }
+
+    /**
+     * Applica sul thread degli eventi di Swing il risultato di un caricamento in background.
+     * Il future restituito si completa dopo l'applicazione, e può essere passato ad {@link #aggiungi}
+     * come caricamento dei dati di una scheda.
+     *
+     * @param caricamento  Il caricamento in background
+     * @param applicazione Riceve il risultato, o null se il caricamento è fallito
+     * @param <T>          Il tipo del risultato
+     * @return Il future completato dopo l'applicazione del risultato
+     */
+    static <T> CompletableFuture<Void> applica(CompletableFuture<T> caricamento, Consumer<T> applicazione) {
+        CompletableFuture<Void> applicato = new CompletableFuture<>();
+        caricamento.whenComplete((valore, errore) -> SwingUtilities.invokeLater(() -> {
+            try {
+                applicazione.accept(errore == null ? valore : null);
+            } finally {
+                applicato.complete(null);
+            }
+        }));
+        return applicato;
+    }
+
+    /**
+     * Costruisce la scheda selezionata, o mostra il messaggio di attesa se i suoi dati non sono ancora pronti.
+     */
+    private void costruisciSelezionata() {
+        int indice = schede.getSelectedIndex();
+        if (indice < 0 || indice >= elenco.size()) {
+            return;
+        }
+        Scheda scheda = elenco.get(indice);
+        if (scheda.costruita || scheda.richiesta) {
+            return;
+        }
+        scheda.richiesta = true;
+        if (scheda.dati.isDone()) {
+            costruisci(scheda);
+        } else {
+            JLabel attesa = new JLabel("Caricamento in corso...", SwingConstants.CENTER);
+            attesa.setFont(UIManager.NORMAL_FONT);
+            attesa.setForeground(UIManager.TEXT_COLOR);
+            scheda.segnaposto.add(attesa, BorderLayout.CENTER);
+        }
+    }
+
+    /**
+     * Costruisce il contenuto di una scheda e lo inserisce al posto del segnaposto.
+     *
+     * @param scheda La scheda da costruire
+     */
+    private void costruisci(Scheda scheda) {
+        if (scheda.costruita) {
+            return;
+        }
+        scheda.costruita = true;
+        Component contenuto = scheda.costruttore.get();
+        scheda.segnaposto.removeAll();
+        scheda.segnaposto.add(contenuto, BorderLayout.CENTER);
+        scheda.segnaposto.revalidate();
+        scheda.segnaposto.repaint();
+    }
+
+    /**
+     * Stato di una scheda differita.
+     */
+    private static final class Scheda {
+        /**
+         * Pannello aggiunto al pannello a schede, che conterrà il contenuto costruito.
+         */
+        private final JPanel segnaposto;
+
+        /**
+         * Caricamento dei dati necessari alla scheda.
+         */
+        private final CompletableFuture<?> dati;
+
+        /**
+         * Costruisce il contenuto della scheda.
+         */
+        private final Supplier<? extends Component> costruttore;
+
+        /**
+         * Flag che indica se la scheda è stata selezionata almeno una volta.
+         */
+        private boolean richiesta;
+
+        /**
+         * Flag che indica se il contenuto della scheda è stato costruito.
+         */
+        private boolean costruita;
+
+        /**
+         * Costruttore della scheda.
+         *
+         * @param segnaposto  Il pannello segnaposto
+         * @param dati        Il caricamento dei dati necessari
+         * @param costruttore Costruisce il contenuto
+         */
+        private Scheda(JPanel segnaposto, CompletableFuture<?> dati, Supplier<? extends Component> costruttore) {
+            this.segnaposto = segnaposto;
+            this.dati = dati;
+            this.costruttore = costruttore;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package gui;
+
+/**
+ * Misura i tempi di avvio di una dashboard dopo il login e li stampa sullo standard output:
+ * il tempo fino al primo disegno della finestra e quello fino al termine del caricamento dei dati iniziali.
+ * I tempi vengono stampati solo con la proprietà di sistema {@code aeroporto.tempiAvvio=true}.
+ * Tutti i metodi vanno invocati dal thread degli eventi di Swing.
+ */
+final class TempiAvvio {
+    /**
+     * Flag che indica se stampare i tempi misurati (proprietà di sistema {@code aeroporto.tempiAvvio}).
+     */
+    private static final boolean ABILITATO = Boolean.getBoolean("aeroporto.tempiAvvio");
+
+    /**
+     * Nome della finestra misurata, usato nei messaggi.
+     */
+    private final String finestra;
+
+    /**
+     * Istante di inizio della misura, in nanosecondi.
+     */
+    private final long inizio = System.nanoTime();
+
+    /**
+     * Flag che indica se il primo disegno è già stato registrato.
+     */
+    private boolean disegnata;
+
+    /**
+     * Flag che indica se il caricamento dei dati è già stato registrato.
+     */
+    private boolean caricata;
+
+    /**
+     * Costruttore della classe TempiAvvio. La misura parte dalla creazione dell'oggetto,
+     * che va creato all'inizio della costruzione della finestra.
+     *
+     * @param finestra Il nome della finestra misurata
+     */
+    TempiAvvio(String finestra) {
+        this.finestra = finestra;
+    }
+
+    /**
+     * Registra il primo disegno della finestra; le chiamate successive vengono ignorate.
+     */
+    void primoDisegno() {
+        if (!disegnata) {
+            disegnata = true;
+            stampa("primo disegno");
+        }
+    }
+
+    /**
+     * Registra il termine del caricamento dei dati iniziali; le chiamate successive vengono ignorate.
+     */
+    void datiCaricati() {
+        if (!caricata) {
+            caricata = true;
+            stampa("dati iniziali caricati");
+        }
+    }
+
+    /**
+     * Stampa il tempo trascorso dall'inizio della misura, se la stampa è abilitata.
+     *
+     * @param evento L'evento registrato
+     */
+    private void stampa(String evento) {
+        if (!ABILITATO) {
+            return;
+        }
+        System.out.println(finestra + ": " + evento + " dopo " + (System.nanoTime() - inizio) / 1_000_000 + " ms dal login");
+    }
+}
@@ -1,19 +1,23 @@
 package gui;
 
+import database.EventoModifica;
 import model.*;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Classe che implementa l'interfaccia grafica per la dashboard dell'utente generico.
@@ -42,20 +46,33 @@ public class UserDashboard extends JFrame {
      */
     private JTable flightsTable;
 
+    /**
+     * Modello della tabella dei voli della homepage.
+     */
+    private final ModelloTabella<Volo> flightsModel = new ModelloTabella<Volo>()
+            .conColonna("Codice Volo", String.class, Volo::getCodiceVolo)
+            .conColonna("Compagnia", String.class, Volo::getCompagnia)
+            .conColonna("Origine", String.class, Volo::getOrigine)
+            .conColonna("Destinazione", String.class, Volo::getDestinazione)
+            .conColonna("Orario", String.class, Volo::getOrarioPrevisto)
+            .conColonna("Stato", StatoVolo.class, Volo::getStato)
+            .conColonna("Data", LocalDate.class, Volo::getData)
+            .conColonna("Ritardo (min)", Object.class, Volo::getTempoRitardo);
+
     /**
      * Pannello che contiene i controlli per la ricerca dei voli.
      */
     private JPanel searchPanel;
 
     /**
-     * Campo di testo per l'inserimento dei criteri di ricerca.
+     * Campo di testo per l'inserimento dei termini di ricerca, cercati in tutti i campi dei voli.
      */
     private JTextField searchField;
 
     /**
-     * Menu a tendina per selezionare il tipo di ricerca (es. per codice, destinazione).
+     * Ricerca dei voli avviata mentre l'utente scrive nel campo di ricerca.
      */
-    private JComboBox<String> searchTypeComboBox;
+    private RicercaMentreScrivi flightsSearch;
 
     /**
      * Pannello che contiene il form per la prenotazione dei voli.
@@ -67,6 +84,11 @@ public class UserDashboard extends JFrame {
      */
     private JComboBox<String> flightComboBox;
 
+    /**
+     * Campo di testo per cercare il volo da prenotare.
+     */
+    private JTextField flightFilterField;
+
     /**
      * Campo di testo per l'inserimento del nome del passeggero.
      */
@@ -93,6 +115,35 @@ public class UserDashboard extends JFrame {
      */
     private JTable baggageTable;
 
+    /**
+     * Prenotazioni dell'utente indicizzate per codice dei loro bagagli, usate dalla tabella dei bagagli.
+     */
+    private final Map<String, Prenotazione> baggageBookings = new HashMap<>();
+
+    /**
+     * Modello della tabella dei bagagli, basato sulla lista dei bagagli dell'utente.
+     */
+    private final ModelloTabella<Bagaglio> baggageModel = new ModelloTabella<Bagaglio>()
+            .conColonna("Volo", String.class, b -> {
+                Prenotazione booking = baggageBookings.get(b.getCodice());
+                return booking != null ? booking.getCodiceVolo() : "N/A";
+            })
+            .conColonna("Codice Biglietto", String.class, b -> {
+                Prenotazione booking = baggageBookings.get(b.getCodice());
+                return booking != null ? booking.getNumeroBiglietto() : "N/A";
+            })
+            .conColonna("Codice Bagaglio", String.class, Bagaglio::getCodice)
+            .conColonna("Stato", String.class,
+                    b -> b.getStato() == StatoBagaglio.smarrito ? "Smarrimento segnalato" : b.getStato().toString())
+            .conColonna("Azioni", String.class,
+                    b -> b.getStato() == StatoBagaglio.caricato || b.getStato() == StatoBagaglio.ritirabile
+                            ? "Segnala Smarrimento" : "");
+
+    /**
+     * Ordinatore e filtro della tabella dei bagagli.
+     */
+    private final OrdinatoreTabella<Bagaglio> baggageSorter = new OrdinatoreTabella<>(baggageModel);
+
     /**
      * Pannello che contiene la visualizzazione dei voli prenotati dall'utente.
      */
@@ -111,7 +162,21 @@ public class UserDashboard extends JFrame {
     /**
      * Oggetto che gestisce l'ordinamento e il filtraggio della tabella dei voli prenotati.
      */
-    private TableRowSorter<DefaultTableModel> myFlightsSorter;
+    private OrdinatoreTabella<Prenotazione> myFlightsSorter;
+
+    /**
+     * Modello della tabella dei voli prenotati, basato sulla lista delle prenotazioni dell'utente.
+     */
+    private final ModelloTabella<Prenotazione> myFlightsModel = new ModelloTabella<Prenotazione>()
+            .conColonna("Codice Volo", String.class, Prenotazione::getCodiceVolo)
+            .conColonna("Numero Biglietto", String.class, Prenotazione::getNumeroBiglietto)
+            .conColonna("Passeggero", String.class,
+                    b -> b.getPasseggero().getNome() + " " + b.getPasseggero().getCognome())
+            .conColonna("N° Documento", String.class, b -> b.getPasseggero().getnDocumento())
+            .conColonna("Posto", String.class, Prenotazione::getPosto)
+            .conColonna("Stato", StatoPrenotazione.class, Prenotazione::getStato)
+            .conColonna("Bagagli", Object.class, b -> b.getBagagli() != null ? b.getBagagli().size() : 0)
+            .conColonna("Azioni", String.class, b -> b.getStato() == StatoPrenotazione.inAttesa ? "Modifica" : "");
 
     /**
      * Pannello che contiene i controlli per il tracciamento dei bagagli.
@@ -126,19 +191,88 @@ public class UserDashboard extends JFrame {
 
 
     /**
-     * Lista di tutti i voli disponibili nel sistema.
+     * Indice di ricerca per sottostringa su tutti i voli del sistema, usato dalla scheda di prenotazione;
+     * vuoto fino al termine del caricamento iniziale.
+     */
+    private IndiceRicercaVoli flightIndex = new IndiceRicercaVoli();
+
+    /**
+     * Raccoglie le modifiche notificate dal database per aggiornare le tabelle della dashboard.
+     */
+    private ModificheRemote remoteChanges;
+
+    /**
+     * Numero di voli mostrati per ogni pagina della tabella della homepage.
+     */
+    private static final int FLIGHTS_PAGE_SIZE = 50;
+
+    /**
+     * Criteri di ricerca attualmente applicati alla tabella dei voli della homepage.
+     */
+    private CriteriRicercaVoli flightsCriteria = new CriteriRicercaVoli();
+
+    /**
+     * Criteri di ricerca della pagina di voli visualizzata nella homepage; diversi da {@link #flightsCriteria}
+     * mentre è in corso la lettura dei risultati di una nuova ricerca, null finché non è stata
+     * visualizzata nessuna pagina.
+     */
+    private CriteriRicercaVoli shownFlightsCriteria;
+
+    /**
+     * Cursore della pagina di voli visualizzata nella homepage.
+     */
+    private CursoreVoli flightsPage = new CursoreVoli(FLIGHTS_PAGE_SIZE);
+
+    /**
+     * Cursore della pagina di voli successiva, o null se la pagina corrente è l'ultima.
+     */
+    private CursoreVoli nextFlightsPage;
+
+    /**
+     * Cursori delle pagine già visitate, per tornare alla pagina precedente.
+     */
+    private final Deque<CursoreVoli> previousFlightsPages = new ArrayDeque<>();
+
+    /**
+     * Pulsante per visualizzare la pagina di voli precedente.
+     */
+    private JButton previousFlightsButton;
+
+    /**
+     * Pulsante per visualizzare la pagina di voli successiva.
+     */
+    private JButton nextFlightsButton;
+
+    /**
+     * Caricamento in background della pagina di voli, annullato se ne viene richiesto uno nuovo.
      */
-    private List<Volo> flights;
+    private CompletableFuture<PaginaVoli> flightsLoading;
+
+    /**
+     * Valore restituito dalla selezione del posto quando l'utente lascia al sistema la scelta:
+     * il posto viene assegnato dal database tra quelli liberi al momento della prenotazione.
+     */
+    private static final String ANY_SEAT = "*";
 
     /**
      * Lista delle prenotazioni effettuate dall'utente.
      */
-    private List<Prenotazione> bookings;
+    private List<Prenotazione> bookings = new ArrayList<>();
+
+    /**
+     * Versione dei dati delle prenotazioni lette, da cui richiedere le modifiche successive.
+     */
+    private long bookingsVersion;
 
     /**
      * Lista dei bagagli associati alle prenotazioni dell'utente.
      */
-    private List<Bagaglio> baggages;
+    private List<Bagaglio> baggages = new ArrayList<>();
+
+    /**
+     * Tempi di avvio della dashboard, stampati al primo disegno e al termine del caricamento iniziale.
+     */
+    private final TempiAvvio startupTimes = new TempiAvvio("Dashboard utente");
 
     /**
      * Utente attualmente loggato.
@@ -167,7 +301,10 @@ public class UserDashboard extends JFrame {
 
         this.controller = new controller.Controller();
 
-        initializeTestData();
+        CompletableFuture<Void> flightsLoaded = loadFlightIndex();
+        CompletableFuture<Void> bookingsLoaded = loadBookings();
+        CompletableFuture.allOf(flightsLoaded, bookingsLoaded)
+                .whenComplete((v, e) -> SwingUtilities.invokeLater(startupTimes::datiCaricati));
 
         setTitle("Dashboard Utente - Aeroporto di Napoli");
         setSize(1000, 700);
@@ -182,10 +319,23 @@ public class UserDashboard extends JFrame {
         tabbedPane = new JTabbedPane();
         UIManager.styleTabbedPane(tabbedPane);
 
-        createHomepagePanel();
-        createBookingPanel();
-        createMyFlightsPanel();
-        createBaggageTrackingPanel();
+        SchedeDifferite tabs = new SchedeDifferite(tabbedPane);
+        tabs.aggiungi("Home", CompletableFuture.completedFuture(null), () -> {
+            createHomepagePanel();
+            return homepagePanel;
+        });
+        tabs.aggiungi("Prenotazione Voli", flightsLoaded, () -> {
+            createBookingPanel();
+            return bookingPanel;
+        });
+        tabs.aggiungi("I Miei Voli", bookingsLoaded, () -> {
+            createMyFlightsPanel();
+            return myFlightsPanel;
+        });
+        tabs.aggiungi("Monitoraggio Bagagli", bookingsLoaded, () -> {
+            createBaggageTrackingPanel();
+            return baggageTrackingPanel;
+        });
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
 
@@ -215,6 +365,33 @@ public class UserDashboard extends JFrame {
 
         mainPanel.add(topPanel, BorderLayout.NORTH);
         setContentPane(mainPanel);
+
+        remoteChanges = new ModificheRemote(controller, this::applyRemoteChanges);
+    }
+
+    /**
+     * Disegna la finestra, registrando il primo disegno tra i tempi di avvio.
+     *
+     * @param g Il contesto grafico
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        startupTimes.primoDisegno();
+    }
+
+    /**
+     * Chiude la dashboard smettendo di ricevere le modifiche notificate dal database.
+     */
+    @Override
+    public void dispose() {
+        if (remoteChanges != null) {
+            remoteChanges.chiudi();
+        }
+        if (flightsSearch != null) {
+            flightsSearch.chiudi();
+        }
+        super.dispose();
     }
 
     /**
@@ -235,18 +412,42 @@ public class UserDashboard extends JFrame {
     }
 
     /**
-     * Inizializza i dati necessari per la dashboard utente.
-     * Carica tutti i voli disponibili, le prenotazioni dell'utente e i suoi bagagli dal controller.
-     * Se i dati non sono disponibili, inizializza liste vuote.
+     * Carica in background tutti i voli del sistema e ne costruisce l'indice di ricerca,
+     * che al termine sostituisce quello vuoto usato dalla scheda di prenotazione.
+     *
+     * @return Il future completato dopo l'applicazione dell'indice
      */
-    private void initializeTestData() {
-
-        flights = controller.getAllVoli();
-        if (flights == null) flights = new ArrayList<>();
-        bookings = controller.getPrenotazioneByUtente(user);
-        baggages = controller.getBagagliByUtente(user);
+    private CompletableFuture<Void> loadFlightIndex() {
+        return SchedeDifferite.applica(controller.esegui(() -> {
+            List<Volo> voli = controller.getAllVoli();
+            return new IndiceRicercaVoli(voli != null ? voli : List.of());
+        }), indice -> {
+            if (indice != null) {
+                flightIndex = indice;
+            }
+        });
     }
 
+    /**
+     * Carica in background, con una sola lettura, le prenotazioni dell'utente con i relativi bagagli
+     * e al termine le visualizza nelle tabelle dei voli prenotati e dei bagagli.
+     *
+     * @return Il future completato dopo l'applicazione delle prenotazioni
+     */
+    private CompletableFuture<Void> loadBookings() {
+        return SchedeDifferite.applica(controller.esegui(() -> controller.getInstantaneaUtente(user)), snapshot -> {
+            // Scarta il risultato se le prenotazioni sono già state aggiornate più di recente da una notifica
+            if (snapshot == null || snapshot.getVersione() < bookingsVersion) {
+                return;
+            }
+            bookingsVersion = snapshot.getVersione();
+            baggageBookings.clear();
+            baggageBookings.putAll(snapshot.getPrenotazioniPerBagaglio());
+            baggages = new ArrayList<>(snapshot.getBagagli());
+            showMyFlights(new ArrayList<>(snapshot.getPrenotazioni()));
+            updateBaggageTable(baggageTable);
+        });
+    }
 
     /**
      * Crea il pannello principale della homepage.
@@ -271,65 +472,26 @@ public class UserDashboard extends JFrame {
                 BorderFactory.createEmptyBorder(10, 10, 10, 10)
         ));
 
-        searchTypeComboBox = new JComboBox<>(new String[]{
-                "Data", "Compagnia", "Codice Volo", "Aeroporto di Partenza", "Aeroporto di Arrivo"
-        });
-        UIManager.styleComboBox(searchTypeComboBox);
-
         searchField = new JTextField(20);
         UIManager.styleTextField(searchField);
+        searchField.setToolTipText("Codice, compagnia, aeroporti, orario, stato o data; più parole restringono la ricerca");
+        flightsSearch = new RicercaMentreScrivi(searchField, this::searchFlights);
 
         JButton searchButton = new JButton("Cerca");
         UIManager.styleButton(searchButton);
+        searchButton.addActionListener(e -> flightsSearch.avvia());
 
-        searchButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                filterFlights();
-            }
-        });
-
-        JLabel searchLabel = new JLabel("Cerca per:");
+        JLabel searchLabel = new JLabel("Cerca:");
         searchLabel.setFont(UIManager.NORMAL_FONT);
         searchLabel.setForeground(UIManager.TEXT_COLOR);
 
         searchPanel.add(searchLabel);
-        searchPanel.add(searchTypeComboBox);
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
 
         homepagePanel.add(searchPanel, BorderLayout.NORTH);
 
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
-        model.addColumn("Codice Volo");
-        model.addColumn("Compagnia");
-        model.addColumn("Origine");
-        model.addColumn("Destinazione");
-        model.addColumn("Orario");
-        model.addColumn("Stato");
-        model.addColumn("Data");
-        model.addColumn("Ritardo (min)");
-
-        for (Volo volo : flights) {
-            model.addRow(new Object[]{
-                    volo.getCodiceVolo(),
-                    volo.getCompagnia(),
-                    volo.getOrigine(),
-                    volo.getDestinazione(),
-                    volo.getOrarioPrevisto(),
-                    volo.getStato(),
-                    volo.getData(),
-                    volo.getTempoRitardo()
-            });
-        }
-
-        flightsTable = new JTable(model);
+        flightsTable = new JTable(flightsModel);
 
         UIManager.styleTable(flightsTable);
 
@@ -373,53 +535,226 @@ public class UserDashboard extends JFrame {
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         buttonPanel.setBackground(UIManager.BACKGROUND_COLOR);
+
+        previousFlightsButton = new JButton("< Precedenti");
+        UIManager.styleButton(previousFlightsButton);
+        previousFlightsButton.addActionListener(e -> {
+            if (!previousFlightsPages.isEmpty()) {
+                loadFlightsPage(previousFlightsPages.pop());
+            }
+        });
+
+        nextFlightsButton = new JButton("Successivi >");
+        UIManager.styleButton(nextFlightsButton);
+        nextFlightsButton.addActionListener(e -> {
+            if (nextFlightsPage != null) {
+                previousFlightsPages.push(flightsPage);
+                loadFlightsPage(nextFlightsPage);
+            }
+        });
+
+        buttonPanel.add(previousFlightsButton);
+        buttonPanel.add(nextFlightsButton);
         homepagePanel.add(buttonPanel, BorderLayout.SOUTH);
 
-        tabbedPane.addTab("Home", homepagePanel);
+        loadFlightsPage(flightsPage);
+
     }
 
     /**
-     * Filtra i voli nella tabella in base ai criteri di ricerca specificati dall'utente.
-     * Utilizza il testo inserito nel campo di ricerca e il tipo di ricerca selezionato
-     * per filtrare i voli visualizzati nella tabella.
-     */
-    private void filterFlights() {
-        String searchText = searchField.getText().toLowerCase();
-        String searchType = (String) searchTypeComboBox.getSelectedItem();
-
-        DefaultTableModel model = (DefaultTableModel) flightsTable.getModel();
-        model.setRowCount(0);
-
-        for (Volo volo : flights) {
-            boolean match = false;
-
-            if (searchText.isEmpty()) {
-                match = true;
-            } else if (searchType.equals("Data") && volo.getData().toString().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Compagnia") && volo.getCompagnia().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Codice Volo") && volo.getCodiceVolo().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Aeroporto di Partenza") && volo.getOrigine().toLowerCase().contains(searchText)) {
-                match = true;
-            } else if (searchType.equals("Aeroporto di Arrivo") && volo.getDestinazione().toLowerCase().contains(searchText)) {
-                match = true;
+     * Cerca i voli che contengono tutte le parole del campo di ricerca, in qualsiasi campo.
+     * La ricerca parte mentre l'utente scrive (vedi {@link RicercaMentreScrivi}) e viene eseguita
+     * in background dal database senza indicatore di avanzamento; una ricerca precedente ancora in corso
+     * viene annullata. Se la pagina visualizzata contiene tutti i risultati della ricerca precedente
+     * e il nuovo testo la restringe, ad esempio perché l'utente ha aggiunto delle lettere,
+     * i risultati vengono filtrati in memoria senza interrogare il database.
+     */
+    private void searchFlights() {
+        CriteriRicercaVoli criteria = new CriteriRicercaVoli();
+        criteria.setTesto(searchField.getText());
+        // Criteri equivalenti a quelli correnti, ad esempio dopo l'aggiunta di uno spazio
+        if (criteria.restringe(flightsCriteria) && flightsCriteria.restringe(criteria)) {
+            return;
+        }
+        if (flightsLoading != null) {
+            flightsLoading.cancel(true);
+        }
+        flightsCriteria = criteria;
+        CursoreVoli pagina = new CursoreVoli(FLIGHTS_PAGE_SIZE);
+
+        if (shownFlightsCriteria != null && flightsPage.isPrimaPagina() && nextFlightsPage == null
+                && criteria.restringe(shownFlightsCriteria)) {
+            List<Volo> found = new ArrayList<>();
+            for (Volo volo : flightsModel.getElementi()) {
+                if (criteria.contieneTermini(volo)) {
+                    found.add(volo);
+                }
             }
+            previousFlightsPages.clear();
+            showFlightsPage(pagina, criteria, new PaginaVoli(found, null, -1));
+            return;
+        }
 
-            if (match) {
-                model.addRow(new Object[]{
-                        volo.getCodiceVolo(),
-                        volo.getCompagnia(),
-                        volo.getOrigine(),
-                        volo.getDestinazione(),
-                        volo.getOrarioPrevisto(),
-                        volo.getStato(),
-                        volo.getData(),
-                        volo.getTempoRitardo()
-                });
+        flightsLoading = controller.esegui(() -> controller.cercaVoli(criteria, pagina));
+        flightsLoading.thenAccept(risultato -> SwingUtilities.invokeLater(() -> {
+            if (risultato != null && criteria == flightsCriteria) {
+                previousFlightsPages.clear();
+                showFlightsPage(pagina, criteria, risultato);
             }
+        }));
+    }
+
+    /**
+     * Carica in background una pagina di voli secondo i criteri di ricerca correnti
+     * e la visualizza nella tabella della homepage; un caricamento ancora in corso viene annullato.
+     *
+     * @param pagina Il cursore della pagina da caricare
+     */
+    private void loadFlightsPage(CursoreVoli pagina) {
+        if (flightsLoading != null) {
+            flightsLoading.cancel(true);
         }
+        CriteriRicercaVoli criteria = flightsCriteria;
+        flightsLoading = OperazioneInCorso.segui(this, "Caricamento voli...",
+                controller.esegui(() -> controller.cercaVoli(criteria, pagina)),
+                risultato -> showFlightsPage(pagina, criteria, risultato));
+    }
+
+    /**
+     * Visualizza nella tabella della homepage una pagina di voli letta dal controller
+     * e aggiorna i pulsanti di navigazione.
+     *
+     * @param pagina    Il cursore della pagina caricata
+     * @param criteria  I criteri di ricerca della pagina
+     * @param risultato La pagina di voli letta
+     */
+    private void showFlightsPage(CursoreVoli pagina, CriteriRicercaVoli criteria, PaginaVoli risultato) {
+        flightsPage = pagina;
+        shownFlightsCriteria = criteria;
+        nextFlightsPage = risultato.getSuccessiva();
+        previousFlightsButton.setEnabled(!previousFlightsPages.isEmpty());
+        nextFlightsButton.setEnabled(nextFlightsPage != null);
+
+        flightsModel.setElementi(new ArrayList<>(risultato.getVoli()));
+    }
+
+    /**
+     * Applica alle tabelle della dashboard le modifiche notificate dal database.
+     * I voli modificati vengono riletti e aggiornati riga per riga nella tabella della homepage;
+     * le modifiche alle prenotazioni e ai bagagli dell'utente, e le nuove prenotazioni, fanno leggere
+     * le prenotazioni modificate. Dopo la possibile perdita di notifiche
+     * vengono rilette la pagina di voli e le prenotazioni modificate.
+     *
+     * @param events Le modifiche raccolte
+     */
+    private void applyRemoteChanges(List<EventoModifica> events) {
+        Set<String> tickets = new HashSet<>();
+        if (bookings != null) {
+            for (Prenotazione booking : bookings) {
+                tickets.add(booking.getNumeroBiglietto());
+            }
+        }
+
+        Set<String> changedFlights = new HashSet<>();
+        boolean bookingsChanged = false;
+        for (EventoModifica event : events) {
+            switch (event.getTabella()) {
+                case TUTTE -> {
+                    reloadFlightsPage();
+                    reloadBookings();
+                    return;
+                }
+                case VOLO, POSTO -> {
+                    if (event.getCodiceVolo() != null) {
+                        changedFlights.add(event.getCodiceVolo());
+                    }
+                }
+                case PRENOTAZIONE, BAGAGLIO -> {
+                    // Una nuova prenotazione potrebbe essere dell'utente, fatta da un'altra istanza
+                    if (tickets.contains(event.getNumeroBiglietto())
+                            || (event.getTabella() == EventoModifica.Tabella.PRENOTAZIONE
+                            && event.getOperazione() == EventoModifica.Operazione.INSERIMENTO)) {
+                        bookingsChanged = true;
+                    }
+                }
+            }
+        }
+
+        Set<String> displayed = new HashSet<>();
+        for (Volo volo : flightsModel.getElementi()) {
+            displayed.add(volo.getCodiceVolo());
+        }
+        changedFlights.retainAll(displayed);
+        if (!changedFlights.isEmpty()) {
+            controller.esegui(() -> controller.getVoliByCodici(changedFlights))
+                    .thenAccept(voli -> SwingUtilities.invokeLater(() -> updateFlightRows(changedFlights, voli)));
+        }
+        if (bookingsChanged) {
+            reloadBookings();
+        }
+    }
+
+    /**
+     * Rilegge in background la pagina di voli della homepage, senza mostrare l'indicatore di avanzamento.
+     * Il risultato viene scartato se nel frattempo l'utente ha cambiato pagina o criteri di ricerca.
+     */
+    private void reloadFlightsPage() {
+        CursoreVoli pagina = flightsPage;
+        CriteriRicercaVoli criteria = flightsCriteria;
+        controller.esegui(() -> controller.cercaVoli(criteria, pagina))
+                .thenAccept(risultato -> SwingUtilities.invokeLater(() -> {
+                    if (risultato != null && pagina == flightsPage && criteria == flightsCriteria) {
+                        showFlightsPage(pagina, criteria, risultato);
+                    }
+                }));
+    }
+
+    /**
+     * Aggiorna nella tabella della homepage le righe dei voli modificati e rimuove quelle dei voli cancellati.
+     *
+     * @param codes I codici dei voli modificati
+     * @param voli  I voli riletti dal database, o null se la lettura non è riuscita
+     */
+    private void updateFlightRows(Set<String> codes, List<Volo> voli) {
+        if (voli == null) {
+            return;
+        }
+        Map<String, Volo> byCode = new HashMap<>();
+        for (Volo volo : voli) {
+            byCode.put(volo.getCodiceVolo(), volo);
+        }
+
+        for (int row = flightsModel.getRowCount() - 1; row >= 0; row--) {
+            String code = flightsModel.getElemento(row).getCodiceVolo();
+            if (!codes.contains(code)) {
+                continue;
+            }
+            Volo volo = byCode.get(code);
+            if (volo == null) {
+                flightsModel.rimuovi(row);
+            } else {
+                flightsModel.aggiorna(row, volo);
+            }
+        }
+
+        for (String code : codes) {
+            Volo volo = byCode.get(code);
+            if (volo == null) {
+                flightIndex.rimuovi(code);
+            } else if (flightIndex.getVolo(code) != null) {
+                flightIndex.aggiorna(volo);
+            }
+        }
+    }
+
+    /**
+     * Legge in background le prenotazioni dell'utente modificate dall'ultima lettura, senza mostrare
+     * l'indicatore di avanzamento, e le applica alle tabelle dei voli prenotati e dei bagagli.
+     */
+    private void reloadBookings() {
+        long versione = bookingsVersion;
+        controller.esegui(() -> controller.getPrenotazioniModificate(user, versione))
+                .thenAccept(variazioni -> SwingUtilities.invokeLater(() -> applyBookingChanges(variazioni)));
     }
 
 
@@ -435,18 +770,32 @@ public class UserDashboard extends JFrame {
         formPanel.setBorder(BorderFactory.createTitledBorder("Nuova Prenotazione"));
 
         flightComboBox = new JComboBox<>();
-        for (Volo volo : flights) {
-            if (volo.getStato() != StatoVolo.cancellato && volo.getStato() != StatoVolo.atterrato && volo.getPostiDisponibili() > 0) {
-                flightComboBox.addItem(volo.getCodiceVolo() + " - " + volo.getCompagnia() + " (" +
-                        volo.getOrigine() + " -> " + volo.getDestinazione() + ")");
+        flightFilterField = new JTextField();
+        flightFilterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterBookableFlights();
             }
-        }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterBookableFlights();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterBookableFlights();
+            }
+        });
+        filterBookableFlights();
 
         passengerNameField = new JTextField();
         passengerSurnameField = new JTextField();
         passengerDocumentField = new JTextField();
         baggageCountSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 5, 1));
 
+        formPanel.add(new JLabel("Cerca volo:"));
+        formPanel.add(flightFilterField);
         formPanel.add(new JLabel("Volo:"));
         formPanel.add(flightComboBox);
         formPanel.add(new JLabel("Nome Passeggero:"));
@@ -475,15 +824,30 @@ public class UserDashboard extends JFrame {
         bookingPanel.add(formPanel, BorderLayout.NORTH);
 
 
-        tabbedPane.addTab("Prenotazione Voli", bookingPanel);
 
     }
 
+    /**
+     * Mostra tra i voli prenotabili quelli che contengono il testo del campo di ricerca
+     * in codice, compagnia, origine, destinazione, data o stato, cercandoli nell'indice dei voli.
+     * Sono prenotabili i voli non cancellati né atterrati con posti disponibili.
+     */
+    private void filterBookableFlights() {
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+        for (Volo volo : flightIndex.cerca(flightFilterField.getText())) {
+            if (volo.getStato() != StatoVolo.cancellato && volo.getStato() != StatoVolo.atterrato && volo.getPostiDisponibili() > 0) {
+                model.addElement(volo.getCodiceVolo() + " - " + volo.getCompagnia() + " (" +
+                        volo.getOrigine() + " -> " + volo.getDestinazione() + ")");
+            }
+        }
+        flightComboBox.setModel(model);
+    }
+
     /**
      * Gestisce la prenotazione di un volo.
-     * Raccoglie i dati inseriti dall'utente, valida i campi, seleziona un posto,
-     * crea una nuova prenotazione e registra eventuali bagagli associati.
-     * Mostra messaggi di conferma o errore all'utente.
+     * Raccoglie i dati inseriti dall'utente, valida i campi e carica in background
+     * i posti del volo; la scelta del posto e la registrazione della prenotazione
+     * proseguono in {@link #completeBooking}.
      */
     private void bookFlight() {
         String flightString = (String) flightComboBox.getSelectedItem();
@@ -508,60 +872,95 @@ public class UserDashboard extends JFrame {
             return;
         }
 
-        String seat = selectSeat(flightCode);
-        if (seat == null || seat.isEmpty()) {
+        OperazioneInCorso.segui(this, "Caricamento della mappa dei posti...",
+                controller.esegui(() -> controller.getPostiByVolo(flightCode)),
+                seatMap -> completeBooking(flightCode, name, surname, document, baggageCount, seatMap));
+    }
+
+    /**
+     * Completa la prenotazione dopo il caricamento dei posti del volo: fa scegliere il posto
+     * all'utente (o lo lascia assegnare al database), genera in background il numero di biglietto e i codici bagaglio, crea la
+     * prenotazione e aggiorna le tabelle al termine.
+     *
+     * @param flightCode   Il codice del volo da prenotare
+     * @param name         Il nome del passeggero
+     * @param surname      Il cognome del passeggero
+     * @param document     Il numero di documento del passeggero
+     * @param baggageCount Il numero di bagagli da registrare
+     * @param seatMap      La mappa dei posti del volo letta dal controller
+     */
+    private void completeBooking(String flightCode, String name, String surname, String document,
+                                 int baggageCount, MappaPosti seatMap) {
+        String selection = selectSeat(flightCode, seatMap);
+        if (selection == null || selection.isEmpty()) {
             JOptionPane.showMessageDialog(this, "È necessario selezionare un posto", "Errore", JOptionPane.ERROR_MESSAGE);
             return;
         }
-
-        String ticketNumber = "TKT" + System.currentTimeMillis() % 10000;
+        String seat = ANY_SEAT.equals(selection) ? null : selection;
 
         Passeggero passenger = new Passeggero(name, surname, document);
-        Prenotazione booking = new Prenotazione(flightCode, ticketNumber, seat, StatoPrenotazione.inAttesa, passenger);
 
+        OperazioneInCorso.seguiScrittura(this, "Registrazione della prenotazione...",
+                controller.esegui(() -> {
+                    String ticketNumber = controller.nuovoNumeroBiglietto();
+                    if (ticketNumber == null) {
+                        throw new IllegalStateException("impossibile generare il numero di biglietto");
+                    }
 
-        StringBuilder baggageInfo = new StringBuilder();
-        if (baggageCount > 0) {
-            List<Bagaglio> bookingBaggages = new ArrayList<>();
-            baggageInfo.append("\n\nID Bagagli:");
-            for (int i = 0; i < baggageCount; i++) {
-                String baggageCode = "BAG" + ticketNumber + "-" + (i + 1);
-                Bagaglio baggage = new Bagaglio(baggageCode, StatoBagaglio.inElaborazione);
-                bookingBaggages.add(baggage);
-                baggages.add(baggage);
-                baggageInfo.append("\n- ").append(baggageCode);
-            }
-            booking.setBagagli(bookingBaggages);
-        }
+                    Prenotazione booking = new Prenotazione(flightCode, ticketNumber, seat, StatoPrenotazione.inAttesa, passenger);
+                    List<Bagaglio> bookingBaggages = new ArrayList<>();
+                    for (int i = 0; i < baggageCount; i++) {
+                        bookingBaggages.add(new Bagaglio(controller.codiceBagaglio(ticketNumber, i + 1), StatoBagaglio.inElaborazione));
+                    }
+                    booking.setBagagli(bookingBaggages);
 
-        bookings.add(booking);
-        controller.creaPrenotazione(booking, flightCode, user);
+                    EsitoPrenotazione esito = controller.prenota(booking, flightCode, user);
+                    if (!esito.isRiuscita()) {
+                        if (seat != null) {
+                            controller.rilasciaPosto(flightCode, seat, user);
+                        }
+                        throw new IllegalStateException(esito.getErrore());
+                    }
+                    return booking;
+                }),
+                booking -> {
+                    upsertBooking(booking);
+
+                    StringBuilder baggageInfo = new StringBuilder();
+                    if (!booking.getBagagli().isEmpty()) {
+                        baggageInfo.append("\n\nID Bagagli:");
+                        for (Bagaglio baggage : booking.getBagagli()) {
+                            baggageInfo.append("\n- ").append(baggage.getCodice());
+                        }
+                    }
 
-        passengerNameField.setText("");
-        passengerSurnameField.setText("");
-        passengerDocumentField.setText("");
-        baggageCountSpinner.setValue(0);
-        updateMyFlightsTable();
-        updateBaggageTable(baggageTable);
-        baggages = controller.getBagagliByUtente(user);
-        JOptionPane.showMessageDialog(this,
-                "Prenotazione effettuata con successo!\nNumero Biglietto: " + ticketNumber + baggageInfo.toString(),
-                "Prenotazione Confermata", JOptionPane.INFORMATION_MESSAGE);
+                    passengerNameField.setText("");
+                    passengerSurnameField.setText("");
+                    passengerDocumentField.setText("");
+                    baggageCountSpinner.setValue(0);
+                    updateMyFlightsTable();
+                    updateBaggageTable(baggageTable);
+                    JOptionPane.showMessageDialog(this,
+                            "Prenotazione effettuata con successo!\nNumero Biglietto: " + booking.getNumeroBiglietto()
+                                    + "\nPosto: " + booking.getPosto() + baggageInfo,
+                            "Prenotazione Confermata", JOptionPane.INFORMATION_MESSAGE);
+                });
     }
 
     /**
      * Mostra una finestra di dialogo per la selezione del posto a sedere.
      * Visualizza una rappresentazione grafica dei posti disponibili e occupati,
-     * permettendo all'utente di selezionare un posto libero.
+     * permettendo all'utente di selezionare un posto libero oppure di lasciare
+     * l'assegnazione al sistema con il pulsante "Posto qualsiasi". Il posto selezionato viene
+     * bloccato temporaneamente per l'utente fino alla prenotazione; i posti bloccati da altri
+     * utenti sono mostrati come non selezionabili.
      * 
      * @param flightCode Il codice del volo per cui selezionare il posto
-     * @return Il posto selezionato o null se nessun posto è stato selezionato
+     * @param seatMap    La mappa dei posti del volo, già letta dal controller
+     * @return Il posto selezionato, {@link #ANY_SEAT} per un posto qualsiasi o null se nessun posto è stato selezionato
      */
-    private String selectSeat(String flightCode) {
-        Volo selectedFlight = flights.stream()
-                .filter(v -> v.getCodiceVolo().equals(flightCode))
-                .findFirst()
-                .orElse(null);
+    private String selectSeat(String flightCode, MappaPosti seatMap) {
+        Volo selectedFlight = flightIndex.getVolo(flightCode);
 
         if (selectedFlight == null) {
             JOptionPane.showMessageDialog(this,
@@ -571,24 +970,6 @@ public class UserDashboard extends JFrame {
             return null;
         }
 
-        List<Posto> posti;
-        try {
-            posti = controller.getPostiByVolo(flightCode);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Errore caricamento posti: " + ex.getMessage(),
-                    "Errore DB",
-                    JOptionPane.ERROR_MESSAGE);
-            return null;
-        }
-
-        posti.sort(Comparator.comparing(Posto::getSeatNumber, (a, b) -> {
-            int filaA = Integer.parseInt(a.replaceAll("\\D", ""));
-            int filaB = Integer.parseInt(b.replaceAll("\\D", ""));
-            if (filaA != filaB) return filaA - filaB;
-            return a.replaceAll("\\d", "").charAt(0) - b.replaceAll("\\d", "").charAt(0);
-        }));
-
         JDialog seatDialog = new JDialog(this, "Seleziona Posto - Volo " + flightCode, true);
         seatDialog.setSize(700, 600);
         seatDialog.setLocationRelativeTo(this);
@@ -596,63 +977,50 @@ public class UserDashboard extends JFrame {
         JPanel seatPanel = new JPanel(new BorderLayout(10, 10));
         seatPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         seatPanel.add(new JLabel(
-                        "Volo: " + flightCode + " - Posti disponibili: " + selectedFlight.getPostiDisponibili()),
+                        "Volo: " + flightCode + " - Posti disponibili: " + seatMap.getPostiLiberi()),
                 BorderLayout.NORTH);
 
         JPanel airplanePanel = new JPanel(new BorderLayout(10, 10));
         airplanePanel.setBorder(BorderFactory.createTitledBorder("Seleziona un posto disponibile"));
 
-        int cols = 6;
-        int rows = (int) Math.ceil(posti.size() / (double) cols);
+        int cols = seatMap.getPostiPerFila();
+        int aisleColumn = cols / 2;
+        int rows = seatMap.getNumeroFile();
         JPanel seatGrid = new JPanel(new GridLayout(rows, cols + 1, 5, 5));
 
         final String[] selectedSeat = {null};
+        final JButton[] selectedButton = {null};
 
-        List<JButton> buttons = new ArrayList<>();
-        for (Posto p : posti) {
-            String seatNumber = p.getSeatNumber();
-            JButton btn = new JButton(seatNumber);
-            btn.setPreferredSize(new Dimension(60, 40));
-            if (p.isOccupato()) {
-                btn.setEnabled(false);
-                btn.setBackground(Color.RED);
-                btn.setText(seatNumber + " (X)");
-            } else {
-                btn.setBackground(Color.GREEN);
-                btn.addActionListener(e -> {
-                    if (selectedSeat[0] != null) {
-                        for (Component c : seatGrid.getComponents()) {
-                            if (c instanceof JButton old &&
-                                    old.getText().startsWith(selectedSeat[0]) &&
-                                    old.isEnabled()) {
-                                old.setBackground(Color.GREEN);
-                                old.setText(selectedSeat[0]);
-                            }
-                        }
-                    }
-                    selectedSeat[0] = seatNumber;
-                    btn.setBackground(Color.BLUE);
-                    btn.setText(seatNumber + " (✓)");
-                });
-            }
-            buttons.add(btn);
-        }
-
-        int btnIndex = 0;
+        // La mappa è indicizzata per fila e lettera: la griglia si riempie in ordine senza ordinare i posti
         for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols + 1; c++) {
-                if (c == 3) {
+            for (int c = 0; c < cols; c++) {
+                if (c == aisleColumn) {
                     JPanel aisle = new JPanel();
                     aisle.setBackground(Color.LIGHT_GRAY);
                     seatGrid.add(aisle);
-                } else if (btnIndex < buttons.size()) {
-                    seatGrid.add(buttons.get(btnIndex));
-                    btnIndex++;
-                } else {
+                }
+                int index = r * cols + c;
+                if (!seatMap.esiste(index)) {
                     JPanel empty = new JPanel();
                     empty.setOpaque(false);
                     seatGrid.add(empty);
+                    continue;
                 }
+
+                String seatNumber = seatMap.etichetta(index);
+                JButton btn = new JButton(seatNumber);
+                btn.setPreferredSize(new Dimension(60, 40));
+                if (seatMap.isOccupato(index)) {
+                    btn.setEnabled(false);
+                    btn.setBackground(Color.RED);
+                    btn.setText(seatNumber + " (X)");
+                } else if (seatMap.isBloccatoDaAltri(index, user.getLogin())) {
+                    markSeatHeld(btn, seatNumber);
+                } else {
+                    btn.setBackground(Color.GREEN);
+                    btn.addActionListener(e -> holdSeat(seatDialog, flightCode, seatNumber, btn, selectedSeat, selectedButton));
+                }
+                seatGrid.add(btn);
             }
         }
 
@@ -668,6 +1036,8 @@ public class UserDashboard extends JFrame {
         legend.add(createLegendBox(Color.RED));
         legend.add(new JLabel("Selezionato", JLabel.LEFT));
         legend.add(createLegendBox(Color.BLUE));
+        legend.add(new JLabel("Bloccato", JLabel.LEFT));
+        legend.add(createLegendBox(Color.ORANGE));
         airplanePanel.add(legend, BorderLayout.NORTH);
 
         JPanel footer = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
@@ -682,11 +1052,26 @@ public class UserDashboard extends JFrame {
                         JOptionPane.WARNING_MESSAGE);
             }
         });
+        JButton anySeat = new JButton("Posto qualsiasi");
+        anySeat.addActionListener(e -> {
+            releaseSeat(flightCode, selectedSeat[0]);
+            selectedSeat[0] = ANY_SEAT;
+            seatDialog.dispose();
+        });
         JButton cancel = new JButton("Annulla");
         cancel.addActionListener(e -> {
+            releaseSeat(flightCode, selectedSeat[0]);
             selectedSeat[0] = null;
             seatDialog.dispose();
         });
+        seatDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        seatDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancel.doClick();
+            }
+        });
+        footer.add(anySeat);
         footer.add(confirm);
         footer.add(cancel);
 
@@ -698,6 +1083,82 @@ public class UserDashboard extends JFrame {
         return selectedSeat[0];
     }
 
+    /**
+     * Blocca in background il posto selezionato nella mappa dei posti. Se il blocco riesce il posto
+     * diventa quello selezionato e il blocco del posto selezionato in precedenza viene rilasciato;
+     * altrimenti il posto viene mostrato come non disponibile. Se il blocco scade mentre la mappa
+     * è ancora aperta la selezione viene annullata.
+     *
+     * @param seatDialog     La finestra di selezione del posto
+     * @param flightCode     Il codice del volo
+     * @param seatNumber     Il posto da bloccare
+     * @param btn            Il pulsante del posto
+     * @param selectedSeat   Contenitore del posto selezionato
+     * @param selectedButton Contenitore del pulsante del posto selezionato
+     */
+    private void holdSeat(JDialog seatDialog, String flightCode, String seatNumber, JButton btn,
+                          String[] selectedSeat, JButton[] selectedButton) {
+        Runnable onExpired = () -> SwingUtilities.invokeLater(() -> {
+            if (seatDialog.isDisplayable() && seatNumber.equals(selectedSeat[0])) {
+                selectedSeat[0] = null;
+                selectedButton[0] = null;
+                btn.setBackground(Color.GREEN);
+                btn.setText(seatNumber);
+                JOptionPane.showMessageDialog(seatDialog,
+                        "Il blocco del posto " + seatNumber + " è scaduto, selezionare di nuovo un posto",
+                        "Avviso", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+
+        OperazioneInCorso.seguiScrittura(seatDialog, "Blocco del posto " + seatNumber + "...",
+                controller.esegui(() -> controller.bloccaPosto(flightCode, seatNumber, user, onExpired)),
+                held -> {
+                    if (!held) {
+                        markSeatHeld(btn, seatNumber);
+                        JOptionPane.showMessageDialog(seatDialog,
+                                "Il posto " + seatNumber + " è stato appena scelto da un altro utente",
+                                "Posto non disponibile", JOptionPane.WARNING_MESSAGE);
+                        return;
+                    }
+                    if (selectedButton[0] != null && selectedButton[0] != btn) {
+                        releaseSeat(flightCode, selectedSeat[0]);
+                        selectedButton[0].setBackground(Color.GREEN);
+                        selectedButton[0].setText(selectedSeat[0]);
+                    }
+                    selectedSeat[0] = seatNumber;
+                    selectedButton[0] = btn;
+                    btn.setBackground(Color.BLUE);
+                    btn.setText(seatNumber + " (✓)");
+                });
+    }
+
+    /**
+     * Mostra un posto come non selezionabile perché bloccato da un altro utente.
+     *
+     * @param btn        Il pulsante del posto
+     * @param seatNumber Il numero del posto
+     */
+    private void markSeatHeld(JButton btn, String seatNumber) {
+        for (ActionListener listener : btn.getActionListeners()) {
+            btn.removeActionListener(listener);
+        }
+        btn.setEnabled(false);
+        btn.setBackground(Color.ORANGE);
+        btn.setText(seatNumber + " (B)");
+    }
+
+    /**
+     * Rilascia in background il blocco di un posto selezionato e non prenotato.
+     *
+     * @param flightCode Il codice del volo
+     * @param seat       Il posto da rilasciare; se null o {@link #ANY_SEAT} non viene eseguito nulla
+     */
+    private void releaseSeat(String flightCode, String seat) {
+        if (seat != null && !ANY_SEAT.equals(seat)) {
+            controller.esegui(() -> controller.rilasciaPosto(flightCode, seat, user));
+        }
+    }
+
 
     /**
      * Crea il pannello per la visualizzazione dei voli prenotati dall'utente.
@@ -718,24 +1179,8 @@ public class UserDashboard extends JFrame {
         searchPanel.add(searchButton);
         myFlightsPanel.add(searchPanel, BorderLayout.NORTH);
 
-        DefaultTableModel model = new DefaultTableModel(
-                new String[]{"Codice Volo", "Numero Biglietto", "Passeggero", "N° Documento", "Posto", "Stato", "Bagagli", "Azioni"},
-                0
-        ) {
-            @Override
-            public Class<?> getColumnClass(int col) {
-                if (col == 7) return String.class;
-                return super.getColumnClass(col);
-            }
-
-            @Override
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
-
-        myFlightsTable = new JTable(model);
-        myFlightsSorter = new TableRowSorter<>(model);
+        myFlightsTable = new JTable(myFlightsModel);
+        myFlightsSorter = new OrdinatoreTabella<>(myFlightsModel);
         myFlightsTable.setRowSorter(myFlightsSorter);
 
         myFlightsTable.getColumnModel().getColumn(5)
@@ -792,9 +1237,6 @@ public class UserDashboard extends JFrame {
         });
 
         myFlightsPanel.add(new JScrollPane(myFlightsTable), BorderLayout.CENTER);
-        tabbedPane.addTab("I Miei Voli", myFlightsPanel);
-
-        updateMyFlightsTable();
     }
 
 
@@ -841,20 +1283,22 @@ public class UserDashboard extends JFrame {
                     return;
                 }
 
-                boolean success = controller.updatePassengerInfo(booking.getNumeroBiglietto(), nome, cognome, documento);
+                OperazioneInCorso.seguiScrittura(dialog, "Aggiornamento del passeggero...",
+                        controller.esegui(() -> controller.updatePassengerInfo(booking.getNumeroBiglietto(), nome, cognome, documento)),
+                        success -> {
+                            if (success) {
+                                passeggero.setNome(nome);
+                                passeggero.setCognome(cognome);
+                                passeggero.setnDocumento(documento);
 
-                if (success) {
-                    passeggero.setNome(nome);
-                    passeggero.setCognome(cognome);
-                    passeggero.setnDocumento(documento);
-
-                    updateMyFlightsTable();
+                                updateMyFlightsTable();
 
-                    JOptionPane.showMessageDialog(dialog, "Informazioni passeggero aggiornate con successo", "Successo", JOptionPane.INFORMATION_MESSAGE);
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Errore durante l'aggiornamento delle informazioni", "Errore", JOptionPane.ERROR_MESSAGE);
-                }
+                                JOptionPane.showMessageDialog(dialog, "Informazioni passeggero aggiornate con successo", "Successo", JOptionPane.INFORMATION_MESSAGE);
+                                dialog.dispose();
+                            } else {
+                                JOptionPane.showMessageDialog(dialog, "Errore durante l'aggiornamento delle informazioni", "Errore", JOptionPane.ERROR_MESSAGE);
+                            }
+                        });
             }
         });
 
@@ -883,40 +1327,97 @@ public class UserDashboard extends JFrame {
      * in base al numero del biglietto o al nome del passeggero.
      */
     private void filterMyFlights() {
-        String text = myFlightsSearchField.getText().trim();
-        if (text.isEmpty()) {
-            myFlightsSorter.setRowFilter(null);
-        } else {
-            myFlightsSorter.setRowFilter(
-                    RowFilter.regexFilter("(?i)" + Pattern.quote(text), 1, 2)
-            );
-        }
+        myFlightsSorter.filtraTesto(myFlightsSearchField.getText(), 1, 2);
     }
 
     /**
      * Aggiorna la tabella dei voli prenotati con i dati più recenti.
-     * Recupera tutte le prenotazioni dell'utente dal controller e aggiorna la tabella dell'interfaccia.
-     * Mostra informazioni su codice volo, numero biglietto, passeggero, posto, stato e bagagli.
+     * Recupera in background dal controller le sole prenotazioni modificate dall'ultima lettura
+     * e al termine le applica riga per riga alla tabella dell'interfaccia.
      */
     private void updateMyFlightsTable() {
-        DefaultTableModel model = (DefaultTableModel) myFlightsTable.getModel();
-        model.setRowCount(0);
-        bookings = controller.getPrenotazioneByUtente(user);
-        for (Prenotazione b : bookings) {
-            Passeggero p = b.getPasseggero();
-            int bagCount = b.getBagagli() != null ? b.getBagagli().size() : 0;
-            String action = b.getStato() == StatoPrenotazione.inAttesa ? "Modifica" : "";
-            model.addRow(new Object[]{
-                    b.getCodiceVolo(),
-                    b.getNumeroBiglietto(),
-                    p.getNome() + " " + p.getCognome(),
-                    p.getnDocumento(),
-                    b.getPosto(),
-                    b.getStato(),
-                    bagCount,
-                    action
-            });
+        long versione = bookingsVersion;
+        OperazioneInCorso.segui(this, "Caricamento delle prenotazioni...",
+                controller.esegui(() -> controller.getPrenotazioniModificate(user, versione)),
+                this::applyBookingChanges);
+    }
+
+    /**
+     * Applica alle tabelle dei voli prenotati e dei bagagli le prenotazioni modificate lette dal controller.
+     * Le prenotazioni modificate vengono aggiornate sul posto o aggiunte, quelle cancellate rimosse.
+     *
+     * @param variazioni Le modifiche alle prenotazioni, o null se la lettura non è riuscita
+     */
+    private void applyBookingChanges(Variazioni<Prenotazione> variazioni) {
+        // Scarta il risultato se la lettura non è riuscita o le prenotazioni sono già state aggiornate più di recente
+        if (variazioni == null || variazioni.getVersione() < bookingsVersion) {
+            return;
+        }
+        bookingsVersion = variazioni.getVersione();
+        if (variazioni.isVuota()) {
+            return;
         }
+
+        Set<String> removed = new HashSet<>(variazioni.getRimossi());
+        for (int i = bookings.size() - 1; i >= 0; i--) {
+            if (removed.contains(bookings.get(i).getNumeroBiglietto())) {
+                removeBookingBaggages(myFlightsModel.rimuovi(i));
+            }
+        }
+        for (Prenotazione booking : variazioni.getModificati()) {
+            upsertBooking(booking);
+        }
+        updateBaggageTable(baggageTable);
+    }
+
+    /**
+     * Aggiorna nella tabella dei voli prenotati la riga di una prenotazione, o la aggiunge se non presente,
+     * sostituendone anche i bagagli nella lista dei bagagli dell'utente.
+     *
+     * @param booking La prenotazione da visualizzare
+     */
+    private void upsertBooking(Prenotazione booking) {
+        int index = myFlightsModel.indiceDi(b -> b.getNumeroBiglietto().equals(booking.getNumeroBiglietto()));
+        if (index >= 0) {
+            removeBookingBaggages(bookings.get(index));
+            myFlightsModel.aggiorna(index, booking);
+        } else {
+            myFlightsModel.aggiungi(booking);
+        }
+        if (booking.getBagagli() != null) {
+            for (Bagaglio baggage : booking.getBagagli()) {
+                baggages.add(baggage);
+                baggageBookings.put(baggage.getCodice(), booking);
+            }
+        }
+    }
+
+    /**
+     * Rimuove dalla lista dei bagagli dell'utente, e dal loro indice per codice, i bagagli di una prenotazione.
+     *
+     * @param booking La prenotazione di cui rimuovere i bagagli
+     */
+    private void removeBookingBaggages(Prenotazione booking) {
+        if (booking.getBagagli() == null) {
+            return;
+        }
+        Set<String> codes = new HashSet<>();
+        for (Bagaglio baggage : booking.getBagagli()) {
+            codes.add(baggage.getCodice());
+            baggageBookings.remove(baggage.getCodice());
+        }
+        baggages.removeIf(baggage -> codes.contains(baggage.getCodice()));
+    }
+
+    /**
+     * Visualizza nella tabella dei voli prenotati le prenotazioni lette dal controller.
+     * Mostra informazioni su codice volo, numero biglietto, passeggero, posto, stato e bagagli.
+     *
+     * @param prenotazioni Le prenotazioni dell'utente
+     */
+    private void showMyFlights(List<Prenotazione> prenotazioni) {
+        bookings = prenotazioni != null ? prenotazioni : new ArrayList<>();
+        myFlightsModel.setElementi(bookings);
     }
 
     /**
@@ -937,47 +1438,19 @@ public class UserDashboard extends JFrame {
         searchButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String flightCode = flightCodeField.getText().trim();
-                String baggageCode = baggageCodeField.getText().trim();
-
-                DefaultTableModel model = (DefaultTableModel) baggageTable.getModel();
-                model.setRowCount(0);
-
-                for (Bagaglio baggage : baggages) {
-                    String flightInfo = "N/A";
-                    String tckInfo = "N/A";
-                    for (Prenotazione booking : bookings) {
-                        if (booking.getBagagli() != null) {
-                            for (Bagaglio b : booking.getBagagli()) {
-                                if (b.getCodice().equals(baggage.getCodice())) {
-                                    tckInfo = booking.getCodiceVolo();
-                                    flightInfo = booking.getCodiceVolo();
-                                    break;
-                                }
-                            }
-                        }
-                    }
-
-                    boolean matchesFlightCode = flightCode.isEmpty() || flightInfo.toLowerCase().contains(flightCode.toLowerCase());
-                    boolean matchesBaggageCode = baggageCode.isEmpty() || baggage.getCodice().toLowerCase().contains(baggageCode.toLowerCase());
-
-                    if (matchesFlightCode && matchesBaggageCode) {
-                        String status = baggage.getStato().toString();
-                        if (baggage.getStato().toString().equals("smarrito")) {
-                            status = "Smarrimento segnalato";
-                        }
-
-                        String actionText = (baggage.getStato() == StatoBagaglio.caricato || baggage.getStato() == StatoBagaglio.ritirabile) ? "Segnala smarrimento" : "";
-
-                        model.addRow(new Object[]{
-                                flightInfo,
-                                tckInfo,
-                                baggage.getCodice(),
-                                status,
-                                actionText
-                        });
-                    }
+                // Devono corrispondere sia il codice del volo sia quello del bagaglio, se indicati
+                List<RowFilter<ModelloTabella<Bagaglio>, Integer>> filters = new ArrayList<>();
+                RowFilter<ModelloTabella<Bagaglio>, Integer> flightFilter =
+                        baggageSorter.contiene(flightCodeField.getText(), 0);
+                RowFilter<ModelloTabella<Bagaglio>, Integer> baggageFilter =
+                        baggageSorter.contiene(baggageCodeField.getText(), 2);
+                if (flightFilter != null) {
+                    filters.add(flightFilter);
+                }
+                if (baggageFilter != null) {
+                    filters.add(baggageFilter);
                 }
+                baggageSorter.setRowFilter(filters.isEmpty() ? null : RowFilter.andFilter(filters));
             }
         });
 
@@ -990,20 +1463,8 @@ public class UserDashboard extends JFrame {
 
         baggageTrackingPanel.add(formPanel, BorderLayout.NORTH);
 
-        DefaultTableModel model = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        model.addColumn("Volo");
-        model.addColumn("Codice Biglietto");
-
-        model.addColumn("Codice Bagaglio");
-        model.addColumn("Stato");
-        model.addColumn("Azioni");
-
-        baggageTable = new JTable(model);
+        baggageTable = new JTable(baggageModel);
+        baggageTable.setRowSorter(baggageSorter);
         updateBaggageTable(baggageTable);
         baggageTable.getColumnModel().getColumn(3).setCellRenderer(new DefaultTableCellRenderer() {
             @Override
@@ -1083,52 +1544,18 @@ public class UserDashboard extends JFrame {
 
         updateBaggageTable(baggageTable);
 
-        tabbedPane.addTab("Monitoraggio Bagagli", baggageTrackingPanel);
     }
 
     /**
      * Aggiorna la tabella dei bagagli con i dati più recenti.
-     * Recupera tutti i bagagli dell'utente e aggiorna la tabella dell'interfaccia
-     * con informazioni su volo, biglietto, codice bagaglio e stato.
+     * Visualizza tutti i bagagli dell'utente con informazioni su volo, biglietto, codice bagaglio e stato;
+     * volo e biglietto vengono letti dall'indice delle prenotazioni per codice dei bagagli,
+     * mantenuto allineato alle prenotazioni quando queste cambiano.
      * 
      * @param baggageTable La tabella da aggiornare
      */
     private void updateBaggageTable(JTable baggageTable) {
-        DefaultTableModel model = (DefaultTableModel) baggageTable.getModel();
-        model.setRowCount(0);
-
-        for (Bagaglio baggage : baggages) {
-            String flightInfo = "N/A";
-            String tckInfo = "N/A";
-
-            for (Prenotazione booking : bookings) {
-
-                if (booking.getBagagli() != null) {
-                    for (Bagaglio b : booking.getBagagli()) {
-                        if (b.getCodice().equals(baggage.getCodice())) {
-                            flightInfo = booking.getCodiceVolo();
-                            tckInfo = booking.getNumeroBiglietto();
-                            break;
-                        }
-                    }
-                }
-            }
-
-            String status = baggage.getStato().toString();
-            if (baggage.getStato().toString().equals("smarrito")) {
-                status = "Smarrimento segnalato";
-            }
-
-            String actionText = (baggage.getStato() == StatoBagaglio.caricato || baggage.getStato() == StatoBagaglio.ritirabile) ? "Segnala Smarrimento" : "";
-
-            model.addRow(new Object[]{
-                    flightInfo,
-                    tckInfo,
-                    baggage.getCodice(),
-                    status,
-                    actionText
-            });
-        }
+        baggageModel.setElementi(baggages);
     }
 
     /**
@@ -1141,10 +1568,13 @@ public class UserDashboard extends JFrame {
      */
     private void reportLostBaggageFromTable(String baggageCode, JTable baggageTable) {
         Bagaglio baggage = null;
-        for (Bagaglio b : baggages) {
-            if (b.getCodice().equals(baggageCode)) {
-                baggage = b;
-                break;
+        Prenotazione booking = baggageBookings.get(baggageCode);
+        if (booking != null) {
+            for (Bagaglio b : booking.getBagagli()) {
+                if (b.getCodice().equals(baggageCode)) {
+                    baggage = b;
+                    break;
+                }
             }
         }
 
@@ -1174,9 +1604,10 @@ public class UserDashboard extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
 
             baggage.setStato(StatoBagaglio.smarrito);
-            controller.aggiornaBagaglio(baggage);
-
-            updateBaggageTable(baggageTable);
+            Bagaglio lostBaggage = baggage;
+            OperazioneInCorso.seguiScrittura(this, "Invio della segnalazione...",
+                    controller.esegui(() -> controller.aggiornaBagaglio(lostBaggage)),
+                    success -> updateBaggageTable(baggageTable));
         }
     }
 
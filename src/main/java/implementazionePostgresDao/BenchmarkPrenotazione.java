@@ -0,0 +1,127 @@
+package implementazionePostgresDao;
+
+import database.ConnessioneDatabase;
+import model.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Programma di misura della latenza della registrazione di una prenotazione.
+ * <p>
+ * Esegue ripetutamente la chiamata alla funzione {@code prenota} (la stessa usata dal DAO)
+ * su un volo esistente, ciascuna in una transazione che viene poi annullata: il database
+ * non viene modificato e lo stesso posto libero può essere riutilizzato a ogni iterazione.
+ * Viene misurato il solo round trip della chiamata; al termine vengono stampate le statistiche
+ * delle durate ({@link StatisticheDurate}).
+ * <p>
+ * Utilizzo: {@code java implementazionePostgresDao.BenchmarkPrenotazione <codiceVolo> <username> [iterazioni]}
+ */
+public class BenchmarkPrenotazione {
+    /**
+     * Numero di iterazioni iniziali escluse dalla misura (preparazione lato server, JIT).
+     */
+    private static final int RISCALDAMENTO = 20;
+
+    /**
+     * Numero di bagagli registrati con ogni prenotazione di prova.
+     */
+    private static final int BAGAGLI_PER_PRENOTAZIONE = 2;
+
+    /**
+     * Costruttore privato per evitare l'istanziazione della classe BenchmarkPrenotazione.
+     */
+    private BenchmarkPrenotazione() {}
+
+    /**
+     * Avvia la misura.
+     *
+     * @param args Codice del volo, username dell'utente prenotante e, opzionalmente, numero di iterazioni (200)
+     * @throws SQLException Se la comunicazione con il database fallisce
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2) {
+            System.err.println("Utilizzo: BenchmarkPrenotazione <codiceVolo> <username> [iterazioni]");
+            return;
+        }
+        String codiceVolo = args[0];
+        String username = args[1];
+        int iterazioni = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
+            String posto = trovaPostoLibero(conn, codiceVolo);
+            if (posto == null) {
+                System.err.println("Nessun posto libero sul volo " + codiceVolo);
+                return;
+            }
+
+            conn.setAutoCommit(false);
+            long[] durate = new long[iterazioni];
+            try (PreparedStatement ps = conn.prepareStatement(ImplementazionePostgresDao.SQL_PRENOTA)) {
+                for (int i = -RISCALDAMENTO; i < iterazioni; i++) {
+                    Prenotazione prenotazione = prenotazioneDiProva(codiceVolo, posto, i);
+                    ImplementazionePostgresDao.impostaParametriPrenotazione(conn, ps, prenotazione, codiceVolo, username);
+
+                    long inizio = System.nanoTime();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                    }
+                    long durata = System.nanoTime() - inizio;
+                    conn.rollback();
+
+                    if (i >= 0) {
+                        durate[i] = durata;
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+
+            System.out.printf("Prenotazioni misurate: %d (1 round trip ciascuna)%n", durate.length);
+            StatisticheDurate.stampa("", durate);
+        }
+    }
+
+    /**
+     * Cerca un posto libero sul volo indicato.
+     *
+     * @param conn       La connessione da utilizzare
+     * @param codiceVolo Il codice del volo
+     * @return Il posto libero, o null se il volo non ha posti liberi
+     * @throws SQLException Se la query fallisce
+     */
+    private static String trovaPostoLibero(Connection conn, String codiceVolo) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT posto FROM posto WHERE codice_volo = ? AND occupato = FALSE LIMIT 1")) {
+            ps.setString(1, codiceVolo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Crea una prenotazione di prova con un passeggero e un numero di biglietto distinti per iterazione.
+     *
+     * @param codiceVolo Il codice del volo
+     * @param posto      Il posto da occupare
+     * @param iterazione Il numero dell'iterazione
+     * @return La prenotazione di prova
+     */
+    private static Prenotazione prenotazioneDiProva(String codiceVolo, String posto, int iterazione) {
+        String biglietto = "BENCH" + (iterazione + RISCALDAMENTO);
+        Passeggero passeggero = new Passeggero("Benchmark", "Prenotazione", biglietto);
+        Prenotazione prenotazione = new Prenotazione(codiceVolo, biglietto, posto, StatoPrenotazione.inAttesa, passeggero);
+        List<Bagaglio> bagagli = new ArrayList<>();
+        for (int b = 1; b <= BAGAGLI_PER_PRENOTAZIONE; b++) {
+            bagagli.add(new Bagaglio("BAG" + biglietto + "-" + b, StatoBagaglio.inElaborazione));
+        }
+        prenotazione.setBagagli(bagagli);
+        return prenotazione;
+    }
+}
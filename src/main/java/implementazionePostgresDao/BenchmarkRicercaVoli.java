@@ -0,0 +1,184 @@
+package implementazionePostgresDao;
+
+import model.IndiceRicercaVoli;
+import model.StatoVolo;
+import model.Volo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Programma di misura della ricerca per sottostringa tra i voli caricati in memoria.
+ * <p>
+ * Genera un insieme riproducibile di voli sintetici (seme fisso) e confronta, per ciascun testo cercato,
+ * {@link IndiceRicercaVoli#cerca(String)} con la scansione lineare che converte in minuscolo i campi
+ * di ogni volo e ne verifica il contenuto con {@code contains}, cioè il filtro usato prima dell'indice.
+ * Prima della misura verifica che i due metodi trovino lo stesso numero di voli. Ogni metodo viene
+ * misurato in un ciclo separato, così che la memoria allocata dalla scansione non anticipi le garbage
+ * collection durante le ricerche nell'indice. Per ogni testo vengono stampati mediana e 99° percentile
+ * in millisecondi dei due metodi; al termine le statistiche ({@link StatisticheDurate}) su tutte le
+ * ricerche e, a parte, su quelle selettive (al più l'1% dei voli), oltre al tempo di costruzione dell'indice.
+ * Le ricerche che trovano una larga parte dei voli costano almeno la verifica della sottostringa e
+ * la copia di ogni volo trovato nel risultato, quindi crescono con il numero di voli trovati.
+ * <p>
+ * Utilizzo: {@code java implementazionePostgresDao.BenchmarkRicercaVoli [numeroVoli] [ripetizioni]}
+ */
+public class BenchmarkRicercaVoli {
+    /**
+     * Seme del generatore dei voli sintetici, fisso perché le misure siano ripetibili.
+     */
+    private static final long SEME = 42L;
+
+    /**
+     * Numero di ripetizioni iniziali di ogni ricerca escluse dalla misura (JIT).
+     */
+    private static final int RISCALDAMENTO = 20;
+
+    /**
+     * Testi cercati: codici, compagnie, città, date e stati, corti e lunghi, presenti e assenti.
+     */
+    private static final String[] TESTI = {
+            "AZ", "az01234", "ryan", "lufthansa", "barcel", "parigi", "napoli",
+            "2026-03-1", "-07-", "ritardo", "zz9", "xyzw"
+    };
+
+    /**
+     * Compagnie dei voli sintetici.
+     */
+    private static final String[] COMPAGNIE = {"Alitalia", "Ryanair", "EasyJet", "Lufthansa", "Vueling", "Wizz Air"};
+
+    /**
+     * Città di origine o destinazione dei voli sintetici, oltre a Napoli.
+     */
+    private static final String[] CITTA = {"Roma", "Milano", "Torino", "Parigi", "Londra", "Berlino",
+            "Madrid", "Barcellona", "Vienna", "Praga"};
+
+    /**
+     * Costruttore privato per evitare l'istanziazione della classe BenchmarkRicercaVoli.
+     */
+    private BenchmarkRicercaVoli() {}
+
+    /**
+     * Avvia la misura.
+     *
+     * @param args Opzionalmente il numero di voli (100000) e il numero di ripetizioni di ogni ricerca (200)
+     */
+    public static void main(String[] args) {
+        int numeroVoli = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ripetizioni = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<Volo> voli = voliDiProva(numeroVoli);
+
+        long inizio = System.nanoTime();
+        IndiceRicercaVoli indice = new IndiceRicercaVoli(voli);
+        long costruzione = System.nanoTime() - inizio;
+        System.out.printf("Voli: %d | costruzione indice %.3f ms%n", voli.size(), StatisticheDurate.ms(costruzione));
+
+        long[] tutteIndice = new long[TESTI.length * ripetizioni];
+        long[] tutteScansione = new long[TESTI.length * ripetizioni];
+        long[] selettiveIndice = new long[TESTI.length * ripetizioni];
+        int selettive = 0;
+        long controllo = 0;
+        for (int t = 0; t < TESTI.length; t++) {
+            String testo = TESTI[t];
+            int trovatiIndice = indice.cerca(testo).size();
+            int trovatiScansione = scansione(voli, testo).size();
+            if (trovatiIndice != trovatiScansione) {
+                System.err.println("Risultati diversi per \"" + testo + "\": indice " + trovatiIndice
+                        + ", scansione " + trovatiScansione);
+                return;
+            }
+
+            long[] durateIndice = new long[ripetizioni];
+            for (int i = -RISCALDAMENTO; i < ripetizioni; i++) {
+                inizio = System.nanoTime();
+                controllo += indice.cerca(testo).size();
+                long durata = System.nanoTime() - inizio;
+                if (i >= 0) {
+                    durateIndice[i] = durata;
+                }
+            }
+            long[] durateScansione = new long[ripetizioni];
+            for (int i = -RISCALDAMENTO; i < ripetizioni; i++) {
+                inizio = System.nanoTime();
+                controllo += scansione(voli, testo).size();
+                long durata = System.nanoTime() - inizio;
+                if (i >= 0) {
+                    durateScansione[i] = durata;
+                }
+            }
+            System.arraycopy(durateIndice, 0, tutteIndice, t * ripetizioni, ripetizioni);
+            System.arraycopy(durateScansione, 0, tutteScansione, t * ripetizioni, ripetizioni);
+            if (trovatiIndice * 100L <= voli.size()) {
+                System.arraycopy(durateIndice, 0, selettiveIndice, selettive * ripetizioni, ripetizioni);
+                selettive++;
+            }
+
+            Arrays.sort(durateIndice);
+            Arrays.sort(durateScansione);
+            System.out.printf("%-12s %7d voli | indice mediana %8.3f ms p99 %8.3f ms | scansione mediana %8.3f ms p99 %8.3f ms%n",
+                    "\"" + testo + "\"", trovatiIndice,
+                    StatisticheDurate.ms(StatisticheDurate.percentile(durateIndice, 50)),
+                    StatisticheDurate.ms(StatisticheDurate.percentile(durateIndice, 99)),
+                    StatisticheDurate.ms(StatisticheDurate.percentile(durateScansione, 50)),
+                    StatisticheDurate.ms(StatisticheDurate.percentile(durateScansione, 99)));
+        }
+
+        StatisticheDurate.stampa("Indice             ", tutteIndice);
+        StatisticheDurate.stampa("Indice (selettive) ", Arrays.copyOf(selettiveIndice, selettive * ripetizioni));
+        StatisticheDurate.stampa("Scansione          ", tutteScansione);
+        // Impedisce che il JIT elimini le ricerche il cui risultato non viene usato
+        System.out.println("(controllo " + controllo + ")");
+    }
+
+    /**
+     * Genera i voli sintetici, da o per Napoli, con codici distinti e campi scelti a caso con seme fisso.
+     *
+     * @param numero Il numero di voli da generare
+     * @return I voli generati
+     */
+    private static List<Volo> voliDiProva(int numero) {
+        Random random = new Random(SEME);
+        StatoVolo[] stati = StatoVolo.values();
+        LocalDate primoGiorno = LocalDate.of(2026, 1, 1);
+        List<Volo> voli = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            boolean partenza = random.nextBoolean();
+            String citta = CITTA[random.nextInt(CITTA.length)];
+            voli.add(new Volo(String.format("AZ%06d", i), COMPAGNIE[random.nextInt(COMPAGNIE.length)],
+                    partenza ? "Napoli" : citta, partenza ? citta : "Napoli",
+                    String.format("%02d:%02d", random.nextInt(24), random.nextInt(60)),
+                    stati[random.nextInt(stati.length)], primoGiorno.plusDays(random.nextInt(365)),
+                    0, 180, 180, 0));
+        }
+        return voli;
+    }
+
+    /**
+     * Cerca il testo con la scansione lineare di tutti i voli, convertendo in minuscolo i campi
+     * ricercati dall'indice a ogni confronto.
+     *
+     * @param voli  I voli in cui cercare
+     * @param testo Il testo da cercare
+     * @return I voli che contengono il testo in almeno un campo
+     */
+    private static List<Volo> scansione(List<Volo> voli, String testo) {
+        String cercato = testo.trim().toLowerCase(Locale.ROOT);
+        List<Volo> risultato = new ArrayList<>();
+        for (Volo volo : voli) {
+            if (volo.getCodiceVolo().toLowerCase(Locale.ROOT).contains(cercato)
+                    || volo.getCompagnia().toLowerCase(Locale.ROOT).contains(cercato)
+                    || volo.getOrigine().toLowerCase(Locale.ROOT).contains(cercato)
+                    || volo.getDestinazione().toLowerCase(Locale.ROOT).contains(cercato)
+                    || volo.getData().toString().contains(cercato)
+                    || volo.getStato().toString().toLowerCase(Locale.ROOT).contains(cercato)) {
+                risultato.add(volo);
+            }
+        }
+        return risultato;
+    }
+}
@@ -1,13 +1,24 @@
 package implementazionePostgresDao;
 
+import dao.AggregatoreRighe;
 import dao.PostgresDao;
 import database.ConnessioneDatabase;
 import model.*;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PSQLException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementazione dell'interfaccia PostgresDao che fornisce l'accesso ai dati
@@ -15,10 +26,171 @@ import java.util.List;
  * <p>
  * Questa classe gestisce tutte le operazioni di lettura e scrittura sul database,
  * inclusa la gestione di utenti, voli, prenotazioni, bagagli, gate e posti.
- * Utilizza la classe ConnessioneDatabase per stabilire connessioni al database.
+ * Utilizza la classe ConnessioneDatabase per ottenere connessioni dal pool condiviso:
+ * la chiusura della connessione al termine di ogni metodo la restituisce al pool.
  */
 public class ImplementazionePostgresDao implements PostgresDao {
 
+    /**
+     * Numero di posti per fila utilizzato nella generazione delle etichette dei posti.
+     */
+    private static final int POSTI_PER_FILA = 6;
+
+    /**
+     * Formato con cui viene letta la mappa dei posti, configurabile con la proprietà di sistema
+     * {@code aeroporto.posti.formato}: {@code righe} (predefinito) legge una riga della tabella posto
+     * per ogni posto, {@code bitmap} legge l'unica riga del volo nella tabella mappa_posti (migrazione V7).
+     */
+    private static final boolean MAPPA_POSTI_BITMAP =
+            "bitmap".equalsIgnoreCase(System.getProperty("aeroporto.posti.formato", "righe"));
+
+    /**
+     * Espressione SQL che calcola l'etichetta del posto (es. 1A, 1B, ..., 2A) a partire
+     * dall'indice progressivo {@code n} restituito da generate_series, partendo da 0.
+     */
+    private static final String ETICHETTA_POSTO_SQL =
+            "((n / " + POSTI_PER_FILA + ") + 1)::text || chr(65 + (n % " + POSTI_PER_FILA + "))";
+
+    /**
+     * Colonne attese, nell'ordine, nel file CSV di importazione dei voli.
+     */
+    private static final String COLONNE_IMPORTAZIONE =
+            "codice, compagnia, origine, destinazione, data, orario, stato, posti_totali, ritardo";
+
+    /**
+     * Numero di righe lette dal server ad ogni giro nelle letture in streaming.
+     */
+    private static final int FETCH_SIZE_STREAMING = 500;
+
+    /**
+     * Espressione SQL che ricava i posti disponibili del volo {@code v} contando i posti liberi
+     * (indice parziale idx_posto_liberi, migrazione V5), così che le prenotazioni non si serializzino
+     * sulla riga del volo. La colonna volo.posti_disponibili è stata rimossa (migrazione V11).
+     */
+    private static final String POSTI_DISPONIBILI_SQL =
+            "(SELECT count(*) FROM posto pl WHERE pl.codice_volo = v.codice AND pl.occupato = FALSE)::integer AS posti_disponibili";
+
+    /**
+     * Espressione SQL con il testo in cui cercare i termini di ricerca del volo {@code v},
+     * indicizzata con un indice trigram (migrazione V10).
+     */
+    private static final String TESTO_RICERCA_SQL =
+            "public.testo_ricerca_volo(v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data)";
+
+    /**
+     * Query che recupera tutti i voli ordinati per data in ordine decrescente.
+     */
+    private static final String SQL_ALL_VOLI =
+            "SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, v.posti_totali, " +
+                    POSTI_DISPONIBILI_SQL + ", v.gate" +
+                    " FROM Volo v ORDER BY  data DESC";
+
+    /**
+     * Query che recupera tutti i bagagli smarriti.
+     */
+    private static final String SQL_ALL_BAGAGLI =
+            "SELECT b.codice, b.stato FROM bagaglio b WHERE stato = 'smarrito'";
+
+    /**
+     * Parte comune delle query sulle prenotazioni con passeggero e bagagli.
+     */
+    private static final String SQL_SELECT_PRENOTAZIONI = ""
+            + "SELECT "
+            + "  p.id_prenotazione AS id_prenotazione, "
+            + "  p.numero_biglietto, "
+            + "  p.posto, "
+            + "p.codice_volo,"
+            + "  p.stato AS stato_prenotazione, "
+            + "  pa.id_passeggero AS id_passeggero, "
+            + "  pa.nome, "
+            + "  pa.cognome, "
+            + "  pa.numero_documento, "
+            + "  b.codice AS codice_bagaglio, "
+            + "  b.stato AS stato_bagaglio "
+            + "FROM prenotazione p "
+            + "  JOIN passeggero pa ON p.id_passeggero = pa.id_passeggero "
+            + "  LEFT JOIN bagaglio b ON b.id_prenotazione = p.id_prenotazione ";
+
+    /**
+     * Query che recupera le prenotazioni di un utente con passeggero e bagagli.
+     * Le righe della stessa prenotazione sono consecutive grazie all'ordinamento per biglietto.
+     */
+    private static final String SQL_PRENOTAZIONI_UTENTE = SQL_SELECT_PRENOTAZIONI
+            + "WHERE p.username = ? "
+            + "ORDER BY p.codice_volo, p.numero_biglietto";
+
+    /**
+     * Query che recupera le prenotazioni di un utente modificate da una certa versione (migrazione V9):
+     * quelle in cui è cambiata la prenotazione, il passeggero o uno dei bagagli.
+     */
+    private static final String SQL_PRENOTAZIONI_UTENTE_MODIFICATE = SQL_SELECT_PRENOTAZIONI
+            + "WHERE p.username = ? "
+            + "  AND (p.versione >= ?::xid8 OR pa.versione >= ?::xid8 "
+            + "       OR EXISTS (SELECT 1 FROM bagaglio bv "
+            + "                  WHERE bv.id_prenotazione = p.id_prenotazione AND bv.versione >= ?::xid8)) "
+            + "ORDER BY p.codice_volo, p.numero_biglietto";
+
+    /**
+     * Query che recupera le prenotazioni con almeno un bagaglio smarrito, ciascuna con i soli bagagli smarriti.
+     */
+    private static final String SQL_PRENOTAZIONI_BAGAGLI_SMARRITI = SQL_SELECT_PRENOTAZIONI
+            + "WHERE b.stato = 'smarrito' "
+            + "ORDER BY p.numero_biglietto";
+
+    /**
+     * Query che recupera in una sola riga il dettaglio di un volo. Le prenotazioni con i passeggeri,
+     * i bagagli e i posti sono aggregati ciascuno da una sottoquery LATERAL in array paralleli,
+     * ordinati allo stesso modo, così che ogni tabella venga letta una sola volta e nessun dato
+     * venga ripetuto tra righe diverse del risultato.
+     */
+    private static final String SQL_DETTAGLIO_VOLO =
+            "SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, " +
+                    "v.posti_totali, " + POSTI_DISPONIBILI_SQL + ", v.gate, g.numero AS numero_gate, " +
+                    "pr.biglietti, pr.posti_prenotati, pr.stati_prenotazione, pr.nomi, pr.cognomi, pr.documenti, " +
+                    "bg.biglietti_bagagli, bg.codici_bagagli, bg.stati_bagagli, ps.posti, ps.posti_occupati " +
+                    "FROM volo v " +
+                    "LEFT JOIN gate g ON g.numero = v.gate " +
+                    "CROSS JOIN LATERAL (SELECT " +
+                    "  array_agg(p.numero_biglietto ORDER BY p.numero_biglietto) AS biglietti, " +
+                    "  array_agg(p.posto ORDER BY p.numero_biglietto) AS posti_prenotati, " +
+                    "  array_agg(p.stato::text ORDER BY p.numero_biglietto) AS stati_prenotazione, " +
+                    "  array_agg(pa.nome ORDER BY p.numero_biglietto) AS nomi, " +
+                    "  array_agg(pa.cognome ORDER BY p.numero_biglietto) AS cognomi, " +
+                    "  array_agg(pa.numero_documento ORDER BY p.numero_biglietto) AS documenti " +
+                    "  FROM prenotazione p JOIN passeggero pa ON pa.id_passeggero = p.id_passeggero " +
+                    "  WHERE p.codice_volo = v.codice) pr " +
+                    "CROSS JOIN LATERAL (SELECT " +
+                    "  array_agg(p.numero_biglietto ORDER BY b.codice) AS biglietti_bagagli, " +
+                    "  array_agg(b.codice ORDER BY b.codice) AS codici_bagagli, " +
+                    "  array_agg(b.stato::text ORDER BY b.codice) AS stati_bagagli " +
+                    "  FROM bagaglio b JOIN prenotazione p ON p.id_prenotazione = b.id_prenotazione " +
+                    "  WHERE p.codice_volo = v.codice) bg " +
+                    "CROSS JOIN LATERAL (SELECT " +
+                    "  array_agg(po.posto ORDER BY po.posto) AS posti, " +
+                    "  array_agg(po.occupato ORDER BY po.posto) AS posti_occupati " +
+                    "  FROM posto po WHERE po.codice_volo = v.codice) ps " +
+                    "WHERE v.codice = ?";
+
+    /**
+     * Query che legge la versione corrente dei dati: il minimo identificativo di transazione ancora in corso.
+     * Le transazioni non visibili a una lettura successiva hanno un identificativo maggiore o uguale
+     * (migrazione V9).
+     */
+    private static final String SQL_VERSIONE_CORRENTE =
+            "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+
+    /**
+     * Query che legge le chiavi delle righe di una tabella cancellate da una certa versione (migrazione V9).
+     */
+    private static final String SQL_RIGHE_CANCELLATE =
+            "SELECT chiave FROM riga_cancellata WHERE tabella = ? AND versione >= ?::xid8";
+
+    /**
+     * Chiamata alla funzione che registra una prenotazione completa in un solo round trip (migrazione V4).
+     */
+    static final String SQL_PRENOTA =
+            "SELECT id_prenotazione, id_passeggero, posto FROM public.prenota(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * Costruttore privato per evitare l'istanziazione della classe ImplementazionePostgresDao
      */
@@ -35,7 +207,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
      */
     public Utente getUtenteByCredentialsAndType(String login, String password, String tipo) {
         String query = "SELECT u.nome, u.cognome FROM Utente u WHERE username = ? AND password = ? AND ruolo = ?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection; PreparedStatement stmt = conn.prepareStatement(query)) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, login);
             stmt.setString(2, password);
             stmt.setString(3, tipo.toLowerCase());
@@ -63,7 +235,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
     @Override
     public boolean insertUtente(Utente utente, String tipo) {
         String query = "INSERT INTO Utente (username, password, nome, cognome, ruolo) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, utente.getLogin());
             stmt.setString(2, utente.getPassword());
@@ -80,38 +252,368 @@ public class ImplementazionePostgresDao implements PostgresDao {
     /**
      * {@inheritDoc}
      * <p>
-     * Implementazione che recupera tutti i voli dal database.
-     * Esegue una query SQL per ottenere tutti i voli ordinati per data in ordine decrescente.
+     * Implementazione che recupera tutti i voli dal database, ordinati per data in ordine decrescente.
+     * Le righe sono lette a blocchi tramite {@link #streamAllVoli(Consumer)}, così che il driver
+     * non debba memorizzare l'intero risultato prima di costruire la lista.
      *
      */
     @Override
     public List<Volo> getAllVoli() {
         List<Volo> voli = new ArrayList<>();
-        String query = "SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, v.posti_totali, v.posti_disponibili, v.gate" +
-                " FROM Volo v ORDER BY  data DESC";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                String codiceVolo = rs.getString("codice");
-                String compagnia = rs.getString("compagnia");
-                String origine = rs.getString("origine");
-                String destinazione = rs.getString("destinazione");
-                String orarioPrevisto = rs.getString("orario");
-                StatoVolo stato = StatoVolo.valueOf(rs.getString("stato"));
-                LocalDate data = rs.getDate("data").toLocalDate();
-                int tempoRitardo = rs.getInt("ritardo");
-                int postiTotali = rs.getInt("posti_totali");
-                int postiDisponibili = rs.getInt("posti_disponibili");
-                int gate = rs.getInt("gate");
-
-                Volo volo = new Volo(codiceVolo, compagnia, origine, destinazione, orarioPrevisto, stato, data, tempoRitardo, postiTotali, postiDisponibili, gate);
-                voli.add(volo);
+        streamAllVoli(voli::add);
+        return voli;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge i voli con un'unica query, passando i codici come array.
+     *
+     */
+    @Override
+    public List<Volo> getVoliByCodici(Collection<String> codici) {
+        String sql = "SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, v.posti_totali, " +
+                POSTI_DISPONIBILI_SQL + ", v.gate" +
+                " FROM Volo v WHERE v.codice = ANY (?)";
+        List<Volo> voli = new ArrayList<>();
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("varchar", codici.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    voli.add(mappaVolo(rs));
+                }
             }
+            return voli;
         } catch (SQLException e) {
-            System.err.println("Errore durante il recupero dei voli: " + e.getMessage());
+            System.err.println("Errore durante il recupero dei voli per codice: " + e.getMessage());
+            return null;
         }
-        return voli;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che conta i posti liberi dei voli con un'unica query, passando i codici come array.
+     *
+     */
+    @Override
+    public Map<String, Integer> getPostiDisponibili(Collection<String> codici) {
+        String sql = "SELECT v.codice, " + POSTI_DISPONIBILI_SQL + " FROM Volo v WHERE v.codice = ANY (?)";
+        Map<String, Integer> posti = new HashMap<>();
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("varchar", codici.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    posti.put(rs.getString("codice"), rs.getInt("posti_disponibili"));
+                }
+            }
+            return posti;
+        } catch (SQLException e) {
+            System.err.println("Errore durante il conteggio dei posti disponibili: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge i voli tramite un cursore lato server.
+     *
+     */
+    @Override
+    public boolean streamAllVoli(Consumer<Volo> consumer) {
+        return leggiInStreaming(SQL_ALL_VOLI, ps -> {
+        }, rs -> consumer.accept(mappaVolo(rs)), "Errore durante la lettura in streaming dei voli: ");
+    }
+
+    /**
+     * Esegue una query leggendo il risultato tramite un cursore lato server.
+     * <p>
+     * Il driver PostgreSQL usa un cursore (e quindi legge le righe a blocchi di
+     * {@link #FETCH_SIZE_STREAMING}) solo con fetch size positivo e autocommit disattivato;
+     * in caso contrario memorizza l'intero risultato prima di restituire la prima riga.
+     * Ogni riga viene passata al gestore appena letta, quindi la memoria usata non dipende
+     * dal numero di righe.
+     *
+     * @param sql             La query da eseguire
+     * @param parametri       Imposta i parametri della query
+     * @param gestoreRiga     Elabora la riga corrente del ResultSet
+     * @param messaggioErrore Prefisso del messaggio di errore da stampare in caso di fallimento
+     * @return true se tutte le righe sono state elaborate, false in caso di errore
+     */
+    private boolean leggiInStreaming(String sql, ImpostaParametri parametri, GestoreRiga gestoreRiga, String messaggioErrore) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE_STREAMING);
+                parametri.imposta(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        gestoreRiga.elabora(rs);
+                    }
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println(messaggioErrore + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che costruisce una query con i soli filtri impostati nei criteri,
+     * così che PostgreSQL possa usare gli indici su data, stato e codice. La paginazione
+     * è di tipo keyset sulla coppia (data, codice): viene richiesto un volo in più della
+     * dimensione della pagina per sapere se esiste una pagina successiva.
+     *
+     */
+    @Override
+    public PaginaVoli searchVoli(CriteriRicercaVoli criteri, CursoreVoli pagina) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, v.posti_totali, " +
+                    POSTI_DISPONIBILI_SQL + ", v.gate" +
+                        " FROM Volo v WHERE TRUE");
+        List<Object> parametri = new ArrayList<>();
+
+        aggiungiFiltriRicerca(sql, parametri, criteri);
+        if (!pagina.isPrimaPagina()) {
+            sql.append(" AND (v.data, v.codice) < (?, ?)");
+            parametri.add(Date.valueOf(pagina.getDopoData()));
+            parametri.add(pagina.getDopoCodice());
+        }
+        sql.append(" ORDER BY v.data DESC, v.codice DESC LIMIT ?");
+
+        List<Volo> voli = new ArrayList<>();
+        long versione = -1;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            versione = leggiVersione(conn);
+            int indice = impostaParametri(conn, ps, parametri);
+            ps.setInt(indice, pagina.getDimensione() + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    voli.add(mappaVolo(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore durante la ricerca dei voli: " + e.getMessage());
+            // Pagina vuota con versione non nota: non viene memorizzata né usata per gli aggiornamenti
+            voli.clear();
+            versione = -1;
+        }
+
+        CursoreVoli successiva = null;
+        if (voli.size() > pagina.getDimensione()) {
+            voli.remove(voli.size() - 1);
+            Volo ultimo = voli.get(voli.size() - 1);
+            successiva = new CursoreVoli(pagina.getDimensione(), ultimo.getData(), ultimo.getCodiceVolo());
+        }
+        return new PaginaVoli(voli, successiva, versione);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge i voli con versione maggiore o uguale a quella indicata e quelli
+     * in cui è cambiato almeno un posto, calcolando per ciascuno se corrisponde ancora ai criteri,
+     * più i voli cancellati registrati in riga_cancellata (migrazione V9).
+     *
+     */
+    @Override
+    public Variazioni<Volo> searchVoliModificati(CriteriRicercaVoli criteri, long versione) {
+        StringBuilder filtro = new StringBuilder("TRUE");
+        List<Object> parametri = new ArrayList<>();
+        aggiungiFiltriRicerca(filtro, parametri, criteri);
+        String sql = "WITH cambiati AS (" +
+                "SELECT codice FROM volo WHERE versione >= ?::xid8" +
+                " UNION SELECT codice_volo FROM posto WHERE versione >= ?::xid8)" +
+                " SELECT v.codice, v.compagnia, v.origine, v.destinazione, v.orario, v.stato, v.data, v.ritardo, v.posti_totali, " +
+                POSTI_DISPONIBILI_SQL + ", v.gate, (" + filtro + ") AS corrisponde" +
+                " FROM Volo v JOIN cambiati c ON c.codice = v.codice";
+
+        List<Volo> modificati = new ArrayList<>();
+        List<String> rimossi = new ArrayList<>();
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            long nuovaVersione = leggiVersione(conn);
+            ps.setString(1, Long.toString(versione));
+            ps.setString(2, Long.toString(versione));
+            impostaParametri(conn, ps, parametri, 3);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean("corrisponde")) {
+                        modificati.add(mappaVolo(rs));
+                    } else {
+                        rimossi.add(rs.getString("codice"));
+                    }
+                }
+            }
+            rimossi.addAll(leggiCancellati(conn, "volo", versione));
+            return new Variazioni<>(modificati, rimossi, nuovaVersione);
+        } catch (SQLException e) {
+            System.err.println("Errore durante la lettura dei voli modificati: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Aggiunge alla query i filtri corrispondenti ai criteri di ricerca impostati.
+     *
+     * @param sql       La query in costruzione
+     * @param parametri I parametri della query in costruzione
+     * @param criteri   I criteri di ricerca
+     */
+    private void aggiungiFiltriRicerca(StringBuilder sql, List<Object> parametri, CriteriRicercaVoli criteri) {
+        aggiungiFiltroTesto(sql, parametri, "v.codice", criteri.getCodice());
+        aggiungiFiltroTesto(sql, parametri, "v.compagnia", criteri.getCompagnia());
+        aggiungiFiltroTesto(sql, parametri, "v.origine", criteri.getOrigine());
+        aggiungiFiltroTesto(sql, parametri, "v.destinazione", criteri.getDestinazione());
+        aggiungiFiltroTesto(sql, parametri, "v.orario::text", criteri.getOrario());
+        if (criteri.getDataDa() != null) {
+            sql.append(" AND v.data >= ?");
+            parametri.add(Date.valueOf(criteri.getDataDa()));
+        }
+        if (criteri.getDataA() != null) {
+            sql.append(" AND v.data <= ?");
+            parametri.add(Date.valueOf(criteri.getDataA()));
+        }
+        if (!criteri.getStati().isEmpty()) {
+            sql.append(" AND v.stato = ANY (?::statovolo[])");
+            parametri.add(criteri.getStati().stream().map(StatoVolo::name).toArray(String[]::new));
+        }
+        for (String termine : criteri.getTermini()) {
+            aggiungiFiltroTesto(sql, parametri, TESTO_RICERCA_SQL, termine);
+        }
+    }
+
+    /**
+     * Imposta i parametri di una query costruita dinamicamente, a partire dal primo.
+     *
+     * @param conn      La connessione, usata per creare gli array
+     * @param ps        Lo statement della query
+     * @param parametri I parametri da impostare; gli array di stringhe vengono passati come array SQL
+     * @return L'indice del primo parametro non impostato
+     * @throws SQLException Se l'impostazione di un parametro fallisce
+     */
+    private int impostaParametri(Connection conn, PreparedStatement ps, List<Object> parametri) throws SQLException {
+        return impostaParametri(conn, ps, parametri, 1);
+    }
+
+    /**
+     * Imposta i parametri di una query costruita dinamicamente, a partire dall'indice indicato.
+     *
+     * @param conn      La connessione, usata per creare gli array
+     * @param ps        Lo statement della query
+     * @param parametri I parametri da impostare; gli array di stringhe vengono passati come array SQL
+     * @param indice    L'indice del primo parametro da impostare
+     * @return L'indice del primo parametro non impostato
+     * @throws SQLException Se l'impostazione di un parametro fallisce
+     */
+    private int impostaParametri(Connection conn, PreparedStatement ps, List<Object> parametri, int indice)
+            throws SQLException {
+        for (Object parametro : parametri) {
+            if (parametro instanceof String[] valori) {
+                ps.setArray(indice++, conn.createArrayOf("text", valori));
+            } else {
+                ps.setObject(indice++, parametro);
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Legge la versione corrente dei dati, da cui richiedere in seguito le modifiche.
+     * Va letta prima dei dati: le modifiche non ancora visibili avranno versione maggiore o uguale.
+     *
+     * @param conn La connessione da usare
+     * @return La versione corrente
+     * @throws SQLException Se la lettura fallisce
+     */
+    private long leggiVersione(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(SQL_VERSIONE_CORRENTE)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Legge le chiavi delle righe di una tabella cancellate da una certa versione.
+     *
+     * @param conn     La connessione da usare
+     * @param tabella  Il nome della tabella
+     * @param versione La versione da cui leggere le cancellazioni
+     * @return Le chiavi delle righe cancellate
+     * @throws SQLException Se la lettura fallisce
+     */
+    private List<String> leggiCancellati(Connection conn, String tabella, long versione) throws SQLException {
+        List<String> chiavi = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_RIGHE_CANCELLATE)) {
+            ps.setString(1, tabella);
+            ps.setString(2, Long.toString(versione));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    chiavi.add(rs.getString(1));
+                }
+            }
+        }
+        return chiavi;
+    }
+
+    /**
+     * Aggiunge alla query un filtro di sottostringa senza distinzione tra maiuscole e minuscole.
+     * I caratteri speciali di LIKE presenti nel testo vengono trattati come caratteri normali.
+     *
+     * @param sql       La query in costruzione
+     * @param parametri I parametri della query in costruzione
+     * @param colonna   L'espressione SQL su cui filtrare
+     * @param testo     Il testo da cercare; se null o vuoto il filtro non viene aggiunto
+     */
+    private void aggiungiFiltroTesto(StringBuilder sql, List<Object> parametri, String colonna, String testo) {
+        if (testo == null || testo.isBlank()) {
+            return;
+        }
+        String escaped = testo.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        sql.append(" AND ").append(colonna).append(" ILIKE ?");
+        parametri.add("%" + escaped + "%");
+    }
+
+    /**
+     * Crea un oggetto Volo a partire dalla riga corrente di un ResultSet
+     * che contiene tutte le colonne della tabella volo.
+     *
+     * @param rs Il ResultSet posizionato sulla riga da leggere
+     * @return Il volo letto dalla riga
+     * @throws SQLException Se la lettura di una colonna fallisce
+     */
+    private Volo mappaVolo(ResultSet rs) throws SQLException {
+        String codiceVolo = rs.getString("codice");
+        String compagnia = rs.getString("compagnia");
+        String origine = rs.getString("origine");
+        String destinazione = rs.getString("destinazione");
+        String orarioPrevisto = rs.getString("orario");
+        StatoVolo stato = StatoVolo.valueOf(rs.getString("stato"));
+        LocalDate data = rs.getDate("data").toLocalDate();
+        int tempoRitardo = rs.getInt("ritardo");
+        int postiTotali = rs.getInt("posti_totali");
+        int postiDisponibili = rs.getInt("posti_disponibili");
+        int gate = rs.getInt("gate");
+
+        return new Volo(codiceVolo, compagnia, origine, destinazione, orarioPrevisto, stato, data, tempoRitardo, postiTotali, postiDisponibili, gate);
     }
 
 
@@ -126,22 +628,28 @@ public class ImplementazionePostgresDao implements PostgresDao {
      * 1. Inserisce i dati del volo nella tabella Volo
      * 2. Crea i posti per il volo nella tabella posto, organizzati in file e lettere
      * (es. 1A, 1B, 1C, 1D, 1E, 1F, 2A, ecc.)
+     * <p>
+     * I posti vengono generati lato server con un'unica INSERT basata su generate_series,
+     * quindi l'inserimento richiede un numero costante di round trip indipendentemente
+     * dal numero di posti del volo.
      *
      */
     @Override
     public boolean insertVolo(Volo volo) {
         String sqlVolo =
                 "INSERT INTO Volo " +
-                        "(codice, compagnia, origine, destinazione, orario, stato, data, ritardo, posti_totali, posti_disponibili) " +
-                        "VALUES (?, ?, ?, ?, ?::time, ?::statovolo, ?, ?, ?, ?)";
-        String sqlPosto =
-                "INSERT INTO posto (codice_volo, posto, occupato) VALUES (?, ?, false)";
-
-        try (Connection conn = ConnessioneDatabase.getInstance().connection) {
+                        "(codice, compagnia, origine, destinazione, orario, stato, data, ritardo, posti_totali) " +
+                        "VALUES (?, ?, ?, ?, ?::time, ?::statovolo, ?, ?, ?)";
+        String sqlPosti =
+                "INSERT INTO posto (codice_volo, posto, occupato) " +
+                        "SELECT ?, " + ETICHETTA_POSTO_SQL + ", false " +
+                        "FROM generate_series(0, ? - 1) AS n";
+
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
             conn.setAutoCommit(false);
 
             try (PreparedStatement psVolo = conn.prepareStatement(sqlVolo);
-                 PreparedStatement psPosto = conn.prepareStatement(sqlPosto)) {
+                 PreparedStatement psPosti = conn.prepareStatement(sqlPosti)) {
 
                 psVolo.setString(1, volo.getCodiceVolo());
                 psVolo.setString(2, volo.getCompagnia());
@@ -152,7 +660,6 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 psVolo.setDate(7, Date.valueOf(volo.getData()));
                 psVolo.setInt(8, volo.getTempoRitardo());
                 psVolo.setInt(9, volo.getPostiTotali());
-                psVolo.setInt(10, volo.getPostiTotali());
 
                 if (psVolo.executeUpdate() == 0) {
                     conn.rollback();
@@ -160,30 +667,12 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 }
 
                 int totalSeats = volo.getPostiTotali();
-                final int perRow = 6;
-                int fullRows = totalSeats / perRow;
-                int remainder = totalSeats % perRow;
-
-                for (int row = 1; row <= fullRows; row++) {
-                    for (int s = 0; s < perRow; s++) {
-                        String seatLabel = row + String.valueOf((char) ('A' + s));
-                        psPosto.setString(1, volo.getCodiceVolo());
-                        psPosto.setString(2, seatLabel);
-                        if (psPosto.executeUpdate() == 0) {
-                            throw new SQLException("Fallito insert posto " + seatLabel);
-                        }
-                    }
-                }
-                if (remainder > 0) {
-                    int row = fullRows + 1;
-                    for (int s = 0; s < remainder; s++) {
-                        String seatLabel = row + String.valueOf((char) ('A' + s));
-                        psPosto.setString(1, volo.getCodiceVolo());
-                        psPosto.setString(2, seatLabel);
-                        if (psPosto.executeUpdate() == 0) {
-                            throw new SQLException("Fallito insert posto " + seatLabel);
-                        }
-                    }
+
+                psPosti.setString(1, volo.getCodiceVolo());
+                psPosti.setInt(2, totalSeats);
+                int inseriti = psPosti.executeUpdate();
+                if (inseriti != totalSeats) {
+                    throw new SQLException("Fallito insert posti: creati " + inseriti + " su " + totalSeats);
                 }
 
                 conn.commit();
@@ -202,17 +691,133 @@ public class ImplementazionePostgresDao implements PostgresDao {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che trasferisce il file tramite il protocollo COPY di PostgreSQL
+     * ({@link CopyManager}) in una tabella temporanea di appoggio, valida le righe lato server
+     * e poi crea voli e posti con due INSERT basate su insiemi, tutto in un'unica transazione.
+     * Date, orari, stati e numeri sono verificati con public.testo_valido (migrazione V14),
+     * che non richiede PostgreSQL 16.
+     * <p>
+     * I record non validi (campi mancanti, data/orario/stato/numeri non interpretabili,
+     * testi più lunghi delle colonne, ritardo negativo, né origine né destinazione uguale a Napoli,
+     * codice già esistente o duplicato nel file)
+     * vengono scartati e riportati nell'esito senza interrompere il caricamento degli altri.
+     *
+     */
+    @Override
+    public EsitoImportazione importVoli(Reader csv) {
+        EsitoImportazione esito = new EsitoImportazione();
+
+        String sqlStaging =
+                "CREATE TEMP TABLE import_volo (" +
+                        "riga bigserial, codice text, compagnia text, origine text, destinazione text, " +
+                        "data text, orario text, stato text, posti_totali text, ritardo text, errore text" +
+                        ") ON COMMIT DROP";
+        String sqlCopy =
+                "COPY import_volo (" + COLONNE_IMPORTAZIONE + ") FROM STDIN WITH (FORMAT csv, HEADER true)";
+        String sqlValida =
+                "UPDATE import_volo i SET errore = CASE " +
+                        "WHEN coalesce(btrim(i.codice), '') = '' THEN 'Codice volo mancante' " +
+                        "WHEN length(btrim(i.codice)) > 10 THEN 'Codice volo più lungo di 10 caratteri' " +
+                        "WHEN coalesce(btrim(i.compagnia), '') = '' THEN 'Compagnia mancante' " +
+                        "WHEN length(btrim(i.compagnia)) > 100 THEN 'Compagnia più lunga di 100 caratteri' " +
+                        "WHEN coalesce(btrim(i.origine), '') = '' OR coalesce(btrim(i.destinazione), '') = '' " +
+                        "  THEN 'Origine e destinazione sono obbligatorie' " +
+                        "WHEN length(btrim(i.origine)) > 100 THEN 'Origine più lunga di 100 caratteri' " +
+                        "WHEN length(btrim(i.destinazione)) > 100 THEN 'Destinazione più lunga di 100 caratteri' " +
+                        "WHEN lower(btrim(i.origine)) <> 'napoli' AND lower(btrim(i.destinazione)) <> 'napoli' " +
+                        "  THEN 'Almeno uno tra origine e destinazione deve essere Napoli' " +
+                        "WHEN i.data IS NULL OR NOT testo_valido(btrim(i.data), 'date') " +
+                        "  THEN 'Data non valida: ' || coalesce(i.data, '') " +
+                        "WHEN i.orario IS NULL OR NOT testo_valido(btrim(i.orario), 'time') " +
+                        "  THEN 'Orario non valido: ' || coalesce(i.orario, '') " +
+                        "WHEN coalesce(btrim(i.stato), '') <> '' AND NOT testo_valido(btrim(i.stato), 'statovolo') " +
+                        "  THEN 'Stato non valido: ' || i.stato " +
+                        "WHEN i.posti_totali IS NULL OR NOT testo_valido(btrim(i.posti_totali), 'integer') " +
+                        "  THEN 'Posti totali non validi: ' || coalesce(i.posti_totali, '') " +
+                        "WHEN btrim(i.posti_totali)::int <= 0 THEN 'I posti totali devono essere maggiori di zero' " +
+                        "WHEN coalesce(btrim(i.ritardo), '') <> '' AND NOT testo_valido(btrim(i.ritardo), 'integer') " +
+                        "  THEN 'Ritardo non valido: ' || i.ritardo " +
+                        "WHEN coalesce(btrim(i.ritardo), '') <> '' AND btrim(i.ritardo)::int < 0 " +
+                        "  THEN 'Il ritardo non può essere negativo: ' || btrim(i.ritardo) " +
+                        "WHEN EXISTS (SELECT 1 FROM volo v WHERE v.codice = btrim(i.codice)) " +
+                        "  THEN 'Codice volo già presente: ' || btrim(i.codice) " +
+                        "WHEN d.occorrenza > 1 " +
+                        "  THEN 'Codice volo duplicato nel file: ' || btrim(i.codice) " +
+                        "END " +
+                        "FROM (SELECT riga, row_number() OVER (PARTITION BY btrim(codice) ORDER BY riga) AS occorrenza " +
+                        "      FROM import_volo) d " +
+                        "WHERE d.riga = i.riga";
+        String sqlErrori =
+                "SELECT riga, errore FROM import_volo WHERE errore IS NOT NULL ORDER BY riga";
+        String sqlVoli =
+                "INSERT INTO volo " +
+                        "(codice, compagnia, origine, destinazione, orario, stato, data, ritardo, posti_totali) " +
+                        "SELECT btrim(codice), btrim(compagnia), btrim(origine), btrim(destinazione), " +
+                        "btrim(orario)::time, coalesce(nullif(btrim(stato), ''), 'programmato')::statovolo, " +
+                        "btrim(data)::date, coalesce(nullif(btrim(ritardo), '')::int, 0), " +
+                        "btrim(posti_totali)::int " +
+                        "FROM import_volo WHERE errore IS NULL ORDER BY riga";
+        String sqlPosti =
+                "INSERT INTO posto (codice_volo, posto, occupato) " +
+                        "SELECT v.codice, " + ETICHETTA_POSTO_SQL + ", false " +
+                        "FROM import_volo i " +
+                        "JOIN volo v ON v.codice = btrim(i.codice) " +
+                        "CROSS JOIN LATERAL generate_series(0, v.posti_totali - 1) AS n " +
+                        "WHERE i.errore IS NULL";
+
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sqlStaging);
+
+                CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+                esito.setRigheLette(copyManager.copyIn(sqlCopy, csv));
+
+                stmt.executeUpdate(sqlValida);
+                try (ResultSet rs = stmt.executeQuery(sqlErrori)) {
+                    while (rs.next()) {
+                        // +1 per il record di intestazione; un campo tra virgolette può contenere a capo,
+                        // quindi è il numero del record CSV e non sempre quello della riga del file
+                        esito.aggiungiErrore(rs.getLong("riga") + 1, rs.getString("errore"));
+                    }
+                }
+
+                esito.setVoliInseriti(stmt.executeUpdate(sqlVoli));
+                esito.setPostiCreati(stmt.executeUpdate(sqlPosti));
+
+                conn.commit();
+            } catch (SQLException | IOException ex) {
+                conn.rollback();
+                esito.setVoliInseriti(0);
+                esito.setPostiCreati(0);
+                esito.setErroreGenerale(ex.getMessage());
+                System.err.println("Errore durante l'importazione dei voli: " + ex.getMessage());
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            esito.setErroreGenerale(e.getMessage());
+            System.err.println("Errore connessione/preparazione: " + e.getMessage());
+        }
+        return esito;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
      * Implementazione che aggiorna i dati di un volo esistente nel database.
-     * Esegue una query SQL di UPDATE per modificare tutti i campi del volo specificato.
+     * Esegue una query SQL di UPDATE per modificare tutti i campi del volo specificato,
+     * tranne i posti disponibili, che sono ricavati dai posti liberi.
      *
      */
     @Override
     public boolean updateVolo(Volo volo) {
-        String query = "UPDATE Volo SET compagnia= ?, origine = ?, destinazione = ?, orario = ?::time, stato = ?::statovolo, data = ?, ritardo = ?, posti_totali = ?, posti_disponibili = ? WHERE codice = ?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        String query = "UPDATE Volo SET compagnia= ?, origine = ?, destinazione = ?, orario = ?::time, stato = ?::statovolo, data = ?, ritardo = ?, posti_totali = ? WHERE codice = ?";
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, volo.getCompagnia());
             stmt.setString(2, volo.getOrigine());
@@ -222,8 +827,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
             stmt.setDate(6, Date.valueOf(volo.getData()));
             stmt.setInt(7, volo.getTempoRitardo());
             stmt.setInt(8, volo.getPostiTotali());
-            stmt.setInt(9, volo.getPostiDisponibili());
-            stmt.setString(10, volo.getCodiceVolo());
+            stmt.setString(9, volo.getCodiceVolo());
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Errore durante l'aggiornamento del volo: " + e.getMessage());
@@ -242,7 +846,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
     public List<Gate> getAllGates() {
        List<Gate> gates = new ArrayList<>();
         String query = "SELECT gate.numero FROM gate";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
@@ -266,7 +870,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
     @Override
     public boolean assignGateToFlight(int codiceGate, String codiceVolo) {
         String query = "UPDATE volo SET gate = ? WHERE codice =?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setInt(1, codiceGate);
             stmt.setString(2, codiceVolo);
@@ -280,86 +884,162 @@ public class ImplementazionePostgresDao implements PostgresDao {
     /**
      * {@inheritDoc}
      * <p>
-     * Implementazione che recupera tutte le prenotazioni effettuate da un utente specifico.
-     * Esegue una query SQL complessa che recupera le prenotazioni con i relativi passeggeri e bagagli.
+     * Implementazione che recupera tutte le prenotazioni effettuate da un utente specifico,
+     * con i relativi passeggeri e bagagli, tramite {@link #streamPrenotazioneByUtente(Utente, Consumer)}.
      *
      */
     @Override
     public List<Prenotazione> getPrenotazioneByUtente(Utente utente) {
-        List<Prenotazione> prenotazioniList = new ArrayList<>();
+        List<Prenotazione> prenotazioni = new ArrayList<>();
+        streamPrenotazioneByUtente(utente, prenotazioni::add);
+        return prenotazioni;
+    }
 
-        String sql = ""
-                + "SELECT "
-                + "  p.id_prenotazione AS id_prenotazione, "
-                + "  p.numero_biglietto, "
-                + "  p.posto, "
-                + "p.codice_volo,"
-                + "  p.stato AS stato_prenotazione, "
-                + "  pa.id_passeggero AS id_passeggero, "
-                + "  pa.nome, "
-                + "  pa.cognome, "
-                + "  pa.numero_documento, "
-                + "  b.codice AS codice_bagaglio, "
-                + "  b.stato AS stato_bagaglio "
-                + "FROM prenotazione p "
-                + "  JOIN passeggero pa ON p.id_passeggero = pa.id_passeggero "
-                + "  LEFT JOIN bagaglio b ON b.id_prenotazione = p.id_prenotazione "
-                + "WHERE p.username = ? "
-                + "ORDER BY p.codice_volo";
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge le prenotazioni dell'utente in cui è cambiata la prenotazione, il passeggero
+     * o uno dei bagagli, più le prenotazioni cancellate registrate in riga_cancellata (migrazione V9).
+     *
+     */
+    @Override
+    public Variazioni<Prenotazione> getPrenotazioniModificate(Utente utente, long versione) {
+        AggregatoreRighe<String, Prenotazione> aggregatore = nuovoAggregatorePrenotazioni();
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_PRENOTAZIONI_UTENTE_MODIFICATE)) {
+            long nuovaVersione = leggiVersione(conn);
+            ps.setString(1, utente.getLogin());
+            ps.setString(2, Long.toString(versione));
+            ps.setString(3, Long.toString(versione));
+            ps.setString(4, Long.toString(versione));
+            try (ResultSet rs = ps.executeQuery()) {
+                aggregatore.elaboraTutte(rs);
+            }
+            return new Variazioni<>(aggregatore.getRisultato(), leggiCancellati(conn, "prenotazione", versione),
+                    nuovaVersione);
+        } catch (SQLException e) {
+            System.err.println("Errore durante la lettura delle prenotazioni modificate: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge la versione corrente e, sulla stessa connessione, le prenotazioni dell'utente
+     * con la JOIN tra prenotazione, passeggero e bagaglio: ogni bagaglio viene letto una sola volta,
+     * insieme alla prenotazione a cui appartiene.
+     *
+     */
+    @Override
+    public InstantaneaUtente getInstantaneaUtente(Utente utente) {
+        AggregatoreRighe<String, Prenotazione> aggregatore = nuovoAggregatorePrenotazioni();
 
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_PRENOTAZIONI_UTENTE)) {
+            long versione = leggiVersione(conn);
             ps.setString(1, utente.getLogin());
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
+                aggregatore.elaboraTutte(rs);
+            }
+            return new InstantaneaUtente(aggregatore.getRisultato(), versione);
+        } catch (SQLException e) {
+            System.err.println("Errore durante la lettura dei dati dell'utente: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge le prenotazioni tramite un cursore lato server.
+     * Poiché le righe di una stessa prenotazione sono consecutive, ogni prenotazione
+     * viene consegnata, completa dei suoi bagagli, appena inizia la riga della successiva.
+     *
+     */
+    @Override
+    public boolean streamPrenotazioneByUtente(Utente utente, Consumer<Prenotazione> consumer) {
+        Prenotazione[] corrente = {null};
+        boolean completato = leggiInStreaming(SQL_PRENOTAZIONI_UTENTE,
+                ps -> ps.setString(1, utente.getLogin()),
+                rs -> {
                     String numeroBiglietto = rs.getString("numero_biglietto");
-                    Prenotazione prenotazione = null;
-                    for (Prenotazione p : prenotazioniList) {
-                        if (p.getNumeroBiglietto().equals(numeroBiglietto)) {
-                            prenotazione = p;
-                            break;
+                    if (corrente[0] == null || !corrente[0].getNumeroBiglietto().equals(numeroBiglietto)) {
+                        if (corrente[0] != null) {
+                            consumer.accept(corrente[0]);
                         }
+                        corrente[0] = mappaPrenotazione(rs);
                     }
-                    if (prenotazione == null) {
-                        String posto = rs.getString("posto");
-                        StatoPrenotazione stato =
-                                StatoPrenotazione.valueOf(rs.getString("stato_prenotazione"));
-                        String documento = rs.getString("numero_documento");
-                        String nome = rs.getString("nome");
-                        String cognome = rs.getString("cognome");
-
-                        String codiceVolo = rs.getString("codice_volo");
-                        Passeggero passeggero = new Passeggero(nome, cognome, documento);
-                        prenotazione = new Prenotazione(
-                                codiceVolo,
-                                numeroBiglietto,
-                                posto,
-                                stato,
-                                passeggero
-                        );
-                        prenotazione.setBagagli(new ArrayList<>());
-                        prenotazioniList.add(prenotazione);
-                    }
+                    aggiungiBagaglio(rs, corrente[0]);
+                },
+                "Errore durante la lettura in streaming delle prenotazioni: ");
+        if (completato && corrente[0] != null) {
+            consumer.accept(corrente[0]);
+        }
+        return completato;
+    }
 
-                    String codiceBag = rs.getString("codice_bagaglio");
-                    if (codiceBag != null) {
-                        String statoBagStr = rs.getString("stato_bagaglio");
-                        if (statoBagStr != null) {
-                            StatoBagaglio statoBag = StatoBagaglio.valueOf(statoBagStr);
-                            Bagaglio b = new Bagaglio(codiceBag, statoBag);
-                            prenotazione.getBagagli().add(b);
-                        }
-                    }
-                }
-            }
+    /**
+     * Crea l'aggregatore che ricostruisce le prenotazioni, con passeggero e bagagli,
+     * dalle righe della JOIN tra prenotazione, passeggero e bagaglio.
+     * Le prenotazioni sono indicizzate per numero di biglietto.
+     *
+     * @return Un nuovo aggregatore vuoto
+     */
+    private AggregatoreRighe<String, Prenotazione> nuovoAggregatorePrenotazioni() {
+        return new AggregatoreRighe<String, Prenotazione>(
+                rs -> rs.getString("numero_biglietto"),
+                this::mappaPrenotazione)
+                .conFiglio(this::aggiungiBagaglio);
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Errore durante il recupero delle prenotazioni: "
-                    + e.getMessage());
-        }
+    /**
+     * Crea una prenotazione, con il relativo passeggero e una lista di bagagli vuota,
+     * a partire dalla riga corrente di una query sulle prenotazioni.
+     *
+     * @param rs Il ResultSet posizionato sulla riga da leggere
+     * @return La prenotazione letta dalla riga
+     * @throws SQLException Se la lettura di una colonna fallisce
+     */
+    private Prenotazione mappaPrenotazione(ResultSet rs) throws SQLException {
+        String posto = rs.getString("posto");
+        StatoPrenotazione stato =
+                StatoPrenotazione.valueOf(rs.getString("stato_prenotazione"));
+        String documento = rs.getString("numero_documento");
+        String nome = rs.getString("nome");
+        String cognome = rs.getString("cognome");
+
+        String codiceVolo = rs.getString("codice_volo");
+        Passeggero passeggero = new Passeggero(nome, cognome, documento);
+        Prenotazione prenotazione = new Prenotazione(
+                codiceVolo,
+                rs.getString("numero_biglietto"),
+                posto,
+                stato,
+                passeggero
+        );
+        prenotazione.setBagagli(new ArrayList<>());
+        return prenotazione;
+    }
 
-        return prenotazioniList;
+    /**
+     * Aggiunge alla prenotazione il bagaglio presente nella riga corrente, se esiste.
+     * Le colonne attese sono codice_bagaglio e stato_bagaglio, nulle per le prenotazioni senza bagagli.
+     *
+     * @param rs           Il ResultSet posizionato sulla riga da leggere
+     * @param prenotazione La prenotazione a cui aggiungere il bagaglio
+     * @throws SQLException Se la lettura di una colonna fallisce
+     */
+    private void aggiungiBagaglio(ResultSet rs, Prenotazione prenotazione) throws SQLException {
+        String codiceBag = rs.getString("codice_bagaglio");
+        if (codiceBag != null) {
+            String statoBagStr = rs.getString("stato_bagaglio");
+            if (statoBagStr != null) {
+                StatoBagaglio statoBag = StatoBagaglio.valueOf(statoBagStr);
+                prenotazione.getBagagli().add(new Bagaglio(codiceBag, statoBag));
+            }
+        }
     }
 
     /**
@@ -367,13 +1047,14 @@ public class ImplementazionePostgresDao implements PostgresDao {
      * <p>
      * Implementazione che recupera tutte le prenotazioni associate a un volo specifico.
      * Esegue una query SQL complessa che recupera le prenotazioni con i relativi passeggeri e bagagli.
+     * Le righe della JOIN vengono ricomposte in un solo passaggio tramite {@link AggregatoreRighe}.
      *
      */
     @Override
     public List<Prenotazione> getPrenotazioniByVolo(Volo volo) {
-        List<Prenotazione> prenotazioniList = new ArrayList<>();
+        AggregatoreRighe<String, Prenotazione> aggregatore = nuovoAggregatorePrenotazioni();
 
-        String sql = "SELECT p.numero_biglietto, p.posto, p.stato AS stato_prenotazione, " +
+        String sql = "SELECT p.codice_volo, p.numero_biglietto, p.posto, p.stato AS stato_prenotazione, " +
                 "pa.nome, pa.cognome, pa.numero_documento, " +
                 "b.codice AS codice_bagaglio, b.stato AS stato_bagaglio " +
                 "FROM prenotazione p " +
@@ -382,186 +1063,208 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 "WHERE p.codice_volo = ? " +
                 "ORDER BY p.numero_biglietto";
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, volo.getCodiceVolo());
 
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String numeroBiglietto = rs.getString("numero_biglietto");
-
-                    Prenotazione prenotazione = null;
-                    for (Prenotazione p : prenotazioniList) {
-                        if (p.getNumeroBiglietto().equals(numeroBiglietto)) {
-                            prenotazione = p;
-                            break;
-                        }
-                    }
-
-                    if (prenotazione == null) {
-                        String posto = rs.getString("posto");
-                        StatoPrenotazione statoPren =
-                                StatoPrenotazione.valueOf(rs.getString("stato_prenotazione"));
-                        String nDocumento = rs.getString("numero_documento");
-                        String nome = rs.getString("nome");
-                        String cognome = rs.getString("cognome");
-
-                        Passeggero passeggero = new Passeggero(nome, cognome, nDocumento);
-                        prenotazione = new Prenotazione(numeroBiglietto, posto, statoPren, passeggero);
-                        prenotazione.setBagagli(new ArrayList<>());
-
-                        prenotazioniList.add(prenotazione);
-                    }
-
-                    String codiceBagaglio = rs.getString("codice_bagaglio");
-                    if (codiceBagaglio != null) {
-                        String statoBagaglioStr = rs.getString("stato_bagaglio");
-                        if (statoBagaglioStr != null) {
-                            StatoBagaglio statoBag =
-                                    StatoBagaglio.valueOf(statoBagaglioStr);
-                            Bagaglio bag = new Bagaglio(codiceBagaglio, statoBag);
-                            prenotazione.getBagagli().add(bag);
-                        }
-                    }
-                }
+                aggregatore.elaboraTutte(rs);
             }
         } catch (SQLException e) {
             System.err.println("Errore recupero prenotazioni per volo "
                     + volo.getCodiceVolo() + ": " + e.getMessage());
         }
 
-        return prenotazioniList;
+        return aggregatore.getRisultato();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * Implementazione che inserisce una nuova prenotazione nel database.
-     * Esegue una transazione complessa che include:
-     * 1. Verifica o inserimento del passeggero
-     * 2. Inserimento della prenotazione
-     * 3. Aggiornamento dei posti disponibili del volo
-     * 4. Inserimento dei bagagli associati
+     * Implementazione che legge l'unica riga di {@link #SQL_DETTAGLIO_VOLO} e ricompone prenotazioni,
+     * bagagli e posti dagli array paralleli; gli array sono null quando il volo non ha righe corrispondenti.
      *
      */
     @Override
-    public boolean insertPrenotazione(Prenotazione prenotazione, String codiceVolo, Utente utente) {
-        boolean success = false;
+    public DettaglioVolo getDettaglioVolo(String codiceVolo) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_DETTAGLIO_VOLO)) {
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection) {
-            conn.setAutoCommit(false);
+            ps.setString(1, codiceVolo);
 
-            try {
-                String selectP = "SELECT id_passeggero FROM passeggero WHERE numero_documento = ?";
-                Integer passengerId = null;
-                try (PreparedStatement psSel = conn.prepareStatement(selectP)) {
-                    psSel.setString(1, prenotazione.getPasseggero().getnDocumento());
-                    try (ResultSet rs = psSel.executeQuery()) {
-                        if (rs.next()) {
-                            passengerId = rs.getInt("id_passeggero");
-                        }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Volo volo = mappaVolo(rs);
+                int numeroGate = rs.getInt("numero_gate");
+                Gate gate = rs.wasNull() ? null : new Gate(numeroGate);
+
+                List<Prenotazione> prenotazioni = new ArrayList<>();
+                Map<String, Prenotazione> perBiglietto = new HashMap<>();
+                String[] biglietti = leggiArray(rs, "biglietti", String[].class);
+                if (biglietti != null) {
+                    String[] posti = leggiArray(rs, "posti_prenotati", String[].class);
+                    String[] stati = leggiArray(rs, "stati_prenotazione", String[].class);
+                    String[] nomi = leggiArray(rs, "nomi", String[].class);
+                    String[] cognomi = leggiArray(rs, "cognomi", String[].class);
+                    String[] documenti = leggiArray(rs, "documenti", String[].class);
+                    for (int i = 0; i < biglietti.length; i++) {
+                        Prenotazione prenotazione = new Prenotazione(codiceVolo, biglietti[i], posti[i],
+                                StatoPrenotazione.valueOf(stati[i]), new Passeggero(nomi[i], cognomi[i], documenti[i]));
+                        prenotazione.setBagagli(new ArrayList<>());
+                        prenotazioni.add(prenotazione);
+                        perBiglietto.put(biglietti[i], prenotazione);
                     }
                 }
 
-                if (passengerId == null) {
-                    String insertP =
-                            "INSERT INTO passeggero (nome, cognome, numero_documento) VALUES (?, ?, ?)";
-                    try (PreparedStatement psIns = conn.prepareStatement(
-                            insertP, Statement.RETURN_GENERATED_KEYS)) {
-
-                        psIns.setString(1, prenotazione.getPasseggero().getNome());
-                        psIns.setString(2, prenotazione.getPasseggero().getCognome());
-                        psIns.setString(3, prenotazione.getPasseggero().getnDocumento());
-                        psIns.executeUpdate();
-
-                        try (ResultSet rs = psIns.getGeneratedKeys()) {
-                            if (rs.next()) {
-                                passengerId = rs.getInt(1);
-                            } else {
-                                throw new SQLException("Impossibile recuperare ID passeggero");
-                            }
+                String[] bigliettiBagagli = leggiArray(rs, "biglietti_bagagli", String[].class);
+                if (bigliettiBagagli != null) {
+                    String[] codici = leggiArray(rs, "codici_bagagli", String[].class);
+                    String[] stati = leggiArray(rs, "stati_bagagli", String[].class);
+                    for (int i = 0; i < bigliettiBagagli.length; i++) {
+                        Prenotazione prenotazione = perBiglietto.get(bigliettiBagagli[i]);
+                        if (prenotazione != null) {
+                            prenotazione.getBagagli().add(new Bagaglio(codici[i], StatoBagaglio.valueOf(stati[i])));
                         }
                     }
                 }
 
-                String insertPr = ""
-                        + "INSERT INTO prenotazione "
-                        + "(codice_volo, id_passeggero, numero_biglietto, posto, stato, username) "
-                        + "VALUES (?, ?, ?, ?, ?, ?)";
-                int bookingId;
-                try (PreparedStatement psInsPr = conn.prepareStatement(
-                        insertPr, Statement.RETURN_GENERATED_KEYS)) {
-
-                    psInsPr.setString(1, codiceVolo);
-                    psInsPr.setInt(2, passengerId);
-                    psInsPr.setString(3, prenotazione.getNumeroBiglietto());
-                    psInsPr.setString(4, prenotazione.getPosto());
-                    psInsPr.setString(5, prenotazione.getStato().toString());
-                    psInsPr.setString(6, utente.getLogin());
-                    psInsPr.executeUpdate();
-
-                    try (ResultSet rs = psInsPr.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            bookingId = rs.getInt(1);
-                        } else {
-                            throw new SQLException("Impossibile recuperare ID prenotazione");
+                MappaPosti mappa = new MappaPosti(codiceVolo, POSTI_PER_FILA);
+                String[] posti = leggiArray(rs, "posti", String[].class);
+                if (posti != null) {
+                    Boolean[] occupati = leggiArray(rs, "posti_occupati", Boolean[].class);
+                    for (int i = 0; i < posti.length; i++) {
+                        if (!mappa.aggiungi(posti[i], Boolean.TRUE.equals(occupati[i]), null)) {
+                            System.err.println("Posto non valido ignorato sul volo " + codiceVolo + ": " + posti[i]);
                         }
                     }
                 }
 
-                if (prenotazione.getBagagli() != null && !prenotazione.getBagagli().isEmpty()) {
-                    String insertB =
-                            "INSERT INTO bagaglio (codice, stato, id_prenotazione) VALUES (?, ?, ?)";
-                    try (PreparedStatement psInsB = conn.prepareStatement(insertB)) {
-                        psInsB.setInt(3, bookingId);
-                        for (Bagaglio b : prenotazione.getBagagli()) {
-                            psInsB.setString(1, b.getCodice());
-                            psInsB.setString(2, b.getStato().toString());
+                return new DettaglioVolo(volo, gate, prenotazioni, mappa);
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore durante il recupero del dettaglio del volo " + codiceVolo + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-                            psInsB.addBatch();
-                        }
-                        psInsB.executeBatch();
-                    }
+    /**
+     * Legge una colonna di tipo array della riga corrente di un ResultSet.
+     *
+     * @param rs      Il ResultSet posizionato sulla riga da leggere
+     * @param colonna Il nome della colonna
+     * @param tipo    Il tipo dell'array Java restituito dal driver per la colonna
+     * @param <T>     Il tipo dell'array
+     * @return L'array letto, o null se la colonna è nulla
+     * @throws SQLException Se la lettura della colonna fallisce
+     */
+    private static <T> T leggiArray(ResultSet rs, String colonna, Class<T> tipo) throws SQLException {
+        Array array = rs.getArray(colonna);
+        return array != null ? tipo.cast(array.getArray()) : null;
+    }
 
-                }
-                String updateV = ""
-                        + "UPDATE volo "
-                        + "SET posti_disponibili = posti_disponibili - 1 "
-                        + "WHERE codice= ? AND posti_disponibili > 0";
-                try (PreparedStatement psUpdV = conn.prepareStatement(updateV)) {
-                    psUpdV.setString(1, codiceVolo);
-                    int rows = psUpdV.executeUpdate();
-                    if (rows != 1) {
-                        throw new SQLException("Impossibile scalare i posti: nessun volo valido o posti esauriti");
-                    }
-                }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che esegue nextval sulla sequenza numero_biglietto_seq,
+     * il cui incremento è la dimensione del blocco (migrazione V3).
+     *
+     */
+    @Override
+    public long allocaBloccoNumeriBiglietto() {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT nextval('public.numero_biglietto_seq')");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore durante l'allocazione dei numeri di biglietto: " + e.getMessage());
+        }
+        return -1;
+    }
 
-                String updateP = ""
-                        + "UPDATE posto "
-                        + "SET occupato = TRUE "
-                        + "WHERE codice_volo = ? AND posto = ? AND occupato = FALSE";
-                try (PreparedStatement psUpdP = conn.prepareStatement(updateP)) {
-                    psUpdP.setString(1, codiceVolo);
-                    psUpdP.setString(2, prenotazione.getPosto());
-                    int rows = psUpdP.executeUpdate();
-                    if (rows != 1) {
-                        throw new SQLException("Impossibile occupare il posto: già occupato o non esistente");
-                    }
-                }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che delega a {@link #prenota(Prenotazione, String, Utente)}.
+     *
+     */
+    @Override
+    public boolean insertPrenotazione(Prenotazione prenotazione, String codiceVolo, Utente utente) {
+        return prenota(prenotazione, codiceVolo, utente).isRiuscita();
+    }
 
-                conn.commit();
-                success = true;
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che invoca in un solo round trip la funzione {@code prenota} installata
+     * dalla migrazione V4, che in un'unica istruzione atomica:
+     * 1. Occupa il posto indicato o, se il posto della prenotazione è null, un posto libero
+     *    qualsiasi scelto con FOR UPDATE SKIP LOCKED (migrazione V5)
+     * 2. Riutilizza o inserisce il passeggero
+     * 3. Inserisce la prenotazione e i bagagli associati
+     * La riga del volo non viene modificata: i posti disponibili sono ricavati dai posti liberi.
+     * Il posto assegnato viene impostato nella prenotazione.
+     *
+     */
+    @Override
+    public EsitoPrenotazione prenota(Prenotazione prenotazione, String codiceVolo, Utente utente) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_PRENOTA)) {
 
-            } catch (SQLException tx) {
-                conn.rollback();
-                throw tx;
+            impostaParametriPrenotazione(conn, ps, prenotazione, codiceVolo, utente.getLogin());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    String posto = rs.getString("posto");
+                    prenotazione.setPosto(posto);
+                    return EsitoPrenotazione.riuscita(rs.getInt("id_prenotazione"), rs.getInt("id_passeggero"), posto);
+                }
+                return EsitoPrenotazione.fallita("La funzione prenota non ha restituito gli identificativi");
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            String messaggio = e instanceof PSQLException pe && pe.getServerErrorMessage() != null
+                    ? pe.getServerErrorMessage().getMessage()
+                    : e.getMessage();
+            System.err.println("Errore durante la registrazione della prenotazione "
+                    + prenotazione.getNumeroBiglietto() + ": " + messaggio);
+            return EsitoPrenotazione.fallita(messaggio);
+        }
+    }
+
+    /**
+     * Imposta i parametri della chiamata alla funzione {@code prenota}.
+     *
+     * @param conn         La connessione, usata per creare gli array dei bagagli
+     * @param ps           Lo statement preparato con {@link #SQL_PRENOTA}
+     * @param prenotazione La prenotazione da registrare
+     * @param codiceVolo   Il codice del volo prenotato
+     * @param username     Lo username dell'utente che effettua la prenotazione
+     * @throws SQLException Se l'impostazione di un parametro fallisce
+     */
+    static void impostaParametriPrenotazione(Connection conn, PreparedStatement ps, Prenotazione prenotazione,
+                                             String codiceVolo, String username) throws SQLException {
+        List<Bagaglio> bagagli = prenotazione.getBagagli() != null ? prenotazione.getBagagli() : List.of();
+        String[] codici = new String[bagagli.size()];
+        String[] stati = new String[bagagli.size()];
+        for (int i = 0; i < bagagli.size(); i++) {
+            codici[i] = bagagli.get(i).getCodice();
+            stati[i] = bagagli.get(i).getStato().toString();
         }
 
-        return success;
+        Passeggero passeggero = prenotazione.getPasseggero();
+        ps.setString(1, codiceVolo);
+        ps.setString(2, prenotazione.getNumeroBiglietto());
+        ps.setString(3, prenotazione.getPosto());
+        ps.setString(4, prenotazione.getStato().toString());
+        ps.setString(5, username);
+        ps.setString(6, passeggero.getNome());
+        ps.setString(7, passeggero.getCognome());
+        ps.setString(8, passeggero.getnDocumento());
+        ps.setArray(9, conn.createArrayOf("varchar", codici));
+        ps.setArray(10, conn.createArrayOf("varchar", stati));
     }
 
 
@@ -569,8 +1272,8 @@ public class ImplementazionePostgresDao implements PostgresDao {
      * {@inheritDoc}
      * <p>
      * Implementazione che aggiorna lo stato di una prenotazione esistente.
-     * Se lo stato viene impostato a "cancellato", esegue anche l'aggiornamento dei posti disponibili
-     * del volo e imposta il posto come non occupato.
+     * Se lo stato viene impostato a "cancellato", imposta anche il posto come non occupato,
+     * rendendolo di nuovo disponibile.
      * L'operazione viene eseguita come una transazione atomica.
      *
      */
@@ -580,18 +1283,15 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 "UPDATE prenotazione SET stato = ? WHERE numero_biglietto = ?";
         String sqlSelectInfo =
                 "SELECT codice_volo, posto FROM prenotazione WHERE numero_biglietto = ?";
-        String sqlUpdateVolo =
-                "UPDATE volo SET posti_disponibili = posti_disponibili + ? WHERE codice = ?";
         String sqlUpdatePosto =
                 "UPDATE posto SET occupato = ? WHERE codice_volo = ? AND posto = ?";
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
             conn.setAutoCommit(false);
 
             try (
                     PreparedStatement psPren = conn.prepareStatement(sqlUpdatePren);
                     PreparedStatement psInfo = conn.prepareStatement(sqlSelectInfo);
-                    PreparedStatement psVolo = conn.prepareStatement(sqlUpdateVolo);
                     PreparedStatement psPosto = conn.prepareStatement(sqlUpdatePosto);
             ) {
                 psPren.setString(1, nuovoStato.name());
@@ -609,10 +1309,6 @@ public class ImplementazionePostgresDao implements PostgresDao {
                             String codiceVolo = rs.getString("codice_volo");
                             String seat = rs.getString("posto");
 
-                            psVolo.setInt(1, 1);
-                            psVolo.setString(2, codiceVolo);
-                            psVolo.executeUpdate();
-
                             psPosto.setBoolean(1, false);
                             psPosto.setString(2, codiceVolo);
                             psPosto.setString(3, seat);
@@ -652,7 +1348,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
 
 
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection) {
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection()) {
             conn.setAutoCommit(false);
 
             try {
@@ -694,30 +1390,60 @@ public class ImplementazionePostgresDao implements PostgresDao {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge i bagagli smarriti tramite {@link #streamAllBagagli(Consumer)}.
+     *
+     */
     @Override
     public List<Bagaglio> getAllBagagli() {
         List<Bagaglio> bagagli = new ArrayList<>();
-        String query = "SELECT b.codice, b.stato FROM bagaglio b WHERE stato = 'smarrito'";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        streamAllBagagli(bagagli::add);
+        return bagagli;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge le prenotazioni con la JOIN tra prenotazione, passeggero e bagaglio
+     * limitata ai bagagli smarriti, ricomposta tramite {@link AggregatoreRighe}.
+     *
+     */
+    @Override
+    public List<Prenotazione> getPrenotazioniBagagliSmarriti() {
+        AggregatoreRighe<String, Prenotazione> aggregatore = nuovoAggregatorePrenotazioni();
+
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                String codice = rs.getString("codice");
-                StatoBagaglio stato = StatoBagaglio.valueOf(rs.getString("stato"));
-                Bagaglio bagaglio = new Bagaglio(codice, stato);
-                bagagli.add(bagaglio);
-            }
+             ResultSet rs = stmt.executeQuery(SQL_PRENOTAZIONI_BAGAGLI_SMARRITI)) {
+            aggregatore.elaboraTutte(rs);
         } catch (SQLException e) {
-            System.err.println("Errore durante il recupero dei bagagli: " + e.getMessage());
+            System.err.println("Errore durante il recupero delle prenotazioni con bagagli smarriti: " + e.getMessage());
+            return null;
         }
-        return bagagli;
+
+        return aggregatore.getRisultato();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che legge i bagagli smarriti tramite un cursore lato server.
+     *
+     */
+    @Override
+    public boolean streamAllBagagli(Consumer<Bagaglio> consumer) {
+        return leggiInStreaming(SQL_ALL_BAGAGLI, ps -> {
+        }, rs -> consumer.accept(new Bagaglio(rs.getString("codice"), StatoBagaglio.valueOf(rs.getString("stato")))),
+                "Errore durante la lettura in streaming dei bagagli: ");
     }
 
     @Override
     public List<Bagaglio> getBagagliByPrenotazione(String numeroBiglietto) {
         List<Bagaglio> bagagli = new ArrayList<>();
         String query = "SELECT b.* FROM bagaglio b JOIN prenotazione pb ON b.id_prenotazione = pb.id_prenotazione WHERE pb.numero_biglietto = ?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, numeroBiglietto);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -738,7 +1464,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
     @Override
     public boolean updateBagaglio(Bagaglio bagaglio) {
         String query = "UPDATE bagaglio SET stato = ? WHERE codice = ?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, bagaglio.getStato().toString());
             stmt.setString(2, bagaglio.getCodice());
@@ -758,7 +1484,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
                         "WHERE p.id_prenotazione = b.id_prenotazione " +
                         "  AND p.codice_volo = ?";
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, nuovoStato.toString());
@@ -773,26 +1499,89 @@ public class ImplementazionePostgresDao implements PostgresDao {
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Con il formato {@code bitmap} la mappa viene letta dall'unica riga del volo in mappa_posti,
+     * mantenuta allineata alla tabella posto dai trigger della migrazione V7, installati all'avvio solo
+     * in questo formato (migrazione V12); altrimenti viene costruita dalle righe della tabella posto.
+     *
+     */
     @Override
-    public List<Posto> getPostiByVolo(String coidceVolo) {
-        List<Posto> posti = new ArrayList<>();
+    public MappaPosti getPostiByVolo(String coidceVolo) {
+        return MAPPA_POSTI_BITMAP ? leggiMappaPostiBitmap(coidceVolo) : leggiMappaPostiRighe(coidceVolo);
+    }
+
+    /**
+     * Legge la mappa dei posti di un volo dalla riga del volo in mappa_posti, insieme ai blocchi attivi.
+     * Le bitmap usano la numerazione dei bit di set_bit, la stessa di {@link BitSet#valueOf(byte[])}.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @return La mappa dei posti, vuota se il volo non esiste o in caso di errore
+     */
+    private MappaPosti leggiMappaPostiBitmap(String codiceVolo) {
+        String sql =
+                "SELECT m.esistenti, m.occupati, " +
+                        "ARRAY(SELECT b.posto FROM blocco_posto b WHERE b.codice_volo = m.codice_volo " +
+                        "AND b.scadenza > now() ORDER BY b.posto) AS posti_bloccati, " +
+                        "ARRAY(SELECT b.titolare FROM blocco_posto b WHERE b.codice_volo = m.codice_volo " +
+                        "AND b.scadenza > now() ORDER BY b.posto) AS titolari " +
+                        "FROM mappa_posti m " +
+                        "WHERE m.codice_volo = ?";
+
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, codiceVolo);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return new MappaPosti(codiceVolo, POSTI_PER_FILA);
+                }
+                MappaPosti mappa = new MappaPosti(codiceVolo, POSTI_PER_FILA,
+                        BitSet.valueOf(rs.getBytes("esistenti")), BitSet.valueOf(rs.getBytes("occupati")));
+                String[] postiBloccati = (String[]) rs.getArray("posti_bloccati").getArray();
+                String[] titolari = (String[]) rs.getArray("titolari").getArray();
+                for (int i = 0; i < postiBloccati.length; i++) {
+                    mappa.setTitolareBlocco(postiBloccati[i], titolari[i]);
+                }
+                return mappa;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Errore in getPostiByVolo: " + e.getMessage());
+            return new MappaPosti(codiceVolo, POSTI_PER_FILA);
+        }
+    }
+
+    /**
+     * Legge la mappa dei posti di un volo dalle righe della tabella posto, con il titolare
+     * dell'eventuale blocco attivo, inserendole direttamente nella mappa compatta senza creare
+     * un oggetto per posto.
+     *
+     * @param coidceVolo Codice identificativo del volo
+     * @return La mappa dei posti, vuota se il volo non ha posti o in caso di errore
+     */
+    private MappaPosti leggiMappaPostiRighe(String coidceVolo) {
+        MappaPosti mappa = new MappaPosti(coidceVolo, POSTI_PER_FILA);
         String sql =
-                "SELECT codice_volo, posto, occupato " +
-                        "FROM posto " +
-                        "WHERE codice_volo = ?";
+                "SELECT p.posto, p.occupato, b.titolare " +
+                        "FROM posto p " +
+                        "LEFT JOIN blocco_posto b ON b.codice_volo = p.codice_volo AND b.posto = p.posto " +
+                        "AND b.scadenza > now() " +
+                        "WHERE p.codice_volo = ?";
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, coidceVolo);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Posto p = new Posto();
-                    p.setCodiceVolo(rs.getString("codice_volo"));
-                    p.setSeatNumber(rs.getString("posto"));
-                    p.setOccupato(rs.getBoolean("occupato"));
-                    posti.add(p);
+                    String posto = rs.getString("posto");
+                    if (!mappa.aggiungi(posto, rs.getBoolean("occupato"), rs.getString("titolare"))) {
+                        System.err.println("Posto non valido ignorato sul volo " + coidceVolo + ": " + posto);
+                    }
                 }
             }
 
@@ -800,9 +1589,59 @@ public class ImplementazionePostgresDao implements PostgresDao {
             System.err.println("Errore in getPostiByVolo: " + e.getMessage());
         }
 
-        return posti;
+        return mappa;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che inserisce il blocco in blocco_posto solo se il posto è libero, prendendo
+     * un lock condiviso sulla riga del posto così da attendere un'eventuale prenotazione in corso.
+     * In caso di conflitto il blocco esistente viene sostituito solo se scaduto o dello stesso titolare.
+     *
+     */
+    @Override
+    public boolean bloccaPosto(String codiceVolo, String posto, String titolare, int durata) {
+        String sql = "INSERT INTO blocco_posto (codice_volo, posto, titolare, scadenza) " +
+                "SELECT p.codice_volo, p.posto, ?, now() + make_interval(secs => ?) " +
+                "FROM posto p WHERE p.codice_volo = ? AND p.posto = ? AND p.occupato = FALSE FOR SHARE " +
+                "ON CONFLICT (codice_volo, posto) DO UPDATE " +
+                "SET titolare = EXCLUDED.titolare, scadenza = EXCLUDED.scadenza " +
+                "WHERE blocco_posto.titolare = EXCLUDED.titolare OR blocco_posto.scadenza <= now()";
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, titolare);
+            ps.setInt(2, durata);
+            ps.setString(3, codiceVolo);
+            ps.setString(4, posto);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Errore durante il blocco del posto: " + e.getMessage());
+            return false;
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Implementazione che elimina la riga di blocco_posto del titolare.
+     *
+     */
+    @Override
+    public boolean rilasciaPosto(String codiceVolo, String posto, String titolare) {
+        String sql = "DELETE FROM blocco_posto WHERE codice_volo = ? AND posto = ? AND titolare = ?";
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, codiceVolo);
+            ps.setString(2, posto);
+            ps.setString(3, titolare);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Errore durante il rilascio del posto: " + e.getMessage());
+            return false;
+        }
+    }
 
     @Override
     public List<Bagaglio> getBagagliByUtente(Utente user) {
@@ -815,7 +1654,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 + "ORDER BY p.codice_volo";
 
 
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, user.getLogin());
@@ -843,7 +1682,7 @@ public class ImplementazionePostgresDao implements PostgresDao {
                 "JOIN bagaglio b ON b.id_prenotazione = p.id_prenotazione " +
                 "JOIN passeggero pa ON pa.id_passeggero = p.id_passeggero " +
                 " WHERE b.codice = ?";
-        try (Connection conn = ConnessioneDatabase.getInstance().connection;
+        try (Connection conn = ConnessioneDatabase.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, codiceBagaglio);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -857,4 +1696,32 @@ public class ImplementazionePostgresDao implements PostgresDao {
         }
         return null;
     }
+
+    /**
+     * Imposta i parametri di un PreparedStatement prima dell'esecuzione.
+     */
+    @FunctionalInterface
+    private interface ImpostaParametri {
+        /**
+         * Imposta i parametri dello statement.
+         *
+         * @param ps Lo statement da preparare
+         * @throws SQLException Se l'impostazione di un parametro fallisce
+         */
+        void imposta(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Elabora la riga corrente di un ResultSet.
+     */
+    @FunctionalInterface
+    private interface GestoreRiga {
+        /**
+         * Elabora la riga su cui è posizionato il ResultSet.
+         *
+         * @param rs Il ResultSet posizionato sulla riga da elaborare
+         * @throws SQLException Se la lettura di una colonna fallisce
+         */
+        void elabora(ResultSet rs) throws SQLException;
+    }
 }
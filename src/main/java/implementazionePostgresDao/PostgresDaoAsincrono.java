@@ -0,0 +1,212 @@
+package implementazionePostgresDao;
+
+import dao.PostgresDao;
+import database.ConnessioneDatabase;
+import model.*;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Facciata asincrona di un {@link PostgresDao}: ogni chiamata restituisce subito un {@link CompletableFuture}
+ * e viene eseguita su un thread virtuale, così che servizi senza interfaccia grafica o elaborazioni batch
+ * possano avviare migliaia di letture concorrenti senza creare altrettanti thread di piattaforma.
+ * <p>
+ * Le chiamate in esecuzione sul DAO sono limitate da un semaforo dimensionato, in mancanza di indicazioni,
+ * sul numero massimo di connessioni del pool: le chiamate in eccesso attendono un permesso sul proprio
+ * thread virtuale invece di occupare il pool fino al suo timeout. Una chiamata annullata mentre attende
+ * il permesso non viene eseguita.
+ * <p>
+ * Gli errori seguono le convenzioni del DAO sottostante (valori null, liste vuote o false);
+ * le eccezioni e gli errori lanciati dal DAO completano il future in modo eccezionale.
+ */
+public class PostgresDaoAsincrono implements AutoCloseable {
+    /**
+     * DAO a cui vengono delegate le chiamate.
+     */
+    private final PostgresDao dao;
+
+    /**
+     * Numero massimo di chiamate eseguite contemporaneamente sul DAO.
+     */
+    private final int concorrenza;
+
+    /**
+     * Permessi per l'esecuzione delle chiamate, uno per chiamata in corso.
+     */
+    private final Semaphore permessi;
+
+    /**
+     * Esecutore che avvia ogni chiamata su un nuovo thread virtuale.
+     */
+    private final ExecutorService esecutore = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Costruttore della classe PostgresDaoAsincrono. La concorrenza è pari al numero massimo
+     * di connessioni del pool.
+     *
+     * @param dao Il DAO a cui delegare le chiamate
+     * @throws SQLException Se non è possibile inizializzare il pool di connessioni
+     */
+    public PostgresDaoAsincrono(PostgresDao dao) throws SQLException {
+        this(dao, ConnessioneDatabase.getInstance().getPool().getDimensioneMassima());
+    }
+
+    /**
+     * Costruttore della classe PostgresDaoAsincrono.
+     *
+     * @param dao         Il DAO a cui delegare le chiamate
+     * @param concorrenza Il numero massimo di chiamate eseguite contemporaneamente sul DAO
+     */
+    public PostgresDaoAsincrono(PostgresDao dao, int concorrenza) {
+        if (concorrenza <= 0) {
+            throw new IllegalArgumentException("La concorrenza deve essere positiva");
+        }
+        this.dao = dao;
+        this.concorrenza = concorrenza;
+        this.permessi = new Semaphore(concorrenza, true);
+    }
+
+    /**
+     * Esegue un'operazione qualsiasi sul DAO su un thread virtuale, dopo aver ottenuto un permesso.
+     *
+     * @param operazione L'operazione da eseguire
+     * @param <T>        Il tipo del risultato
+     * @return Il future completato con il risultato dell'operazione
+     */
+    public <T> CompletableFuture<T> esegui(Function<PostgresDao, T> operazione) {
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+        esecutore.execute(() -> {
+            try {
+                permessi.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                risultato.completeExceptionally(e);
+                return;
+            }
+            try {
+                // Chiamata annullata mentre attendeva il permesso
+                if (!risultato.isDone()) {
+                    risultato.complete(operazione.apply(dao));
+                }
+            } catch (Throwable e) {
+                // Anche gli Error (ad esempio StackOverflowError) completano il future, che altrimenti resterebbe in attesa
+                risultato.completeExceptionally(e);
+            } finally {
+                permessi.release();
+            }
+        });
+        return risultato;
+    }
+
+    /**
+     * Recupera in modo asincrono i voli con i codici indicati.
+     *
+     * @param codici I codici dei voli da leggere
+     * @return Il future con i voli trovati, o null in caso di errore
+     * @see PostgresDao#getVoliByCodici(Collection)
+     */
+    public CompletableFuture<List<Volo>> getVoliByCodici(Collection<String> codici) {
+        return esegui(d -> d.getVoliByCodici(codici));
+    }
+
+    /**
+     * Cerca in modo asincrono una pagina di voli che soddisfano i criteri indicati.
+     *
+     * @param criteri I criteri di ricerca
+     * @param pagina  Il cursore della pagina da leggere
+     * @return Il future con la pagina di voli
+     * @see PostgresDao#searchVoli(CriteriRicercaVoli, CursoreVoli)
+     */
+    public CompletableFuture<PaginaVoli> searchVoli(CriteriRicercaVoli criteri, CursoreVoli pagina) {
+        return esegui(d -> d.searchVoli(criteri, pagina));
+    }
+
+    /**
+     * Recupera in modo asincrono il dettaglio di un volo.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @return Il future con il dettaglio del volo, o null se il volo non esiste o in caso di errore
+     * @see PostgresDao#getDettaglioVolo(String)
+     */
+    public CompletableFuture<DettaglioVolo> getDettaglioVolo(String codiceVolo) {
+        return esegui(d -> d.getDettaglioVolo(codiceVolo));
+    }
+
+    /**
+     * Recupera in modo asincrono la mappa dei posti di un volo.
+     *
+     * @param codiceVolo Codice identificativo del volo
+     * @return Il future con la mappa dei posti
+     * @see PostgresDao#getPostiByVolo(String)
+     */
+    public CompletableFuture<MappaPosti> getPostiByVolo(String codiceVolo) {
+        return esegui(d -> d.getPostiByVolo(codiceVolo));
+    }
+
+    /**
+     * Recupera in modo asincrono le prenotazioni di un utente con passeggeri e bagagli.
+     *
+     * @param utente L'utente di cui si vogliono recuperare i dati
+     * @return Il future con i dati dell'utente, o null in caso di errore
+     * @see PostgresDao#getInstantaneaUtente(Utente)
+     */
+    public CompletableFuture<InstantaneaUtente> getInstantaneaUtente(Utente utente) {
+        return esegui(d -> d.getInstantaneaUtente(utente));
+    }
+
+    /**
+     * Recupera in modo asincrono le prenotazioni di un utente modificate dalla versione indicata.
+     *
+     * @param utente   L'utente di cui si vogliono recuperare le prenotazioni
+     * @param versione La versione dei dati già letti, o 0
+     * @return Il future con le modifiche, o null in caso di errore
+     * @see PostgresDao#getPrenotazioniModificate(Utente, long)
+     */
+    public CompletableFuture<Variazioni<Prenotazione>> getPrenotazioniModificate(Utente utente, long versione) {
+        return esegui(d -> d.getPrenotazioniModificate(utente, versione));
+    }
+
+    /**
+     * Recupera in modo asincrono la prenotazione associata a un bagaglio.
+     *
+     * @param codiceBagaglio Codice identificativo del bagaglio
+     * @return Il future con la prenotazione, o null se non trovata
+     * @see PostgresDao#getPrenotazioneByBagaglio(String)
+     */
+    public CompletableFuture<Prenotazione> getPrenotazioneByBagaglio(String codiceBagaglio) {
+        return esegui(d -> d.getPrenotazioneByBagaglio(codiceBagaglio));
+    }
+
+    /**
+     * Restituisce il numero massimo di chiamate eseguite contemporaneamente sul DAO.
+     *
+     * @return La concorrenza massima
+     */
+    public int getConcorrenza() {
+        return concorrenza;
+    }
+
+    /**
+     * Restituisce il numero di chiamate attualmente in esecuzione sul DAO.
+     *
+     * @return Il numero di chiamate in corso
+     */
+    public int getChiamateInCorso() {
+        return concorrenza - permessi.availablePermits();
+    }
+
+    /**
+     * Smette di accettare nuove chiamate e attende il termine di quelle già avviate.
+     */
+    @Override
+    public void close() {
+        esecutore.close();
+    }
+}
@@ -0,0 +1,467 @@
+package implementazionePostgresDao;
+
+import dao.CacheLettura;
+import dao.PostgresDao;
+import database.EventoModifica;
+import database.StatisticheCache;
+import model.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Implementazione di {@link PostgresDao} che aggiunge una cache read-through davanti a un altro DAO.
+ * <p>
+ * Vengono memorizzati l'elenco completo dei voli, le pagine della ricerca voli, l'elenco dei gate,
+ * le mappe dei posti e i posti disponibili dei singoli voli. I posti disponibili sono memorizzati a parte
+ * e applicati alle copie dei voli in cache a ogni lettura: prenotazioni, cancellazioni e blocchi
+ * invalidano così solo il conteggio e la mappa dei posti del volo interessato, mentre l'elenco dei voli
+ * e le pagine di ricerca restano validi. Le voci scadono dopo {@code aeroporto.cache.ttlMs} millisecondi
+ * (predefinito 30000) e ogni cache ha una capacità massima ({@code aeroporto.cache.pagine}, predefinito 128,
+ * per le pagine di ricerca, {@code aeroporto.cache.mappePosti}, predefinito 256, per le mappe dei posti e
+ * {@code aeroporto.cache.postiDisponibili}, predefinito 65536, per i conteggi dei posti disponibili).
+ * Le scritture eseguite tramite questo DAO invalidano subito le voci interessate; le modifiche
+ * fatte da altre istanze dell'applicativo le invalidano quando il database le notifica tramite
+ * {@link #applica(EventoModifica)} e, se le notifiche sono disattivate, al più alla scadenza delle voci.
+ * I valori restituiti sono copie, così che le modifiche del chiamante non alterino la cache.
+ */
+public class PostgresDaoConCache implements PostgresDao {
+    /**
+     * Chiave dell'unica voce delle cache dei voli e dei gate.
+     */
+    private static final String TUTTI = "tutti";
+
+    /**
+     * DAO a cui vengono delegate le letture non in cache e tutte le scritture.
+     */
+    private final PostgresDao dao;
+
+    /**
+     * Cache dell'elenco completo dei voli.
+     */
+    private final CacheLettura<String, List<Volo>> voli;
+
+    /**
+     * Cache delle pagine della ricerca voli, indicizzate per criteri e cursore.
+     */
+    private final CacheLettura<String, PaginaVoli> pagineVoli;
+
+    /**
+     * Cache dell'elenco dei gate.
+     */
+    private final CacheLettura<String, List<Gate>> gates;
+
+    /**
+     * Cache delle mappe dei posti, indicizzate per codice volo.
+     */
+    private final CacheLettura<String, MappaPosti> mappePosti;
+
+    /**
+     * Cache dei posti disponibili, indicizzati per codice volo.
+     */
+    private final CacheLettura<String, Integer> postiDisponibili;
+
+    /**
+     * Costruttore della classe PostgresDaoConCache. Legge la configurazione dalle proprietà di sistema.
+     *
+     * @param dao Il DAO a cui delegare gli accessi al database
+     */
+    public PostgresDaoConCache(PostgresDao dao) {
+        this.dao = dao;
+        long ttlMs = Long.getLong("aeroporto.cache.ttlMs", 30_000L);
+        // Il DAO restituisce una lista vuota anche in caso di errore: le liste vuote non vengono memorizzate
+        this.voli = new CacheLettura<>(ttlMs, 1, lista -> !lista.isEmpty());
+        // In caso di errore la ricerca restituisce una pagina vuota con versione -1, che non viene memorizzata
+        this.pagineVoli = new CacheLettura<>(ttlMs, Integer.getInteger("aeroporto.cache.pagine", 128),
+                pagina -> pagina.getVersione() >= 0);
+        this.gates = new CacheLettura<>(ttlMs, 1, lista -> !lista.isEmpty());
+        this.mappePosti = new CacheLettura<>(ttlMs, Integer.getInteger("aeroporto.cache.mappePosti", 256),
+                mappa -> mappa.getNumeroPosti() > 0);
+        this.postiDisponibili = new CacheLettura<>(ttlMs, Integer.getInteger("aeroporto.cache.postiDisponibili", 65_536),
+                posti -> true);
+    }
+
+    /**
+     * Restituisce le statistiche delle cache, indicizzate per nome della cache.
+     *
+     * @return Le statistiche di hit, miss ed eviction di ciascuna cache
+     */
+    public Map<String, StatisticheCache> getStatistiche() {
+        Map<String, StatisticheCache> statistiche = new LinkedHashMap<>();
+        statistiche.put("voli", voli.getStatistiche());
+        statistiche.put("ricercaVoli", pagineVoli.getStatistiche());
+        statistiche.put("gate", gates.getStatistiche());
+        statistiche.put("mappePosti", mappePosti.getStatistiche());
+        statistiche.put("postiDisponibili", postiDisponibili.getStatistiche());
+        return statistiche;
+    }
+
+    /**
+     * Invalida le voci interessate da una modifica notificata dal database.
+     *
+     * @param evento L'evento di modifica
+     */
+    public void applica(EventoModifica evento) {
+        switch (evento.getTabella()) {
+            case VOLO -> invalidaVoli();
+            case PRENOTAZIONE, POSTO -> invalidaPosti(evento.getCodiceVolo());
+            case BAGAGLIO -> {
+                // I bagagli non sono in cache
+            }
+            case TUTTE -> {
+                invalidaVoli();
+                invalidaPosti(null);
+                gates.invalidaTutto();
+            }
+        }
+    }
+
+    /**
+     * Invalida le cache che contengono dati dei voli.
+     */
+    private void invalidaVoli() {
+        voli.invalidaTutto();
+        pagineVoli.invalidaTutto();
+    }
+
+    /**
+     * Invalida le cache che dipendono dai posti di un volo: la mappa dei posti e i posti disponibili.
+     * L'elenco dei voli e le pagine di ricerca non vengono toccati, perché i posti disponibili
+     * sono applicati alle loro copie a ogni lettura.
+     *
+     * @param codiceVolo Il codice del volo, o null se non noto
+     */
+    private void invalidaPosti(String codiceVolo) {
+        if (codiceVolo != null) {
+            mappePosti.invalida(codiceVolo);
+            postiDisponibili.invalida(codiceVolo);
+        } else {
+            mappePosti.invalidaTutto();
+            postiDisponibili.invalidaTutto();
+        }
+    }
+
+    /**
+     * Imposta sui voli i posti disponibili in cache, leggendo con un'unica query quelli mancanti.
+     * In caso di errore i voli mantengono i posti disponibili letti insieme alle loro righe.
+     *
+     * @param voli Le copie dei voli da aggiornare
+     * @return Gli stessi voli
+     */
+    private List<Volo> applicaPostiDisponibili(List<Volo> voli) {
+        List<String> codici = new ArrayList<>(voli.size());
+        for (Volo volo : voli) {
+            codici.add(volo.getCodiceVolo());
+        }
+        Map<String, Integer> posti = postiDisponibili.getTutti(codici, dao::getPostiDisponibili);
+        for (Volo volo : voli) {
+            Integer disponibili = posti.get(volo.getCodiceVolo());
+            if (disponibili != null) {
+                volo.setPostiDisponibili(disponibili);
+            }
+        }
+        return voli;
+    }
+
+    /**
+     * Crea una copia di una lista di voli.
+     *
+     * @param originali I voli da copiare
+     * @return Una nuova lista con copie dei voli
+     */
+    private static List<Volo> copia(List<Volo> originali) {
+        List<Volo> copie = new ArrayList<>(originali.size());
+        for (Volo volo : originali) {
+            copie.add(new Volo(volo));
+        }
+        return copie;
+    }
+
+    /**
+     * Costruisce la chiave della cache della ricerca voli a partire da criteri e cursore.
+     *
+     * @param criteri I criteri di ricerca
+     * @param pagina  Il cursore della pagina
+     * @return La chiave che identifica la ricerca
+     */
+    private static String chiaveRicerca(CriteriRicercaVoli criteri, CursoreVoli pagina) {
+        return String.join("\u0000",
+                String.valueOf(criteri.getCodice()), String.valueOf(criteri.getCompagnia()),
+                String.valueOf(criteri.getOrigine()), String.valueOf(criteri.getDestinazione()),
+                String.valueOf(criteri.getOrario()), String.valueOf(criteri.getDataDa()),
+                String.valueOf(criteri.getDataA()), String.valueOf(criteri.getStati()),
+                String.valueOf(criteri.getTermini()),
+                String.valueOf(pagina.getDimensione()), String.valueOf(pagina.getDopoData()),
+                String.valueOf(pagina.getDopoCodice()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Utente getUtenteByCredentialsAndType(String login, String password, String tipo) {
+        return dao.getUtenteByCredentialsAndType(login, password, tipo);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean insertUtente(Utente utente, String tipo) {
+        return dao.insertUtente(utente, tipo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servito dalla cache se disponibile, con i posti disponibili aggiornati.
+     */
+    @Override
+    public List<Volo> getAllVoli() {
+        return applicaPostiDisponibili(copia(voli.get(TUTTI, chiave -> dao.getAllVoli())));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Volo> getVoliByCodici(Collection<String> codici) {
+        return dao.getVoliByCodici(codici);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servito dalla cache per i voli già letti.
+     */
+    @Override
+    public Map<String, Integer> getPostiDisponibili(Collection<String> codici) {
+        return postiDisponibili.getTutti(codici, dao::getPostiDisponibili);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean streamAllVoli(Consumer<Volo> consumer) {
+        return dao.streamAllVoli(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servito dalla cache se la stessa pagina con gli stessi criteri è già stata letta,
+     * con i posti disponibili aggiornati.
+     */
+    @Override
+    public PaginaVoli searchVoli(CriteriRicercaVoli criteri, CursoreVoli pagina) {
+        PaginaVoli risultato = pagineVoli.get(chiaveRicerca(criteri, pagina), chiave -> dao.searchVoli(criteri, pagina));
+        return new PaginaVoli(applicaPostiDisponibili(copia(risultato.getVoli())), risultato.getSuccessiva(),
+                risultato.getVersione());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Variazioni<Volo> searchVoliModificati(CriteriRicercaVoli criteri, long versione) {
+        return dao.searchVoliModificati(criteri, versione);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean insertVolo(Volo volo) {
+        boolean esito = dao.insertVolo(volo);
+        invalidaVoli();
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EsitoImportazione importVoli(Reader csv) {
+        EsitoImportazione esito = dao.importVoli(csv);
+        invalidaVoli();
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updateVolo(Volo volo) {
+        boolean esito = dao.updateVolo(volo);
+        invalidaVoli();
+        // La modifica dei posti totali aggiunge o rimuove posti del volo
+        invalidaPosti(volo.getCodiceVolo());
+        return esito;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servito dalla cache se disponibile.
+     */
+    @Override
+    public List<Gate> getAllGates() {
+        List<Gate> originali = gates.get(TUTTI, chiave -> dao.getAllGates());
+        List<Gate> copie = new ArrayList<>(originali.size());
+        for (Gate gate : originali) {
+            copie.add(new Gate(gate.getCodice()));
+        }
+        return copie;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean assignGateToFlight(int codiceGate, String codiceVolo) {
+        boolean esito = dao.assignGateToFlight(codiceGate, codiceVolo);
+        invalidaVoli();
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updatePasseggeroInPrenotazione(String numeroBiglietto, String nome, String cognome, String nDocumento) {
+        return dao.updatePasseggeroInPrenotazione(numeroBiglietto, nome, cognome, nDocumento);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Prenotazione> getPrenotazioniByVolo(Volo volo) {
+        return dao.getPrenotazioniByVolo(volo);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DettaglioVolo getDettaglioVolo(String codiceVolo) {
+        return dao.getDettaglioVolo(codiceVolo);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean insertPrenotazione(Prenotazione prenotazione, String codiceVolo, Utente utente) {
+        boolean esito = dao.insertPrenotazione(prenotazione, codiceVolo, utente);
+        invalidaPosti(codiceVolo);
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public EsitoPrenotazione prenota(Prenotazione prenotazione, String codiceVolo, Utente utente) {
+        EsitoPrenotazione esito = dao.prenota(prenotazione, codiceVolo, utente);
+        invalidaPosti(codiceVolo);
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long allocaBloccoNumeriBiglietto() {
+        return dao.allocaBloccoNumeriBiglietto();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La cancellazione libera un posto di un volo non noto a questo livello:
+     * vengono invalidate tutte le mappe dei posti.
+     */
+    @Override
+    public boolean updatePrenotazione(StatoPrenotazione prenotazione, String numeroBiglietto) {
+        boolean esito = dao.updatePrenotazione(prenotazione, numeroBiglietto);
+        if (prenotazione == StatoPrenotazione.cancellato) {
+            invalidaPosti(null);
+        }
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Bagaglio> getAllBagagli() {
+        return dao.getAllBagagli();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Prenotazione> getPrenotazioniBagagliSmarriti() {
+        return dao.getPrenotazioniBagagliSmarriti();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean streamAllBagagli(Consumer<Bagaglio> consumer) {
+        return dao.streamAllBagagli(consumer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Bagaglio> getBagagliByPrenotazione(String numeroBiglietto) {
+        return dao.getBagagliByPrenotazione(numeroBiglietto);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updateBagaglio(Bagaglio bagaglio) {
+        return dao.updateBagaglio(bagaglio);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean updateBagagliByVolo(String codiceVolo, StatoBagaglio nuovoStato) {
+        return dao.updateBagagliByVolo(codiceVolo, nuovoStato);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Bagaglio> getBagagliByUtente(Utente user) {
+        return dao.getBagagliByUtente(user);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Prenotazione> getPrenotazioneByUtente(Utente utente) {
+        return dao.getPrenotazioneByUtente(utente);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Variazioni<Prenotazione> getPrenotazioniModificate(Utente utente, long versione) {
+        return dao.getPrenotazioniModificate(utente, versione);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InstantaneaUtente getInstantaneaUtente(Utente utente) {
+        return dao.getInstantaneaUtente(utente);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean streamPrenotazioneByUtente(Utente utente, Consumer<Prenotazione> consumer) {
+        return dao.streamPrenotazioneByUtente(utente, consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servito dalla cache se disponibile.
+     */
+    @Override
+    public MappaPosti getPostiByVolo(String coidceVolo) {
+        return mappePosti.get(coidceVolo, dao::getPostiByVolo).copia();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean bloccaPosto(String codiceVolo, String posto, String titolare, int durata) {
+        boolean esito = dao.bloccaPosto(codiceVolo, posto, titolare, durata);
+        mappePosti.invalida(codiceVolo);
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean rilasciaPosto(String codiceVolo, String posto, String titolare) {
+        boolean esito = dao.rilasciaPosto(codiceVolo, posto, titolare);
+        mappePosti.invalida(codiceVolo);
+        return esito;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Prenotazione getPrenotazioneByBagaglio(String codcieBagaglio) {
+        return dao.getPrenotazioneByBagaglio(codcieBagaglio);
+    }
+}
@@ -0,0 +1,55 @@
+package implementazionePostgresDao;
+
+import java.util.Arrays;
+
+/**
+ * Statistiche delle durate misurate dai programmi di misura ({@link BenchmarkPrenotazione},
+ * {@link BenchmarkRicercaVoli}).
+ */
+final class StatisticheDurate {
+    /**
+     * Costruttore privato per evitare l'istanziazione della classe StatisticheDurate.
+     */
+    private StatisticheDurate() {}
+
+    /**
+     * Stampa minimo, mediana, 95° e 99° percentile, massimo e media delle durate misurate, in millisecondi.
+     *
+     * @param etichetta Il testo stampato all'inizio della riga, o una stringa vuota
+     * @param durate    Le durate in nanosecondi
+     */
+    static void stampa(String etichetta, long[] durate) {
+        if (durate.length == 0) {
+            return;
+        }
+        long[] ordinate = durate.clone();
+        Arrays.sort(ordinate);
+        double media = Arrays.stream(ordinate).average().orElse(0);
+        System.out.printf("%smin %.3f ms | mediana %.3f ms | p95 %.3f ms | p99 %.3f ms | max %.3f ms | media %.3f ms%n",
+                etichetta.isEmpty() ? "" : etichetta + " ",
+                ms(ordinate[0]), ms(percentile(ordinate, 50)), ms(percentile(ordinate, 95)),
+                ms(percentile(ordinate, 99)), ms(ordinate[ordinate.length - 1]), media / 1_000_000.0);
+    }
+
+    /**
+     * Restituisce il percentile indicato di un array ordinato.
+     *
+     * @param ordinate    Le durate in ordine crescente
+     * @param percentuale Il percentile da calcolare (0-100)
+     * @return La durata al percentile indicato
+     */
+    static long percentile(long[] ordinate, int percentuale) {
+        int indice = (int) Math.ceil(percentuale / 100.0 * ordinate.length) - 1;
+        return ordinate[Math.max(0, Math.min(indice, ordinate.length - 1))];
+    }
+
+    /**
+     * Converte nanosecondi in millisecondi.
+     *
+     * @param nanosecondi La durata in nanosecondi
+     * @return La durata in millisecondi
+     */
+    static double ms(long nanosecondi) {
+        return nanosecondi / 1_000_000.0;
+    }
+}
@@ -2,9 +2,11 @@ package main;
 
 import controller.Controller;
 
+import database.ConnessioneDatabase;
 import gui.UIManager;
 import gui.Welcome;
 import javax.swing.SwingUtilities;
+import java.sql.SQLException;
 
 /**
  * Classe principale dell'applicazione aeroportuale.
@@ -18,8 +20,10 @@ public class Main {
     private Main(){}
     /**
      * Metodo principale che avvia l'applicazione.
-     * Inizializza il controller, applica il tema all'interfaccia grafica
-     * e visualizza la schermata di benvenuto.
+     * Applica le migrazioni dello schema del database, poi inizializza il controller,
+     * applica il tema all'interfaccia grafica e visualizza la schermata di benvenuto.
+     * Le migrazioni vengono applicate sul thread principale, così che un database lento
+     * o non raggiungibile non blocchi il thread degli eventi di Swing.
      * 
      * L'inizializzazione dell'interfaccia utente viene eseguita nel thread di Swing
      * per garantire la corretta gestione degli eventi dell'interfaccia grafica.
@@ -27,6 +31,11 @@ public class Main {
      * @param args Argomenti della linea di comando (non utilizzati)
      */
     public static void main(String[] args) {
+        try {
+            ConnessioneDatabase.getInstance().applicaMigrazioni();
+        } catch (SQLException e) {
+            System.err.println("Impossibile inizializzare il database: " + e.getMessage());
+        }
          SwingUtilities.invokeLater(() -> {
                 UIManager.applyTheme();
              Controller controller = new Controller();
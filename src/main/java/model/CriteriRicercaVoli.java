@@ -0,0 +1,359 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Classe che rappresenta i criteri di ricerca dei voli.
+ * Ogni criterio è facoltativo: i campi testuali vengono confrontati come sottostringa
+ * senza distinzione tra maiuscole e minuscole, la data come intervallo chiuso e lo stato
+ * come insieme di stati ammessi. I termini di ricerca liberi vengono cercati in tutti i campi
+ * del volo (vedi {@link #testoRicerca}). I criteri impostati vengono combinati in AND.
+ */
+public class CriteriRicercaVoli {
+    /**
+     * Testo da cercare nel codice del volo.
+     */
+    private String codice;
+
+    /**
+     * Testo da cercare nel nome della compagnia aerea.
+     */
+    private String compagnia;
+
+    /**
+     * Testo da cercare nell'aeroporto di partenza.
+     */
+    private String origine;
+
+    /**
+     * Testo da cercare nell'aeroporto di arrivo.
+     */
+    private String destinazione;
+
+    /**
+     * Testo da cercare nell'orario previsto (formato HH:MM:SS).
+     */
+    private String orario;
+
+    /**
+     * Data minima di partenza (inclusa).
+     */
+    private LocalDate dataDa;
+
+    /**
+     * Data massima di partenza (inclusa).
+     */
+    private LocalDate dataA;
+
+    /**
+     * Stati ammessi; se vuoto qualsiasi stato è ammesso.
+     */
+    private final List<StatoVolo> stati = new ArrayList<>();
+
+    /**
+     * Termini da cercare in tutti i campi del volo, in minuscolo: ogni termine deve comparire
+     * in almeno un campo.
+     */
+    private final List<String> termini = new ArrayList<>();
+
+    /**
+     * Costruttore vuoto: nessun criterio impostato, corrisponde a tutti i voli.
+     */
+    public CriteriRicercaVoli() {
+    }
+
+    /**
+     * Restituisce il testo da cercare nel codice del volo.
+     *
+     * @return Il testo, o null se il criterio non è impostato
+     */
+    public String getCodice() {
+        return codice;
+    }
+
+    /**
+     * Imposta il testo da cercare nel codice del volo.
+     *
+     * @param codice Il testo da cercare
+     */
+    public void setCodice(String codice) {
+        this.codice = codice;
+    }
+
+    /**
+     * Restituisce il testo da cercare nel nome della compagnia.
+     *
+     * @return Il testo, o null se il criterio non è impostato
+     */
+    public String getCompagnia() {
+        return compagnia;
+    }
+
+    /**
+     * Imposta il testo da cercare nel nome della compagnia.
+     *
+     * @param compagnia Il testo da cercare
+     */
+    public void setCompagnia(String compagnia) {
+        this.compagnia = compagnia;
+    }
+
+    /**
+     * Restituisce il testo da cercare nell'aeroporto di partenza.
+     *
+     * @return Il testo, o null se il criterio non è impostato
+     */
+    public String getOrigine() {
+        return origine;
+    }
+
+    /**
+     * Imposta il testo da cercare nell'aeroporto di partenza.
+     *
+     * @param origine Il testo da cercare
+     */
+    public void setOrigine(String origine) {
+        this.origine = origine;
+    }
+
+    /**
+     * Restituisce il testo da cercare nell'aeroporto di arrivo.
+     *
+     * @return Il testo, o null se il criterio non è impostato
+     */
+    public String getDestinazione() {
+        return destinazione;
+    }
+
+    /**
+     * Imposta il testo da cercare nell'aeroporto di arrivo.
+     *
+     * @param destinazione Il testo da cercare
+     */
+    public void setDestinazione(String destinazione) {
+        this.destinazione = destinazione;
+    }
+
+    /**
+     * Restituisce il testo da cercare nell'orario previsto.
+     *
+     * @return Il testo, o null se il criterio non è impostato
+     */
+    public String getOrario() {
+        return orario;
+    }
+
+    /**
+     * Imposta il testo da cercare nell'orario previsto.
+     *
+     * @param orario Il testo da cercare
+     */
+    public void setOrario(String orario) {
+        this.orario = orario;
+    }
+
+    /**
+     * Restituisce la data minima di partenza.
+     *
+     * @return La data minima, o null se il criterio non è impostato
+     */
+    public LocalDate getDataDa() {
+        return dataDa;
+    }
+
+    /**
+     * Imposta la data minima di partenza (inclusa).
+     *
+     * @param dataDa La data minima
+     */
+    public void setDataDa(LocalDate dataDa) {
+        this.dataDa = dataDa;
+    }
+
+    /**
+     * Restituisce la data massima di partenza.
+     *
+     * @return La data massima, o null se il criterio non è impostato
+     */
+    public LocalDate getDataA() {
+        return dataA;
+    }
+
+    /**
+     * Imposta la data massima di partenza (inclusa).
+     *
+     * @param dataA La data massima
+     */
+    public void setDataA(LocalDate dataA) {
+        this.dataA = dataA;
+    }
+
+    /**
+     * Restituisce gli stati ammessi.
+     *
+     * @return La lista degli stati ammessi, vuota se qualsiasi stato è ammesso
+     */
+    public List<StatoVolo> getStati() {
+        return stati;
+    }
+
+    /**
+     * Imposta l'intervallo di date a partire da una data anche parziale.
+     * Sono accettati i formati AAAA (tutto l'anno), AAAA-MM (tutto il mese) e AAAA-MM-GG (un solo giorno).
+     *
+     * @param testo La data, completa o parziale
+     * @throws IllegalArgumentException Se il testo non è in uno dei formati accettati
+     */
+    public void impostaIntervalloDate(String testo) {
+        String t = testo.trim();
+        try {
+            if (t.matches("\\d{4}")) {
+                Year anno = Year.parse(t);
+                dataDa = anno.atDay(1);
+                dataA = anno.atMonth(12).atEndOfMonth();
+            } else if (t.matches("\\d{4}-\\d{2}")) {
+                YearMonth mese = YearMonth.parse(t);
+                dataDa = mese.atDay(1);
+                dataA = mese.atEndOfMonth();
+            } else {
+                dataDa = LocalDate.parse(t);
+                dataA = dataDa;
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Formato data non valido: usare AAAA, AAAA-MM o AAAA-MM-GG");
+        }
+    }
+
+    /**
+     * Ammette tutti gli stati il cui nome contiene il testo indicato, senza distinzione
+     * tra maiuscole e minuscole.
+     *
+     * @param testo Il testo da cercare nel nome dello stato
+     * @return true se almeno uno stato corrisponde, false altrimenti
+     */
+    public boolean aggiungiStatiContenenti(String testo) {
+        String t = testo.trim().toLowerCase();
+        boolean trovato = false;
+        for (StatoVolo stato : StatoVolo.values()) {
+            if (stato.name().toLowerCase().contains(t)) {
+                aggiungiStato(stato);
+                trovato = true;
+            }
+        }
+        return trovato;
+    }
+
+    /**
+     * Aggiunge uno stato all'insieme degli stati ammessi.
+     *
+     * @param stato Lo stato da ammettere
+     */
+    public void aggiungiStato(StatoVolo stato) {
+        if (!stati.contains(stato)) {
+            stati.add(stato);
+        }
+    }
+
+    /**
+     * Restituisce i termini da cercare in tutti i campi del volo.
+     *
+     * @return La lista dei termini, in minuscolo; vuota se il criterio non è impostato
+     */
+    public List<String> getTermini() {
+        return termini;
+    }
+
+    /**
+     * Imposta i termini da cercare in tutti i campi del volo a partire da un testo libero:
+     * le parole separate da spazi diventano termini distinti, tutti obbligatori.
+     *
+     * @param testo Il testo inserito dall'utente
+     */
+    public void setTesto(String testo) {
+        termini.clear();
+        for (String parola : testo.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!parola.isEmpty() && !termini.contains(parola)) {
+                termini.add(parola);
+            }
+        }
+    }
+
+    /**
+     * Verifica se un volo contiene tutti i termini di ricerca. Gli altri criteri non vengono verificati.
+     *
+     * @param volo Il volo da verificare
+     * @return true se ogni termine compare in almeno un campo del volo, false altrimenti
+     */
+    public boolean contieneTermini(Volo volo) {
+        String testo = testoRicerca(volo);
+        for (String termine : termini) {
+            if (!testo.contains(termine)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifica se questi criteri selezionano un sottoinsieme dei voli selezionati da altri criteri:
+     * i criteri diversi dai termini coincidono e ogni termine degli altri criteri è contenuto in uno
+     * di questi termini, come quando l'utente continua a scrivere il testo cercato.
+     * In questo caso i risultati dei nuovi criteri si ottengono filtrando con {@link #contieneTermini}
+     * i risultati completi dei criteri precedenti.
+     *
+     * @param altri I criteri precedenti
+     * @return true se questi criteri restringono gli altri, false altrimenti
+     */
+    public boolean restringe(CriteriRicercaVoli altri) {
+        if (!Objects.equals(codice, altri.codice) || !Objects.equals(compagnia, altri.compagnia)
+                || !Objects.equals(origine, altri.origine) || !Objects.equals(destinazione, altri.destinazione)
+                || !Objects.equals(orario, altri.orario) || !Objects.equals(dataDa, altri.dataDa)
+                || !Objects.equals(dataA, altri.dataA) || !new HashSet<>(stati).equals(new HashSet<>(altri.stati))) {
+            return false;
+        }
+        for (String precedente : altri.termini) {
+            boolean contenuto = false;
+            for (String termine : termini) {
+                if (termine.contains(precedente)) {
+                    contenuto = true;
+                    break;
+                }
+            }
+            if (!contenuto) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Costruisce il testo in cui vengono cercati i termini: codice, compagnia, origine, destinazione,
+     * orario, stato e data del volo in minuscolo, separati da uno spazio. Corrisponde alla funzione
+     * SQL {@code testo_ricerca_volo} della migrazione V10.
+     *
+     * @param volo Il volo
+     * @return Il testo di ricerca del volo
+     */
+    public static String testoRicerca(Volo volo) {
+        StringBuilder sb = new StringBuilder();
+        Object[] campi = {volo.getCodiceVolo(), volo.getCompagnia(), volo.getOrigine(), volo.getDestinazione(),
+                volo.getOrarioPrevisto(), volo.getStato(), volo.getData()};
+        for (Object campo : campi) {
+            if (campo != null) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(campo);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,90 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Classe che identifica una pagina nella ricerca dei voli.
+ * La paginazione è di tipo keyset: invece di un offset, il cursore ricorda la chiave
+ * (data, codice) dell'ultimo volo della pagina precedente, così che ogni pagina venga
+ * letta direttamente dall'indice indipendentemente da quanto si è avanti nei risultati.
+ * I voli sono ordinati per data e codice in ordine decrescente.
+ */
+public class CursoreVoli {
+    /**
+     * Numero massimo di voli per pagina.
+     */
+    private final int dimensione;
+
+    /**
+     * Data dell'ultimo volo della pagina precedente, o null per la prima pagina.
+     */
+    private final LocalDate dopoData;
+
+    /**
+     * Codice dell'ultimo volo della pagina precedente, o null per la prima pagina.
+     */
+    private final String dopoCodice;
+
+    /**
+     * Costruttore del cursore per la prima pagina.
+     *
+     * @param dimensione Numero massimo di voli per pagina
+     * @throws IllegalArgumentException Se la dimensione non è positiva
+     */
+    public CursoreVoli(int dimensione) {
+        this(dimensione, null, null);
+    }
+
+    /**
+     * Costruttore del cursore per la pagina che segue il volo indicato.
+     *
+     * @param dimensione Numero massimo di voli per pagina
+     * @param dopoData   Data dell'ultimo volo della pagina precedente
+     * @param dopoCodice Codice dell'ultimo volo della pagina precedente
+     * @throws IllegalArgumentException Se la dimensione non è positiva
+     */
+    public CursoreVoli(int dimensione, LocalDate dopoData, String dopoCodice) {
+        if (dimensione <= 0) {
+            throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di zero");
+        }
+        this.dimensione = dimensione;
+        this.dopoData = dopoData;
+        this.dopoCodice = dopoCodice;
+    }
+
+    /**
+     * Restituisce il numero massimo di voli per pagina.
+     *
+     * @return La dimensione della pagina
+     */
+    public int getDimensione() {
+        return dimensione;
+    }
+
+    /**
+     * Restituisce la data dell'ultimo volo della pagina precedente.
+     *
+     * @return La data, o null per la prima pagina
+     */
+    public LocalDate getDopoData() {
+        return dopoData;
+    }
+
+    /**
+     * Restituisce il codice dell'ultimo volo della pagina precedente.
+     *
+     * @return Il codice, o null per la prima pagina
+     */
+    public String getDopoCodice() {
+        return dopoCodice;
+    }
+
+    /**
+     * Verifica se il cursore indica la prima pagina.
+     *
+     * @return true se è la prima pagina, false altrimenti
+     */
+    public boolean isPrimaPagina() {
+        return dopoData == null || dopoCodice == null;
+    }
+}
@@ -0,0 +1,122 @@
+package model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe che rappresenta il dettaglio completo di un volo, letto dal database in una sola interrogazione:
+ * il volo, il gate assegnato, le prenotazioni con i relativi passeggeri e bagagli e la mappa dei posti.
+ * Le prenotazioni sono indicizzate per numero di biglietto e per codice dei bagagli, così che i dialoghi
+ * di dettaglio di una prenotazione o di un bagaglio non richiedano ulteriori letture.
+ */
+public class DettaglioVolo {
+    /**
+     * Volo di cui è riportato il dettaglio.
+     */
+    private final Volo volo;
+
+    /**
+     * Gate assegnato al volo, o null se non assegnato.
+     */
+    private final Gate gate;
+
+    /**
+     * Prenotazioni del volo, ordinate per numero di biglietto, con passeggero e bagagli.
+     */
+    private final List<Prenotazione> prenotazioni;
+
+    /**
+     * Mappa dei posti del volo con il loro stato di occupazione.
+     */
+    private final MappaPosti posti;
+
+    /**
+     * Prenotazioni indicizzate per numero di biglietto.
+     */
+    private final Map<String, Prenotazione> perBiglietto = new HashMap<>();
+
+    /**
+     * Prenotazioni indicizzate per codice dei loro bagagli.
+     */
+    private final Map<String, Prenotazione> perBagaglio = new HashMap<>();
+
+    /**
+     * Costruttore della classe DettaglioVolo.
+     *
+     * @param volo         Il volo
+     * @param gate         Il gate assegnato al volo, o null se non assegnato
+     * @param prenotazioni Le prenotazioni del volo, con passeggero e bagagli
+     * @param posti        La mappa dei posti del volo
+     */
+    public DettaglioVolo(Volo volo, Gate gate, List<Prenotazione> prenotazioni, MappaPosti posti) {
+        this.volo = volo;
+        this.gate = gate;
+        this.prenotazioni = prenotazioni;
+        this.posti = posti;
+        for (Prenotazione prenotazione : prenotazioni) {
+            perBiglietto.put(prenotazione.getNumeroBiglietto(), prenotazione);
+            if (prenotazione.getBagagli() != null) {
+                for (Bagaglio bagaglio : prenotazione.getBagagli()) {
+                    perBagaglio.put(bagaglio.getCodice(), prenotazione);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restituisce il volo.
+     *
+     * @return Il volo
+     */
+    public Volo getVolo() {
+        return volo;
+    }
+
+    /**
+     * Restituisce il gate assegnato al volo.
+     *
+     * @return Il gate, o null se non assegnato
+     */
+    public Gate getGate() {
+        return gate;
+    }
+
+    /**
+     * Restituisce le prenotazioni del volo, ordinate per numero di biglietto.
+     *
+     * @return Le prenotazioni, con passeggero e bagagli
+     */
+    public List<Prenotazione> getPrenotazioni() {
+        return prenotazioni;
+    }
+
+    /**
+     * Restituisce la mappa dei posti del volo.
+     *
+     * @return La mappa dei posti
+     */
+    public MappaPosti getPosti() {
+        return posti;
+    }
+
+    /**
+     * Restituisce la prenotazione del volo con il numero di biglietto indicato.
+     *
+     * @param numeroBiglietto Il numero del biglietto
+     * @return La prenotazione, o null se non appartiene al volo
+     */
+    public Prenotazione getPrenotazione(String numeroBiglietto) {
+        return perBiglietto.get(numeroBiglietto);
+    }
+
+    /**
+     * Restituisce la prenotazione del volo a cui appartiene il bagaglio indicato.
+     *
+     * @param codiceBagaglio Il codice del bagaglio
+     * @return La prenotazione, o null se il bagaglio non appartiene a una prenotazione del volo
+     */
+    public Prenotazione getPrenotazioneByBagaglio(String codiceBagaglio) {
+        return perBagaglio.get(codiceBagaglio);
+    }
+}
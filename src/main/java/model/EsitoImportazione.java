@@ -0,0 +1,195 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classe che rappresenta il risultato dell'importazione massiva di un calendario voli.
+ * Riporta il numero di record CSV letti, i voli e i posti effettivamente creati e, per ogni
+ * record scartato, il motivo dello scarto. Un record coincide con una riga del file, salvo che
+ * un campo tra virgolette contenga un a capo. Se l'importazione non è stata eseguita affatto
+ * (ad esempio per un file CSV malformato) viene valorizzato l'errore generale.
+ */
+public class EsitoImportazione {
+    /**
+     * Numero di record di dati letti dal file (intestazione esclusa).
+     */
+    private long righeLette;
+
+    /**
+     * Numero di voli inseriti nel database.
+     */
+    private int voliInseriti;
+
+    /**
+     * Numero di posti creati per i voli inseriti.
+     */
+    private int postiCreati;
+
+    /**
+     * Errori di validazione dei singoli record scartati.
+     */
+    private final List<ErroreRiga> errori = new ArrayList<>();
+
+    /**
+     * Errore che ha impedito l'intera importazione, o null se l'importazione è stata eseguita.
+     */
+    private String erroreGenerale;
+
+    /**
+     * Costruttore vuoto della classe EsitoImportazione.
+     */
+    public EsitoImportazione() {
+    }
+
+    /**
+     * Restituisce il numero di record di dati letti dal file.
+     *
+     * @return Il numero di record letti
+     */
+    public long getRigheLette() {
+        return righeLette;
+    }
+
+    /**
+     * Imposta il numero di record di dati letti dal file.
+     *
+     * @param righeLette Il numero di record letti
+     */
+    public void setRigheLette(long righeLette) {
+        this.righeLette = righeLette;
+    }
+
+    /**
+     * Restituisce il numero di voli inseriti.
+     *
+     * @return Il numero di voli inseriti
+     */
+    public int getVoliInseriti() {
+        return voliInseriti;
+    }
+
+    /**
+     * Imposta il numero di voli inseriti.
+     *
+     * @param voliInseriti Il numero di voli inseriti
+     */
+    public void setVoliInseriti(int voliInseriti) {
+        this.voliInseriti = voliInseriti;
+    }
+
+    /**
+     * Restituisce il numero di posti creati.
+     *
+     * @return Il numero di posti creati
+     */
+    public int getPostiCreati() {
+        return postiCreati;
+    }
+
+    /**
+     * Imposta il numero di posti creati.
+     *
+     * @param postiCreati Il numero di posti creati
+     */
+    public void setPostiCreati(int postiCreati) {
+        this.postiCreati = postiCreati;
+    }
+
+    /**
+     * Restituisce gli errori dei record scartati, in ordine di record.
+     *
+     * @return Lista non modificabile degli errori dei record
+     */
+    public List<ErroreRiga> getErrori() {
+        return Collections.unmodifiableList(errori);
+    }
+
+    /**
+     * Aggiunge l'errore di validazione di un record scartato.
+     *
+     * @param riga      Numero del record CSV nel file (il primo record di dati è il 2, dopo l'intestazione)
+     * @param messaggio Motivo dello scarto
+     */
+    public void aggiungiErrore(long riga, String messaggio) {
+        errori.add(new ErroreRiga(riga, messaggio));
+    }
+
+    /**
+     * Restituisce l'errore che ha impedito l'importazione.
+     *
+     * @return Il messaggio di errore, o null se l'importazione è stata eseguita
+     */
+    public String getErroreGenerale() {
+        return erroreGenerale;
+    }
+
+    /**
+     * Imposta l'errore che ha impedito l'importazione.
+     *
+     * @param erroreGenerale Il messaggio di errore
+     */
+    public void setErroreGenerale(String erroreGenerale) {
+        this.erroreGenerale = erroreGenerale;
+    }
+
+    /**
+     * Verifica se l'importazione è stata eseguita.
+     * Un'importazione eseguita può comunque contenere righe scartate.
+     *
+     * @return true se l'importazione è stata eseguita, false altrimenti
+     */
+    public boolean isEseguita() {
+        return erroreGenerale == null;
+    }
+
+    /**
+     * Errore di validazione relativo a un singolo record CSV del file importato.
+     */
+    public static class ErroreRiga {
+        /**
+         * Numero del record CSV nel file, intestazione compresa.
+         */
+        private final long riga;
+
+        /**
+         * Motivo dello scarto del record.
+         */
+        private final String messaggio;
+
+        /**
+         * Costruttore dell'errore di riga.
+         *
+         * @param riga      Numero del record CSV nel file
+         * @param messaggio Motivo dello scarto
+         */
+        public ErroreRiga(long riga, String messaggio) {
+            this.riga = riga;
+            this.messaggio = messaggio;
+        }
+
+        /**
+         * Restituisce il numero del record CSV nel file.
+         *
+         * @return Il numero del record
+         */
+        public long getRiga() {
+            return riga;
+        }
+
+        /**
+         * Restituisce il motivo dello scarto.
+         *
+         * @return Il messaggio di errore
+         */
+        public String getMessaggio() {
+            return messaggio;
+        }
+
+        @Override
+        public String toString() {
+            return "Record " + riga + ": " + messaggio;
+        }
+    }
+}
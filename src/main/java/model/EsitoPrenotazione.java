@@ -0,0 +1,110 @@
+package model;
+
+/**
+ * Classe che rappresenta il risultato della registrazione di una prenotazione.
+ * Se la registrazione è riuscita riporta gli identificativi generati dal database
+ * per la prenotazione e per il passeggero e il posto assegnato; altrimenti riporta il motivo del fallimento.
+ */
+public class EsitoPrenotazione {
+    /**
+     * Identificativo generato per la prenotazione, o -1 se la registrazione è fallita.
+     */
+    private final int idPrenotazione;
+
+    /**
+     * Identificativo del passeggero, esistente o appena inserito, o -1 se la registrazione è fallita.
+     */
+    private final int idPasseggero;
+
+    /**
+     * Posto assegnato alla prenotazione, o null se la registrazione è fallita.
+     */
+    private final String posto;
+
+    /**
+     * Motivo del fallimento, o null se la registrazione è riuscita.
+     */
+    private final String errore;
+
+    /**
+     * Costruttore privato: utilizzare {@link #riuscita(int, int, String)} o {@link #fallita(String)}.
+     *
+     * @param idPrenotazione Identificativo della prenotazione
+     * @param idPasseggero   Identificativo del passeggero
+     * @param posto          Posto assegnato
+     * @param errore         Motivo del fallimento
+     */
+    private EsitoPrenotazione(int idPrenotazione, int idPasseggero, String posto, String errore) {
+        this.idPrenotazione = idPrenotazione;
+        this.idPasseggero = idPasseggero;
+        this.posto = posto;
+        this.errore = errore;
+    }
+
+    /**
+     * Crea l'esito di una registrazione riuscita.
+     *
+     * @param idPrenotazione Identificativo generato per la prenotazione
+     * @param idPasseggero   Identificativo del passeggero
+     * @param posto          Posto assegnato alla prenotazione
+     * @return L'esito riuscito
+     */
+    public static EsitoPrenotazione riuscita(int idPrenotazione, int idPasseggero, String posto) {
+        return new EsitoPrenotazione(idPrenotazione, idPasseggero, posto, null);
+    }
+
+    /**
+     * Crea l'esito di una registrazione fallita.
+     *
+     * @param errore Il motivo del fallimento
+     * @return L'esito fallito
+     */
+    public static EsitoPrenotazione fallita(String errore) {
+        return new EsitoPrenotazione(-1, -1, null, errore);
+    }
+
+    /**
+     * Verifica se la registrazione è riuscita.
+     *
+     * @return true se la prenotazione è stata registrata, false altrimenti
+     */
+    public boolean isRiuscita() {
+        return errore == null;
+    }
+
+    /**
+     * Restituisce l'identificativo generato per la prenotazione.
+     *
+     * @return L'identificativo della prenotazione, o -1 se la registrazione è fallita
+     */
+    public int getIdPrenotazione() {
+        return idPrenotazione;
+    }
+
+    /**
+     * Restituisce l'identificativo del passeggero.
+     *
+     * @return L'identificativo del passeggero, o -1 se la registrazione è fallita
+     */
+    public int getIdPasseggero() {
+        return idPasseggero;
+    }
+
+    /**
+     * Restituisce il posto assegnato alla prenotazione.
+     *
+     * @return Il posto, o null se la registrazione è fallita
+     */
+    public String getPosto() {
+        return posto;
+    }
+
+    /**
+     * Restituisce il motivo del fallimento.
+     *
+     * @return Il messaggio di errore, o null se la registrazione è riuscita
+     */
+    public String getErrore() {
+        return errore;
+    }
+}
@@ -0,0 +1,324 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Indice in memoria per la ricerca per sottostringa tra i voli caricati.
+ * <p>
+ * Ogni volo riceve una posizione intera e il testo in minuscolo dei suoi campi ricercabili (codice,
+ * compagnia, origine, destinazione, data e stato) viene calcolato una sola volta. Per ogni trigramma
+ * (sequenza di tre caratteri) del testo l'indice mantiene la lista ordinata delle posizioni dei voli
+ * che lo contengono. Una ricerca di almeno tre caratteri parte dalla lista più corta tra quelle dei
+ * trigrammi del testo cercato, scarta le posizioni assenti dalle altre liste e verifica la sottostringa
+ * solo sui voli rimasti; i testi più corti vengono cercati direttamente nei testi precalcolati.
+ * L'indice si aggiorna volo per volo con {@link #aggiorna} e {@link #rimuovi}.
+ * <p>
+ * L'indice non è sincronizzato: va usato da un solo thread alla volta.
+ */
+public class IndiceRicercaVoli {
+    /**
+     * Separatore dei campi nel testo di un volo: non compare nei testi cercati, quindi i trigrammi
+     * a cavallo di due campi non corrispondono mai.
+     */
+    private static final char SEPARATORE = '\n';
+
+    /**
+     * Voli indicizzati, per posizione; null per le posizioni libere.
+     */
+    private final List<Volo> voli = new ArrayList<>();
+
+    /**
+     * Testi in minuscolo dei campi ricercabili dei voli, per posizione.
+     */
+    private final List<String> testi = new ArrayList<>();
+
+    /**
+     * Posizioni occupate.
+     */
+    private final BitSet occupate = new BitSet();
+
+    /**
+     * Posizioni dei voli indicizzati per codice.
+     */
+    private final Map<String, Integer> posizioni = new HashMap<>();
+
+    /**
+     * Liste ordinate delle posizioni dei voli che contengono ciascun trigramma.
+     */
+    private final Map<Long, Posizioni> trigrammi = new HashMap<>();
+
+    /**
+     * Costruttore della classe IndiceRicercaVoli. Crea un indice vuoto.
+     */
+    public IndiceRicercaVoli() {
+    }
+
+    /**
+     * Costruttore della classe IndiceRicercaVoli. Crea un indice contenente i voli indicati.
+     *
+     * @param voli I voli da indicizzare
+     */
+    public IndiceRicercaVoli(Collection<Volo> voli) {
+        for (Volo volo : voli) {
+            aggiorna(volo);
+        }
+    }
+
+    /**
+     * Aggiunge un volo all'indice, o lo sostituisce se un volo con lo stesso codice è già presente.
+     *
+     * @param volo Il volo da indicizzare
+     */
+    public void aggiorna(Volo volo) {
+        Integer posizione = posizioni.get(volo.getCodiceVolo());
+        String testo = testo(volo);
+        if (posizione == null) {
+            posizione = occupate.nextClearBit(0);
+            occupate.set(posizione);
+            posizioni.put(volo.getCodiceVolo(), posizione);
+            if (posizione == voli.size()) {
+                voli.add(null);
+                testi.add(null);
+            }
+        } else if (testi.get(posizione).equals(testo)) {
+            voli.set(posizione, volo);
+            return;
+        } else {
+            rimuoviTrigrammi(testi.get(posizione), posizione);
+        }
+        voli.set(posizione, volo);
+        testi.set(posizione, testo);
+        for (int i = 0; i + 3 <= testo.length(); i++) {
+            trigrammi.computeIfAbsent(trigramma(testo, i), k -> new Posizioni()).aggiungi(posizione);
+        }
+    }
+
+    /**
+     * Rimuove un volo dall'indice.
+     *
+     * @param codiceVolo Il codice del volo da rimuovere
+     * @return true se il volo era presente, false altrimenti
+     */
+    public boolean rimuovi(String codiceVolo) {
+        Integer posizione = posizioni.remove(codiceVolo);
+        if (posizione == null) {
+            return false;
+        }
+        rimuoviTrigrammi(testi.get(posizione), posizione);
+        voli.set(posizione, null);
+        testi.set(posizione, null);
+        occupate.clear(posizione);
+        return true;
+    }
+
+    /**
+     * Cerca i voli che contengono il testo indicato, senza distinzione tra maiuscole e minuscole,
+     * in almeno uno tra codice, compagnia, origine, destinazione, data e stato.
+     *
+     * @param testo Il testo da cercare; se vuoto vengono restituiti tutti i voli
+     * @return I voli trovati, nell'ordine delle loro posizioni nell'indice
+     */
+    public List<Volo> cerca(String testo) {
+        String cercato = testo == null ? "" : testo.trim().toLowerCase(Locale.ROOT);
+        List<Volo> risultato = new ArrayList<>();
+        if (cercato.length() < 3) {
+            for (int i = occupate.nextSetBit(0); i >= 0; i = occupate.nextSetBit(i + 1)) {
+                if (testi.get(i).contains(cercato)) {
+                    risultato.add(voli.get(i));
+                }
+            }
+            return risultato;
+        }
+
+        Posizioni[] liste = new Posizioni[cercato.length() - 2];
+        for (int i = 0; i < liste.length; i++) {
+            liste[i] = trigrammi.get(trigramma(cercato, i));
+            if (liste[i] == null) {
+                return risultato;
+            }
+        }
+        Arrays.sort(liste, (a, b) -> Integer.compare(a.dimensione, b.dimensione));
+
+        // Le liste più lunghe, in fondo dopo l'ordinamento, che contengono tutti i voli non escludono alcun candidato
+        int daIntersecare = liste.length;
+        while (daIntersecare > 1 && liste[daIntersecare - 1].dimensione == posizioni.size()) {
+            daIntersecare--;
+        }
+        int[] candidati = Arrays.copyOf(liste[0].valori, liste[0].dimensione);
+        int numero = candidati.length;
+        for (int j = 1; j < daIntersecare && numero > 0; j++) {
+            numero = liste[j].interseca(candidati, numero);
+        }
+        // Con un solo trigramma la corrispondenza è esatta; altrimenti i trigrammi potrebbero non essere consecutivi
+        boolean verifica = liste.length > 1;
+        for (int i = 0; i < numero; i++) {
+            int posizione = candidati[i];
+            if (!verifica || testi.get(posizione).contains(cercato)) {
+                risultato.add(voli.get(posizione));
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce il volo indicizzato con il codice indicato.
+     *
+     * @param codiceVolo Il codice del volo
+     * @return Il volo, o null se non è presente nell'indice
+     */
+    public Volo getVolo(String codiceVolo) {
+        Integer posizione = posizioni.get(codiceVolo);
+        return posizione != null ? voli.get(posizione) : null;
+    }
+
+    /**
+     * Restituisce il numero di voli indicizzati.
+     *
+     * @return Il numero di voli
+     */
+    public int size() {
+        return posizioni.size();
+    }
+
+    /**
+     * Rimuove una posizione dalle liste dei trigrammi di un testo, eliminando le liste rimaste vuote.
+     *
+     * @param testo     Il testo indicizzato nella posizione
+     * @param posizione La posizione da rimuovere
+     */
+    private void rimuoviTrigrammi(String testo, int posizione) {
+        for (int i = 0; i + 3 <= testo.length(); i++) {
+            long chiave = trigramma(testo, i);
+            Posizioni lista = trigrammi.get(chiave);
+            if (lista != null && lista.rimuovi(posizione) && lista.dimensione == 0) {
+                trigrammi.remove(chiave);
+            }
+        }
+    }
+
+    /**
+     * Calcola il testo in minuscolo dei campi ricercabili di un volo, separati da {@link #SEPARATORE}.
+     *
+     * @param volo Il volo
+     * @return Il testo del volo
+     */
+    private static String testo(Volo volo) {
+        StringBuilder sb = new StringBuilder();
+        Object[] campi = {volo.getCodiceVolo(), volo.getCompagnia(), volo.getOrigine(),
+                volo.getDestinazione(), volo.getData(), volo.getStato()};
+        for (Object campo : campi) {
+            if (campo != null) {
+                sb.append(campo);
+            }
+            sb.append(SEPARATORE);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Codifica in un long il trigramma che inizia nella posizione indicata di un testo.
+     *
+     * @param testo  Il testo
+     * @param inizio La posizione del primo carattere
+     * @return Il trigramma codificato
+     */
+    private static long trigramma(String testo, int inizio) {
+        return ((long) testo.charAt(inizio) << 32) | ((long) testo.charAt(inizio + 1) << 16) | testo.charAt(inizio + 2);
+    }
+
+    /**
+     * Lista ordinata e senza duplicati di posizioni, memorizzata in un array di interi.
+     */
+    private static final class Posizioni {
+        /**
+         * Posizioni, ordinate nei primi {@link #dimensione} elementi.
+         */
+        private int[] valori = new int[4];
+
+        /**
+         * Numero di posizioni nella lista.
+         */
+        private int dimensione;
+
+        /**
+         * Aggiunge una posizione, se non già presente.
+         *
+         * @param posizione La posizione da aggiungere
+         */
+        private void aggiungi(int posizione) {
+            // Le posizioni nuove sono di solito maggiori di tutte le altre: si evita la ricerca binaria
+            int indice = dimensione > 0 && valori[dimensione - 1] < posizione
+                    ? -dimensione - 1
+                    : Arrays.binarySearch(valori, 0, dimensione, posizione);
+            if (indice >= 0) {
+                return;
+            }
+            indice = -indice - 1;
+            if (dimensione == valori.length) {
+                valori = Arrays.copyOf(valori, dimensione * 2);
+            }
+            System.arraycopy(valori, indice, valori, indice + 1, dimensione - indice);
+            valori[indice] = posizione;
+            dimensione++;
+        }
+
+        /**
+         * Rimuove una posizione.
+         *
+         * @param posizione La posizione da rimuovere
+         * @return true se la posizione era presente, false altrimenti
+         */
+        private boolean rimuovi(int posizione) {
+            int indice = Arrays.binarySearch(valori, 0, dimensione, posizione);
+            if (indice < 0) {
+                return false;
+            }
+            System.arraycopy(valori, indice + 1, valori, indice, dimensione - indice - 1);
+            dimensione--;
+            return true;
+        }
+
+        /**
+         * Mantiene tra le posizioni candidate, ordinate, solo quelle presenti anche in questa lista.
+         * Se questa lista è molto più lunga dei candidati le posizioni vengono cercate per bisezione,
+         * altrimenti le due liste vengono scorse in parallelo.
+         *
+         * @param candidati Le posizioni candidate, ordinate nei primi {@code numero} elementi
+         * @param numero    Il numero di posizioni candidate
+         * @return Il numero di posizioni rimaste, compattate all'inizio dell'array
+         */
+        private int interseca(int[] candidati, int numero) {
+            int rimasti = 0;
+            int da = 0;
+            boolean bisezione = dimensione > numero * 16L;
+            for (int i = 0; i < numero && da < dimensione; i++) {
+                int posizione = candidati[i];
+                if (bisezione) {
+                    int indice = Arrays.binarySearch(valori, da, dimensione, posizione);
+                    if (indice >= 0) {
+                        candidati[rimasti++] = posizione;
+                        da = indice + 1;
+                    } else {
+                        da = -indice - 1;
+                    }
+                } else {
+                    while (da < dimensione && valori[da] < posizione) {
+                        da++;
+                    }
+                    if (da < dimensione && valori[da] == posizione) {
+                        candidati[rimasti++] = posizione;
+                        da++;
+                    }
+                }
+            }
+            return rimasti;
+        }
+    }
+}
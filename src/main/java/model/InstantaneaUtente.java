@@ -0,0 +1,90 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe che rappresenta i dati di un utente letti dal database in una sola interrogazione:
+ * le prenotazioni con i relativi passeggeri e bagagli e la versione dei dati letti, da cui richiedere
+ * in seguito solo le modifiche. I bagagli sono indicizzati per codice insieme alla prenotazione
+ * a cui appartengono, così che le tabelle dei voli prenotati e dei bagagli non debbano
+ * cercare i bagagli tra le prenotazioni.
+ */
+public class InstantaneaUtente {
+    /**
+     * Prenotazioni dell'utente, con passeggero e bagagli.
+     */
+    private final List<Prenotazione> prenotazioni;
+
+    /**
+     * Versione dei dati letti.
+     */
+    private final long versione;
+
+    /**
+     * Bagagli dell'utente, nell'ordine delle prenotazioni a cui appartengono.
+     */
+    private final List<Bagaglio> bagagli = new ArrayList<>();
+
+    /**
+     * Prenotazioni indicizzate per codice dei loro bagagli.
+     */
+    private final Map<String, Prenotazione> perBagaglio = new HashMap<>();
+
+    /**
+     * Costruttore della classe InstantaneaUtente.
+     *
+     * @param prenotazioni Le prenotazioni dell'utente, con passeggero e bagagli
+     * @param versione     La versione dei dati letti
+     */
+    public InstantaneaUtente(List<Prenotazione> prenotazioni, long versione) {
+        this.prenotazioni = prenotazioni;
+        this.versione = versione;
+        for (Prenotazione prenotazione : prenotazioni) {
+            if (prenotazione.getBagagli() != null) {
+                for (Bagaglio bagaglio : prenotazione.getBagagli()) {
+                    bagagli.add(bagaglio);
+                    perBagaglio.put(bagaglio.getCodice(), prenotazione);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restituisce le prenotazioni dell'utente.
+     *
+     * @return Le prenotazioni, con passeggero e bagagli
+     */
+    public List<Prenotazione> getPrenotazioni() {
+        return prenotazioni;
+    }
+
+    /**
+     * Restituisce la versione dei dati letti, da passare alla richiesta delle modifiche successive.
+     *
+     * @return La versione
+     */
+    public long getVersione() {
+        return versione;
+    }
+
+    /**
+     * Restituisce tutti i bagagli dell'utente.
+     *
+     * @return I bagagli, nell'ordine delle prenotazioni a cui appartengono
+     */
+    public List<Bagaglio> getBagagli() {
+        return bagagli;
+    }
+
+    /**
+     * Restituisce le prenotazioni indicizzate per codice dei loro bagagli.
+     *
+     * @return La mappa dal codice del bagaglio alla prenotazione
+     */
+    public Map<String, Prenotazione> getPrenotazioniPerBagaglio() {
+        return perBagaglio;
+    }
+}
@@ -0,0 +1,272 @@
+package model;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Classe che rappresenta la mappa dei posti di un volo in forma compatta.
+ * <p>
+ * Ogni posto è identificato da un indice intero ricavato da fila e lettera
+ * ({@code (fila - 1) * postiPerFila + colonna}, con la colonna 0 per la lettera A), e lo stato dei
+ * posti è memorizzato in due {@link BitSet}: i posti esistenti e i posti occupati. La verifica
+ * dell'occupazione di un posto costa O(1), il conteggio dei posti liberi si riduce al conteggio dei
+ * bit impostati e i posti vengono visitati in ordine di fila e lettera senza bisogno di ordinarli.
+ * I blocchi temporanei, pochi rispetto ai posti, sono mantenuti in una mappa indice-titolare.
+ */
+public class MappaPosti {
+    /**
+     * Codice identificativo del volo a cui appartengono i posti.
+     */
+    private final String codiceVolo;
+
+    /**
+     * Numero di posti per fila (lettere da A in poi).
+     */
+    private final int postiPerFila;
+
+    /**
+     * Posti esistenti sul volo.
+     */
+    private final BitSet esistenti = new BitSet();
+
+    /**
+     * Posti occupati da una prenotazione, sottoinsieme dei posti esistenti.
+     */
+    private final BitSet occupati = new BitSet();
+
+    /**
+     * Titolari dei blocchi temporanei attivi, indicizzati per posto.
+     */
+    private final Map<Integer, String> titolariBlocchi = new HashMap<>();
+
+    /**
+     * Costruttore della classe MappaPosti. Crea una mappa senza posti.
+     *
+     * @param codiceVolo   Codice identificativo del volo
+     * @param postiPerFila Numero di posti per fila
+     */
+    public MappaPosti(String codiceVolo, int postiPerFila) {
+        if (postiPerFila <= 0 || postiPerFila > 26) {
+            throw new IllegalArgumentException("Il numero di posti per fila deve essere compreso tra 1 e 26");
+        }
+        this.codiceVolo = codiceVolo;
+        this.postiPerFila = postiPerFila;
+    }
+
+    /**
+     * Costruttore della classe MappaPosti a partire dalle bitmap dei posti esistenti e occupati,
+     * indicizzate come descritto nella documentazione della classe.
+     *
+     * @param codiceVolo   Codice identificativo del volo
+     * @param postiPerFila Numero di posti per fila
+     * @param esistenti    I posti esistenti sul volo
+     * @param occupati     I posti occupati; i bit dei posti non esistenti vengono ignorati
+     */
+    public MappaPosti(String codiceVolo, int postiPerFila, BitSet esistenti, BitSet occupati) {
+        this(codiceVolo, postiPerFila);
+        this.esistenti.or(esistenti);
+        this.occupati.or(occupati);
+        this.occupati.and(esistenti);
+    }
+
+    /**
+     * Restituisce una copia indipendente della mappa dei posti.
+     *
+     * @return La copia della mappa
+     */
+    public MappaPosti copia() {
+        MappaPosti copia = new MappaPosti(codiceVolo, postiPerFila, esistenti, occupati);
+        copia.titolariBlocchi.putAll(titolariBlocchi);
+        return copia;
+    }
+
+    /**
+     * Imposta il titolare del blocco temporaneo del posto indicato, se esiste.
+     *
+     * @param etichetta L'etichetta del posto
+     * @param titolare  Lo username di chi blocca il posto, o null per rimuovere il blocco
+     */
+    public void setTitolareBlocco(String etichetta, String titolare) {
+        int indice = indice(etichetta);
+        if (!esiste(indice)) {
+            return;
+        }
+        if (titolare != null) {
+            titolariBlocchi.put(indice, titolare);
+        } else {
+            titolariBlocchi.remove(indice);
+        }
+    }
+
+    /**
+     * Aggiunge un posto alla mappa.
+     *
+     * @param etichetta       L'etichetta del posto (es. "12C")
+     * @param occupato        true se il posto è occupato
+     * @param titolareBlocco  Lo username di chi blocca temporaneamente il posto, o null
+     * @return true se il posto è stato aggiunto, false se l'etichetta non è valida per questa mappa
+     */
+    public boolean aggiungi(String etichetta, boolean occupato, String titolareBlocco) {
+        int indice = indice(etichetta);
+        if (indice < 0) {
+            return false;
+        }
+        esistenti.set(indice);
+        occupati.set(indice, occupato);
+        if (titolareBlocco != null) {
+            titolariBlocchi.put(indice, titolareBlocco);
+        } else {
+            titolariBlocchi.remove(indice);
+        }
+        return true;
+    }
+
+    /**
+     * Calcola l'indice di un posto a partire dall'etichetta, senza espressioni regolari.
+     *
+     * @param etichetta L'etichetta del posto, formata dal numero di fila seguito da una lettera (es. "12C")
+     * @return L'indice del posto, o -1 se l'etichetta non è valida per questa mappa
+     */
+    public int indice(String etichetta) {
+        if (etichetta == null || etichetta.length() < 2) {
+            return -1;
+        }
+        int ultima = etichetta.length() - 1;
+        int colonna = Character.toUpperCase(etichetta.charAt(ultima)) - 'A';
+        if (colonna < 0 || colonna >= postiPerFila) {
+            return -1;
+        }
+        int fila = 0;
+        for (int i = 0; i < ultima; i++) {
+            char c = etichetta.charAt(i);
+            if (c < '0' || c > '9' || fila > (Integer.MAX_VALUE - 9) / 10 / postiPerFila) {
+                return -1;
+            }
+            fila = fila * 10 + (c - '0');
+        }
+        return fila < 1 ? -1 : (fila - 1) * postiPerFila + colonna;
+    }
+
+    /**
+     * Restituisce l'etichetta del posto con l'indice indicato.
+     *
+     * @param indice L'indice del posto
+     * @return L'etichetta del posto (es. "12C")
+     */
+    public String etichetta(int indice) {
+        return (indice / postiPerFila + 1) + String.valueOf((char) ('A' + indice % postiPerFila));
+    }
+
+    /**
+     * Verifica se il posto con l'indice indicato esiste sul volo.
+     *
+     * @param indice L'indice del posto
+     * @return true se il posto esiste
+     */
+    public boolean esiste(int indice) {
+        return indice >= 0 && esistenti.get(indice);
+    }
+
+    /**
+     * Verifica se il posto con l'indice indicato è occupato.
+     *
+     * @param indice L'indice del posto
+     * @return true se il posto è occupato
+     */
+    public boolean isOccupato(int indice) {
+        return indice >= 0 && occupati.get(indice);
+    }
+
+    /**
+     * Verifica se il posto indicato è occupato.
+     *
+     * @param etichetta L'etichetta del posto
+     * @return true se il posto è occupato
+     */
+    public boolean isOccupato(String etichetta) {
+        return isOccupato(indice(etichetta));
+    }
+
+    /**
+     * Verifica se il posto con l'indice indicato è bloccato temporaneamente da un utente diverso da quello indicato.
+     *
+     * @param indice   L'indice del posto
+     * @param username Lo username dell'utente che sta scegliendo il posto
+     * @return true se il posto è bloccato da un altro utente
+     */
+    public boolean isBloccatoDaAltri(int indice, String username) {
+        String titolare = titolariBlocchi.get(indice);
+        return titolare != null && !titolare.equals(username);
+    }
+
+    /**
+     * Segna come occupato o libero il posto indicato, se esiste.
+     *
+     * @param etichetta L'etichetta del posto
+     * @param occupato  true per segnare il posto come occupato, false per segnarlo come libero
+     */
+    public void setOccupato(String etichetta, boolean occupato) {
+        int indice = indice(etichetta);
+        if (esiste(indice)) {
+            occupati.set(indice, occupato);
+        }
+    }
+
+    /**
+     * Visita gli indici dei posti esistenti in ordine di fila e lettera.
+     *
+     * @param visitatore Riceve l'indice di ogni posto
+     */
+    public void perOgniPosto(IntConsumer visitatore) {
+        for (int i = esistenti.nextSetBit(0); i >= 0; i = esistenti.nextSetBit(i + 1)) {
+            visitatore.accept(i);
+        }
+    }
+
+    /**
+     * Restituisce il numero di posti del volo.
+     *
+     * @return Il numero di posti esistenti
+     */
+    public int getNumeroPosti() {
+        return esistenti.cardinality();
+    }
+
+    /**
+     * Restituisce il numero di posti liberi del volo, compresi quelli bloccati temporaneamente.
+     *
+     * @return Il numero di posti non occupati
+     */
+    public int getPostiLiberi() {
+        return esistenti.cardinality() - occupati.cardinality();
+    }
+
+    /**
+     * Restituisce il numero di file della mappa, fino all'ultima fila con almeno un posto.
+     *
+     * @return Il numero di file
+     */
+    public int getNumeroFile() {
+        return (esistenti.length() + postiPerFila - 1) / postiPerFila;
+    }
+
+    /**
+     * Restituisce il numero di posti per fila.
+     *
+     * @return Il numero di posti per fila
+     */
+    public int getPostiPerFila() {
+        return postiPerFila;
+    }
+
+    /**
+     * Restituisce il codice del volo a cui appartengono i posti.
+     *
+     * @return Il codice del volo
+     */
+    public String getCodiceVolo() {
+        return codiceVolo;
+    }
+}
@@ -0,0 +1,75 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Classe che rappresenta una pagina di risultati della ricerca dei voli.
+ * Contiene i voli della pagina e, se esistono altri risultati, il cursore
+ * con cui richiedere la pagina successiva, oltre alla versione dei dati letti
+ * da cui richiedere in seguito solo le modifiche.
+ */
+public class PaginaVoli {
+    /**
+     * Voli contenuti nella pagina.
+     */
+    private final List<Volo> voli;
+
+    /**
+     * Cursore della pagina successiva, o null se questa è l'ultima pagina.
+     */
+    private final CursoreVoli successiva;
+
+    /**
+     * Versione dei dati letti, o -1 se non nota.
+     */
+    private final long versione;
+
+    /**
+     * Costruttore della pagina.
+     *
+     * @param voli       Voli contenuti nella pagina
+     * @param successiva Cursore della pagina successiva, o null se è l'ultima pagina
+     * @param versione   Versione dei dati letti, o -1 se non nota
+     */
+    public PaginaVoli(List<Volo> voli, CursoreVoli successiva, long versione) {
+        this.voli = voli;
+        this.successiva = successiva;
+        this.versione = versione;
+    }
+
+    /**
+     * Restituisce i voli contenuti nella pagina.
+     *
+     * @return La lista dei voli della pagina
+     */
+    public List<Volo> getVoli() {
+        return voli;
+    }
+
+    /**
+     * Restituisce il cursore della pagina successiva.
+     *
+     * @return Il cursore, o null se questa è l'ultima pagina
+     */
+    public CursoreVoli getSuccessiva() {
+        return successiva;
+    }
+
+    /**
+     * Restituisce la versione dei dati letti, da passare alla richiesta delle modifiche successive.
+     *
+     * @return La versione, o -1 se non nota
+     */
+    public long getVersione() {
+        return versione;
+    }
+
+    /**
+     * Verifica se esistono altri risultati dopo questa pagina.
+     *
+     * @return true se esiste una pagina successiva, false altrimenti
+     */
+    public boolean haSuccessiva() {
+        return successiva != null;
+    }
+}
@@ -0,0 +1,77 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Classe che rappresenta le modifiche ai dati avvenute dopo una certa versione,
+ * usata per aggiornare le tabelle senza rileggere tutti i dati.
+ * Contiene gli elementi inseriti o modificati, le chiavi degli elementi da rimuovere
+ * e la nuova versione da cui richiedere le modifiche successive.
+ *
+ * @param <T> Il tipo degli elementi modificati
+ */
+public class Variazioni<T> {
+    /**
+     * Elementi inseriti o modificati dopo la versione richiesta.
+     */
+    private final List<T> modificati;
+
+    /**
+     * Chiavi degli elementi cancellati, o che non corrispondono più ai criteri richiesti.
+     */
+    private final List<String> rimossi;
+
+    /**
+     * Versione da cui richiedere le modifiche successive.
+     */
+    private final long versione;
+
+    /**
+     * Costruttore della classe Variazioni.
+     *
+     * @param modificati Elementi inseriti o modificati
+     * @param rimossi    Chiavi degli elementi da rimuovere
+     * @param versione   Versione da cui richiedere le modifiche successive
+     */
+    public Variazioni(List<T> modificati, List<String> rimossi, long versione) {
+        this.modificati = modificati;
+        this.rimossi = rimossi;
+        this.versione = versione;
+    }
+
+    /**
+     * Restituisce gli elementi inseriti o modificati.
+     *
+     * @return La lista degli elementi modificati
+     */
+    public List<T> getModificati() {
+        return modificati;
+    }
+
+    /**
+     * Restituisce le chiavi degli elementi da rimuovere.
+     *
+     * @return La lista delle chiavi
+     */
+    public List<String> getRimossi() {
+        return rimossi;
+    }
+
+    /**
+     * Restituisce la versione da cui richiedere le modifiche successive.
+     *
+     * @return La versione
+     */
+    public long getVersione() {
+        return versione;
+    }
+
+    /**
+     * Verifica se non ci sono modifiche.
+     *
+     * @return true se non ci sono elementi modificati né rimossi, false altrimenti
+     */
+    public boolean isVuota() {
+        return modificati.isEmpty() && rimossi.isEmpty();
+    }
+}
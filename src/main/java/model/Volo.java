@@ -109,6 +109,26 @@ public class Volo {
         this.gate = gate;
     }
 
+    /**
+     * Costruttore di copia della classe Volo.
+     * Crea un nuovo oggetto Volo con gli stessi dati del volo indicato.
+     *
+     * @param altro Il volo da copiare
+     */
+    public Volo(Volo altro) {
+        this.codiceVolo = altro.codiceVolo;
+        this.compagnia = altro.compagnia;
+        this.origine = altro.origine;
+        this.destinazione = altro.destinazione;
+        this.orarioPrevisto = altro.orarioPrevisto;
+        this.stato = altro.stato;
+        this.data = altro.data;
+        this.tempoRitardo = altro.tempoRitardo;
+        this.postiTotali = altro.postiTotali;
+        this.postiDisponibili = altro.postiDisponibili;
+        this.gate = altro.gate;
+    }
+
 
     /**
      * Restituisce il codice identificativo del volo.
@@ -0,0 +1,22 @@
+-- Ricerca voli su tutti i campi: ogni termine cercato deve comparire, senza distinzione tra maiuscole
+-- e minuscole, in almeno uno tra codice, compagnia, origine, destinazione, orario, stato e data.
+-- I campi vengono concatenati, separati da uno spazio, da testo_ricerca_volo e il risultato è indicizzato
+-- con un indice trigram: ogni termine diventa un filtro ILIKE '%termine%' servito dall'indice, e più
+-- termini si combinano con un BitmapAnd. I termini non contengono spazi, quindi non corrispondono mai
+-- a cavallo di due campi. La funzione deve restare allineata a CriteriRicercaVoli.testoRicerca, usata
+-- per filtrare in memoria i risultati già letti.
+-- La funzione è dichiarata IMMUTABLE, come richiesto per un indice su espressione: i formati sono
+-- espliciti e non dipendono dalle impostazioni della sessione.
+
+CREATE FUNCTION public.testo_ricerca_volo(p_codice character varying, p_compagnia character varying,
+                                          p_origine character varying, p_destinazione character varying,
+                                          p_orario time without time zone, p_stato public.statovolo,
+                                          p_data date) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT concat_ws(' ', p_codice, p_compagnia, p_origine, p_destinazione,
+                     to_char(p_orario, 'HH24:MI:SS'), p_stato::text, to_char(p_data, 'YYYY-MM-DD'))
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_volo_testo_ricerca_trgm ON public.volo
+    USING gin (public.testo_ricerca_volo(codice, compagnia, origine, destinazione, orario, stato, data) public.gin_trgm_ops);
@@ -0,0 +1,6 @@
+-- Rimozione della colonna volo.posti_disponibili.
+-- Da V5 la disponibilità di un volo viene ricavata dai posti liberi in posto e la colonna non viene più
+-- aggiornata dalle prenotazioni: il valore scritto all'inserimento del volo diventava subito obsoleto.
+-- Nessuna funzione o vista la legge più; il DAO calcola posti_disponibili contando i posti liberi.
+
+ALTER TABLE public.volo DROP COLUMN IF EXISTS posti_disponibili;
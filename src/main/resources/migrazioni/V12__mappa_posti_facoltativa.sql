@@ -0,0 +1,61 @@
+-- Manutenzione della mappa dei posti in formato bitmap solo quando viene letta.
+-- I trigger di V7 aggiornano l'unica riga di mappa_posti del volo a ogni cambio di stato di un posto,
+-- nella transazione della prenotazione: le prenotazioni concorrenti sullo stesso volo attendono il lock
+-- di quella riga fino al commit. Il costo ricadeva anche sulle istanze che leggono la mappa dalle righe
+-- di posto (formato predefinito), quindi i trigger vengono rimossi e installati solo con
+-- aeroporto.posti.formato=bitmap: all'avvio l'applicativo chiama attiva_mappa_posti o disattiva_mappa_posti
+-- (MigrazioniDatabase). Tutte le istanze che condividono il database devono usare lo stesso formato.
+-- All'attivazione le bitmap, non mantenute mentre i trigger erano assenti, vengono ricalcolate da posto,
+-- che resta la fonte dei dati; il CREATE TRIGGER blocca le scritture su posto fino al commit, quindi
+-- nessuna modifica sfugge al ricalcolo.
+
+CREATE FUNCTION public.mappa_posti_attiva() RETURNS boolean
+    LANGUAGE sql STABLE
+AS $$
+    SELECT EXISTS (SELECT 1 FROM pg_trigger
+                   WHERE tgrelid = 'public.posto'::regclass AND tgname = 'trg_mappa_posti_aggiornamento')
+$$;
+
+CREATE FUNCTION public.attiva_mappa_posti() RETURNS void
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF public.mappa_posti_attiva() THEN
+        RETURN;
+    END IF;
+
+    CREATE TRIGGER trg_mappa_posti_inserimento
+        AFTER INSERT ON public.posto
+        REFERENCING NEW TABLE AS nuovi
+        FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_inserimento();
+
+    CREATE TRIGGER trg_mappa_posti_cancellazione
+        AFTER DELETE ON public.posto
+        REFERENCING OLD TABLE AS vecchi
+        FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_cancellazione();
+
+    CREATE TRIGGER trg_mappa_posti_aggiornamento
+        AFTER UPDATE ON public.posto
+        REFERENCING OLD TABLE AS vecchi NEW TABLE AS nuovi
+        FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_aggiornamento();
+
+    PERFORM public.ricalcola_mappa_posti(ARRAY(SELECT v.codice FROM public.volo v));
+END;
+$$;
+
+CREATE FUNCTION public.disattiva_mappa_posti() RETURNS void
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- Senza trigger non viene richiesto alcun lock su posto
+    IF NOT public.mappa_posti_attiva() THEN
+        RETURN;
+    END IF;
+
+    DROP TRIGGER trg_mappa_posti_inserimento ON public.posto;
+    DROP TRIGGER trg_mappa_posti_cancellazione ON public.posto;
+    DROP TRIGGER trg_mappa_posti_aggiornamento ON public.posto;
+END;
+$$;
+
+SELECT public.disattiva_mappa_posti();
@@ -0,0 +1,56 @@
+-- Notifiche dei posti una volta per istruzione e notifiche dei blocchi temporanei.
+-- Il trigger di riga di V8 su posto esegue pg_notify per ogni riga modificata: la generazione dei posti
+-- di un volo accoda un messaggio per posto, scartati come duplicati solo al commit. Il nuovo trigger
+-- legge le tabelle di transizione, come i trigger della mappa dei posti di V7, e invia un solo messaggio
+-- per ciascun volo coinvolto dall'istruzione.
+-- Anche i blocchi temporanei di blocco_posto (V6) cambiano i posti liberi e la mappa dei posti: le loro
+-- modifiche vengono notificate con tabella posto, così che le altre istanze invalidino gli stessi dati.
+
+CREATE FUNCTION public.notifica_modifica_posti() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    -- Per un UPDATE i voli presenti in entrambe le tabelle producono messaggi identici, scartati da PostgreSQL
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM pg_notify('aeroporto_modifiche', format('posto|%s|%s||', TG_OP, n.codice_volo))
+        FROM (SELECT DISTINCT codice_volo FROM nuovi) n;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        PERFORM pg_notify('aeroporto_modifiche', format('posto|%s|%s||', TG_OP, o.codice_volo))
+        FROM (SELECT DISTINCT codice_volo FROM vecchi) o;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER trg_notifica_posto ON public.posto;
+
+CREATE TRIGGER trg_notifica_posto_inserimento
+    AFTER INSERT ON public.posto
+    REFERENCING NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
+
+CREATE TRIGGER trg_notifica_posto_cancellazione
+    AFTER DELETE ON public.posto
+    REFERENCING OLD TABLE AS vecchi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
+
+CREATE TRIGGER trg_notifica_posto_aggiornamento
+    AFTER UPDATE ON public.posto
+    REFERENCING OLD TABLE AS vecchi NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
+
+CREATE TRIGGER trg_notifica_blocco_posto_inserimento
+    AFTER INSERT ON public.blocco_posto
+    REFERENCING NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
+
+CREATE TRIGGER trg_notifica_blocco_posto_cancellazione
+    AFTER DELETE ON public.blocco_posto
+    REFERENCING OLD TABLE AS vecchi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
+
+CREATE TRIGGER trg_notifica_blocco_posto_aggiornamento
+    AFTER UPDATE ON public.blocco_posto
+    REFERENCING OLD TABLE AS vecchi NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifica_posti();
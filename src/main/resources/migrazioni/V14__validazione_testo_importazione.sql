@@ -0,0 +1,21 @@
+-- Verifica che un testo sia un valore valido di un tipo, per la validazione dell'importazione dei voli.
+-- pg_input_is_valid esiste solo da PostgreSQL 16: sulle versioni precedenti testo_valido esegue la
+-- conversione e intercetta l'errore di dato (classe 22, ad esempio 22P02 e 22008), restituendo false.
+-- Il blocco EXCEPTION apre una sottotransazione per chiamata, quindi da PostgreSQL 16 si usa
+-- pg_input_is_valid, invocato solo in quel ramo e perciò mai risolto sulle versioni precedenti.
+
+CREATE FUNCTION public.testo_valido(p_testo text, p_tipo regtype) RETURNS boolean
+    LANGUAGE plpgsql STABLE STRICT
+AS $$
+BEGIN
+    IF current_setting('server_version_num')::integer >= 160000 THEN
+        RETURN pg_input_is_valid(p_testo, p_tipo::text);
+    END IF;
+
+    EXECUTE format('SELECT %L::%s', p_testo, p_tipo);
+    RETURN true;
+EXCEPTION
+    WHEN data_exception THEN
+        RETURN false;
+END;
+$$;
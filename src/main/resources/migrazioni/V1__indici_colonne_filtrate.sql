@@ -0,0 +1,13 @@
+-- Indici B-tree sulle colonne filtrate dalle query del DAO.
+
+-- Prenotazioni di un volo (dettaglio volo, posti occupati).
+CREATE INDEX IF NOT EXISTS idx_prenotazione_codice_volo ON public.prenotazione USING btree (codice_volo);
+
+-- Bagagli di una prenotazione (JOIN prenotazione-bagaglio).
+CREATE INDEX IF NOT EXISTS idx_bagaglio_id_prenotazione ON public.bagaglio USING btree (id_prenotazione);
+
+-- Elenco dei bagagli smarriti.
+CREATE INDEX IF NOT EXISTS idx_bagaglio_stato ON public.bagaglio USING btree (stato);
+
+-- Filtri per intervallo di date e paginazione keyset su (data, codice) in ordine decrescente.
+CREATE INDEX IF NOT EXISTS idx_volo_data_codice ON public.volo USING btree (data, codice);
@@ -0,0 +1,9 @@
+-- Indici trigram per i filtri ILIKE '%testo%' della ricerca voli, che un B-tree non può servire.
+-- pg_trgm è un'estensione fidata: può essere installata dal proprietario del database.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX IF NOT EXISTS idx_volo_codice_trgm ON public.volo USING gin (codice public.gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_volo_compagnia_trgm ON public.volo USING gin (compagnia public.gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_volo_origine_trgm ON public.volo USING gin (origine public.gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_volo_destinazione_trgm ON public.volo USING gin (destinazione public.gin_trgm_ops);
@@ -0,0 +1,12 @@
+-- Sequenza per l'allocazione a blocchi dei numeri di biglietto.
+-- Ogni nextval riserva all'istanza dell'applicativo che lo esegue l'intero blocco
+-- [valore, valore + 1000): l'incremento deve coincidere con la dimensione del blocco
+-- usata da controller.GeneratoreNumeriBiglietto. Si parte da 1000000 per non collidere
+-- con i biglietti generati in precedenza (al più 4 cifre).
+
+CREATE SEQUENCE IF NOT EXISTS public.numero_biglietto_seq
+    AS bigint
+    START WITH 1000000
+    INCREMENT BY 1000
+    MINVALUE 1000000
+    NO CYCLE;
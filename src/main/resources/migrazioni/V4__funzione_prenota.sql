@@ -0,0 +1,70 @@
+-- Funzione che registra una prenotazione completa in un solo round trip.
+-- Occupa il posto, scala i posti disponibili del volo, riutilizza o inserisce il passeggero,
+-- inserisce la prenotazione e i bagagli. Viene eseguita come singola istruzione, quindi
+-- atomicamente: qualsiasi errore annulla tutte le modifiche.
+-- Gli errori applicativi sono sollevati con SQLSTATE P0001 e un messaggio leggibile.
+
+CREATE OR REPLACE FUNCTION public.prenota(
+    p_codice_volo character varying,
+    p_numero_biglietto character varying,
+    p_posto character varying,
+    p_stato character varying,
+    p_username character varying,
+    p_nome character varying,
+    p_cognome character varying,
+    p_numero_documento character varying,
+    p_codici_bagaglio character varying[],
+    p_stati_bagaglio character varying[])
+    RETURNS TABLE (id_prenotazione integer, id_passeggero integer)
+    LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_id_passeggero integer;
+    v_id_prenotazione integer;
+BEGIN
+    UPDATE public.posto
+    SET occupato = TRUE
+    WHERE codice_volo = p_codice_volo AND posto = p_posto AND occupato = FALSE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Impossibile occupare il posto %: già occupato o non esistente', p_posto;
+    END IF;
+
+    UPDATE public.volo
+    SET posti_disponibili = posti_disponibili - 1
+    WHERE codice = p_codice_volo AND posti_disponibili > 0;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Impossibile scalare i posti: nessun volo valido o posti esauriti';
+    END IF;
+
+    SELECT pa.id_passeggero INTO v_id_passeggero
+    FROM public.passeggero pa
+    WHERE pa.numero_documento = p_numero_documento;
+
+    IF v_id_passeggero IS NULL THEN
+        INSERT INTO public.passeggero (nome, cognome, numero_documento)
+        VALUES (p_nome, p_cognome, p_numero_documento)
+        ON CONFLICT (numero_documento) DO NOTHING
+        RETURNING passeggero.id_passeggero INTO v_id_passeggero;
+
+        -- Inserito nel frattempo da una transazione concorrente
+        IF v_id_passeggero IS NULL THEN
+            SELECT pa.id_passeggero INTO v_id_passeggero
+            FROM public.passeggero pa
+            WHERE pa.numero_documento = p_numero_documento;
+        END IF;
+    END IF;
+
+    INSERT INTO public.prenotazione (codice_volo, id_passeggero, numero_biglietto, posto, stato, username)
+    VALUES (p_codice_volo, v_id_passeggero, p_numero_biglietto, p_posto, p_stato, p_username)
+    RETURNING prenotazione.id_prenotazione INTO v_id_prenotazione;
+
+    INSERT INTO public.bagaglio (codice, stato, id_prenotazione)
+    SELECT b.codice, b.stato, v_id_prenotazione
+    FROM unnest(p_codici_bagaglio, p_stati_bagaglio) AS b(codice, stato);
+
+    id_prenotazione := v_id_prenotazione;
+    id_passeggero := v_id_passeggero;
+    RETURN NEXT;
+END;
+$$;
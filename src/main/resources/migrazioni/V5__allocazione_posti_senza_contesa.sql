@@ -0,0 +1,86 @@
+-- Allocazione dei posti senza contesa sulla riga del volo.
+-- La disponibilità di un volo viene ricavata dai posti liberi in posto (indice parziale sotto)
+-- invece che da volo.posti_disponibili: le prenotazioni concorrenti bloccano solo la riga del
+-- proprio posto e non serializzano più sulla stessa riga di volo. La colonna posti_disponibili
+-- resta nello schema ma non viene più aggiornata dalle prenotazioni.
+-- Se p_posto è NULL viene assegnato un posto libero qualsiasi con FOR UPDATE SKIP LOCKED:
+-- i prenotanti concorrenti saltano i posti già in corso di assegnazione invece di attenderli.
+
+CREATE INDEX IF NOT EXISTS idx_posto_liberi ON public.posto USING btree (codice_volo, posto) WHERE occupato = FALSE;
+
+DROP FUNCTION IF EXISTS public.prenota(character varying, character varying, character varying, character varying,
+    character varying, character varying, character varying, character varying, character varying[], character varying[]);
+
+CREATE FUNCTION public.prenota(
+    p_codice_volo character varying,
+    p_numero_biglietto character varying,
+    p_posto character varying,
+    p_stato character varying,
+    p_username character varying,
+    p_nome character varying,
+    p_cognome character varying,
+    p_numero_documento character varying,
+    p_codici_bagaglio character varying[],
+    p_stati_bagaglio character varying[])
+    RETURNS TABLE (id_prenotazione integer, id_passeggero integer, posto character varying)
+    LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_id_passeggero integer;
+    v_id_prenotazione integer;
+    v_posto character varying;
+BEGIN
+    IF p_posto IS NULL THEN
+        SELECT ps.posto INTO v_posto
+        FROM public.posto ps
+        WHERE ps.codice_volo = p_codice_volo AND ps.occupato = FALSE
+        ORDER BY length(ps.posto), ps.posto
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED;
+        IF v_posto IS NULL THEN
+            RAISE EXCEPTION 'Nessun posto libero sul volo %', p_codice_volo;
+        END IF;
+    ELSE
+        v_posto := p_posto;
+    END IF;
+
+    UPDATE public.posto ps
+    SET occupato = TRUE
+    WHERE ps.codice_volo = p_codice_volo AND ps.posto = v_posto AND ps.occupato = FALSE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Impossibile occupare il posto %: già occupato o non esistente', v_posto;
+    END IF;
+
+    SELECT pa.id_passeggero INTO v_id_passeggero
+    FROM public.passeggero pa
+    WHERE pa.numero_documento = p_numero_documento;
+
+    IF v_id_passeggero IS NULL THEN
+        INSERT INTO public.passeggero (nome, cognome, numero_documento)
+        VALUES (p_nome, p_cognome, p_numero_documento)
+        ON CONFLICT (numero_documento) DO NOTHING
+        RETURNING passeggero.id_passeggero INTO v_id_passeggero;
+
+        -- Inserito nel frattempo da una transazione concorrente
+        IF v_id_passeggero IS NULL THEN
+            SELECT pa.id_passeggero INTO v_id_passeggero
+            FROM public.passeggero pa
+            WHERE pa.numero_documento = p_numero_documento;
+        END IF;
+    END IF;
+
+    INSERT INTO public.prenotazione (codice_volo, id_passeggero, numero_biglietto, posto, stato, username)
+    VALUES (p_codice_volo, v_id_passeggero, p_numero_biglietto, v_posto, p_stato, p_username)
+    RETURNING prenotazione.id_prenotazione INTO v_id_prenotazione;
+
+    INSERT INTO public.bagaglio (codice, stato, id_prenotazione)
+    SELECT b.codice, b.stato, v_id_prenotazione
+    FROM unnest(p_codici_bagaglio, p_stati_bagaglio) AS b(codice, stato);
+
+    id_prenotazione := v_id_prenotazione;
+    id_passeggero := v_id_passeggero;
+    posto := v_posto;
+    RETURN NEXT;
+END;
+$$;
@@ -0,0 +1,107 @@
+-- Blocchi temporanei dei posti durante la scelta del posto.
+-- Selezionando un posto l'utente lo blocca per un tempo limitato: il blocco è una riga di
+-- blocco_posto con il titolare (username) e l'istante di scadenza. Un blocco scaduto non ha più
+-- effetto e viene sovrascritto dal blocco successivo sullo stesso posto o eliminato dalla
+-- prenotazione, quindi non serve un processo di pulizia: la scadenza è garantita anche se
+-- l'applicativo che ha creato il blocco termina senza rilasciarlo.
+-- prenota rifiuta i posti bloccati da altri utenti, esclude tali posti dall'assegnazione di un
+-- posto qualsiasi ed elimina il blocco del posto prenotato.
+
+CREATE TABLE IF NOT EXISTS public.blocco_posto (
+    codice_volo character varying(10) NOT NULL,
+    posto character varying(4) NOT NULL,
+    titolare character varying NOT NULL,
+    scadenza timestamp with time zone NOT NULL,
+    CONSTRAINT blocco_posto_pkey PRIMARY KEY (codice_volo, posto),
+    CONSTRAINT fk_blocco_posto_posto FOREIGN KEY (codice_volo, posto)
+        REFERENCES public.posto (codice_volo, posto) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+CREATE OR REPLACE FUNCTION public.prenota(
+    p_codice_volo character varying,
+    p_numero_biglietto character varying,
+    p_posto character varying,
+    p_stato character varying,
+    p_username character varying,
+    p_nome character varying,
+    p_cognome character varying,
+    p_numero_documento character varying,
+    p_codici_bagaglio character varying[],
+    p_stati_bagaglio character varying[])
+    RETURNS TABLE (id_prenotazione integer, id_passeggero integer, posto character varying)
+    LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_id_passeggero integer;
+    v_id_prenotazione integer;
+    v_posto character varying;
+BEGIN
+    IF p_posto IS NULL THEN
+        SELECT ps.posto INTO v_posto
+        FROM public.posto ps
+        WHERE ps.codice_volo = p_codice_volo AND ps.occupato = FALSE
+          AND NOT EXISTS (SELECT 1
+                          FROM public.blocco_posto bp
+                          WHERE bp.codice_volo = ps.codice_volo AND bp.posto = ps.posto
+                            AND bp.scadenza > now() AND bp.titolare <> p_username)
+        ORDER BY length(ps.posto), ps.posto
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED;
+        IF v_posto IS NULL THEN
+            RAISE EXCEPTION 'Nessun posto libero sul volo %', p_codice_volo;
+        END IF;
+    ELSE
+        v_posto := p_posto;
+    END IF;
+
+    UPDATE public.posto ps
+    SET occupato = TRUE
+    WHERE ps.codice_volo = p_codice_volo AND ps.posto = v_posto AND ps.occupato = FALSE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Impossibile occupare il posto %: già occupato o non esistente', v_posto;
+    END IF;
+
+    -- Verificato dopo aver bloccato la riga del posto, così da vedere anche i blocchi appena registrati
+    IF p_posto IS NOT NULL AND EXISTS (SELECT 1
+                                       FROM public.blocco_posto bp
+                                       WHERE bp.codice_volo = p_codice_volo AND bp.posto = v_posto
+                                         AND bp.scadenza > now() AND bp.titolare <> p_username) THEN
+        RAISE EXCEPTION 'Il posto % è temporaneamente bloccato da un altro utente', v_posto;
+    END IF;
+
+    DELETE FROM public.blocco_posto bp
+    WHERE bp.codice_volo = p_codice_volo AND bp.posto = v_posto;
+
+    SELECT pa.id_passeggero INTO v_id_passeggero
+    FROM public.passeggero pa
+    WHERE pa.numero_documento = p_numero_documento;
+
+    IF v_id_passeggero IS NULL THEN
+        INSERT INTO public.passeggero (nome, cognome, numero_documento)
+        VALUES (p_nome, p_cognome, p_numero_documento)
+        ON CONFLICT (numero_documento) DO NOTHING
+        RETURNING passeggero.id_passeggero INTO v_id_passeggero;
+
+        -- Inserito nel frattempo da una transazione concorrente
+        IF v_id_passeggero IS NULL THEN
+            SELECT pa.id_passeggero INTO v_id_passeggero
+            FROM public.passeggero pa
+            WHERE pa.numero_documento = p_numero_documento;
+        END IF;
+    END IF;
+
+    INSERT INTO public.prenotazione (codice_volo, id_passeggero, numero_biglietto, posto, stato, username)
+    VALUES (p_codice_volo, v_id_passeggero, p_numero_biglietto, v_posto, p_stato, p_username)
+    RETURNING prenotazione.id_prenotazione INTO v_id_prenotazione;
+
+    INSERT INTO public.bagaglio (codice, stato, id_prenotazione)
+    SELECT b.codice, b.stato, v_id_prenotazione
+    FROM unnest(p_codici_bagaglio, p_stati_bagaglio) AS b(codice, stato);
+
+    id_prenotazione := v_id_prenotazione;
+    id_passeggero := v_id_passeggero;
+    posto := v_posto;
+    RETURN NEXT;
+END;
+$$;
@@ -0,0 +1,121 @@
+-- Mappa dei posti di ogni volo in formato bitmap.
+-- mappa_posti contiene una riga per volo con due bitmap bytea: i posti esistenti e i posti occupati.
+-- Il bit i corrisponde al posto di indice (fila - 1) * 6 + colonna (colonna 0 per la lettera A,
+-- 6 posti per fila come in ImplementazionePostgresDao.POSTI_PER_FILA) ed è numerato come in set_bit:
+-- bit meno significativo del primo byte per primo, lo stesso ordine di java.util.BitSet.valueOf.
+-- La tabella posto resta la fonte dei dati e la destinazione di fk_prenotazione_posto: i trigger
+-- sotto mantengono la bitmap allineata a ogni modifica di posto, nella stessa transazione, così che
+-- la mappa dei posti si legga con un'unica riga. Il cambio di stato di un posto aggiorna il solo bit
+-- interessato con set_bit; inserimenti, cancellazioni e cambi di chiave ricalcolano la mappa dei voli coinvolti.
+
+CREATE FUNCTION public.indice_posto(p_posto character varying) RETURNS integer
+    LANGUAGE sql IMMUTABLE STRICT
+AS $$
+    SELECT (substring(p_posto FROM '^[0-9]+')::integer - 1) * 6 + (ascii(upper(right(p_posto, 1))) - 65)
+$$;
+
+CREATE FUNCTION public.bitmap_da_indici(p_indici integer[], p_lunghezza integer) RETURNS bytea
+    LANGUAGE plpgsql IMMUTABLE
+AS $$
+DECLARE
+    v_bitmap bytea := decode(repeat('00', (coalesce(p_lunghezza, 0) + 7) / 8), 'hex');
+    v_indice integer;
+BEGIN
+    FOREACH v_indice IN ARRAY coalesce(p_indici, '{}'::integer[]) LOOP
+        v_bitmap := set_bit(v_bitmap, v_indice, 1);
+    END LOOP;
+    RETURN v_bitmap;
+END;
+$$;
+
+CREATE TABLE public.mappa_posti (
+    codice_volo character varying(10) NOT NULL,
+    esistenti bytea NOT NULL,
+    occupati bytea NOT NULL,
+    CONSTRAINT mappa_posti_pkey PRIMARY KEY (codice_volo),
+    CONSTRAINT fk_mappa_posti_volo FOREIGN KEY (codice_volo)
+        REFERENCES public.volo (codice) ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+CREATE FUNCTION public.ricalcola_mappa_posti(p_codici character varying[]) RETURNS void
+    LANGUAGE sql
+AS $$
+    INSERT INTO public.mappa_posti (codice_volo, esistenti, occupati)
+    SELECT v.codice,
+           public.bitmap_da_indici(array_agg(public.indice_posto(p.posto)) FILTER (WHERE p.posto IS NOT NULL),
+                                   max(public.indice_posto(p.posto)) + 1),
+           public.bitmap_da_indici(array_agg(public.indice_posto(p.posto)) FILTER (WHERE p.occupato),
+                                   max(public.indice_posto(p.posto)) + 1)
+    FROM public.volo v
+    LEFT JOIN public.posto p ON p.codice_volo = v.codice
+    WHERE v.codice = ANY (p_codici)
+    GROUP BY v.codice
+    ON CONFLICT (codice_volo) DO UPDATE
+        SET esistenti = EXCLUDED.esistenti, occupati = EXCLUDED.occupati;
+$$;
+
+CREATE FUNCTION public.mappa_posti_inserimento() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM public.ricalcola_mappa_posti(ARRAY(SELECT DISTINCT n.codice_volo FROM nuovi n));
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION public.mappa_posti_cancellazione() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM public.ricalcola_mappa_posti(ARRAY(SELECT DISTINCT o.codice_volo FROM vecchi o));
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION public.mappa_posti_aggiornamento() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_riga record;
+BEGIN
+    -- Cambio di stato di posti esistenti: aggiornamento del singolo bit
+    FOR v_riga IN
+        SELECT n.codice_volo, public.indice_posto(n.posto) AS indice, n.occupato
+        FROM nuovi n
+        JOIN vecchi o ON o.codice_volo = n.codice_volo AND o.posto = n.posto
+        WHERE n.occupato IS DISTINCT FROM o.occupato
+        ORDER BY n.codice_volo, n.posto
+    LOOP
+        UPDATE public.mappa_posti m
+        SET occupati = set_bit(m.occupati, v_riga.indice, CASE WHEN v_riga.occupato THEN 1 ELSE 0 END)
+        WHERE m.codice_volo = v_riga.codice_volo;
+    END LOOP;
+
+    -- Cambio di chiave (volo o etichetta): ricalcolo dei voli coinvolti
+    PERFORM public.ricalcola_mappa_posti(ARRAY(
+        SELECT n.codice_volo FROM nuovi n
+        WHERE NOT EXISTS (SELECT 1 FROM vecchi o WHERE o.codice_volo = n.codice_volo AND o.posto = n.posto)
+        UNION
+        SELECT o.codice_volo FROM vecchi o
+        WHERE NOT EXISTS (SELECT 1 FROM nuovi n WHERE n.codice_volo = o.codice_volo AND n.posto = o.posto)));
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_mappa_posti_inserimento
+    AFTER INSERT ON public.posto
+    REFERENCING NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_inserimento();
+
+CREATE TRIGGER trg_mappa_posti_cancellazione
+    AFTER DELETE ON public.posto
+    REFERENCING OLD TABLE AS vecchi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_cancellazione();
+
+CREATE TRIGGER trg_mappa_posti_aggiornamento
+    AFTER UPDATE ON public.posto
+    REFERENCING OLD TABLE AS vecchi NEW TABLE AS nuovi
+    FOR EACH STATEMENT EXECUTE FUNCTION public.mappa_posti_aggiornamento();
+
+-- Migrazione dei posti esistenti
+SELECT public.ricalcola_mappa_posti(ARRAY(SELECT v.codice FROM public.volo v));
@@ -0,0 +1,57 @@
+-- Notifiche delle modifiche per l'allineamento delle altre istanze dell'applicativo.
+-- Ogni modifica di volo, prenotazione, posto e bagaglio invia sul canale aeroporto_modifiche un
+-- messaggio nel formato tabella|operazione|codice_volo|numero_biglietto|codice_bagaglio (campi non
+-- pertinenti vuoti). Le notifiche vengono consegnate al commit e PostgreSQL scarta quelle identiche
+-- inviate nella stessa transazione: la generazione dei posti di un volo produce una sola notifica.
+
+CREATE FUNCTION public.notifica_modifica() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_riga jsonb;
+    v_codice_volo text;
+    v_numero_biglietto text;
+    v_codice_bagaglio text;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        v_riga := to_jsonb(OLD);
+    ELSE
+        v_riga := to_jsonb(NEW);
+    END IF;
+
+    CASE TG_TABLE_NAME
+        WHEN 'volo' THEN
+            v_codice_volo := v_riga ->> 'codice';
+        WHEN 'bagaglio' THEN
+            v_codice_bagaglio := v_riga ->> 'codice';
+            SELECT p.codice_volo, p.numero_biglietto INTO v_codice_volo, v_numero_biglietto
+            FROM public.prenotazione p
+            WHERE p.id_prenotazione = (v_riga ->> 'id_prenotazione')::integer;
+        WHEN 'prenotazione' THEN
+            v_codice_volo := v_riga ->> 'codice_volo';
+            v_numero_biglietto := v_riga ->> 'numero_biglietto';
+        ELSE
+            v_codice_volo := v_riga ->> 'codice_volo';
+    END CASE;
+
+    PERFORM pg_notify('aeroporto_modifiche', format('%s|%s|%s|%s|%s',
+            TG_TABLE_NAME, TG_OP, v_codice_volo, v_numero_biglietto, v_codice_bagaglio));
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_notifica_volo
+    AFTER INSERT OR UPDATE OR DELETE ON public.volo
+    FOR EACH ROW EXECUTE FUNCTION public.notifica_modifica();
+
+CREATE TRIGGER trg_notifica_prenotazione
+    AFTER INSERT OR UPDATE OR DELETE ON public.prenotazione
+    FOR EACH ROW EXECUTE FUNCTION public.notifica_modifica();
+
+CREATE TRIGGER trg_notifica_posto
+    AFTER INSERT OR UPDATE OR DELETE ON public.posto
+    FOR EACH ROW EXECUTE FUNCTION public.notifica_modifica();
+
+CREATE TRIGGER trg_notifica_bagaglio
+    AFTER INSERT OR UPDATE OR DELETE ON public.bagaglio
+    FOR EACH ROW EXECUTE FUNCTION public.notifica_modifica();
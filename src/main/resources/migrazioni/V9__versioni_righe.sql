@@ -0,0 +1,77 @@
+-- Versioni delle righe per l'aggiornamento incrementale delle tabelle dell'applicativo.
+-- Ogni riga di volo, posto, prenotazione, passeggero e bagaglio registra nella colonna versione
+-- l'identificativo (xid8) dell'ultima transazione che l'ha inserita o modificata; le cancellazioni
+-- di voli e prenotazioni vengono registrate in riga_cancellata.
+-- Un client che ha letto i dati quando il minimo xid ancora in corso era X (pg_snapshot_xmin) rilegge
+-- le righe con versione >= X: comprende così anche le transazioni che erano in corso durante la lettura
+-- e che hanno fatto commit dopo, al costo di rileggere qualche riga già vista.
+
+CREATE FUNCTION public.aggiorna_versione() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.versione := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$;
+
+ALTER TABLE public.volo ADD COLUMN versione xid8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE public.posto ADD COLUMN versione xid8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE public.prenotazione ADD COLUMN versione xid8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE public.passeggero ADD COLUMN versione xid8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE public.bagaglio ADD COLUMN versione xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE TRIGGER trg_versione_volo
+    BEFORE UPDATE ON public.volo
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_versione();
+
+CREATE TRIGGER trg_versione_posto
+    BEFORE UPDATE ON public.posto
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_versione();
+
+CREATE TRIGGER trg_versione_prenotazione
+    BEFORE UPDATE ON public.prenotazione
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_versione();
+
+CREATE TRIGGER trg_versione_passeggero
+    BEFORE UPDATE ON public.passeggero
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_versione();
+
+CREATE TRIGGER trg_versione_bagaglio
+    BEFORE UPDATE ON public.bagaglio
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_versione();
+
+-- Voli modificati e voli i cui posti sono cambiati (posti disponibili).
+CREATE INDEX IF NOT EXISTS idx_volo_versione ON public.volo USING btree (versione);
+CREATE INDEX IF NOT EXISTS idx_posto_versione ON public.posto USING btree (versione);
+
+-- Prenotazioni di un utente.
+CREATE INDEX IF NOT EXISTS idx_prenotazione_username ON public.prenotazione USING btree (username);
+
+-- Cancellazioni, rare: l'applicativo annulla le prenotazioni cambiandone lo stato e non cancella voli.
+CREATE TABLE public.riga_cancellata (
+    tabella character varying(20) NOT NULL,
+    chiave character varying(20) NOT NULL,
+    versione xid8 NOT NULL DEFAULT pg_current_xact_id()
+);
+
+CREATE INDEX idx_riga_cancellata_versione ON public.riga_cancellata USING btree (tabella, versione);
+
+-- Il nome della colonna chiave è passato come argomento del trigger.
+CREATE FUNCTION public.registra_cancellazione() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO public.riga_cancellata (tabella, chiave)
+    VALUES (TG_TABLE_NAME, to_jsonb(OLD) ->> TG_ARGV[0]);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_cancellazione_volo
+    AFTER DELETE ON public.volo
+    FOR EACH ROW EXECUTE FUNCTION public.registra_cancellazione('codice');
+
+CREATE TRIGGER trg_cancellazione_prenotazione
+    AFTER DELETE ON public.prenotazione
+    FOR EACH ROW EXECUTE FUNCTION public.registra_cancellazione('numero_biglietto');